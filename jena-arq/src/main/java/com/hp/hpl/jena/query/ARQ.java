@@ -233,7 +233,7 @@ public class ARQ
      * choosing the value.
      * <p/>
      * Operations currently affected by this symbol: <br/>
-     * ORDER BY, SPARQL Update, CONSTRUCT (optionally)
+     * ORDER BY, GROUP BY, SPARQL Update, CONSTRUCT (optionally), hash joins
      * <p/>
      * TODO: Give a reasonable suggested value here.  10,000?
      * <p/>
@@ -241,7 +241,7 @@ public class ARQ
      */
     // Some possible additions to the list:
     // Sort: DISTINCT, merge joins<br/>
-    // Hash table: GROUP BY, MINUS, SERVICE, VALUES, and hash joins <br/>
+    // Hash table: MINUS, SERVICE, VALUES <br/>
     public static final Symbol spillToDiskThreshold = ARQConstants.allocSymbol("spillToDiskThreshold") ;
     
     // Optimizer controls.
@@ -301,6 +301,13 @@ public class ARQ
      */  
     public static final Symbol optTopNSorting = ARQConstants.allocSymbol("optTopNSorting") ;
     
+    /** 
+     *  Context key controlling whether a join or left join that can not be done by substitution
+     *  is executed as a hash join on the variables common to both sides.
+     *  Default is "true" - the alternative is a nested loop over the materialized right hand side.
+     */  
+    public static final Symbol optHashJoin = ARQConstants.allocSymbol("optHashJoin") ;
+    
     /** 
      *  Context key controlling whether a DISTINCT-ORDER BY query is done by replacing the distinct with a reduced.
      *  Default is "true" - the reduced operator does not need to keep a data structure with all previously seen bindings.
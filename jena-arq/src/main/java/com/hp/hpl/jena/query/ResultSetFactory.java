@@ -103,6 +103,9 @@ public class ResultSetFactory {
         if (format.equals(ResultsFormat.FMT_RS_BIO))
             return BIOInput.fromBIO(input);
 
+        if (format.equals(ResultsFormat.FMT_RS_BINARY))
+            return BinaryInput.fromBinary(input);
+
         if (format.equals(ResultsFormat.FMT_RS_XML))
             return ResultSetFactory.fromXML(input);
 
@@ -263,7 +266,8 @@ public class ResultSetFactory {
         }
 
         if (format.equals(ResultsFormat.FMT_RS_XML) || format.equals(ResultsFormat.FMT_RS_JSON)
-            || format.equals(ResultsFormat.FMT_RS_TSV) || format.equals(ResultsFormat.FMT_RS_CSV)) {
+            || format.equals(ResultsFormat.FMT_RS_TSV) || format.equals(ResultsFormat.FMT_RS_CSV)
+            || format.equals(ResultsFormat.FMT_RS_BIO) || format.equals(ResultsFormat.FMT_RS_BINARY)) {
             InputStream in = null;
             try {
                 in = FileManager.get().open(filenameOrURI);
@@ -288,6 +292,9 @@ public class ResultSetFactory {
             } else if (format.equals(ResultsFormat.FMT_RS_BIO)) {
                 ResultSet rs = BIOInput.fromBIO(in);
                 return new SPARQLResult(rs);
+            } else if (format.equals(ResultsFormat.FMT_RS_BINARY)) {
+                ResultSet rs = BinaryInput.fromBinary(in);
+                return new SPARQLResult(rs);
             }
         }
 
@@ -358,6 +365,17 @@ public class ResultSetFactory {
         return TSVInput.fromTSV(in);
     }
 
+    /**
+     * Read from an input stream which is the binary RDF result set format.
+     * 
+     * @param in
+     *            InputStream
+     * @return ResultSet
+     */
+    public static ResultSet fromBinary(InputStream in) {
+        return BinaryInput.fromBinary(in);
+    }
+
     /**
      * Read from an input stream which is the format of the SPARQL result set
      * format in SSE.
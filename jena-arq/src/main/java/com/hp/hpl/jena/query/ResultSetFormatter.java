@@ -39,6 +39,7 @@ import com.hp.hpl.jena.sparql.core.Var ;
 import com.hp.hpl.jena.sparql.engine.binding.Binding ;
 import com.hp.hpl.jena.sparql.engine.binding.BindingOutputStream ;
 import com.hp.hpl.jena.sparql.engine.binding.BindingUtils ;
+import com.hp.hpl.jena.sparql.resultset.BinaryOutput ;
 import com.hp.hpl.jena.sparql.resultset.CSVOutput ;
 import com.hp.hpl.jena.sparql.resultset.JSONOutput ;
 import com.hp.hpl.jena.sparql.resultset.RDFOutput ;
@@ -335,6 +336,12 @@ public class ResultSetFormatter
             return ;
         }
 
+        if ( rFmt.equals(ResultsFormat.FMT_RS_BINARY) )
+        {
+            outputAsBinary(outStream, resultSet);
+            return ;
+        }
+
         if ( rFmt.equals(ResultsFormat.FMT_RS_JSON) )
         {
             outputAsJSON(outStream, resultSet) ;
@@ -775,5 +782,19 @@ public class ResultSetFormatter
         bout.flush() ;
     }
 
+    /** Output a result set in the binary RDF format */
+    public static void outputAsBinary(OutputStream out, ResultSet results)
+    {
+        BinaryOutput fmt = new BinaryOutput() ;
+        fmt.format(out, results) ;
+    }
+
+    /** Output a boolean result in the binary RDF format */
+    public static void outputAsBinary(OutputStream out, boolean booleanResult)
+    {
+        BinaryOutput fmt = new BinaryOutput() ;
+        fmt.format(out, booleanResult) ;
+    }
+
     
 }
@@ -95,6 +95,22 @@ public class Service {
      */
     public static final Symbol queryTimeout = ARQConstants.allocSymbol(base, "queryTimeout");
 
+    /**
+     * Number of solutions sent to the remote endpoint in one request, as a
+     * VALUES block (a bind join). The default, 1, sends one request per
+     * solution. The value is a Number or a string.
+     * <p>
+     * The endpoint must understand SPARQL 1.1 VALUES; the setting can be
+     * given for one endpoint only with {@link #serviceContext}.
+     */
+    public static final Symbol queryBatchSize = ARQConstants.allocSymbol(base, "queryBatchSize");
+
+    /**
+     * Number of batches of solutions (see {@link #queryBatchSize}) that may be
+     * sent to the remote endpoint at the same time. Default 1.
+     */
+    public static final Symbol queryBatchThreads = ARQConstants.allocSymbol(base, "queryBatchThreads");
+
     /**
      * Executes a service operator
      * 
@@ -209,16 +225,7 @@ public class Service {
      */
     private static HttpQuery configureQuery(String uri, Context parentContext, Query query) {
         HttpQuery httpQuery = new HttpQuery(uri);
-        Context context = new Context(parentContext);
-
-        // add the context settings from the service context
-        @SuppressWarnings("unchecked")
-        Map<String, Context> serviceContextMap = (Map<String, Context>) context.get(serviceContext);
-        if (serviceContextMap != null) {
-            Context serviceContext = serviceContextMap.get(uri);
-            if (serviceContext != null)
-                context.putAll(serviceContext);
-        }
+        Context context = contextFor(uri, parentContext);
 
         // configure the query object.
         httpQuery.merge(QueryEngineHTTP.getServiceParams(uri, context));
@@ -241,6 +248,30 @@ public class Service {
         return httpQuery;
     }
 
+    /**
+     * The context used for calls to a service: a copy of the parent context
+     * with any settings for the service from {@link #serviceContext} added.
+     * 
+     * @param uri
+     *            The uri of the endpoint
+     * @param parentContext
+     *            The initial context; it is not modified.
+     * @return The context for the service.
+     */
+    public static Context contextFor(String uri, Context parentContext) {
+        Context context = new Context(parentContext);
+
+        // add the context settings from the service context
+        @SuppressWarnings("unchecked")
+        Map<String, Context> serviceContextMap = (Map<String, Context>) context.get(serviceContext);
+        if (serviceContextMap != null) {
+            Context serviceContext = serviceContextMap.get(uri);
+            if (serviceContext != null)
+                context.putAll(serviceContext);
+        }
+        return context;
+    }
+
     /**
      * Modified from QueryExecutionBase
      * 
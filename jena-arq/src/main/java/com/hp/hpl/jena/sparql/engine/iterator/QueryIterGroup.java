@@ -23,10 +23,17 @@ import java.util.Collection ;
 import java.util.Iterator ;
 import java.util.List ;
 
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.DataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyCount ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.IteratorConcat ;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization ;
 import org.apache.jena.atlas.lib.MultiMap ;
 import org.apache.jena.atlas.lib.Pair ;
+import org.openjena.riot.SerializationFactoryFinder ;
 
 import com.hp.hpl.jena.graph.Node ;
 import com.hp.hpl.jena.sparql.core.Var ;
@@ -40,9 +47,22 @@ import com.hp.hpl.jena.sparql.expr.ExprAggregator ;
 import com.hp.hpl.jena.sparql.expr.NodeValue ;
 import com.hp.hpl.jena.sparql.expr.aggregate.Accumulator ;
 
+/**
+ * GROUP BY and aggregation.
+ * <p>
+ * Groups are accumulated in memory. If the number of groups passes the spill
+ * threshold ({@link com.hp.hpl.jena.query.ARQ#spillToDiskThreshold}), the groups
+ * already in memory continue to be accumulated but rows for any new group are
+ * written to disk, partitioned by hash of the group key. Each partition is
+ * then aggregated on its own after the in-memory groups have been returned.
+ * All the rows of a group are in one partition so no group is split across
+ * partitions and partial aggregation states never need to be combined.
+ */
 public class QueryIterGroup extends QueryIterPlainWrapper
 {
 	private final QueryIterator embeddedIterator;
+	// Spill files, if any.
+	final List<DataBag<Binding>> bags = new ArrayList<DataBag<Binding>>() ;
 
 	public QueryIterGroup(QueryIterator qIter, 
                           VarExprList groupVars,
@@ -51,7 +71,7 @@ public class QueryIterGroup extends QueryIterPlainWrapper
     {
         super(null, execCxt) ;
         this.embeddedIterator = qIter;
-        Iterator<Binding> iter = calc(qIter, groupVars, aggregators, execCxt) ;
+        Iterator<Binding> iter = calc(qIter, groupVars, aggregators, bags, execCxt) ;
         setIterator(iter) ;
     }
 
@@ -62,6 +82,20 @@ public class QueryIterGroup extends QueryIterPlainWrapper
 	    super.requestCancel() ;
 	}
 	
+	@Override
+	protected void closeIterator()
+	{
+	    super.closeIterator() ;
+	    for ( DataBag<Binding> bag : bags )
+	        bag.close() ;
+	    bags.clear() ;
+	}
+	
+    /** Number of partitions used each time the grouping spills to disk */
+    public static final int NumPartitions = 32 ;
+    // Partitions are themselves partitioned if necessary, down to this depth.
+    private static final int MaxSpillDepth = 4 ;
+	
     // Phase 1 : Consume the input iterator, assigning groups (keys) 
     //           and push rows through the aggregator function. 
     
@@ -72,6 +106,7 @@ public class QueryIterGroup extends QueryIterPlainWrapper
     
     private static Iterator<Binding> calc(final QueryIterator iter, 
                                           final VarExprList groupVarExpr, final List<ExprAggregator> aggregators,
+                                          final List<DataBag<Binding>> bags,
                                           final ExecutionContext execCxt)
     {
         return new IteratorDelayedInitialization<Binding>() {
@@ -82,36 +117,7 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 
                 // Phase 1 : assign bindings to buckets by key and pump through the aggregrators.
                 MultiMap<Binding, Pair<Var, Accumulator>> accumulators = MultiMap.createMapList() ;
-
-                for ( ; iter.hasNext() ; )
-                {
-                    Binding b = iter.nextBinding() ;
-                    Binding key = genKey(groupVarExpr, b, execCxt) ;
-
-                    if ( noAggregators )
-                    {
-                        // Put in a dummy to remember the input.
-                        accumulators.put(key, placeholder ) ;
-                        continue ;
-                    }
-
-                    Collection<Pair<Var, Accumulator>> accs = accumulators.get(key) ;
-                    // Create if does not exist.
-                    if ( accs == null )
-                    {
-                        for ( ExprAggregator agg : aggregators )
-                        {
-                            Accumulator x = agg.getAggregator().createAccumulator() ;
-                            Var v = agg.getVar() ;
-                            accumulators.put(key, Pair.create(v, x)) ;
-                        }
-                        accs = accumulators.get(key) ;
-                    }
-
-                    // Do the per-accumulator calculation.
-                    for ( Pair<Var, Accumulator> pair : accs )
-                        pair.getRight().accumulate(b, execCxt) ;
-                }
+                List<DataBag<Binding>> partitions = accumulate(iter, 0, accumulators, groupVarExpr, aggregators, bags, execCxt) ;
 
                 // Phase 2 : Empty input
                 // has as iter.hasNext false at start.
@@ -120,6 +126,7 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 //   If there are no aggregators, there are no groups.
                 //   If there are aggregators, then they may have a default value. 
 
+                // Rows only go to disk when there are groups in memory.
                 if ( accumulators.isEmpty() )
                 {
                     if ( noAggregators )
@@ -148,35 +155,157 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 }
 
                 // Phase 2 : There was input and so there are some groups.
-                // For each bucket, get binding, add aggregator values to the binding.
-                // We used AccNull so there are always accumulators. 
-                
-                if ( noAggregators )
-                    // We used placeholder so there are always the key. 
-                    return accumulators.keys().iterator() ;
-                
-                List<Binding> results = new ArrayList<Binding>() ;
+                return results(accumulators, partitions, 0, groupVarExpr, aggregators, bags, execCxt) ;
+            }
+        };
+    }
 
-                for ( Binding k : accumulators.keys() )
+    /** Accumulate the input. Rows are accumulated in memory until the number of groups
+     *  passes the threshold, after which rows of new groups are written to partitions
+     *  on disk. Returns the partitions, or null if nothing was written to disk.
+     */
+    private static List<DataBag<Binding>> accumulate(Iterator<Binding> iter, int depth,
+                                                     MultiMap<Binding, Pair<Var, Accumulator>> accumulators,
+                                                     VarExprList groupVarExpr, List<ExprAggregator> aggregators,
+                                                     List<DataBag<Binding>> bags,
+                                                     ExecutionContext execCxt)
+    {
+        boolean noAggregators =  ( aggregators == null || aggregators.size() == 0 ) ;
+        ThresholdPolicy<Binding> policy = ( depth < MaxSpillDepth )
+            ? ThresholdPolicyFactory.<Binding>policyFromContext(execCxt.getContext())
+            : ThresholdPolicyFactory.<Binding>never() ;
+        List<DataBag<Binding>> partitions = null ;
+        
+        for ( ; iter.hasNext() ; )
+        {
+            Binding b = iter.next() ;
+            Binding key = genKey(groupVarExpr, b, execCxt) ;
+
+            Collection<Pair<Var, Accumulator>> accs = accumulators.get(key) ;
+            if ( accs == null )
+            {
+                // New group.
+                if ( policy.isThresholdExceeded() && ! accumulators.isEmpty() )
                 {
-                    Collection<Pair<Var, Accumulator>> accs = accumulators.get(k) ;
-                    BindingMap b = BindingFactory.create(k) ;
-                    
-                    for ( Pair<Var, Accumulator> pair : accs )
-                    {
-                        Var v = pair.getLeft() ;
-                        NodeValue value = pair.getRight().getValue() ;
-                        Node n = (value==null) ? null : value.asNode() ;
-                        if ( v == null || n == null )
-                        {} 
-                        else
-                            b.add(v, n) ;
-                    }
-                    results.add(b) ;
+                    if ( partitions == null )
+                        partitions = newPartitions(policy, bags) ;
+                    partitions.get(partitionOf(key, depth)).add(b) ;
+                    continue ;
                 }
-                return results.iterator() ;
+                policy.increment(key) ;
             }
-        };
+
+            if ( noAggregators )
+            {
+                // Put in a dummy to remember the input.
+                if ( accs == null )
+                    accumulators.put(key, placeholder ) ;
+                continue ;
+            }
+
+            // Create if does not exist.
+            if ( accs == null )
+            {
+                for ( ExprAggregator agg : aggregators )
+                {
+                    Accumulator x = agg.getAggregator().createAccumulator() ;
+                    Var v = agg.getVar() ;
+                    accumulators.put(key, Pair.create(v, x)) ;
+                }
+                accs = accumulators.get(key) ;
+            }
+
+            // Do the per-accumulator calculation.
+            for ( Pair<Var, Accumulator> pair : accs )
+                pair.getRight().accumulate(b, execCxt) ;
+        }
+        return partitions ;
+    }
+
+    private static List<DataBag<Binding>> newPartitions(ThresholdPolicy<Binding> policy, List<DataBag<Binding>> bags)
+    {
+        // Share the in-memory allowance between the partitions.
+        long threshold = 0 ;
+        if ( policy instanceof ThresholdPolicyCount<?> )
+            threshold = ((ThresholdPolicyCount<?>)policy).getThreshold() / NumPartitions ;
+        List<DataBag<Binding>> partitions = new ArrayList<DataBag<Binding>>(NumPartitions) ;
+        for ( int i = 0 ; i < NumPartitions ; i++ )
+        {
+            ThresholdPolicy<Binding> bagPolicy = ThresholdPolicyFactory.count(threshold) ;
+            DataBag<Binding> bag = BagFactory.newDefaultBag(bagPolicy, SerializationFactoryFinder.bindingSerializationFactory()) ;
+            partitions.add(bag) ;
+            bags.add(bag) ;
+        }
+        return partitions ;
+    }
+
+    private static int partitionOf(Binding key, int depth)
+    {
+        // A different split at each depth.
+        int h = key.hashCode() * (0x9E3779B9 + 2*depth) ;
+        return (h >>> 16) % NumPartitions ;
+    }
+
+    /** The results: the groups in memory then, one partition at a time, the groups on disk. */
+    private static Iterator<Binding> results(MultiMap<Binding, Pair<Var, Accumulator>> accumulators,
+                                             List<DataBag<Binding>> partitions, final int depth,
+                                             final VarExprList groupVarExpr, final List<ExprAggregator> aggregators,
+                                             final List<DataBag<Binding>> bags,
+                                             final ExecutionContext execCxt)
+    {
+        Iterator<Binding> results = results(accumulators, aggregators) ;
+        if ( partitions == null )
+            return results ;
+        
+        IteratorConcat<Binding> iter = new IteratorConcat<Binding>() ;
+        iter.add(results) ;
+        for ( final DataBag<Binding> partition : partitions )
+        {
+            iter.add(new IteratorDelayedInitialization<Binding>() {
+                @Override
+                protected Iterator<Binding> initializeIterator() {
+                    // The group key is recalculated from the row.
+                    MultiMap<Binding, Pair<Var, Accumulator>> accumulators = MultiMap.createMapList() ;
+                    List<DataBag<Binding>> subPartitions = accumulate(partition.iterator(), depth+1, accumulators, groupVarExpr, aggregators, bags, execCxt) ;
+                    partition.close() ;
+                    return QueryIterGroup.results(accumulators, subPartitions, depth+1, groupVarExpr, aggregators, bags, execCxt) ;
+                }
+            }) ;
+        }
+        return iter ;
+    }
+
+    private static Iterator<Binding> results(MultiMap<Binding, Pair<Var, Accumulator>> accumulators, List<ExprAggregator> aggregators)
+    {
+        boolean noAggregators =  ( aggregators == null || aggregators.size() == 0 ) ;
+
+        // For each bucket, get binding, add aggregator values to the binding.
+        // We used AccNull so there are always accumulators. 
+        
+        if ( noAggregators )
+            // We used placeholder so there are always the key. 
+            return accumulators.keys().iterator() ;
+        
+        List<Binding> results = new ArrayList<Binding>() ;
+
+        for ( Binding k : accumulators.keys() )
+        {
+            Collection<Pair<Var, Accumulator>> accs = accumulators.get(k) ;
+            BindingMap b = BindingFactory.create(k) ;
+            
+            for ( Pair<Var, Accumulator> pair : accs )
+            {
+                Var v = pair.getLeft() ;
+                NodeValue value = pair.getRight().getValue() ;
+                Node n = (value==null) ? null : value.asNode() ;
+                if ( v == null || n == null )
+                {} 
+                else
+                    b.add(v, n) ;
+            }
+            results.add(b) ;
+        }
+        return results.iterator() ;
     }
     
     static private Binding genKey(VarExprList vars, Binding binding, ExecutionContext execCxt) 
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.main;
+
+import java.util.ArrayList ;
+import java.util.Collection ;
+import java.util.Collections ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.Set ;
+
+import org.apache.jena.atlas.lib.SetUtils ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.sparql.algebra.Op ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+
+/** The variables used to hash one side of a join so the other side can probe it.
+ *  <p>
+ *  The key variables are the variables that both sides of the join define
+ *  as fixed (see {@link VarFinder}). A fixed variable is usually, but not always,
+ *  bound (e.g. a UNION with the variable on only one branch) so
+ *  {@link #keyOf(Binding)} returns null for a row with a missing key variable
+ *  and such rows must be treated as compatible with every row of the other side.
+ */
+public final class JoinKey implements Iterable<Var>
+{
+    private static final JoinKey empty = new JoinKey(Collections.<Var>emptyList()) ;
+
+    private final List<Var> vars ;
+
+    /** The join key for a join of left and right */
+    public static JoinKey create(Op left, Op right) {
+        Set<Var> vLeft = VarFinder.fixed(left) ;
+        Set<Var> vRight = VarFinder.fixed(right) ;
+        Set<Var> common = SetUtils.intersection(vLeft, vRight) ;
+        return create(common) ;
+    }
+
+    /** A join key of the given variables */
+    public static JoinKey create(Collection<Var> vars) {
+        if ( vars.isEmpty() )
+            return empty ;
+        return new JoinKey(new ArrayList<Var>(vars)) ;
+    }
+
+    private JoinKey(List<Var> vars) {
+        this.vars = vars ;
+    }
+
+    /** No variables - hashing is not possible */
+    public boolean isEmpty()    { return vars.isEmpty() ; }
+
+    public int size()           { return vars.size() ; }
+
+    @Override
+    public Iterator<Var> iterator() {
+        return Collections.unmodifiableList(vars).iterator() ;
+    }
+
+    /**
+     * Get the key value for a binding: the node for a single variable key, a
+     * list of nodes otherwise. Returns null if any of the key variables is not
+     * bound.
+     */
+    public Object keyOf(Binding binding) {
+        if ( vars.size() == 1 )
+            return binding.get(vars.get(0)) ;
+        List<Node> x = new ArrayList<Node>(vars.size()) ;
+        for ( Var v : vars ) {
+            Node n = binding.get(v) ;
+            if ( n == null )
+                return null ;
+            x.add(n) ;
+        }
+        return x ;
+    }
+
+    @Override
+    public String toString() {
+        return "JoinKey"+vars ;
+    }
+}
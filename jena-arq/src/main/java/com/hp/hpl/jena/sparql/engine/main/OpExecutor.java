@@ -39,17 +39,22 @@ import com.hp.hpl.jena.sparql.core.Var ;
 import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
 import com.hp.hpl.jena.sparql.engine.QueryIterator ;
 import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.http.Service ;
 import com.hp.hpl.jena.sparql.engine.iterator.* ;
 import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterGraph ;
+import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterHashJoin ;
+import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterHashLeftJoin ;
 import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterJoin ;
 import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterLeftJoin ;
 import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterOptionalIndex ;
 import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterService ;
+import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterServiceBatch ;
 import com.hp.hpl.jena.sparql.engine.main.iterator.QueryIterUnion ;
 import com.hp.hpl.jena.sparql.expr.Expr ;
 import com.hp.hpl.jena.sparql.expr.ExprList ;
 import com.hp.hpl.jena.sparql.procedure.ProcEval ;
 import com.hp.hpl.jena.sparql.procedure.Procedure ;
+import com.hp.hpl.jena.sparql.util.Context ;
 
 /**
  * Turn an Op expression into an execution of QueryIterators.
@@ -224,6 +229,13 @@ public class OpExecutor
         }
         QueryIterator left = exec(opJoin.getLeft(), input) ;
         QueryIterator right = exec(opJoin.getRight(), root()) ;
+        // Substitution is not possible (that would have been an OpSequence)
+        // so hash on the common variables if there are any.
+        if ( execCxt.getContext().isTrueOrUndef(ARQ.optHashJoin) ) {
+            JoinKey joinKey = JoinKey.create(opJoin.getLeft(), opJoin.getRight()) ;
+            if ( ! joinKey.isEmpty() )
+                return new QueryIterHashJoin(left, right, joinKey, execCxt) ;
+        }
         QueryIterator qIter = new QueryIterJoin(left, right, execCxt) ;
         return qIter ;
     }
@@ -242,6 +254,12 @@ public class OpExecutor
     protected QueryIterator execute(OpLeftJoin opLeftJoin, QueryIterator input) {
         QueryIterator left = exec(opLeftJoin.getLeft(), input) ;
         QueryIterator right = exec(opLeftJoin.getRight(), root()) ;
+        // Not safe to substitute (that would have been an OpConditional).
+        if ( execCxt.getContext().isTrueOrUndef(ARQ.optHashJoin) ) {
+            JoinKey joinKey = JoinKey.create(opLeftJoin.getLeft(), opLeftJoin.getRight()) ;
+            if ( ! joinKey.isEmpty() )
+                return new QueryIterHashLeftJoin(left, right, joinKey, opLeftJoin.getExprs(), execCxt) ;
+        }
         QueryIterator qIter = new QueryIterLeftJoin(left, right, opLeftJoin.getExprs(), execCxt) ;
         return qIter ;
     }
@@ -313,6 +331,11 @@ public class OpExecutor
     }
 
     protected QueryIterator execute(OpService opService, QueryIterator input) {
+        if ( opService.getService().isURI() ) {
+            Context cxt = Service.contextFor(opService.getService().getURI(), execCxt.getContext()) ;
+            if ( cxt.getInt(Service.queryBatchSize, 1) > 1 )
+                return new QueryIterServiceBatch(input, opService, execCxt) ;
+        }
         return new QueryIterService(input, opService, execCxt) ;
     }
 
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.IteratorConcat ;
+
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.main.JoinKey ;
+
+/** In-memory hash table of one side of a join, indexed by a {@link JoinKey}.
+ *  Rows without a value for the key are kept separately and are candidates
+ *  for every probe.
+ */
+class HashProbeTable
+{
+    private final JoinKey joinKey ;
+    private final Map<Object, List<Binding>> buckets = new HashMap<Object, List<Binding>>() ;
+    private final List<Binding> noKey = new ArrayList<Binding>() ;
+    private long size = 0 ;
+
+    HashProbeTable(JoinKey joinKey) {
+        this.joinKey = joinKey ;
+    }
+
+    void put(Binding row) {
+        put(joinKey.keyOf(row), row) ;
+    }
+
+    void put(Object key, Binding row) {
+        size++ ;
+        if ( key == null ) {
+            noKey.add(row) ;
+            return ;
+        }
+        List<Binding> bucket = buckets.get(key) ;
+        if ( bucket == null ) {
+            // Most buckets are small.
+            bucket = new ArrayList<Binding>(2) ;
+            buckets.put(key, bucket) ;
+        }
+        bucket.add(row) ;
+    }
+
+    /** The rows that may join with a row that has the given key value.
+     *  A null key means every row is a candidate. */
+    Iterator<Binding> candidates(Object key) {
+        if ( key == null )
+            return all() ;
+        List<Binding> bucket = buckets.get(key) ;
+        if ( bucket == null )
+            return noKey.iterator() ;
+        if ( noKey.isEmpty() )
+            return bucket.iterator() ;
+        return Iter.concat(bucket.iterator(), noKey.iterator()) ;
+    }
+
+    /** All the rows in the table */
+    Iterator<Binding> all() {
+        IteratorConcat<Binding> iter = new IteratorConcat<Binding>() ;
+        for ( List<Binding> bucket : buckets.values() )
+            iter.add(bucket.iterator()) ;
+        iter.add(noKey.iterator()) ;
+        return iter ;
+    }
+
+    Iterator<Binding> noKeyRows() {
+        return noKey.iterator() ;
+    }
+
+    boolean isEmpty()   { return size == 0 ; }
+
+    long size()         { return size ; }
+
+    void clear() {
+        buckets.clear() ;
+        noKey.clear() ;
+        size = 0 ;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.DataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyCount ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.IteratorConcat ;
+import org.openjena.riot.SerializationFactoryFinder ;
+
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.sparql.engine.QueryIterator ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.iterator.QueryIter2 ;
+import com.hp.hpl.jena.sparql.engine.main.JoinKey ;
+
+/** Hash join machinery.
+ *  <p>
+ *  The right hand side is read into an in-memory hash table keyed by the
+ *  {@link JoinKey} and the left hand side is then streamed, each row probing
+ *  the table for the right hand side rows it may join with.
+ *  <p>
+ *  If the right hand side passes the spill threshold
+ *  ({@link com.hp.hpl.jena.query.ARQ#spillToDiskThreshold}), the join switches
+ *  to a partitioned (Grace) hash join: both sides are split by hash of the
+ *  key into {@link DataBag}s and each partition is joined in turn with
+ *  only that partition of the right hand side in memory. Rows without a
+ *  value for the key are kept in their own {@link DataBag}s and streamed as
+ *  candidates: right rows without the key for every left row, and every
+ *  right row for each left row without the key.
+ */
+public abstract class QueryIterHashJoinBase extends QueryIter2
+{
+    /** Number of partitions used when the join spills to disk */
+    public static final int NumPartitions = 32 ;
+
+    protected final JoinKey joinKey ;
+    private final ThresholdPolicy<Binding> policy ;
+
+    private HashProbeTable table = null ;
+
+    // Partitioned mode.
+    private List<DataBag<Binding>> leftPartitions = null ;
+    private List<DataBag<Binding>> rightPartitions = null ;
+    private DataBag<Binding> leftNoKey = null ;
+    private DataBag<Binding> rightNoKey = null ;
+
+    // Probe state.
+    private int phase = -1 ;
+    private Iterator<Binding> probe = null ;
+    private Iterator<Binding> current = null ;
+
+    protected QueryIterHashJoinBase(QueryIterator left, QueryIterator right, JoinKey joinKey, ExecutionContext execCxt) {
+        super(left, right, execCxt) ;
+        this.joinKey = joinKey ;
+        this.policy = ThresholdPolicyFactory.policyFromContext(execCxt.getContext()) ;
+    }
+
+    /** Join one row of the left hand side with the candidate rows of the right hand side.
+     *  The candidates are all the rows that might join; they must all be consumed.
+     *  Return null, or an empty iterator, for no results. */
+    protected abstract Iterator<Binding> joinRow(Binding rowLeft, Iterator<Binding> candidates) ;
+
+    /** Has the join spilled to disk? */
+    public boolean isPartitioned() {
+        return rightPartitions != null ;
+    }
+
+    @Override
+    protected boolean hasNextBinding() {
+        if ( table == null )
+            build() ;
+        for ( ;; ) {
+            if ( current != null && current.hasNext() )
+                return true ;
+            current = null ;
+            if ( probe != null && probe.hasNext() ) {
+                Binding row = probe.next() ;
+                current = joinRow(row, candidates(row)) ;
+                continue ;
+            }
+            if ( ! nextPhase() )
+                return false ;
+        }
+    }
+
+    @Override
+    protected Binding moveToNextBinding() {
+        return current.next() ;
+    }
+
+    private void build() {
+        table = new HashProbeTable(joinKey) ;
+        QueryIterator right = getRight() ;
+        while ( right.hasNext() ) {
+            Binding row = right.nextBinding() ;
+            if ( isPartitioned() ) {
+                partitionRight(row) ;
+                continue ;
+            }
+            table.put(row) ;
+            policy.increment(row) ;
+            if ( policy.isThresholdExceeded() )
+                startPartitioning() ;
+        }
+        right.close() ;
+
+        if ( ! isPartitioned() )
+            return ;
+        QueryIterator left = getLeft() ;
+        while ( left.hasNext() ) {
+            Binding row = left.nextBinding() ;
+            Object key = joinKey.keyOf(row) ;
+            if ( key == null )
+                leftNoKey.add(row) ;
+            else
+                leftPartitions.get(partitionOf(key)).add(row) ;
+        }
+        left.close() ;
+    }
+
+    private void startPartitioning() {
+        leftPartitions = new ArrayList<DataBag<Binding>>(NumPartitions) ;
+        rightPartitions = new ArrayList<DataBag<Binding>>(NumPartitions) ;
+        for ( int i = 0 ; i < NumPartitions ; i++ ) {
+            leftPartitions.add(newBag()) ;
+            rightPartitions.add(newBag()) ;
+        }
+        leftNoKey = newBag() ;
+        rightNoKey = newBag() ;
+        for ( Iterator<Binding> iter = table.all() ; iter.hasNext() ; )
+            partitionRight(iter.next()) ;
+        table.clear() ;
+    }
+
+    private DataBag<Binding> newBag() {
+        // Share the in-memory allowance between the bags.
+        long threshold = 0 ;
+        if ( policy instanceof ThresholdPolicyCount<?> )
+            threshold = ((ThresholdPolicyCount<?>)policy).getThreshold() / (2 * NumPartitions + 2) ;
+        ThresholdPolicy<Binding> bagPolicy = ThresholdPolicyFactory.count(threshold) ;
+        return BagFactory.newDefaultBag(bagPolicy, SerializationFactoryFinder.bindingSerializationFactory()) ;
+    }
+
+    private void partitionRight(Binding row) {
+        Object key = joinKey.keyOf(row) ;
+        if ( key == null )
+            rightNoKey.add(row) ;
+        else
+            rightPartitions.get(partitionOf(key)).add(row) ;
+    }
+
+    private static int partitionOf(Object key) {
+        // Scramble so that the partition does not fix the low bits of the
+        // hash code used by the in-memory table.
+        int h = key.hashCode() * 0x9E3779B9 ;
+        return (h >>> 16) % NumPartitions ;
+    }
+
+    /** Set up the next left hand side stream to probe with. */
+    private boolean nextPhase() {
+        phase++ ;
+        if ( ! isPartitioned() ) {
+            if ( phase > 0 )
+                return false ;
+            probe = getLeft() ;
+            return true ;
+        }
+
+        table.clear() ;
+        if ( phase < NumPartitions ) {
+            // The partition in memory; right rows without the key are streamed.
+            for ( Binding row : rightPartitions.get(phase) )
+                table.put(row) ;
+            probe = leftPartitions.get(phase).iterator() ;
+            return true ;
+        }
+        if ( phase == NumPartitions ) {
+            // Left rows without the key: every right row is streamed as a candidate.
+            probe = leftNoKey.iterator() ;
+            return true ;
+        }
+        return false ;
+    }
+
+    private Iterator<Binding> candidates(Binding row) {
+        if ( ! isPartitioned() )
+            return table.candidates(joinKey.keyOf(row)) ;
+        if ( phase == NumPartitions ) {
+            IteratorConcat<Binding> allRight = new IteratorConcat<Binding>() ;
+            for ( DataBag<Binding> bag : rightPartitions )
+                allRight.add(bag.iterator()) ;
+            allRight.add(rightNoKey.iterator()) ;
+            return allRight ;
+        }
+        Iterator<Binding> iter = table.candidates(joinKey.keyOf(row)) ;
+        if ( rightNoKey.size() == 0 )
+            return iter ;
+        return Iter.concat(iter, rightNoKey.iterator()) ;
+    }
+
+    @Override
+    protected void closeSubIterator() {
+        if ( table != null )
+            table.clear() ;
+        if ( isPartitioned() ) {
+            for ( DataBag<Binding> bag : leftPartitions )
+                bag.close() ;
+            for ( DataBag<Binding> bag : rightPartitions )
+                bag.close() ;
+            leftNoKey.close() ;
+            rightNoKey.close() ;
+        }
+        probe = null ;
+        current = null ;
+    }
+
+    @Override
+    protected void requestSubCancel() {}
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+
+import com.hp.hpl.jena.sparql.algebra.Algebra ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.sparql.engine.QueryIterator ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.main.JoinKey ;
+import com.hp.hpl.jena.sparql.expr.ExprList ;
+
+/** Left join by hashing the RHS on the join key.
+ *  The LeftJoin expression is only evaluated for the rows of the RHS
+ *  with the same key value as the left row.
+ *  @see QueryIterHashJoin
+ */
+public class QueryIterHashLeftJoin extends QueryIterHashJoinBase
+{
+    private final ExprList exprs ;
+
+    public QueryIterHashLeftJoin(QueryIterator left, QueryIterator right, JoinKey joinKey, ExprList exprs, ExecutionContext execCxt) {
+        super(left, right, joinKey, execCxt) ;
+        this.exprs = exprs ;
+    }
+
+    @Override
+    protected Iterator<Binding> joinRow(Binding rowLeft, Iterator<Binding> candidates) {
+        List<Binding> out = null ;
+        while ( candidates.hasNext() ) {
+            Binding rowRight = candidates.next() ;
+            Binding r = Algebra.merge(rowLeft, rowRight) ;
+            if ( r == null )
+                continue ;
+            if ( exprs != null && ! exprs.isSatisfied(r, getExecContext()) )
+                continue ;
+            if ( out == null )
+                out = new ArrayList<Binding>(2) ;
+            out.add(r) ;
+        }
+        if ( out == null )
+            // No match - the left row alone.
+            return Iter.singleton(rowLeft) ;
+        return out.iterator() ;
+    }
+}
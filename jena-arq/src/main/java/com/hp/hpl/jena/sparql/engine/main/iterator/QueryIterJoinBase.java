@@ -34,7 +34,7 @@ import com.hp.hpl.jena.sparql.expr.ExprList ;
  *  from one side into the other. */ 
 public class QueryIterJoinBase extends QueryIter
 {
-    // This should be converted to a hash or sort-merge join.
+    // See QueryIterHashJoin for the case when the two sides have common variables.
     private final QueryIterator left ;
     private final QueryIterator right ;
     private final QueryIterator result ;
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList ;
+import java.util.Collection ;
+import java.util.Iterator ;
+import java.util.LinkedHashSet ;
+import java.util.LinkedList ;
+import java.util.List ;
+import java.util.Queue ;
+import java.util.Set ;
+import java.util.concurrent.Callable ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+import java.util.concurrent.FutureTask ;
+import java.util.concurrent.ThreadFactory ;
+
+import org.apache.jena.atlas.logging.Log ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.query.QueryExecException ;
+import com.hp.hpl.jena.sparql.algebra.Op ;
+import com.hp.hpl.jena.sparql.algebra.OpVars ;
+import com.hp.hpl.jena.sparql.algebra.op.OpJoin ;
+import com.hp.hpl.jena.sparql.algebra.op.OpService ;
+import com.hp.hpl.jena.sparql.algebra.op.OpTable ;
+import com.hp.hpl.jena.sparql.algebra.table.TableN ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.sparql.engine.QueryIterator ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingFactory ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingMap ;
+import com.hp.hpl.jena.sparql.engine.http.Service ;
+import com.hp.hpl.jena.sparql.engine.iterator.QueryIter1 ;
+import com.hp.hpl.jena.sparql.engine.main.JoinClassifier ;
+import com.hp.hpl.jena.sparql.engine.main.QC ;
+import com.hp.hpl.jena.sparql.util.Context ;
+import com.hp.hpl.jena.sparql.util.NodeFactoryExtra ;
+
+/** SERVICE as a bind join: the input solutions are sent to the remote endpoint
+ *  a batch at a time, as a VALUES block joined to the service pattern, instead of
+ *  one request per solution as in {@link QueryIterService}.
+ *  <p>
+ *  Each row of the VALUES block carries its position in the batch so the
+ *  results can be given back to the solution they came from. If the join with
+ *  the VALUES block would not give the same answers as substituting each
+ *  solution into the pattern (see {@link JoinClassifier}), the batch is done
+ *  one solution at a time.
+ *  <p>
+ *  Several batches may be in progress at once
+ *  ({@link Service#queryBatchThreads}); the results are returned in the
+ *  order of the input.
+ */
+public class QueryIterServiceBatch extends QueryIter1
+{
+    /** Variable for the position of a solution in the batch */
+    public static final Var varRowIndex = Var.alloc("__serviceRow") ;
+
+    // Do not keep the JVM alive if the iterator is not closed.
+    private static final ThreadFactory daemonThreads = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "SERVICE batch") ;
+            t.setDaemon(true) ;
+            return t ;
+        }
+    } ;
+
+    private final OpService opService ;
+    private final int batchSize ;
+    private final int maxPending ;
+    private final Set<Var> serviceVars ;
+    private ExecutorService executor = null ;
+    private final Queue<Future<List<Binding>>> pending = new LinkedList<Future<List<Binding>>>() ;
+    private Iterator<Binding> current = null ;
+
+    public QueryIterServiceBatch(QueryIterator input, OpService opService, ExecutionContext execCxt)
+    {
+        super(input, execCxt) ;
+        if ( ! opService.getService().isURI() )
+            throw new QueryExecException("Service URI not bound: " + opService.getService()) ;
+        this.opService = opService ;
+        Context cxt = Service.contextFor(opService.getService().getURI(), execCxt.getContext()) ;
+        this.batchSize = Math.max(1, cxt.getInt(Service.queryBatchSize, 1)) ;
+        this.maxPending = Math.max(1, cxt.getInt(Service.queryBatchThreads, 1)) ;
+        this.serviceVars = new LinkedHashSet<Var>(OpVars.mentionedVars(opService.getSubOp())) ;
+    }
+
+    @Override
+    protected boolean hasNextBinding()
+    {
+        for ( ;; )
+        {
+            if ( current != null && current.hasNext() )
+                return true ;
+            current = null ;
+            fill() ;
+            if ( pending.isEmpty() )
+            {
+                cancelPending() ;
+                return false ;
+            }
+            current = waitFor(pending.remove()).iterator() ;
+        }
+    }
+
+    @Override
+    protected Binding moveToNextBinding()
+    {
+        return current.next() ;
+    }
+
+    /** Start batches until enough are in progress or the input is used up. */
+    private void fill()
+    {
+        QueryIterator input = getInput() ;
+        while ( pending.size() < maxPending && input.hasNext() )
+        {
+            final List<Binding> batch = new ArrayList<Binding>(batchSize) ;
+            while ( batch.size() < batchSize && input.hasNext() )
+                batch.add(input.nextBinding()) ;
+            Callable<List<Binding>> call = new Callable<List<Binding>>() {
+                @Override
+                public List<Binding> call() { return execBatch(batch) ; }
+            } ;
+            if ( maxPending == 1 )
+            {
+                // No other threads.
+                FutureTask<List<Binding>> task = new FutureTask<List<Binding>>(call) ;
+                task.run() ;
+                pending.add(task) ;
+                continue ;
+            }
+            if ( executor == null )
+                executor = Executors.newFixedThreadPool(maxPending, daemonThreads) ;
+            pending.add(executor.submit(call)) ;
+        }
+    }
+
+    private static List<Binding> waitFor(Future<List<Binding>> future)
+    {
+        try { return future.get() ; }
+        catch (InterruptedException ex)
+        { throw new QueryExecException("Interrupted waiting for SERVICE", ex) ; }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause() ;
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause ;
+            if ( cause instanceof Error )
+                throw (Error)cause ;
+            throw new QueryExecException(cause) ;
+        }
+    }
+
+    /** Call the service for a batch of solutions. */
+    private List<Binding> execBatch(List<Binding> batch)
+    {
+        // The variables of the batch used by the service pattern.
+        Set<Var> vars = new LinkedHashSet<Var>() ;
+        for ( Binding b : batch )
+        {
+            for ( Iterator<Var> iter = b.vars() ; iter.hasNext() ; )
+            {
+                Var v = iter.next() ;
+                if ( serviceVars.contains(v) )
+                    vars.add(v) ;
+            }
+        }
+
+        try {
+            if ( vars.isEmpty() )
+                // Every solution gets the same results.
+                return crossProduct(batch, exec(opService)) ;
+
+            List<Var> tableVars = new ArrayList<Var>(vars.size()+1) ;
+            tableVars.add(varRowIndex) ;
+            tableVars.addAll(vars) ;
+            TableN table = new TableN(tableVars) ;
+            for ( int i = 0 ; i < batch.size() ; i++ )
+            {
+                Binding b = batch.get(i) ;
+                BindingMap row = BindingFactory.create() ;
+                row.add(varRowIndex, NodeFactoryExtra.intToNode(i)) ;
+                for ( Var v : vars )
+                {
+                    Node n = b.get(v) ;
+                    if ( n != null )
+                        row.add(v, n) ;
+                }
+                table.addBinding(row) ;
+            }
+            Op opTable = OpTable.create(table) ;
+            if ( ! JoinClassifier.isLinear(opTable, opService.getSubOp()) )
+                return eachSolution(batch) ;
+
+            Op opRemote = OpJoin.create(opTable, opService.getSubOp()) ;
+            OpService op = new OpService(opService.getService(), opRemote, opService.getSilent()) ;
+            return demultiplex(batch, exec(op)) ;
+        } catch (RuntimeException ex)
+        {
+            if ( opService.getSilent() )
+            {
+                Log.warn(this, "SERVICE <" + opService.getService().toString() + ">: " + ex.getMessage()) ;
+                // Return the input
+                return batch ;
+            }
+            throw ex ;
+        }
+    }
+
+    private List<Binding> exec(OpService op)
+    {
+        List<Binding> results = new ArrayList<Binding>() ;
+        QueryIterator qIter = Service.exec(op, getExecContext().getContext()) ;
+        try {
+            while ( qIter.hasNext() )
+                results.add(qIter.nextBinding()) ;
+        } finally { qIter.close() ; }
+        return results ;
+    }
+
+    /** Give each result to the solution of the batch it came from. */
+    private static List<Binding> demultiplex(List<Binding> batch, List<Binding> results)
+    {
+        List<List<Binding>> perRow = new ArrayList<List<Binding>>(batch.size()) ;
+        for ( int i = 0 ; i < batch.size() ; i++ )
+            perRow.add(new ArrayList<Binding>()) ;
+        for ( Binding r : results )
+        {
+            Node x = r.get(varRowIndex) ;
+            int idx = ( x == null ) ? -1 : (int)NodeFactoryExtra.nodeToLong(x) ;
+            if ( idx < 0 || idx >= batch.size() )
+                throw new QueryExecException("SERVICE: result without a valid row index: " + r) ;
+            perRow.get(idx).add(extend(batch.get(idx), r)) ;
+        }
+        List<Binding> out = new ArrayList<Binding>(results.size()) ;
+        for ( List<Binding> x : perRow )
+            out.addAll(x) ;
+        return out ;
+    }
+
+    private static List<Binding> crossProduct(List<Binding> batch, Collection<Binding> results)
+    {
+        List<Binding> out = new ArrayList<Binding>(batch.size()*results.size()) ;
+        for ( Binding b : batch )
+        {
+            for ( Binding r : results )
+                out.add(extend(b, r)) ;
+        }
+        return out ;
+    }
+
+    /** The parent solution and the variables of the service result it does not have. */
+    private static Binding extend(Binding parent, Binding result)
+    {
+        BindingMap b = BindingFactory.create(parent) ;
+        for ( Iterator<Var> iter = result.vars() ; iter.hasNext() ; )
+        {
+            Var v = iter.next() ;
+            if ( v.equals(varRowIndex) || parent.contains(v) )
+                continue ;
+            b.add(v, result.get(v)) ;
+        }
+        return b ;
+    }
+
+    /** One request per solution, as in {@link QueryIterService}. */
+    private List<Binding> eachSolution(List<Binding> batch)
+    {
+        List<Binding> out = new ArrayList<Binding>() ;
+        for ( Binding b : batch )
+        {
+            Op op = QC.substitute(opService, b) ;
+            for ( Binding r : exec((OpService)op) )
+                out.add(extend(b, r)) ;
+        }
+        return out ;
+    }
+
+    @Override
+    protected void requestSubCancel()
+    {
+        cancelPending() ;
+    }
+
+    @Override
+    protected void closeSubIterator()
+    {
+        cancelPending() ;
+        current = null ;
+    }
+
+    private void cancelPending()
+    {
+        for ( Future<List<Binding>> f : pending )
+            f.cancel(true) ;
+        pending.clear() ;
+        if ( executor != null )
+            executor.shutdownNow() ;
+        executor = null ;
+    }
+}
@@ -21,10 +21,7 @@ package com.hp.hpl.jena.sparql.engine.optimizer;
 import static com.hp.hpl.jena.sparql.engine.optimizer.reorder.PatternElements.* ;
 
 import java.io.OutputStream ;
-import java.util.ArrayList ;
-import java.util.HashMap ;
-import java.util.List ;
-import java.util.Map ;
+import java.util.* ;
 
 import org.apache.jena.atlas.io.IndentedWriter ;
 import org.apache.jena.atlas.logging.Log ;
@@ -46,12 +43,18 @@ import com.hp.hpl.jena.sparql.sse.SSE ;
  *    (meta ...)
  *    ((S P O) weight)
  *    (<predicate uri> weight)
+ *    (charset count <predicate uri> ...)
  *  )</pre>
  * where <code>S</code>, <code>P</code>, <code>O</code> is a URI, variable, 
  * literal or one of the words <code>ANY</code> (matches anything), 
  * <code>VAR</code> (matches a variable), <code>TERM</code> (matches a
  * fixed URI, or literal), <code>URI</code>, <code>BNODE</code>, 
- * <code>LITERAL</code> (matches one of these types).    
+ * <code>LITERAL</code> (matches one of these types).
+ * <p>
+ * A <code>charset</code> is a characteristic set: the number of subjects
+ * whose predicates are exactly the ones listed. They are only used if the 
+ * <code>meta</code> section has <code>(charset true)</code>, saying that
+ * every set with more than one predicate is included.    
  */
 
 public final class StatsMatcher
@@ -60,6 +63,7 @@ public final class StatsMatcher
     public static final String STATS    = "stats" ; 
     public static final String META     = "meta" ; 
     public static final String COUNT    = "count" ;
+    public static final String CHARSET  = "charset" ;
     public static final Item OTHER      = Item.createSymbol("other") ;
     private static double NOMATCH       = -1 ;
     
@@ -77,6 +81,11 @@ public final class StatsMatcher
     // Map keyed by P for faster lookup (if no P available, we'll use the full list).  
     protected Map<Item, List<Pattern>> mapPatterns = new HashMap<Item,  List<Pattern>>() ;
     
+    // Characteristic sets.
+    protected List<Set<Node>> charSets = new ArrayList<Set<Node>>() ;
+    protected List<Double> charSetCounts = new ArrayList<Double>() ;
+    protected boolean charSetsComplete = false ;
+    
     // Default behaviour
     double DefaultMatch = NOMATCH ;
     
@@ -122,13 +131,23 @@ public final class StatsMatcher
             Item x = Item.find(elt1.getList(), COUNT) ;
             if ( x != null )
                 count = x.getList().get(1).asInteger() ;
+            // Are the characteristic sets all there?
+            Item y = Item.find(elt1.getList(), CHARSET) ;
+            if ( y != null )
+            {
+                Item z = y.getList().get(1) ;
+                charSetsComplete = z.isSymbolIgnoreCase("true") || ( z.isNode() && NodeConst.nodeTrue.equals(z.getNode()) ) ;
+            }
         }
        
         while (!list.isEmpty()) 
         {
             Item elt = list.car() ;
             list = list.cdr();
-            onePattern(elt) ;
+            if ( elt.isTagged(CHARSET) )
+                addCharacteristicSet(elt) ;
+            else
+                onePattern(elt) ;
         }
     }
      
@@ -184,6 +203,72 @@ public final class StatsMatcher
         }
     }
     
+    private void addCharacteristicSet(Item elt)
+    {
+        // (charset count <p1> <p2> ...)
+        ItemList list = elt.getList() ;
+        if ( list.size() < 2 )
+        {
+            log.warn("Bad characteristic set: " + elt) ;
+            return ;
+        }
+        double count = list.get(1).getDouble() ;
+        Set<Node> predicates = new HashSet<Node>() ;
+        for ( int i = 2 ; i < list.size() ; i++ )
+        {
+            Item x = list.get(i) ;
+            if ( ! x.isNodeURI() )
+            {
+                log.warn("Not a predicate URI in a characteristic set: " + x) ;
+                return ;
+            }
+            predicates.add(x.getNode()) ;
+        }
+        addCharacteristicSet(predicates, count) ;
+    }
+    
+    /** Add a characteristic set : the number of subjects with exactly this set of predicates */ 
+    public void addCharacteristicSet(Set<Node> predicates, double count)
+    {
+        charSets.add(predicates) ;
+        charSetCounts.add(count) ;
+    }
+    
+    public boolean hasCharacteristicSets()
+    {
+        return ! charSets.isEmpty() ;
+    }
+    
+    /** Whether the characteristic sets include every set of more than one predicate */
+    public boolean isCharacteristicSetsComplete()
+    {
+        return charSetsComplete ;
+    }
+    
+    /** Set whether the characteristic sets include every set of more than one predicate */
+    public void setCharacteristicSetsComplete(boolean complete)
+    {
+        charSetsComplete = complete ;
+    }
+    
+    /** Return the number of subjects that have all the given predicates (and maybe others),
+     *  from the characteristic sets, or -1 if not known.
+     *  The sum over a partial list of characteristic sets is not a bound
+     *  so that is "not known". 
+     */
+    public double matchStar(Collection<Node> predicates)
+    {
+        if ( ! charSetsComplete )
+            return NOMATCH ;
+        double w = NOMATCH ;
+        for ( int i = 0 ; i < charSets.size() ; i++ )
+        {
+            if ( charSets.get(i).containsAll(predicates) )
+                w = ( w == NOMATCH ) ? charSetCounts.get(i) : w + charSetCounts.get(i) ;
+        }
+        return w ;
+    }
+    
     private void addAbbreviation(Item elt)
     {
         Item predicateTerm = elt.getList().get(0) ;
@@ -500,11 +585,23 @@ public final class StatsMatcher
         IndentedWriter out = new IndentedWriter(ps) ;
         out.println("(stats") ;
         out.incIndent() ;
+        if ( charSetsComplete )
+            out.println("("+META+" ("+CHARSET+" true))") ;
         for ( Pattern p : patterns )
         {
             p.output(out) ;
             out.println();
         }
+        for ( int i = 0 ; i < charSets.size() ; i++ )
+        {
+            out.print("("+CHARSET+" "+charSetCounts.get(i)) ;
+            for ( Node p : charSets.get(i) )
+            {
+                out.print(" ") ;
+                out.print(Item.createNode(p).toString()) ;
+            }
+            out.println(")") ;
+        }
         out.decIndent() ;
         out.println(")") ;
         out.flush();
@@ -18,8 +18,20 @@
 
 package com.hp.hpl.jena.sparql.engine.optimizer.reorder;
 
+import java.util.HashMap ;
+import java.util.HashSet ;
+import java.util.IdentityHashMap ;
+import java.util.List ;
+import java.util.Map ;
+import java.util.Set ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.Var ;
 import com.hp.hpl.jena.sparql.engine.optimizer.StatsMatcher ;
 
+/** Reorder by the weights of the statistics, taking the characteristic sets,
+ *  if any, into account for star joins. */
 public final class ReorderWeighted extends ReorderTransformationSubstitution
 {
     private StatsMatcher stats ;
@@ -34,4 +46,65 @@ public final class ReorderWeighted extends ReorderTransformationSubstitution
     {
         return stats.match(pTriple) ;
     }
+    
+    @Override
+    protected ReorderProc reorder(List<Triple> triples, List<PatternTriple> components)
+    {
+        if ( ! stats.hasCharacteristicSets() || ! stats.isCharacteristicSetsComplete() )
+            return super.reorder(triples, components) ;
+        
+        // A star join (several patterns with the same subject variable and fixed predicates)
+        // matches no more subjects than have all the predicates of the star.
+        // That bounds the pattern the star starts with, its most selective one;
+        // it is not the cost of any other pattern of the star.
+        final Map<PatternTriple, Double> starWeights = new IdentityHashMap<PatternTriple, Double>() ;
+        Map<Node, Integer> starts = new HashMap<Node, Integer>() ;
+        for ( int i = 0 ; i < triples.size() ; i++ )
+        {
+            double w = weight(components.get(i)) ;
+            if ( w < 0 || star(triples, triples.get(i)) == null )
+                continue ;
+            Node subj = triples.get(i).getSubject() ;
+            Integer j = starts.get(subj) ;
+            if ( j == null || w < weight(components.get(j)) )
+                starts.put(subj, i) ;
+        }
+        for ( int i : starts.values() )
+        {
+            double w = stats.matchStar(star(triples, triples.get(i))) ;
+            if ( w >= 0 )
+                starWeights.put(components.get(i), w) ;
+        }
+        if ( starWeights.isEmpty() )
+            return super.reorder(triples, components) ;
+        
+        ReorderTransformationSubstitution reorder = new ReorderTransformationSubstitution() {
+            @Override
+            protected double weight(PatternTriple pTriple)
+            {
+                double w = stats.match(pTriple) ;
+                Double wStar = starWeights.get(pTriple) ;
+                // Until the star has been started and the subject is known.
+                if ( wStar != null && w >= 0 && pTriple.subject.isVar() )
+                    w = Math.min(w, wStar) ;
+                return w ;
+            }
+        } ;
+        return reorder.reorder(triples, components) ;
+    }
+    
+    /** The predicates of the star join that a triple pattern is part of, or null */
+    private static Set<Node> star(List<Triple> triples, Triple triple)
+    {
+        Node subj = triple.getSubject() ;
+        if ( ! Var.isVar(subj) || ! triple.getPredicate().isURI() )
+            return null ;
+        Set<Node> star = new HashSet<Node>() ;
+        for ( Triple t : triples )
+        {
+            if ( subj.equals(t.getSubject()) && t.getPredicate().isURI() )
+                star.add(t.getPredicate()) ;
+        }
+        return star.size() < 2 ? null : star ;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.resultset;
+
+import java.io.InputStream ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.binary.BinaryRDF ;
+import org.apache.jena.riot.binary.BinaryRDFInput ;
+
+import com.hp.hpl.jena.query.ResultSet ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.ResultSetStream ;
+
+/**
+ * Input reader associated to {@link BinaryOutput}.
+ */
+public class BinaryInput
+{
+    /**
+     * Reads SPARQL Results from the binary format into a {@link ResultSet} instance.
+     * Rows are decoded as the result set is read.
+     * @param in Input Stream
+     */
+    public static ResultSet fromBinary(InputStream in)
+    {
+        BinaryRDFInput input = new BinaryRDFInput(in) ;
+        List<Var> vars = new ArrayList<Var>() ;
+        List<String> varNames = new ArrayList<String>() ;
+        try {
+            input.start() ;
+            if ( input.readRecord() != BinaryRDF.RecVars )
+                throw new ResultSetException("Binary results malformed: no variables record") ;
+            int N = input.readInt(Integer.MAX_VALUE) ;
+            for ( int i = 0 ; i < N ; i++ )
+            {
+                Var var = Var.alloc(input.readString()) ;
+                vars.add(var) ;
+                varNames.add(var.getName()) ;
+            }
+        } catch (RiotException ex)
+        { throw new ResultSetException("Binary results malformed: "+ex.getMessage()) ; }
+        return new ResultSetStream(varNames, null, new BinaryInputIterator(input, in, vars)) ;
+    }
+
+    /**
+     * Reads a SPARQL Boolean result from the binary format.
+     * @param in Input Stream
+     * @return boolean
+     */
+    public static boolean booleanFromBinary(InputStream in)
+    {
+        BinaryRDFInput input = new BinaryRDFInput(in) ;
+        try {
+            input.start() ;
+            if ( input.readRecord() != BinaryRDF.RecBoolean )
+                throw new ResultSetException("Binary boolean result malformed: no boolean record") ;
+            int x = input.readInt(2) ;
+            return x == 1 ;
+        } catch (RiotException ex)
+        { throw new ResultSetException("Binary boolean result malformed: "+ex.getMessage()) ; }
+        finally { input.finish() ; }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.resultset;
+
+import java.io.InputStream ;
+import java.util.List ;
+import java.util.NoSuchElementException ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.io.IndentedWriter ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.binary.BinaryRDF ;
+import org.apache.jena.riot.binary.BinaryRDFInput ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingFactory ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingMap ;
+import com.hp.hpl.jena.sparql.engine.iterator.QueryIteratorBase ;
+import com.hp.hpl.jena.sparql.serializer.SerializationContext ;
+
+/**
+ * Streaming decoding of result rows in the binary format.
+ */
+public class BinaryInputIterator extends QueryIteratorBase
+{
+    private BinaryRDFInput input ;
+    private InputStream in ;
+    private final List<Var> vars ;
+    private Binding binding = null ;
+    private long rowNum = 0 ;
+
+    /**
+     * Assumes the variables record has already been read.
+     */
+    public BinaryInputIterator(BinaryRDFInput input, InputStream in, List<Var> vars)
+    {
+        this.input = input ;
+        this.in = in ;
+        this.vars = vars ;
+    }
+
+    @Override
+    public void output(IndentedWriter out, SerializationContext sCxt)
+    {
+        // Not needed - only called as part of printing/debugging query plans.
+        out.println("BinaryInputIterator") ;
+    }
+
+    @Override
+    protected boolean hasNextBinding()
+    {
+        if ( input == null )
+            return false ;
+        if ( binding != null )
+            return true ;
+        return parseNextBinding() ;
+    }
+
+    private boolean parseNextBinding()
+    {
+        try {
+            int rec = input.readRecord() ;
+            if ( rec == -1 )
+                return false ;
+            rowNum++ ;
+            if ( rec != BinaryRDF.RecRow )
+                throw new ResultSetException("Binary results malformed: row "+rowNum+": unexpected record: "+rec) ;
+            BindingMap b = BindingFactory.create() ;
+            for ( Var v : vars )
+            {
+                Node n = input.readNode() ;
+                if ( n == null )
+                    continue ;
+                if ( ! n.isConcrete() )
+                    throw new ResultSetException("Binary results malformed: row "+rowNum+": not a concrete RDF term: "+n) ;
+                b.add(v, n) ;
+            }
+            binding = b ;
+            return true ;
+        } catch (RiotException ex)
+        { throw new ResultSetException("Binary results malformed: row "+rowNum+": "+ex.getMessage()) ; }
+    }
+
+    @Override
+    protected Binding moveToNextBinding()
+    {
+        if ( ! hasNext() )
+            throw new NoSuchElementException() ;
+        Binding b = binding ;
+        binding = null ;
+        return b ;
+    }
+
+    @Override
+    protected void closeIterator()
+    {
+        if ( input != null )
+            input.finish() ;
+        IO.close(in) ;
+        input = null ;
+        in = null ;
+    }
+
+    @Override
+    protected void requestCancel()
+    {}
+}
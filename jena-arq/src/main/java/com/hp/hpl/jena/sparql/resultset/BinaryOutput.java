@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.resultset;
+
+import java.io.OutputStream ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.riot.binary.BinaryRDF ;
+import org.apache.jena.riot.binary.BinaryRDFOutput ;
+
+import com.hp.hpl.jena.query.ResultSet ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+
+/**
+ * Result sets in the binary RDF format ({@link BinaryRDF}).
+ * <p>
+ * A "V" record (number of variables, then the names), then an "R" record
+ * per row with a term, or undefined, for each variable in order.
+ * A boolean result is an "A" record and a byte, 1 or 0.
+ */
+public class BinaryOutput extends OutputBase
+{
+    @Override
+    public void format(OutputStream out, ResultSet resultSet)
+    {
+        BinaryRDFOutput output = new BinaryRDFOutput(out, false) ;
+        output.start() ;
+        List<String> varNames = resultSet.getResultVars() ;
+        List<Var> vars = new ArrayList<Var>(varNames.size()) ;
+        output.writeRecord(BinaryRDF.RecVars) ;
+        output.writeVarint(varNames.size()) ;
+        for ( String v : varNames )
+        {
+            output.writeString(v) ;
+            vars.add(Var.alloc(v)) ;
+        }
+
+        for ( ; resultSet.hasNext() ; )
+        {
+            Binding b = resultSet.nextBinding() ;
+            output.writeRecord(BinaryRDF.RecRow) ;
+            for ( Var v : vars )
+                output.writeNode(b.get(v)) ;
+        }
+        output.finish() ;
+    }
+
+    @Override
+    public void format(OutputStream out, boolean booleanResult)
+    {
+        BinaryRDFOutput output = new BinaryRDFOutput(out, false) ;
+        output.writeRecord(BinaryRDF.RecBoolean) ;
+        output.writeVarint(booleanResult ? 1 : 0) ;
+        output.finish() ;
+    }
+}
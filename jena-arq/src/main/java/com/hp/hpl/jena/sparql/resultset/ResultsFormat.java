@@ -46,6 +46,7 @@ public class ResultsFormat extends Symbol
     static public ResultsFormat FMT_RS_TSV       = new ResultsFormat(contentTypeTextTSV) ;
     static public ResultsFormat FMT_RS_SSE       = new ResultsFormat(contentTypeSSE) ;
     static public ResultsFormat FMT_RS_BIO       = new ResultsFormat(contentTypeResultsBIO) ;
+    static public ResultsFormat FMT_RS_BINARY    = new ResultsFormat(contentTypeResultsBinary) ;
     static public ResultsFormat FMT_NONE         = new ResultsFormat("none") ;
     static public ResultsFormat FMT_TEXT         = new ResultsFormat("text") ;
     static public ResultsFormat FMT_TUPLES       = new ResultsFormat("tuples") ;
@@ -71,6 +72,8 @@ public class ResultsFormat extends Symbol
         names.put("csv",         FMT_RS_CSV) ;
         names.put("tsv",         FMT_RS_TSV) ;
         names.put("srb",         FMT_RS_BIO) ;
+        names.put("binary",      FMT_RS_BINARY) ;
+        names.put("brs",         FMT_RS_BINARY) ;
         names.put("text",        FMT_TEXT) ;
         names.put("count",       FMT_COUNT) ;
         names.put("tuples",      FMT_TUPLES) ;
@@ -133,6 +136,9 @@ public class ResultsFormat extends Symbol
         if ( url.endsWith(".srb") ) // BindingsIO format.
             return FMT_RS_BIO ;
 
+        if ( url.endsWith(".brs") ) // Binary RDF format.
+            return FMT_RS_BINARY ;
+
         // Likely to be something completely different!
         if ( url.endsWith(".csv") )
             return FMT_RS_CSV ;
@@ -140,6 +140,21 @@ public class Context
         return x.toString() ;
     }
 
+    // -- as int
+
+    /** Get the value as an int, from a Number or a string - supply a default value */
+    public int getInt(Symbol property, int defaultValue)
+    {
+        Object x = context.get(property) ;
+        if ( x == null )
+            return defaultValue ;
+        if ( x instanceof Number )
+            return ((Number)x).intValue() ;
+        try { return Integer.parseInt(x.toString().trim()) ; }
+        catch (NumberFormatException ex)
+        { throw new ARQException("Not an integer: "+property+" = "+x) ; }
+    }
+
     public void putAll(Context other)
     {
         if ( readonly )
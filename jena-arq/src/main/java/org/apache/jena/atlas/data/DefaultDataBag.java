@@ -142,7 +142,7 @@ public class DefaultDataBag<E> extends AbstractDataBag<E>
     @Override
     public void flush()
     {
-        if (policy.isThresholdExceeded() && (null != serializer))
+        if (spilled && (null != serializer))
         {
             serializer.flush();
         }
@@ -159,7 +159,8 @@ public class DefaultDataBag<E> extends AbstractDataBag<E>
         closeWriter();
         
         // Create a new reader
-        if (policy.isThresholdExceeded())
+        // (The threshold may be exceeded by the last item added without having spilled.)
+        if (spilled)
         {
             File spillFile = getSpillFiles().get(0);
             
@@ -189,10 +190,8 @@ public class DefaultDataBag<E> extends AbstractDataBag<E>
     {
         if (!finishedAdding)
         {
-            if (policy.isThresholdExceeded())
+            if (spilled)
             {
-                // It is possible for "serializer" and "out" to be null even if the policy is exceeded.
-                // This can happen if nothing was ever added (i.e. a zero count policy)
                 if (null != serializer)
                 {
                     serializer.close();
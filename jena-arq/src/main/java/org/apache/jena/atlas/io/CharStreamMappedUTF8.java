@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io;
+
+import static org.apache.jena.atlas.io.IO.EOF ;
+
+import java.io.FileNotFoundException ;
+import java.io.IOException ;
+import java.io.RandomAccessFile ;
+import java.nio.MappedByteBuffer ;
+import java.nio.channels.FileChannel ;
+import java.nio.channels.FileChannel.MapMode ;
+import java.nio.charset.MalformedInputException ;
+
+import org.apache.jena.atlas.AtlasException ;
+
+/** A CharStream over a UTF-8 file, read by memory mapping the file.
+ * <p>
+ * Runs of ASCII bytes are copied straight from the mapped file into the
+ * character buffer; only multi-byte sequences are decoded. Characters outside
+ * the BMP become surrogate pairs, as for a java.io.Reader. Large files are
+ * mapped a window at a time.
+ * <p>
+ * Mappings are released when they are garbage collected, not by {@link #closeStream}.
+ */
+public final class CharStreamMappedUTF8 implements CharStream
+{
+    /*package*/ static final int CB_SIZE        = 128 * 1024 ;
+    /*package*/ static final int WINDOW_SIZE    = 256 * 1024 * 1024 ;
+
+    private final RandomAccessFile file ;
+    private final FileChannel channel ;
+    private final long fileLength ;
+    private final int windowSize ;
+    private MappedByteBuffer window ;
+    private long windowStart ;
+
+    private final char[] chars ;
+    private int buffLen = 0 ;
+    private int idx = 0 ;
+
+    public CharStreamMappedUTF8(String filename)
+    { this(filename, CB_SIZE, WINDOW_SIZE) ; }
+
+    /*package*/ CharStreamMappedUTF8(String filename, int buffSize, int windowSize)
+    {
+        if ( windowSize < 4 )
+            throw new IllegalArgumentException("Window size must be at least 4") ;
+        // Room for a surrogate pair.
+        this.chars = new char[Math.max(2, buffSize)] ;
+        this.windowSize = windowSize ;
+        try {
+            file = new RandomAccessFile(filename, "r") ;
+        } catch (FileNotFoundException ex) {
+            throw new AtlasException("File not found: " + filename) ;
+        }
+        channel = file.getChannel() ;
+        try {
+            fileLength = channel.size() ;
+            map(0) ;
+        } catch (IOException ex) {
+            closeStream() ;
+            throw new AtlasException(ex) ;
+        }
+    }
+
+    private void map(long posn) throws IOException
+    {
+        long len = Math.min(windowSize, fileLength - posn) ;
+        window = channel.map(MapMode.READ_ONLY, posn, len) ;
+        windowStart = posn ;
+    }
+
+    /** Move the window on so that any UTF-8 sequence is wholly within it.
+     * Returns false if this is the last window. */
+    private boolean remap()
+    {
+        if ( windowStart + window.limit() >= fileLength )
+            return false ;
+        try { map(windowStart + window.position()) ; }
+        catch (IOException ex) { IO.exception(ex) ; }
+        return true ;
+    }
+
+    @Override
+    public final int advance()
+    {
+        if ( idx >= buffLen )
+            fillArray() ;
+        if ( buffLen <= 0 )
+            return EOF ;
+        return chars[idx++] ;
+    }
+
+    private void fillArray()
+    {
+        int n = 0 ;
+        // Always leave room for a surrogate pair.
+        int max = chars.length - 1 ;
+        while ( n < max )
+        {
+            if ( window.remaining() < 4 )
+                remap() ;
+            if ( ! window.hasRemaining() )
+                break ;
+            // ASCII run.
+            int pos = window.position() ;
+            int end = pos + Math.min(max - n, window.remaining()) ;
+            while ( pos < end )
+            {
+                byte b = window.get(pos) ;
+                if ( b < 0 )
+                    break ;
+                chars[n++] = (char)b ;
+                pos++ ;
+            }
+            window.position(pos) ;
+            if ( pos < end )
+                n += decode(n) ;
+        }
+        idx = 0 ;
+        buffLen = ( n == 0 ) ? EOF : n ;
+    }
+
+    /** Decode one multi-byte sequence into chars[n] onwards; return the number of chars. */
+    private int decode(int n)
+    {
+        // The ASCII run may have ended near the end of the window:
+        // move on so the whole sequence is in the window.
+        if ( window.remaining() < 4 )
+            remap() ;
+        int b = window.get() & 0xFF ;
+        int len ;
+        int cp ;
+        if ( (b & 0xE0) == 0xC0 )
+        {
+            len = 2 ;
+            cp = b & 0x1F ;
+        }
+        else if ( (b & 0xF0) == 0xE0 )
+        {
+            len = 3 ;
+            cp = b & 0x0F ;
+        }
+        else if ( (b & 0xF8) == 0xF0 )
+        {
+            len = 4 ;
+            cp = b & 0x07 ;
+        }
+        else
+            throw malformed(1) ;
+
+        if ( window.remaining() < len-1 )
+            throw malformed(window.remaining()+1) ;
+        for ( int i = 1 ; i < len ; i++ )
+        {
+            int b2 = window.get() & 0xFF ;
+            if ( (b2 & 0xC0) != 0x80 )
+                throw malformed(i) ;
+            cp = (cp << 6) | (b2 & 0x3F) ;
+        }
+        // Overlong encodings, surrogates and out of range.
+        if ( ( len == 2 && cp < 0x80 ) ||
+             ( len == 3 && ( cp < 0x800 || ( cp >= 0xD800 && cp <= 0xDFFF ) ) ) ||
+             ( len == 4 && ( cp < 0x10000 || cp > Character.MAX_CODE_POINT ) ) )
+            throw malformed(len) ;
+        return Character.toChars(cp, chars, n) ;
+    }
+
+    private static AtlasException malformed(int len)
+    {
+        return new AtlasException(new MalformedInputException(len)) ;
+    }
+
+    @Override
+    public void closeStream()
+    {
+        try { file.close() ; } catch (IOException ex) { IO.exception(ex) ; }
+    }
+}
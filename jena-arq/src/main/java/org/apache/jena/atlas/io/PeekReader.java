@@ -96,7 +96,15 @@ public final class PeekReader extends Reader {
             CharStream r = new InStreamUTF8(in2) ;
             pr = new PeekReader(r) ;
         }
-        // Skip BOM.
+        return skipBOM(pr) ;
+    }
+
+    /** Make PeekReader for a UTF8 file, read by memory mapping the file : BOM is removed */
+    public static PeekReader openMapped(String filename) {
+        return skipBOM(new PeekReader(new CharStreamMappedUTF8(filename))) ;
+    }
+
+    private static PeekReader skipBOM(PeekReader pr) {
         int ch = pr.peekChar() ;
         if ( ch == Chars.BOM )
             // Skip BOM
@@ -40,6 +40,15 @@ public class CacheFactory
         return new CacheLRU<Key, Value>(loadFactor, maxSize) ;
     }
     
+    /** Create a thread-safe cache which has space for up to a certain number of objects.
+     *  Lookups do not lock; replacement approximates LRU.
+     *  The cache returns null for a cache miss.
+     */
+    public static <Key, Value> Cache<Key, Value> createConcurrentCache(int maxSize)
+    {
+        return new CacheClock<Key, Value>(maxSize) ;
+    }
+
     /** Create a cache which has space for upto a certain number of objects. 
      * Call the getter when the cache has a miss.
      */
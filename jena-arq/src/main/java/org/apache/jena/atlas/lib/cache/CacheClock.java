@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.lib.cache;
+
+import java.util.Arrays ;
+import java.util.Iterator ;
+import java.util.concurrent.ConcurrentHashMap ;
+
+import org.apache.jena.atlas.lib.ActionKeyValue ;
+import org.apache.jena.atlas.lib.Cache ;
+
+/**
+ * A thread-safe, fixed size cache with CLOCK (second chance) replacement,
+ * an approximation to LRU.
+ * <p>
+ * Lookups take no lock: an entry found is marked as recently used and the
+ * clock hand, which only moves when a new entry is added, passes over
+ * marked entries once before they can be dropped. Updates are serialized.
+ */
+public class CacheClock<K,V> implements Cache<K,V>
+{
+    private static final class Entry<K,V>
+    {
+        final K key ;
+        final int slot ;
+        volatile V value ;
+        // Not volatile - a lost update only affects the choice of victim.
+        boolean referenced = true ;
+
+        Entry(K key, V value, int slot)
+        { this.key = key ; this.value = value ; this.slot = slot ; }
+    }
+
+    private final ConcurrentHashMap<K, Entry<K,V>> map ;
+    private final Entry<K,V>[] slots ;
+    private final int size ;
+    // Guarded by "this".
+    private int hand = 0 ;
+    private int used = 0 ;
+    private int[] freeSlots ;
+    private int freeCount = 0 ;
+    private ActionKeyValue<K,V> dropHandler = null ;
+
+    public CacheClock(int size)
+    {
+        if ( size <= 0 )
+            throw new IllegalArgumentException("Cache size must be positive: "+size) ;
+        this.size = size ;
+        @SuppressWarnings("unchecked")
+        Entry<K,V>[] x = (Entry<K,V>[])new Entry<?,?>[size] ;
+        this.slots = x ;
+        this.freeSlots = new int[size] ;
+        this.map = new ConcurrentHashMap<K, Entry<K,V>>(Math.min(size, 1024)*4/3+1, 0.75f, 16) ;
+    }
+
+    @Override
+    public boolean containsKey(K key)
+    {
+        return map.containsKey(key) ;
+    }
+
+    @Override
+    public V get(K key)
+    {
+        Entry<K,V> e = map.get(key) ;
+        if ( e == null )
+            return null ;
+        if ( ! e.referenced )
+            e.referenced = true ;
+        return e.value ;
+    }
+
+    @Override
+    public synchronized V put(K key, V thing)
+    {
+        if ( thing == null )
+        {
+            // put(,null) is a remove.
+            Entry<K,V> e = removeEntry(key) ;
+            return e == null ? null : e.value ;
+        }
+        Entry<K,V> e = map.get(key) ;
+        if ( e != null )
+        {
+            V old = e.value ;
+            e.value = thing ;
+            e.referenced = true ;
+            return old ;
+        }
+        int slot = freeSlot() ;
+        e = new Entry<K,V>(key, thing, slot) ;
+        slots[slot] = e ;
+        map.put(key, e) ;
+        return null ;
+    }
+
+    // Find a slot for a new entry, dropping an entry if the cache is full.
+    private int freeSlot()
+    {
+        if ( freeCount > 0 )
+            return freeSlots[--freeCount] ;
+        if ( used < size )
+            return used++ ;
+        for ( ;; )
+        {
+            Entry<K,V> e = slots[hand] ;
+            int slot = hand ;
+            hand = (hand+1) % size ;
+            if ( e.referenced )
+            {
+                // Second chance.
+                e.referenced = false ;
+                continue ;
+            }
+            map.remove(e.key) ;
+            slots[slot] = null ;
+            if ( dropHandler != null )
+                dropHandler.apply(e.key, e.value) ;
+            return slot ;
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(K key)
+    {
+        return removeEntry(key) != null ;
+    }
+
+    private Entry<K,V> removeEntry(K key)
+    {
+        Entry<K,V> e = map.remove(key) ;
+        if ( e == null )
+            return null ;
+        slots[e.slot] = null ;
+        freeSlots[freeCount++] = e.slot ;
+        return e ;
+    }
+
+    /** Iterate over the keys - weakly consistent with concurrent updates */
+    @Override
+    public Iterator<K> keys()
+    {
+        return map.keySet().iterator() ;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return map.isEmpty() ;
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        map.clear() ;
+        Arrays.fill(slots, null) ;
+        hand = 0 ;
+        used = 0 ;
+        freeCount = 0 ;
+    }
+
+    @Override
+    public long size()
+    {
+        return map.size() ;
+    }
+
+    /** Callback for entries when dropped from the cache */
+    @Override
+    public synchronized void setDropHandler(ActionKeyValue<K,V> dropHandler)
+    {
+        this.dropHandler = dropHandler ;
+    }
+}
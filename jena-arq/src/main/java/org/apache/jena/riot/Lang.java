@@ -78,6 +78,9 @@ public class Lang
     /** Alternative constant {@linkplain #NQUADS} */
     public static Lang NQ ;
 
+    /** Binary encoding of triples and quads */
+    public static Lang RDFBINARY ;
+
     /** The "null" language */
     public static Lang RDFNULL ;
 
@@ -22,12 +22,18 @@ import java.io.* ;
 import java.util.Iterator ;
 
 import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.lib.FileOps ;
 import org.apache.jena.atlas.web.ContentType ;
 import org.apache.jena.atlas.web.TypedInputStream ;
+import org.apache.jena.riot.lang.LangRIOT ;
+import org.apache.jena.riot.lang.ParserNTuplesParallel ;
 import org.apache.jena.riot.stream.StreamManager ;
+import org.apache.jena.riot.system.IRILib ;
 import org.apache.jena.riot.system.RiotLib ;
 import org.apache.jena.riot.system.StreamRDF ;
 import org.apache.jena.riot.system.StreamRDFLib ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
 import org.apache.jena.riot.writer.NQuadsWriter ;
 import org.apache.jena.riot.writer.NTriplesWriter ;
 import org.slf4j.Logger ;
@@ -786,6 +792,88 @@ public class RDFDataMgr
         process(sink, new TypedInputStream(in), base, hintLang, context) ;
     }
 
+    /** Read N-Triples or N-Quads using several threads.
+     * The input is split into chunks of whole lines which are parsed in parallel.
+     * Other syntaxes are read as for {@link #parse(StreamRDF, String, Lang)}.
+     * @param sink          Destination for the RDF read.
+     * @param uri           URI to read from (includes file: and a plain file name).
+     * @param hintLang      Hint for the syntax
+     * @param numThreads    Number of parser threads (0 for one per processor)
+     * @param ordered       Whether the triples or quads are sent to the sink in the order of the input.
+     */
+    public static void parseParallel(StreamRDF sink, String uri, Lang hintLang, int numThreads, boolean ordered)
+    {
+        if ( uri == null )
+            throw new IllegalArgumentException("URI to read from is null") ;
+        String base = SysRIOT.chooseBaseIRI(uri) ;
+        if ( hintLang == null )
+            hintLang = RDFLanguages.filenameToLang(uri) ;
+        TypedInputStream in = open(uri) ;
+        if ( in == null )
+            throw new RiotException("Not found: "+uri) ;
+        try {
+            ContentType ct = determineCT(base, in.getContentType(), hintLang) ;
+            Lang lang = ( ct == null ) ? null : RDFLanguages.contentTypeToLang(ct) ;
+            if ( lang == null || ! ParserNTuplesParallel.canParse(lang) )
+                process(sink, in, base, hintLang, null) ;
+            else
+                new ParserNTuplesParallel(lang, numThreads, ordered).parse(in, sink) ;
+        } finally { IO.close(in) ; }
+    }
+
+    /** Read N-Triples or N-Quads using several threads.
+     * The input is split into chunks of whole lines which are parsed in parallel.
+     * Other syntaxes are read as for {@link #parse(StreamRDF, InputStream, Lang)}.
+     * @param sink          Destination for the RDF read.
+     * @param in            Bytes to read.
+     * @param lang          Syntax for the stream.
+     * @param numThreads    Number of parser threads (0 for one per processor)
+     * @param ordered       Whether the triples or quads are sent to the sink in the order of the input.
+     */
+    public static void parseParallel(StreamRDF sink, InputStream in, Lang lang, int numThreads, boolean ordered)
+    {
+        if ( ! ParserNTuplesParallel.canParse(lang) )
+            parse(sink, in, lang) ;
+        else
+            new ParserNTuplesParallel(lang, numThreads, ordered).parse(in, sink) ;
+    }
+
+    /** Read Turtle, TriG, N-Triples or N-Quads from a file by memory mapping the file.
+     * The tokenizer reads directly from the mapped file, without an InputStream and Reader.
+     * Other syntaxes, and URIs that are not files, are read as for {@link #parse(StreamRDF, String, Lang)}.
+     * @param sink      Destination for the RDF read.
+     * @param filename  File to read (a plain file name or a file: URI).
+     * @param hintLang  Hint for the syntax
+     */
+    public static void parseMapped(StreamRDF sink, String filename, Lang hintLang)
+    {
+        if ( filename == null )
+            throw new IllegalArgumentException("File to read from is null") ;
+        String fn = filename.startsWith("file:") ? IRILib.IRIToFilename(filename) : filename ;
+        Lang lang = RDFLanguages.filenameToLang(fn, hintLang) ;
+        if ( ! FileOps.exists(fn) || ! canParseMapped(lang) )
+        {
+            parse(sink, filename, hintLang) ;
+            return ;
+        }
+        String base = SysRIOT.chooseBaseIRI(filename) ;
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerMapped(fn) ;
+        try {
+            @SuppressWarnings("deprecation")
+            LangRIOT parser = RiotReader.createParser(tokenizer, lang, base, sink) ;
+            parser.parse() ;
+        } finally { tokenizer.close() ; }
+    }
+
+    private static boolean canParseMapped(Lang lang)
+    {
+        if ( lang == null )
+            return false ;
+        return RDFLanguages.sameLang(lang, RDFLanguages.TURTLE) || RDFLanguages.sameLang(lang, RDFLanguages.N3)
+            || RDFLanguages.sameLang(lang, RDFLanguages.NTRIPLES) || RDFLanguages.sameLang(lang, RDFLanguages.NQUADS)
+            || RDFLanguages.sameLang(lang, RDFLanguages.TRIG) ;
+    }
+
     /** Open a stream to the destination (URI or filename)
      * Performs content negotiation, including looking at file extension.
      * @param filenameOrURI
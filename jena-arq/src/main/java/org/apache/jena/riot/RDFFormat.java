@@ -74,6 +74,14 @@ public class RDFFormat {
 
     public static RDFFormat        RDFJSON        = new RDFFormat(Lang.RDFJSON) ;
 
+    /** Block compressed variant */
+    public static RDFFormatVariant COMPRESSED     = new RDFFormatVariant("compressed") ;
+
+    /** Binary encoding (see {@link org.apache.jena.riot.binary.BinaryRDF}) */
+    public static RDFFormat        RDFBINARY      = new RDFFormat(Lang.RDFBINARY) ;
+    /** Binary encoding, compressed */
+    public static RDFFormat        RDFBINARY_COMPRESSED = new RDFFormat(Lang.RDFBINARY, COMPRESSED) ;
+
     /**
      * The "null" output format (a sink that prints nothing, usually quite
      * efficiently)
@@ -47,6 +47,7 @@ public class RDFLanguages
     public static final String strLangJSONLD     = "JSON-LD" ;
     public static final String strLangNQuads     = "N-Quads" ;
     public static final String strLangTriG       = "TriG" ;
+    public static final String strLangRDFBinary  = "RDF-Binary" ;
     
     /*
      * ".owl" is not a formally registered file extension for OWL 
@@ -117,6 +118,14 @@ public class RDFLanguages
     /** Alternative constant {@linkplain #NQUADS} */
     public static final Lang NQ     = NQUADS ;
 
+    /** Binary encoding of triples and quads
+     * @see org.apache.jena.riot.binary.BinaryRDF
+     */
+    public static final Lang RDFBINARY = LangBuilder.create(strLangRDFBinary, contentTypeRDFBinary)
+                                                .addAltNames("RDFBINARY", "RDF/Binary")
+                                                .addFileExtensions("rdfb")
+                                                .build() ;
+
     /** The "null" language */
     public static final Lang RDFNULL  = LangBuilder.create("rdf/null", "null/rdf")
                                                 .addAltNames("NULL", "null")  
@@ -154,6 +163,7 @@ public class RDFLanguages
         Lang.NQUADS     = RDFLanguages.NQUADS ;
         Lang.NQ         = RDFLanguages.NQ ;
         Lang.TRIG       = RDFLanguages.TRIG ; 
+        Lang.RDFBINARY  = RDFLanguages.RDFBINARY ;
         Lang.RDFNULL    = RDFLanguages.RDFNULL ;
     }
     // ----------------------
@@ -169,6 +179,7 @@ public class RDFLanguages
         register(RDFJSON) ;
         register(TRIG) ;
         register(NQUADS) ;
+        register(RDFBINARY) ;
         register(RDFNULL) ;
         
         // Check for JSON-LD engine.
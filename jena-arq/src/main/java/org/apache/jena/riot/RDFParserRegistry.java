@@ -28,6 +28,7 @@ import java.util.Set ;
 import org.apache.jena.atlas.lib.DS ;
 import org.apache.jena.atlas.lib.InternalErrorException ;
 import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.riot.binary.ReaderRIOTBinary ;
 import org.apache.jena.riot.lang.JsonLDReader ;
 import org.apache.jena.riot.lang.LangRIOT ;
 import org.apache.jena.riot.system.ErrorHandler ;
@@ -84,10 +85,12 @@ public class RDFParserRegistry
         registerLangTriples(TURTLE,     parserFactory) ;
         registerLangTriples(JSONLD,     parserFactoryJsonLD) ;
         registerLangTriples(RDFJSON,    parserFactory) ;
+        registerLangTriples(RDFBINARY,  ReaderRIOTBinary.factory) ;
         
         registerLangQuads(JSONLD,       parserFactoryJsonLD) ;
         registerLangQuads(NQUADS,       parserFactory) ;
         registerLangQuads(TRIG,         parserFactory) ;
+        registerLangQuads(RDFBINARY,    ReaderRIOTBinary.factory) ;
     }
 
     /** Register a language and it's parser factory.
@@ -27,6 +27,8 @@ import org.apache.jena.atlas.lib.Lib ;
 import org.apache.jena.riot.Lang ;
 import org.apache.jena.riot.RIOT ;
 import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.binary.WriterDatasetBinary ;
+import org.apache.jena.riot.binary.WriterGraphBinary ;
 import org.apache.jena.riot.out.JsonLDWriter ;
 import org.apache.jena.riot.system.RiotLib ;
 
@@ -129,6 +131,7 @@ public class RDFWriterRegistry
          register(Lang.TRIG,        RDFFormat.TRIG) ;
          register(Lang.NQUADS,      RDFFormat.NQUADS) ;
          register(Lang.RDFNULL,     RDFFormat.RDFNULL) ;
+         register(Lang.RDFBINARY,   RDFFormat.RDFBINARY) ;
 
          // Writer factories.
          register(RDFFormat.TURTLE_PRETTY,  wgfactory) ;
@@ -146,6 +149,8 @@ public class RDFWriterRegistry
 
          register(RDFFormat.RDFXML_PRETTY,  wgfactory) ;
          register(RDFFormat.RDFXML_PLAIN,   wgfactory) ;
+         register(RDFFormat.RDFBINARY,      WriterGraphBinary.factory) ;
+         register(RDFFormat.RDFBINARY_COMPRESSED, WriterGraphBinary.factory) ;
 
          // Graphs in a quad format.
          register(RDFFormat.TRIG_PRETTY,    wgfactory) ;
@@ -168,6 +173,8 @@ public class RDFWriterRegistry
          register(RDFFormat.JSONLD,         wdsJsonldfactory) ;
          register(RDFFormat.JSONLD_FLAT,    wdsJsonldfactory) ;
          register(RDFFormat.JSONLD_PRETTY,  wdsJsonldfactory) ;
+         register(RDFFormat.RDFBINARY,      WriterDatasetBinary.factory) ;
+         register(RDFFormat.RDFBINARY_COMPRESSED, WriterDatasetBinary.factory) ;
      }
     
     /** Register the serialization for graphs and it's associated factory
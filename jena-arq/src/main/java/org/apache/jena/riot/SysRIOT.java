@@ -34,6 +34,11 @@ public class SysRIOT
     
     public static boolean StrictXSDLexicialForms = false ;
     public static boolean strictMode             = false ;
+    /** Number of slots for interning IRIs and literals while parsing;
+     * 0 for no interning. Each parser run has its own interner.
+     * @see org.apache.jena.riot.system.NodeInterner
+     */
+    public static int nodeInternerSize           = 0 ;
     
     public static final String BNodeGenIdPrefix = "genid" ;
     
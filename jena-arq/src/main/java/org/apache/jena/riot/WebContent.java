@@ -117,6 +117,14 @@ public class WebContent
     public static final String      contentTypeResultsBIO        = "application/sparql-results+bio" ;
     public static final ContentType ctResultsBIO                 = ContentType.create(contentTypeResultsBIO) ;
 
+    // Unofficial
+    public static final String      contentTypeRDFBinary         = "application/rdf+binary" ;
+    public static final ContentType ctRDFBinary                  = ContentType.create(contentTypeRDFBinary) ;
+
+    // Unofficial
+    public static final String      contentTypeResultsBinary     = "application/sparql-results+binary" ;
+    public static final ContentType ctResultsBinary              = ContentType.create(contentTypeResultsBinary) ;
+
     public static final String      contentTypeSPARQLQuery       = "application/sparql-query" ;
     public static final ContentType ctSPARQLQuery                = ContentType.create(contentTypeSPARQLQuery) ;
 
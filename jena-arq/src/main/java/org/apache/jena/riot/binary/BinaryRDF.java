@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.binary;
+
+import java.io.InputStream ;
+import java.io.OutputStream ;
+
+import org.apache.jena.riot.system.StreamRDF ;
+
+/** A binary encoding of RDF triples, quads and SPARQL result rows.
+ * <p>
+ * The stream is a header (the bytes "RDFB", a version byte and a flags byte)
+ * followed by records. Each record is a tag byte and its terms.
+ * Lengths and numbers are unsigned varints (7 bits per byte, low order first);
+ * strings are a varint byte length then UTF-8.
+ * <p>
+ * Terms are a tag byte then:
+ * <ul>
+ * <li>IRI: the IRI string</li>
+ * <li>IRI with a new namespace: namespace string, local part string</li>
+ * <li>IRI in a namespace seen before: namespace number, local part string</li>
+ * <li>IRI seen before: IRI number</li>
+ * <li>blank node: label string</li>
+ * <li>literal: lexical form (and language, or the datatype as a term)</li>
+ * <li>xsd:integer in canonical form: zigzag varint</li>
+ * </ul>
+ * Each IRI and namespace written in full is entered into a dictionary, per stream,
+ * of fixed size; the number is the slot, and slots are reused in rotation.
+ * The reader keeps the same dictionary.
+ * <p>
+ * If the header flag {@link #FlagCompressed} is set, the records are written
+ * in blocks, each compressed separately (varint length, varint compressed length,
+ * deflate compressed bytes).
+ */
+public class BinaryRDF
+{
+    static final byte[] Magic           = { 'R', 'D', 'F', 'B' } ;
+    static final int Version            = 1 ;
+    /** Header flag: the body is in compressed blocks */
+    static final int FlagCompressed     = 0x01 ;
+
+    // Records (also used by the SPARQL result set format)
+    public static final int RecTriple = 'T' ;
+    public static final int RecQuad = 'Q' ;
+    public static final int RecPrefix = 'P' ;
+    public static final int RecBase = 'B' ;
+    public static final int RecVars = 'V' ;
+    public static final int RecRow = 'R' ;
+    public static final int RecBoolean = 'A' ;
+
+    // Terms
+    static final int TermUndef          = 0 ;
+    static final int TermIRI            = 1 ;
+    static final int TermIRINewNS       = 2 ;
+    static final int TermIRINS          = 3 ;
+    static final int TermIRIRef         = 4 ;
+    static final int TermBNode          = 5 ;
+    static final int TermString         = 6 ;
+    static final int TermLang           = 7 ;
+    static final int TermTyped          = 8 ;
+    static final int TermInteger        = 9 ;
+    static final int TermVar            = 10 ;
+
+    /** Dictionary sizes (powers of two) */
+    static final int IRIDictSize        = 1<<16 ;
+    static final int NSDictSize         = 1<<12 ;
+
+    /** Uncompressed size of a block */
+    static final int BlockSize          = 64*1024 ;
+
+    /** A StreamRDF that writes the binary format, uncompressed. */
+    public static StreamRDF streamWriter(OutputStream out)
+    {
+        return streamWriter(out, false) ;
+    }
+
+    /** A StreamRDF that writes the binary format, with block compression if compressed is true. */
+    public static StreamRDF streamWriter(OutputStream out, boolean compressed)
+    {
+        return new WriterStreamRDFBinary(out, compressed) ;
+    }
+
+    /** Read a stream in the binary format, sending the triples and quads to the StreamRDF. */
+    public static void read(InputStream in, StreamRDF dest)
+    {
+        new ReaderRIOTBinary().read(in, null, null, dest, null) ;
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.binary;
+
+import static org.apache.jena.riot.binary.BinaryRDF.* ;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.nio.charset.Charset ;
+import java.util.zip.DataFormatException ;
+import java.util.zip.Inflater ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.lang.LabelToNode ;
+import org.apache.jena.riot.system.SyntaxLabels ;
+
+import com.hp.hpl.jena.datatypes.RDFDatatype ;
+import com.hp.hpl.jena.datatypes.TypeMapper ;
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype ;
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.sparql.core.Var ;
+
+/** Decoder for the binary format: records and terms read from an InputStream.
+ * @see BinaryRDF
+ */
+public class BinaryRDFInput
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8") ;
+
+    private final InputStream in ;
+    private boolean compressed ;
+    private Inflater inflater = null ;
+    private byte[] buffer = new byte[BlockSize] ;
+    private int idx = 0 ;
+    private int limit = 0 ;
+    private byte[] compressBuffer = null ;
+
+    // The dictionaries of the writer. IRIs are kept as nodes.
+    private final Node[] iriDict = new Node[IRIDictSize] ;
+    private int iriNext = 0 ;
+    private final String[] nsDict = new String[NSDictSize] ;
+    private int nsNext = 0 ;
+    private LabelToNode labels = SyntaxLabels.createLabelToNode() ;
+
+    public BinaryRDFInput(InputStream in)
+    {
+        this.in = in ;
+    }
+
+    /** Blank node labels to nodes (default: fresh nodes for each stream) */
+    public void setLabelToNode(LabelToNode labels)  { this.labels = labels ; }
+
+    /** Read and check the header */
+    public void start()
+    {
+        try {
+            for ( int i = 0 ; i < Magic.length ; i++ )
+            {
+                if ( in.read() != Magic[i] )
+                    throw new RiotException("Not the binary RDF format") ;
+            }
+            int version = in.read() ;
+            if ( version != Version )
+                throw new RiotException("Binary RDF format: unsupported version: "+version) ;
+            int flags = in.read() ;
+            if ( flags < 0 )
+                throw new RiotException("Binary RDF format: truncated header") ;
+            compressed = ( flags & FlagCompressed ) != 0 ;
+            if ( compressed )
+                inflater = new Inflater() ;
+        } catch (IOException ex) { IO.exception(ex) ; }
+    }
+
+    public void finish()
+    {
+        if ( inflater != null )
+            inflater.end() ;
+    }
+
+    /** The next record tag, or -1 at the end of the stream */
+    public int readRecord()
+    {
+        if ( idx == limit && ! fill() )
+            return -1 ;
+        return buffer[idx++] & 0xFF ;
+    }
+
+    public Node readNode()
+    {
+        int tag = readByte() ;
+        switch (tag)
+        {
+            case TermUndef:
+                return null ;
+            case TermIRI:
+                return addIRI(readString()) ;
+            case TermIRINewNS:
+            {
+                String ns = readString() ;
+                nsDict[nsNext] = ns ;
+                nsNext = (nsNext+1) & (NSDictSize-1) ;
+                return addIRI(ns+readString()) ;
+            }
+            case TermIRINS:
+            {
+                String ns = nsDict[readInt(NSDictSize)] ;
+                if ( ns == null )
+                    throw new RiotException("Binary RDF format: undefined namespace") ;
+                return addIRI(ns+readString()) ;
+            }
+            case TermIRIRef:
+            {
+                Node n = iriDict[readInt(IRIDictSize)] ;
+                if ( n == null )
+                    throw new RiotException("Binary RDF format: undefined IRI") ;
+                return n ;
+            }
+            case TermBNode:
+                return labels.get(null, readString()) ;
+            case TermString:
+                return NodeFactory.createLiteral(readString()) ;
+            case TermLang:
+            {
+                String lex = readString() ;
+                return NodeFactory.createLiteral(lex, readString(), false) ;
+            }
+            case TermTyped:
+            {
+                String lex = readString() ;
+                Node dt = readNode() ;
+                if ( dt == null || ! dt.isURI() )
+                    throw new RiotException("Binary RDF format: bad datatype") ;
+                RDFDatatype datatype = TypeMapper.getInstance().getSafeTypeByName(dt.getURI()) ;
+                return NodeFactory.createLiteral(lex, null, datatype) ;
+            }
+            case TermInteger:
+            {
+                long x = readVarint() ;
+                long v = (x >>> 1) ^ -(x & 1) ;
+                return NodeFactory.createLiteral(Long.toString(v), null, XSDDatatype.XSDinteger) ;
+            }
+            case TermVar:
+                return Var.alloc(readString()) ;
+            default:
+                throw new RiotException("Binary RDF format: bad term tag: "+tag) ;
+        }
+    }
+
+    private Node addIRI(String iri)
+    {
+        Node n = NodeFactory.createURI(iri) ;
+        iriDict[iriNext] = n ;
+        iriNext = (iriNext+1) & (IRIDictSize-1) ;
+        return n ;
+    }
+
+    public String readString()
+    {
+        int len = readInt(Integer.MAX_VALUE) ;
+        if ( limit-idx >= len )
+        {
+            String s = new String(buffer, idx, len, UTF8) ;
+            idx += len ;
+            return s ;
+        }
+        // Across blocks.
+        byte[] b = new byte[len] ;
+        int x = 0 ;
+        while ( x < len )
+        {
+            if ( idx == limit && ! fill() )
+                throw new RiotException("Binary RDF format: truncated string") ;
+            int n = Math.min(len-x, limit-idx) ;
+            System.arraycopy(buffer, idx, b, x, n) ;
+            idx += n ;
+            x += n ;
+        }
+        return new String(b, UTF8) ;
+    }
+
+    /** Read a varint that must be less than max */
+    public int readInt(int max)
+    {
+        long x = readVarint() ;
+        if ( x < 0 || x >= max )
+            throw new RiotException("Binary RDF format: number out of range: "+x) ;
+        return (int)x ;
+    }
+
+    public long readVarint()
+    {
+        long x = 0 ;
+        for ( int shift = 0 ; shift < 64 ; shift += 7 )
+        {
+            int b = readByte() ;
+            x |= (long)(b & 0x7F) << shift ;
+            if ( (b & 0x80) == 0 )
+                return x ;
+        }
+        throw new RiotException("Binary RDF format: bad number") ;
+    }
+
+    public int readByte()
+    {
+        if ( idx == limit && ! fill() )
+            throw new RiotException("Binary RDF format: unexpected end of input") ;
+        return buffer[idx++] & 0xFF ;
+    }
+
+    private boolean fill()
+    {
+        try {
+            idx = 0 ;
+            limit = 0 ;
+            if ( ! compressed )
+            {
+                int x = in.read(buffer, 0, buffer.length) ;
+                if ( x <= 0 )
+                    return false ;
+                limit = x ;
+                return true ;
+            }
+            int rawLen = readRawVarint() ;
+            if ( rawLen < 0 )
+                return false ;
+            int compLen = readRawVarint() ;
+            if ( compLen < 0 || rawLen > 16*BlockSize )
+                throw new RiotException("Binary RDF format: bad block") ;
+            if ( compressBuffer == null || compressBuffer.length < compLen )
+                compressBuffer = new byte[compLen] ;
+            readFully(compressBuffer, compLen) ;
+            if ( buffer.length < rawLen )
+                buffer = new byte[rawLen] ;
+            inflater.reset() ;
+            inflater.setInput(compressBuffer, 0, compLen) ;
+            int n = 0 ;
+            while ( n < rawLen && ! inflater.finished() )
+            {
+                int x = inflater.inflate(buffer, n, rawLen-n) ;
+                if ( x == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) )
+                    break ;
+                n += x ;
+            }
+            if ( n != rawLen )
+                throw new RiotException("Binary RDF format: bad compressed block") ;
+            limit = rawLen ;
+            return rawLen > 0 ;
+        }
+        catch (IOException ex) { IO.exception(ex) ; return false ; }
+        catch (DataFormatException ex) { throw new RiotException("Binary RDF format: bad compressed block", ex) ; }
+    }
+
+    /** Read a varint directly from the input; -1 at end of input */
+    private int readRawVarint() throws IOException
+    {
+        int x = 0 ;
+        for ( int shift = 0 ; shift < 32 ; shift += 7 )
+        {
+            int b = in.read() ;
+            if ( b < 0 )
+            {
+                if ( shift == 0 )
+                    return -1 ;
+                throw new RiotException("Binary RDF format: truncated block") ;
+            }
+            x |= (b & 0x7F) << shift ;
+            if ( (b & 0x80) == 0 )
+                return x ;
+        }
+        throw new RiotException("Binary RDF format: bad block") ;
+    }
+
+    private void readFully(byte[] b, int len) throws IOException
+    {
+        int n = 0 ;
+        while ( n < len )
+        {
+            int x = in.read(b, n, len-n) ;
+            if ( x < 0 )
+                throw new RiotException("Binary RDF format: truncated block") ;
+            n += x ;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.binary;
+
+import static org.apache.jena.riot.binary.BinaryRDF.* ;
+
+import java.io.IOException ;
+import java.io.OutputStream ;
+import java.nio.charset.Charset ;
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.zip.Deflater ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.riot.RiotException ;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype ;
+import com.hp.hpl.jena.graph.Node ;
+
+/** Encoder for the binary format: records and terms written to an OutputStream.
+ * @see BinaryRDF
+ */
+public class BinaryRDFOutput
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8") ;
+    private static final String XSDinteger = XSDDatatype.XSDinteger.getURI() ;
+
+    private final OutputStream out ;
+    private final boolean compressed ;
+    private final Deflater deflater ;
+    private byte[] buffer = new byte[BlockSize] ;
+    private int idx = 0 ;
+    private byte[] compressBuffer = null ;
+    private boolean started = false ;
+
+    private final Dict iriDict = new Dict(IRIDictSize) ;
+    private final Dict nsDict = new Dict(NSDictSize) ;
+
+    public BinaryRDFOutput(OutputStream out, boolean compressed)
+    {
+        this.out = out ;
+        this.compressed = compressed ;
+        this.deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null ;
+    }
+
+    /** Write the header, if not already written. */
+    public void start()
+    {
+        if ( started )
+            return ;
+        started = true ;
+        try {
+            out.write(Magic) ;
+            out.write(Version) ;
+            out.write(compressed ? FlagCompressed : 0) ;
+        } catch (IOException ex) { IO.exception(ex) ; }
+    }
+
+    /** Write any buffered output and flush the OutputStream; does not close it. */
+    public void finish()
+    {
+        start() ;
+        flushBuffer() ;
+        try { out.flush() ; } catch (IOException ex) { IO.exception(ex) ; }
+        if ( deflater != null )
+            deflater.end() ;
+    }
+
+    public void writeRecord(int tag)
+    {
+        start() ;
+        writeByte(tag) ;
+    }
+
+    public void writeNode(Node node)
+    {
+        if ( node == null )
+        {
+            writeByte(TermUndef) ;
+            return ;
+        }
+        if ( node.isURI() )
+        {
+            writeIRI(node.getURI()) ;
+            return ;
+        }
+        if ( node.isBlank() )
+        {
+            writeByte(TermBNode) ;
+            writeString(node.getBlankNodeLabel()) ;
+            return ;
+        }
+        if ( node.isLiteral() )
+        {
+            String lex = node.getLiteralLexicalForm() ;
+            String lang = node.getLiteralLanguage() ;
+            String dt = node.getLiteralDatatypeURI() ;
+            if ( lang != null && ! lang.isEmpty() )
+            {
+                writeByte(TermLang) ;
+                writeString(lex) ;
+                writeString(lang) ;
+                return ;
+            }
+            if ( dt == null )
+            {
+                writeByte(TermString) ;
+                writeString(lex) ;
+                return ;
+            }
+            if ( dt.equals(XSDinteger) && isCanonicalLong(lex) )
+            {
+                writeByte(TermInteger) ;
+                long v = Long.parseLong(lex) ;
+                writeVarint((v << 1) ^ (v >> 63)) ;
+                return ;
+            }
+            writeByte(TermTyped) ;
+            writeString(lex) ;
+            writeIRI(dt) ;
+            return ;
+        }
+        if ( node.isVariable() )
+        {
+            writeByte(TermVar) ;
+            writeString(node.getName()) ;
+            return ;
+        }
+        throw new RiotException("Can't encode node: "+node) ;
+    }
+
+    private void writeIRI(String iri)
+    {
+        int id = iriDict.get(iri) ;
+        if ( id >= 0 )
+        {
+            writeByte(TermIRIRef) ;
+            writeVarint(id) ;
+            return ;
+        }
+        int split = splitPoint(iri) ;
+        if ( split > 0 )
+        {
+            String ns = iri.substring(0, split) ;
+            int nsId = nsDict.get(ns) ;
+            if ( nsId >= 0 )
+            {
+                writeByte(TermIRINS) ;
+                writeVarint(nsId) ;
+            }
+            else
+            {
+                writeByte(TermIRINewNS) ;
+                writeString(ns) ;
+                nsDict.add(ns) ;
+            }
+            writeString(iri.substring(split)) ;
+        }
+        else
+        {
+            writeByte(TermIRI) ;
+            writeString(iri) ;
+        }
+        iriDict.add(iri) ;
+    }
+
+    /** The namespace is the IRI up to and including the last '#' or '/'. */
+    private static int splitPoint(String iri)
+    {
+        for ( int i = iri.length()-2 ; i > 0 ; i-- )
+        {
+            char ch = iri.charAt(i) ;
+            if ( ch == '#' || ch == '/' )
+                return i+1 ;
+        }
+        return -1 ;
+    }
+
+    /** A decimal integer, in canonical form, that fits in a long. */
+    private static boolean isCanonicalLong(String lex)
+    {
+        int len = lex.length() ;
+        if ( len == 0 || len > 18 )
+            return false ;
+        int i = 0 ;
+        if ( lex.charAt(0) == '-' )
+        {
+            i = 1 ;
+            if ( len == 1 || lex.charAt(1) == '0' )
+                return false ;
+        }
+        if ( lex.charAt(i) == '0' && len > 1 )
+            return false ;
+        for ( ; i < len ; i++ )
+        {
+            char ch = lex.charAt(i) ;
+            if ( ch < '0' || ch > '9' )
+                return false ;
+        }
+        return true ;
+    }
+
+    public void writeString(String s)
+    {
+        int len = s.length() ;
+        // ASCII is common: no need to encode.
+        boolean ascii = true ;
+        for ( int i = 0 ; i < len ; i++ )
+        {
+            if ( s.charAt(i) >= 0x80 )
+            {
+                ascii = false ;
+                break ;
+            }
+        }
+        if ( ascii )
+        {
+            writeVarint(len) ;
+            for ( int i = 0 ; i < len ; i++ )
+                writeByte(s.charAt(i)) ;
+            return ;
+        }
+        byte[] b = s.getBytes(UTF8) ;
+        writeVarint(b.length) ;
+        writeBytes(b, 0, b.length) ;
+    }
+
+    public void writeVarint(long x)
+    {
+        while ( (x & ~0x7FL) != 0 )
+        {
+            writeByte((int)((x & 0x7F) | 0x80)) ;
+            x >>>= 7 ;
+        }
+        writeByte((int)x) ;
+    }
+
+    private void writeByte(int b)
+    {
+        if ( idx == buffer.length )
+            flushBuffer() ;
+        buffer[idx++] = (byte)b ;
+    }
+
+    private void writeBytes(byte[] b, int start, int len)
+    {
+        while ( len > 0 )
+        {
+            if ( idx == buffer.length )
+                flushBuffer() ;
+            int x = Math.min(len, buffer.length-idx) ;
+            System.arraycopy(b, start, buffer, idx, x) ;
+            idx += x ;
+            start += x ;
+            len -= x ;
+        }
+    }
+
+    private void flushBuffer()
+    {
+        if ( idx == 0 )
+            return ;
+        try {
+            if ( ! compressed )
+            {
+                out.write(buffer, 0, idx) ;
+                idx = 0 ;
+                return ;
+            }
+            if ( compressBuffer == null )
+                compressBuffer = new byte[BlockSize+BlockSize/8+64] ;
+            deflater.reset() ;
+            deflater.setInput(buffer, 0, idx) ;
+            deflater.finish() ;
+            int clen = 0 ;
+            while ( ! deflater.finished() )
+            {
+                if ( clen == compressBuffer.length )
+                {
+                    byte[] b = new byte[2*compressBuffer.length] ;
+                    System.arraycopy(compressBuffer, 0, b, 0, clen) ;
+                    compressBuffer = b ;
+                }
+                clen += deflater.deflate(compressBuffer, clen, compressBuffer.length-clen) ;
+            }
+            writeRawVarint(idx) ;
+            writeRawVarint(clen) ;
+            out.write(compressBuffer, 0, clen) ;
+            idx = 0 ;
+        } catch (IOException ex) { IO.exception(ex) ; }
+    }
+
+    private void writeRawVarint(int x) throws IOException
+    {
+        while ( (x & ~0x7F) != 0 )
+        {
+            out.write((x & 0x7F) | 0x80) ;
+            x >>>= 7 ;
+        }
+        out.write(x) ;
+    }
+
+    /** Fixed size dictionary; slots are reused in rotation. The reader keeps the same slots. */
+    private static class Dict
+    {
+        private final Map<String, Integer> map = new HashMap<String, Integer>() ;
+        private final String[] slots ;
+        private int next = 0 ;
+
+        Dict(int size) { slots = new String[size] ; }
+
+        int get(String s)
+        {
+            Integer x = map.get(s) ;
+            return ( x == null ) ? -1 : x.intValue() ;
+        }
+
+        void add(String s)
+        {
+            int slot = next ;
+            next = (next+1) & (slots.length-1) ;
+            if ( slots[slot] != null )
+                map.remove(slots[slot]) ;
+            slots[slot] = s ;
+            map.put(s, slot) ;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.binary;
+
+import static org.apache.jena.riot.binary.BinaryRDF.* ;
+
+import java.io.InputStream ;
+import java.io.Reader ;
+
+import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.ReaderRIOT ;
+import org.apache.jena.riot.ReaderRIOTFactory ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.riot.system.ErrorHandlerFactory ;
+import org.apache.jena.riot.system.ParserProfile ;
+import org.apache.jena.riot.system.StreamRDF ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.util.Context ;
+
+/** Reader for the binary RDF format.
+ * There is no tokenizing and IRIs are not resolved or checked:
+ * they were absolute and checked when they were first parsed.
+ * @see BinaryRDF
+ */
+public class ReaderRIOTBinary implements ReaderRIOT
+{
+    public static final ReaderRIOTFactory factory = new ReaderRIOTFactory() {
+        @Override
+        public ReaderRIOT create(Lang language) {
+            return new ReaderRIOTBinary() ;
+        }
+    } ;
+
+    private ErrorHandler errorHandler = ErrorHandlerFactory.getDefaultErrorHandler() ;
+    private ParserProfile parserProfile = null ;
+
+    public ReaderRIOTBinary() {}
+
+    @Override
+    public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context)
+    {
+        BinaryRDFInput input = new BinaryRDFInput(in) ;
+        if ( parserProfile != null )
+            input.setLabelToNode(parserProfile.getLabelToNode()) ;
+        output.start() ;
+        try {
+            input.start() ;
+            for (;;)
+            {
+                int tag = input.readRecord() ;
+                if ( tag < 0 )
+                    break ;
+                switch (tag)
+                {
+                    case RecTriple:
+                    {
+                        Node s = input.readNode() ;
+                        Node p = input.readNode() ;
+                        Node o = input.readNode() ;
+                        output.triple(Triple.create(s, p, o)) ;
+                        break ;
+                    }
+                    case RecQuad:
+                    {
+                        Node g = input.readNode() ;
+                        Node s = input.readNode() ;
+                        Node p = input.readNode() ;
+                        Node o = input.readNode() ;
+                        output.quad(Quad.create(g, s, p, o)) ;
+                        break ;
+                    }
+                    case RecPrefix:
+                    {
+                        String prefix = input.readString() ;
+                        output.prefix(prefix, input.readString()) ;
+                        break ;
+                    }
+                    case RecBase:
+                        output.base(input.readString()) ;
+                        break ;
+                    default:
+                        throw new RiotException("Binary RDF format: not a triple or quad record: "+tag) ;
+                }
+            }
+        } finally {
+            input.finish() ;
+            output.finish() ;
+        }
+    }
+
+    @Override
+    public void read(Reader reader, String baseURI, ContentType ct, StreamRDF output, Context context)
+    { throw new RiotException("The binary RDF format can't be read from a Reader: use an InputStream") ; }
+
+    @Override public ErrorHandler getErrorHandler()                     { return errorHandler ; }
+    @Override public void setErrorHandler(ErrorHandler errorHandler)    { this.errorHandler = errorHandler ; }
+
+    @Override public ParserProfile getParserProfile()                   { return parserProfile ; }
+    @Override public void setParserProfile(ParserProfile parserProfile) { this.parserProfile = parserProfile ; }
+}
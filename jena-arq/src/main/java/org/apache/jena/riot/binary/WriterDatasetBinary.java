@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.binary;
+
+import java.io.OutputStream ;
+import java.io.Writer ;
+import java.util.Iterator ;
+import java.util.Map.Entry ;
+
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFFormat ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.WriterDatasetRIOTFactory ;
+import org.apache.jena.riot.system.PrefixMap ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.apache.jena.riot.writer.WriterDatasetRIOTBase ;
+
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.util.Context ;
+
+/** Write a dataset in the binary RDF format */
+public class WriterDatasetBinary extends WriterDatasetRIOTBase
+{
+    public static final WriterDatasetRIOTFactory factory = new WriterDatasetRIOTFactory() {
+        @Override
+        public WriterDatasetBinary create(RDFFormat format) {
+            return new WriterDatasetBinary(RDFFormat.RDFBINARY_COMPRESSED.equals(format)) ;
+        }
+    } ;
+
+    private final boolean compressed ;
+
+    public WriterDatasetBinary(boolean compressed)
+    {
+        this.compressed = compressed ;
+    }
+
+    @Override
+    public Lang getLang()
+    {
+        return Lang.RDFBINARY ;
+    }
+
+    @Override
+    public void write(Writer out, DatasetGraph dataset, PrefixMap prefixMap, String baseURI, Context context)
+    { throw new RiotException("The binary RDF format can't be written to a Writer: use an OutputStream") ; }
+
+    @Override
+    public void write(OutputStream out, DatasetGraph dataset, PrefixMap prefixMap, String baseURI, Context context)
+    {
+        StreamRDF dest = BinaryRDF.streamWriter(out, compressed) ;
+        start(dest, prefixMap, baseURI) ;
+        Iterator<Quad> iter = dataset.find(null, null, null, null) ;
+        StreamRDFLib.quadsToStream(dest, iter) ;
+        dest.finish() ;
+    }
+
+    /** Write a graph */
+    static void write(OutputStream out, Graph graph, PrefixMap prefixMap, String baseURI, boolean compressed)
+    {
+        StreamRDF dest = BinaryRDF.streamWriter(out, compressed) ;
+        start(dest, prefixMap, baseURI) ;
+        Iterator<Triple> iter = graph.find(null, null, null) ;
+        StreamRDFLib.triplesToStream(dest, iter) ;
+        dest.finish() ;
+    }
+
+    private static void start(StreamRDF dest, PrefixMap prefixMap, String baseURI)
+    {
+        dest.start() ;
+        dest.base(baseURI) ;
+        if ( prefixMap != null )
+        {
+            for ( Entry<String, String> e : prefixMap.getMappingCopyStr().entrySet() )
+                dest.prefix(e.getKey(), e.getValue()) ;
+        }
+    }
+}
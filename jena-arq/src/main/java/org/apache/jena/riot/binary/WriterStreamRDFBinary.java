@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.binary;
+
+import static org.apache.jena.riot.binary.BinaryRDF.* ;
+
+import java.io.OutputStream ;
+
+import org.apache.jena.atlas.lib.Tuple ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.StreamRDF ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+
+/** A StreamRDF that writes triples, quads, prefixes and the base in the binary format.
+ *  Quads in the default graph are written as triples.
+ * @see BinaryRDF
+ */
+public class WriterStreamRDFBinary implements StreamRDF
+{
+    private final BinaryRDFOutput out ;
+
+    public WriterStreamRDFBinary(OutputStream out, boolean compressed)
+    {
+        this.out = new BinaryRDFOutput(out, compressed) ;
+    }
+
+    @Override
+    public void start()
+    { out.start() ; }
+
+    @Override
+    public void triple(Triple triple)
+    {
+        out.writeRecord(RecTriple) ;
+        out.writeNode(triple.getSubject()) ;
+        out.writeNode(triple.getPredicate()) ;
+        out.writeNode(triple.getObject()) ;
+    }
+
+    @Override
+    public void quad(Quad quad)
+    {
+        Node g = quad.getGraph() ;
+        if ( g == null || g == Quad.tripleInQuad || Quad.isDefaultGraph(g) )
+        {
+            out.writeRecord(RecTriple) ;
+        }
+        else
+        {
+            out.writeRecord(RecQuad) ;
+            out.writeNode(g) ;
+        }
+        out.writeNode(quad.getSubject()) ;
+        out.writeNode(quad.getPredicate()) ;
+        out.writeNode(quad.getObject()) ;
+    }
+
+    @Override
+    public void tuple(Tuple<Node> tuple)
+    { throw new RiotException("Tuples not supported in the binary RDF format") ; }
+
+    @Override
+    public void base(String base)
+    {
+        if ( base == null )
+            return ;
+        out.writeRecord(RecBase) ;
+        out.writeString(base) ;
+    }
+
+    @Override
+    public void prefix(String prefix, String iri)
+    {
+        out.writeRecord(RecPrefix) ;
+        out.writeString(prefix) ;
+        out.writeString(iri) ;
+    }
+
+    @Override
+    public void finish()
+    { out.finish() ; }
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream ;
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.util.ArrayDeque ;
+import java.util.Collection ;
+import java.util.Deque ;
+import java.util.UUID ;
+import java.util.concurrent.* ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFLanguages ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.RiotParseException ;
+import org.apache.jena.riot.SysRIOT ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.riot.system.ErrorHandlerFactory ;
+import org.apache.jena.riot.system.NodeInterner ;
+import org.apache.jena.riot.system.ParserProfile ;
+import org.apache.jena.riot.system.RiotLib ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
+
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+
+/** Parse N-Triples or N-Quads using several threads.
+ * <p>
+ * The input is read in large blocks which are split at the last end of line
+ * (newline or carriage return), so each chunk is a sequence of whole lines
+ * and can be parsed independently.
+ * Each chunk is parsed by a worker with its own tokenizer and
+ * {@link ParserProfile}; the blank node label mappings of all the workers
+ * use the same seed, so a label is the same blank node wherever it occurs
+ * in the input (document scope, as for the single threaded parser).
+ * If {@link SysRIOT#nodeInternerSize} is set, the workers share one
+ * {@link NodeInterner}.
+ * <p>
+ * The triples or quads of each chunk are sent to the destination on the
+ * calling thread, either in the order of the input or, if not ordered, as
+ * the chunks finish. The number of chunks in progress is limited so memory
+ * use is bounded.
+ */
+public class ParserNTuplesParallel
+{
+    /** Size of the blocks of input given to the workers. */
+    public static int ChunkSize = 4*1024*1024 ;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger(0) ;
+
+    private final Lang lang ;
+    private final int numThreads ;
+    private final boolean ordered ;
+    private ErrorHandler errorHandler = ErrorHandlerFactory.getDefaultErrorHandler() ;
+    // Chunks read and not yet delivered (calling thread only).
+    private int chunksInProgress = 0 ;
+    private int maxChunksInProgress = 0 ;
+    private long chunksRead = 0 ;
+
+    /** Can this language be parsed in parallel? */
+    public static boolean canParse(Lang lang)
+    {
+        return RDFLanguages.sameLang(RDFLanguages.NTRIPLES, lang) || RDFLanguages.sameLang(RDFLanguages.NQUADS, lang) ;
+    }
+
+    /**
+     * @param lang          N-Triples or N-Quads
+     * @param numThreads    Number of parsing threads; 0 or less for one per processor.
+     * @param ordered       Send the triples/quads to the destination in the order of the input.
+     */
+    public ParserNTuplesParallel(Lang lang, int numThreads, boolean ordered)
+    {
+        if ( ! canParse(lang) )
+            throw new RiotException("Not a line-based language: "+lang) ;
+        this.lang = lang ;
+        this.numThreads = ( numThreads > 0 ) ? numThreads : Runtime.getRuntime().availableProcessors() ;
+        this.ordered = ordered ;
+    }
+
+    public void setErrorHandler(ErrorHandler errorHandler)  { this.errorHandler = errorHandler ; }
+
+    /** Parse the whole input, sending the triples or quads to the destination. Does not close the input. */
+    public void parse(InputStream input, StreamRDF dest)
+    {
+        UUID seed = UUID.randomUUID() ;
+        NodeInterner interner = ( SysRIOT.nodeInternerSize > 0 ) ? new NodeInterner(SysRIOT.nodeInternerSize) : null ;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, threadFactory) ;
+        // Only used when not ordered: in order, nothing takes from its queue of
+        // completed tasks, which would then hold every chunk until the end.
+        CompletionService<Chunk> completion = ordered ? null : new ExecutorCompletionService<Chunk>(executor) ;
+        Deque<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>() ;
+        int maxPending = 2*numThreads ;
+        ChunkReader chunks = new ChunkReader(input) ;
+        chunksInProgress = 0 ;
+        maxChunksInProgress = 0 ;
+        chunksRead = 0 ;
+
+        dest.start() ;
+        try {
+            for ( ;; )
+            {
+                Chunk chunk = chunks.next() ;
+                if ( chunk == null )
+                    break ;
+                chunksRead++ ;
+                chunksInProgress++ ;
+                maxChunksInProgress = Math.max(maxChunksInProgress, chunksInProgress) ;
+                ParseTask task = new ParseTask(chunk, seed, interner) ;
+                pending.add(ordered ? executor.submit(task) : completion.submit(task)) ;
+                if ( pending.size() >= maxPending )
+                    deliver(completion, pending, dest) ;
+            }
+            while ( ! pending.isEmpty() )
+                deliver(completion, pending, dest) ;
+        } finally {
+            executor.shutdownNow() ;
+            dest.finish() ;
+        }
+    }
+
+    /** Wait for a chunk and send its triples or quads to the destination */
+    private void deliver(CompletionService<Chunk> completion, Deque<Future<Chunk>> pending, StreamRDF dest)
+    {
+        Chunk chunk ;
+        try {
+            if ( ordered )
+                chunk = pending.removeFirst().get() ;
+            else
+            {
+                Future<Chunk> f = completion.take() ;
+                pending.remove(f) ;
+                chunk = f.get() ;
+            }
+        }
+        catch (InterruptedException ex) { throw new RiotException("Interrupted", ex) ; }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause() ;
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause ;
+            if ( cause instanceof Error )
+                throw (Error)cause ;
+            throw new RiotException(cause) ;
+        }
+
+        if ( chunk.triples != null )
+        {
+            for ( Triple t : chunk.triples )
+                dest.triple(t) ;
+        }
+        if ( chunk.quads != null )
+        {
+            for ( Quad q : chunk.quads )
+                dest.quad(q) ;
+        }
+        chunk.triples = null ;
+        chunk.quads = null ;
+        chunksInProgress-- ;
+    }
+    
+    /** The largest number of chunks read but not yet delivered at one time during the last parse (testing) */
+    /*package*/ int maxChunksInProgress()   { return maxChunksInProgress ; }
+    
+    /** The number of chunks read (testing) */
+    /*package*/ long chunksRead()           { return chunksRead ; }
+
+    private static class Chunk
+    {
+        byte[] bytes ;
+        final int length ;
+        final long firstLine ;
+        Collection<Triple> triples = null ;
+        Collection<Quad> quads = null ;
+
+        Chunk(byte[] bytes, int length, long firstLine)
+        {
+            this.bytes = bytes ;
+            this.length = length ;
+            this.firstLine = firstLine ;
+        }
+    }
+
+    private class ParseTask implements Callable<Chunk>
+    {
+        private final Chunk chunk ;
+        private final UUID seed ;
+        private final NodeInterner interner ;
+
+        ParseTask(Chunk chunk, UUID seed, NodeInterner interner)
+        {
+            this.chunk = chunk ;
+            this.seed = seed ;
+            this.interner = interner ;
+        }
+
+        @Override
+        public Chunk call()
+        {
+            long lineOffset = chunk.firstLine-1 ;
+            Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(new ByteArrayInputStream(chunk.bytes, 0, chunk.length)) ;
+            // As RiotLib.profile(lang, ...) for N-Triples and N-Quads, with the shared interner.
+            ParserProfile profile = RiotLib.profile(null, false, SysRIOT.strictMode,
+                                                    new ErrorHandlerLineOffset(errorHandler, lineOffset), interner) ;
+            profile.setLabelToNode(LabelToNode.createScopeByDocumentHash(seed)) ;
+            try {
+                if ( RDFLanguages.sameLang(RDFLanguages.NTRIPLES, lang) )
+                {
+                    CollectorStreamTriples collector = new CollectorStreamTriples() ;
+                    new LangNTriples(tokenizer, profile, collector).parse() ;
+                    chunk.triples = collector.getCollected() ;
+                }
+                else
+                {
+                    CollectorStreamQuads collector = new CollectorStreamQuads() ;
+                    new LangNQuads(tokenizer, profile, collector).parse() ;
+                    chunk.quads = collector.getCollected() ;
+                }
+            } catch (RiotParseException ex)
+            {
+                // From the tokenizer: line numbers are relative to the chunk.
+                throw new RiotParseException(ex.getOriginalMessage(), ex.getLine()+lineOffset, ex.getCol()) ;
+            }
+            // Only the results are kept while waiting to be delivered.
+            chunk.bytes = null ;
+            return chunk ;
+        }
+    }
+
+    /** Split the input into chunks of whole lines */
+    private static class ChunkReader
+    {
+        private final InputStream input ;
+        private byte[] carry = new byte[0] ;
+        private int carryLength = 0 ;
+        private long line = 1 ;
+        private boolean finished = false ;
+
+        ChunkReader(InputStream input)  { this.input = input ; }
+
+        /** The next chunk, or null at the end of the input */
+        Chunk next()
+        {
+            if ( finished )
+                return null ;
+            try {
+                byte[] buffer = new byte[Math.max(ChunkSize, 2*carryLength)] ;
+                System.arraycopy(carry, 0, buffer, 0, carryLength) ;
+                int len = carryLength ;
+                for ( ;; )
+                {
+                    int x = input.read(buffer, len, buffer.length-len) ;
+                    if ( x < 0 )
+                    {
+                        finished = true ;
+                        carryLength = 0 ;
+                        if ( len == 0 )
+                            return null ;
+                        return chunk(buffer, len) ;
+                    }
+                    len += x ;
+                    if ( len < buffer.length )
+                        continue ;
+                    // Buffer full - split after the last end of line.
+                    int split = lastEndOfLine(buffer, len) ;
+                    if ( split >= 0 )
+                    {
+                        carryLength = len-(split+1) ;
+                        if ( carry.length < carryLength )
+                            carry = new byte[Math.max(carryLength, ChunkSize/4)] ;
+                        System.arraycopy(buffer, split+1, carry, 0, carryLength) ;
+                        return chunk(buffer, split+1) ;
+                    }
+                    // No end of line at all - a very long line.
+                    byte[] b = new byte[2*buffer.length] ;
+                    System.arraycopy(buffer, 0, b, 0, len) ;
+                    buffer = b ;
+                }
+            } catch (IOException ex) { IO.exception(ex) ; return null ; }
+        }
+
+        private Chunk chunk(byte[] buffer, int length)
+        {
+            Chunk c = new Chunk(buffer, length, line) ;
+            for ( int i = 0 ; i < length ; i++ )
+            {
+                if ( buffer[i] == '\n' )
+                    line++ ;
+            }
+            return c ;
+        }
+
+        // A CR LF pair may be split: the next chunk then starts with an empty line.
+        private static int lastEndOfLine(byte[] buffer, int end)
+        {
+            for ( int i = end-1 ; i >= 0 ; i-- )
+            {
+                if ( buffer[i] == '\n' || buffer[i] == '\r' )
+                    return i ;
+            }
+            return -1 ;
+        }
+    }
+
+    /** Report line numbers in the whole input, not the chunk. */
+    private static class ErrorHandlerLineOffset implements ErrorHandler
+    {
+        private final ErrorHandler other ;
+        private final long offset ;
+
+        ErrorHandlerLineOffset(ErrorHandler other, long offset)
+        {
+            this.other = other ;
+            this.offset = offset ;
+        }
+
+        private long line(long line)    { return ( line < 0 ) ? line : line+offset ; }
+
+        @Override
+        public void warning(String message, long line, long col)    { other.warning(message, line(line), col) ; }
+
+        @Override
+        public void error(String message, long line, long col)      { other.error(message, line(line), col) ; }
+
+        @Override
+        public void fatal(String message, long line, long col)      { other.fatal(message, line(line), col) ; }
+    }
+
+    private static ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "NTuples parser "+threadCounter.incrementAndGet()) ;
+            t.setDaemon(true) ;
+            return t ;
+        }
+    } ;
+}
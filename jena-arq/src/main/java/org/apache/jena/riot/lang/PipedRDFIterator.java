@@ -18,6 +18,7 @@
 
 package org.apache.jena.riot.lang;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -45,6 +46,14 @@ import org.apache.jena.riot.system.PrefixMapFactory;
  * write operations, within limits.
  * </p>
  * <p>
+ * Items are passed from the producer to the consumer in batches, rather than
+ * one at a time, so that the threads are not contending for the buffer on
+ * every item. A partly filled batch is passed over early if the consumer is
+ * waiting for data, when the producer calls {@code finish()}, or, if the
+ * producer dies, when the consumer detects this. A batch size of 1 passes
+ * each item over individually.
+ * </p>
+ * <p>
  * Inspired by Java's {@link java.io.PipedInputStream} and
  * {@link java.io.PipedOutputStream}
  * </p>
@@ -73,11 +82,26 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
      * be declared as dead
      */
     public static final int DEFAULT_MAX_POLLS = 10;
+    /**
+     * Constant for default number of items passed from the producer to the
+     * consumer in one batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    /**
+     * Time in nanoseconds, from when the producer first sees the consumer
+     * waiting, after which a partly filled batch is passed to the consumer even
+     * if it is smaller than the minimum flush size
+     */
+    private static final long FLUSH_DELAY = 1000000; // one millisecond
+    /**
+     * Time in milliseconds the consumer waits before taking a partly filled
+     * batch from a producer that has stalled
+     */
+    private static final int STALL_WAIT = 10;
 
-    private final BlockingQueue<T> queue;
+    private final BlockingQueue<Object[]> queue;
 
-    @SuppressWarnings("unchecked")
-    private final T endMarker = (T) new Object();
+    private static final Object[] endMarker = new Object[0];
 
     private volatile boolean closedByConsumer = false;
     private volatile boolean closedByProducer = false;
@@ -89,8 +113,24 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
     private boolean connected = false;
     private int pollTimeout = DEFAULT_POLL_TIMEOUT;
     private int maxPolls = DEFAULT_MAX_POLLS;
-
-    private T slot;
+    private final int batchSize;
+    // A partly filled batch is passed to a waiting consumer once it has
+    // this many items, or once the consumer has been waiting FLUSH_DELAY.
+    private final int minFlush;
+
+    // Producer side: the batch being filled.
+    // The consumer may take it if the producer stalls, so guarded by producerLock.
+    private final Object producerLock = new Object();
+    private Object[] producerBatch = null;
+    private int producerCount = 0;
+    // When the producer first saw the consumer waiting for this batch, or -1.
+    private long producerWaitStart = -1;
+    // Set by the consumer while it is waiting for data.
+    private volatile boolean consumerWaiting = false;
+
+    // Consumer side: the batch being read.
+    private Object[] batch = null;
+    private int batchIdx = 0;
 
     private final Object lock = new Object(); // protects baseIri and prefixes
     private String baseIri;
@@ -199,11 +239,43 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
      *            Max poll attempts
      */
     public PipedRDFIterator(int bufferSize, boolean fair, int pollTimeout, int maxPolls) {
+        this(bufferSize, fair, pollTimeout, maxPolls, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new piped RDF iterator
+     * <p>
+     * As {@link #PipedRDFIterator(int, boolean, int, int)} with the number of
+     * items passed from the producer to the consumer at a time. Larger batches
+     * reduce the overhead of passing items between threads; the buffer holds
+     * {@code bufferSize/batchSize} batches. The batch size is never more than
+     * the buffer size.
+     * </p>
+     * 
+     * @param bufferSize
+     *            Buffer size
+     * @param fair
+     *            Whether the buffer should use a fair locking policy
+     * @param pollTimeout
+     *            Poll timeout in milliseconds
+     * @param maxPolls
+     *            Max poll attempts
+     * @param batchSize
+     *            Number of items passed to the consumer at a time
+     */
+    public PipedRDFIterator(int bufferSize, boolean fair, int pollTimeout, int maxPolls, int batchSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be > 0");
         if (pollTimeout <= 0)
             throw new IllegalArgumentException("Poll Timeout must be > 0");
         if (maxPolls <= 0)
             throw new IllegalArgumentException("Max Poll attempts must be > 0");
-        this.queue = new ArrayBlockingQueue<T>(bufferSize, fair);
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be > 0");
+        this.batchSize = Math.min(batchSize, bufferSize);
+        this.minFlush = Math.max(1, this.batchSize / 4);
+        // Room for the end marker as well as bufferSize items.
+        this.queue = new ArrayBlockingQueue<Object[]>(bufferSize / this.batchSize + 1, fair);
         this.pollTimeout = pollTimeout;
         this.maxPolls = maxPolls;
     }
@@ -231,19 +303,39 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
         if (producerThread != null && producerThread == consumerThread)
             threadReused = true;
 
-        if (slot != null)
+        if (batch != null && batchIdx < batch.length)
             return true;
+        batch = null;
 
+        Object[] next = queue.poll();
         int attempts = 0;
-        while (true) {
+        while (next == null) {
             attempts++;
+            // Ask the producer to pass over a partly filled batch.
+            consumerWaiting = true;
             try {
-                slot = queue.poll(this.pollTimeout, TimeUnit.MILLISECONDS);
+                // Wait a short time first, then take the batch of a producer
+                // that has stalled part way through it, then wait the rest of
+                // the poll timeout.
+                int wait = Math.min(this.pollTimeout, STALL_WAIT);
+                next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (null == next)
+                    next = takeProducerBatch();
+                if (null == next && this.pollTimeout > wait)
+                    next = queue.poll(this.pollTimeout - wait, TimeUnit.MILLISECONDS);
             } catch (InterruptedException e) {
                 throw new CancellationException();
+            } finally {
+                consumerWaiting = false;
             }
 
-            if (null != slot)
+            if (null != next)
+                break;
+
+            // The producer may have stalled with a partly filled batch: take
+            // it rather than waiting for the producer's next item.
+            next = takeProducerBatch();
+            if (null != next)
                 break;
 
             // If the producer thread died and did not call finish() then
@@ -274,12 +366,13 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
             }
         }
 
-        // When the end marker is seen set slot to null
-        if (slot == endMarker) {
+        // When the end marker is seen there are no more items
+        if (next == endMarker) {
             finished = true;
-            slot = null;
             return false;
         }
+        batch = next;
+        batchIdx = 0;
         return true;
     }
 
@@ -287,8 +380,9 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
     public T next() {
         if (!hasNext())
             throw new NoSuchElementException();
-        T item = slot;
-        slot = null;
+        @SuppressWarnings("unchecked")
+        T item = (T) batch[batchIdx];
+        batch[batchIdx++] = null;
         return item;
     }
 
@@ -311,15 +405,82 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
 
     protected void receive(T t) {
         checkStateForReceive();
-        producerThread = Thread.currentThread();
+        Object[] b = null;
+        synchronized (producerLock) {
+            if (producerBatch == null) {
+                producerThread = Thread.currentThread();
+                producerBatch = new Object[batchSize];
+            }
+            producerBatch[producerCount++] = t;
+            // A consumer faster than the producer is nearly always waiting: pass
+            // it a partly filled batch only when it is worth the hand-off.
+            if (producerCount == producerBatch.length || (consumerWaiting && flushForConsumer()))
+                b = detachBatch();
+        }
+        if (b != null)
+            put(b);
+    }
+
+    // Call holding producerLock.
+    private boolean flushForConsumer() {
+        if (producerCount >= minFlush)
+            return true;
+        long now = System.nanoTime();
+        if (producerWaitStart < 0) {
+            producerWaitStart = now;
+            return false;
+        }
+        return now - producerWaitStart >= FLUSH_DELAY;
+    }
 
+    /** Pass the items produced so far to the consumer */
+    private void flush() {
+        Object[] b;
+        synchronized (producerLock) {
+            b = detachBatch();
+        }
+        if (b != null)
+            put(b);
+    }
+
+    // Call holding producerLock.
+    private Object[] detachBatch() {
+        if (producerCount == 0)
+            return null;
+        Object[] b = producerBatch;
+        if (producerCount < b.length)
+            b = Arrays.copyOf(b, producerCount);
+        producerBatch = null;
+        producerCount = 0;
+        producerWaitStart = -1;
+        return b;
+    }
+
+    private void put(Object[] b) {
+        checkStateForReceive();
+        producerThread = Thread.currentThread();
         try {
-            queue.put(t);
+            queue.put(b);
         } catch (InterruptedException e) {
             throw new CancellationException();
         }
     }
 
+    /**
+     * Called by the consumer when it has found nothing in the queue. Batches
+     * already put in the queue come before the producer's partly filled batch,
+     * and the producer only starts a new batch once the last one is in the
+     * queue, so look again in the queue while holding the lock.
+     */
+    private Object[] takeProducerBatch() {
+        synchronized (producerLock) {
+            Object[] b = queue.poll();
+            if (b != null)
+                return b;
+            return detachBatch();
+        }
+    }
+
     protected void base(String base) {
         synchronized (lock) {
             this.baseIri = base;
@@ -374,7 +535,8 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
      * and error out.
      */
     protected void finish() {
-        receive(endMarker);
+        flush();
+        put(endMarker);
         closedByProducer = true;
     }
 
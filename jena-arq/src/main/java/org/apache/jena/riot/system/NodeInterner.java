@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import java.util.concurrent.atomic.AtomicLong ;
+import java.util.concurrent.atomic.AtomicReferenceArray ;
+
+import com.hp.hpl.jena.graph.Node ;
+
+/** Interning of the IRIs and literals created by a parser, so that repeated
+ * terms share one Node (and its strings).
+ * <p>
+ * This is a fixed size table addressed by the hash of the term; on a clash the
+ * new node replaces the old one. Lookups and inserts do not allocate. It is safe
+ * to share between parser threads.
+ * <p>
+ * IRIs can be looked up by string before any Node is created (see {@link #getURI}),
+ * which lets a parser skip IRI resolution. So an IRI node should only be entered
+ * with {@link #internURI} if the parser would create that same node from its string,
+ * for example, an IRI that resolves to itself and has no violations.
+ */
+public class NodeInterner
+{
+    private final AtomicReferenceArray<Node> slots ;
+    private final int mask ;
+    private final AtomicLong hits = new AtomicLong(0) ;
+    private final AtomicLong misses = new AtomicLong(0) ;
+
+    /** An interner with at least {@code size} slots (rounded up to a power of two). */
+    public NodeInterner(int size)
+    {
+        if ( size <= 0 )
+            throw new IllegalArgumentException("NodeInterner size must be > 0: "+size) ;
+        int n = Integer.highestOneBit(Math.max(2, size-1))<<1 ;
+        slots = new AtomicReferenceArray<Node>(n) ;
+        mask = n-1 ;
+    }
+
+    private int index(int hash)
+    {
+        hash ^= (hash >>> 16) ;
+        return hash & mask ;
+    }
+
+    /** The interned IRI node for this string, or null */
+    public Node getURI(String uri)
+    {
+        Node n = slots.get(index(uri.hashCode())) ;
+        if ( n != null && n.isURI() && n.getURI().equals(uri) )
+        {
+            hits.incrementAndGet() ;
+            return n ;
+        }
+        return null ;
+    }
+
+    /** Intern an IRI node: returns the node already held for the same IRI, else the argument. */
+    public Node internURI(Node node)
+    {
+        String uri = node.getURI() ;
+        int idx = index(uri.hashCode()) ;
+        Node n = slots.get(idx) ;
+        if ( n != null && n.isURI() && n.getURI().equals(uri) )
+        {
+            hits.incrementAndGet() ;
+            return n ;
+        }
+        misses.incrementAndGet() ;
+        slots.set(idx, node) ;
+        return node ;
+    }
+
+    /** Intern a literal node: returns the node already held for the same literal, else the argument. */
+    public Node internLiteral(Node node)
+    {
+        // Not Node.hashCode - for literals that is by value, so it parses the lexical form.
+        String lex = node.getLiteralLexicalForm() ;
+        String lang = node.getLiteralLanguage() ;
+        String dt = node.getLiteralDatatypeURI() ;
+        int hash = lex.hashCode()*31 + ( dt != null ? dt.hashCode() : lang.hashCode() ) ;
+        int idx = index(hash) ;
+        Node n = slots.get(idx) ;
+        if ( n != null && n.isLiteral() && n.equals(node) )
+        {
+            hits.incrementAndGet() ;
+            return n ;
+        }
+        misses.incrementAndGet() ;
+        slots.set(idx, node) ;
+        return node ;
+    }
+
+    /** Number of slots */
+    public int getSize()            { return slots.length() ; }
+
+    /** Number of terms found already interned */
+    public long getHits()           { return hits.get() ; }
+
+    /** Number of terms not found, and so added */
+    public long getMisses()         { return misses.get() ; }
+
+    /** Proportion of terms found already interned */
+    public double getHitRate()
+    {
+        long h = hits.get() ;
+        long total = h + misses.get() ;
+        return ( total == 0 ) ? 0 : (double)h / total ;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("NodeInterner[size=%d, hits=%d, misses=%d, hit rate=%.1f%%]",
+                             getSize(), getHits(), getMisses(), 100*getHitRate()) ;
+    }
+}
@@ -41,6 +41,7 @@ public class ParserProfileBase implements ParserProfile {
     protected Prologue     prologue ;
     protected LabelToNode  labelMapping ;
     protected boolean      strictMode = SysRIOT.strictMode ;
+    protected NodeInterner interner   = null ;
 
     public ParserProfileBase(Prologue prologue, ErrorHandler errorHandler) {
         this(prologue, errorHandler, SyntaxLabels.createLabelToNode()) ;
@@ -82,6 +83,23 @@ public class ParserProfileBase implements ParserProfile {
         labelMapping = mapper ;
     }
 
+    /** The interner for IRIs and literals, or null if there is none */
+    public NodeInterner getNodeInterner() {
+        return interner ;
+    }
+
+    /** Set the interner for IRIs and literals (null for none).
+     * An interner can be shared by profiles that create IRIs the same way.
+     */
+    public void setNodeInterner(NodeInterner interner) {
+        this.interner = interner ;
+    }
+
+    /** Return the interned node for the literal, if interning, else the literal itself */
+    protected Node internLiteral(Node literal) {
+        return ( interner == null ) ? literal : interner.internLiteral(literal) ;
+    }
+
     @Override
     public String resolveIRI(String uriStr, long line, long col) {
         return prologue.getResolver().resolveToString(uriStr) ;
@@ -104,7 +122,14 @@ public class ParserProfileBase implements ParserProfile {
 
     @Override
     public Node createURI(String uriStr, long line, long col) {
-        return RiotLib.createIRIorBNode(uriStr) ;
+        if ( interner == null )
+            return RiotLib.createIRIorBNode(uriStr) ;
+        // No resolving - the IRI is always made from the string as given.
+        Node n = interner.getURI(uriStr) ;
+        if ( n != null )
+            return n ;
+        n = RiotLib.createIRIorBNode(uriStr) ;
+        return n.isURI() ? interner.internURI(n) : n ;
     }
 
     @Override
@@ -119,17 +144,17 @@ public class ParserProfileBase implements ParserProfile {
 
     @Override
     public Node createTypedLiteral(String lexical, RDFDatatype dt, long line, long col) {
-        return NodeFactory.createLiteral(lexical, null, dt) ;
+        return internLiteral(NodeFactory.createLiteral(lexical, null, dt)) ;
     }
 
     @Override
     public Node createLangLiteral(String lexical, String langTag, long line, long col) {
-        return NodeFactory.createLiteral(lexical, langTag, null) ;
+        return internLiteral(NodeFactory.createLiteral(lexical, langTag, null)) ;
     }
 
     @Override
     public Node createStringLiteral(String lexical, long line, long col) {
-        return NodeFactory.createLiteral(lexical) ;
+        return internLiteral(NodeFactory.createLiteral(lexical)) ;
     }
 
     /** Special token forms */
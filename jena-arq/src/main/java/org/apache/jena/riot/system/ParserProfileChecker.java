@@ -111,6 +111,8 @@ public class ParserProfileChecker extends ParserProfileBase //implements ParserP
         try {
             if ( RiotLib.isBNodeIRI(x) )
                 return RiotLib.createIRIorBNode(x) ;
+            else if ( interner != null )
+                return createURIInterned(x, line, col) ;
             else
             {
                 String resolvedIRI = resolveIRI(x, line, col) ;
@@ -124,6 +126,21 @@ public class ParserProfileChecker extends ParserProfileBase //implements ParserP
         }
     }
 
+    private Node createURIInterned(String x, long line, long col)
+    {
+        // A hit is an IRI that was previously resolved to itself, without warnings,
+        // so resolving and checking can be skipped.
+        Node n = interner.getURI(x) ;
+        if ( n != null )
+            return n ;
+        IRI iri = makeIRI(x, line, col) ;
+        String resolvedIRI = iri.toString() ;
+        n = NodeFactory.createURI(resolvedIRI) ;
+        if ( resolvedIRI.equals(x) && ! iri.hasViolation(true) )
+            n = interner.internURI(n) ;
+        return n ;
+    }
+
 //    @Override
 //    public Node createTypedLiteral(String lexical, String datatype, long line, long col)
 //    {
@@ -138,7 +155,7 @@ public class ParserProfileChecker extends ParserProfileBase //implements ParserP
     {
         Node n = NodeFactory.createLiteral(lexical, null, datatype)  ;
         CheckerLiterals.checkLiteral(lexical, datatype, errorHandler, line, col) ;
-        return n ;
+        return internLiteral(n) ;
     }
 
     @Override
@@ -146,13 +163,13 @@ public class ParserProfileChecker extends ParserProfileBase //implements ParserP
     {
         Node n = NodeFactory.createLiteral(lexical, langTag, null)  ;
         CheckerLiterals.checkLiteral(lexical, langTag, errorHandler, line, col) ;
-        return n ;
+        return internLiteral(n) ;
     }
     
     @Override
     public Node createStringLiteral(String lexical, long line, long col)
     {
-        return NodeFactory.createLiteral(lexical) ;
+        return internLiteral(NodeFactory.createLiteral(lexical)) ;
     }
 
     @Override
@@ -131,6 +131,13 @@ public class RiotLib
     }
 
     public static ParserProfile profile(String baseIRI, boolean resolveIRIs, boolean checking, ErrorHandler handler)
+    {
+        NodeInterner interner = ( SysRIOT.nodeInternerSize > 0 ) ? new NodeInterner(SysRIOT.nodeInternerSize) : null ;
+        return profile(baseIRI, resolveIRIs, checking, handler, interner) ;
+    }
+
+    /** A profile that interns IRIs and literals with the given interner (null for none) */
+    public static ParserProfile profile(String baseIRI, boolean resolveIRIs, boolean checking, ErrorHandler handler, NodeInterner interner)
     {
         LabelToNode labelToNode = true
             ? SyntaxLabels.createLabelToNode()
@@ -142,10 +149,11 @@ public class RiotLib
         else
             prologue = new Prologue(PrefixMapFactory.createForInput(), IRIResolver.createNoResolve()) ;
     
-        if ( checking )
-            return new ParserProfileChecker(prologue, handler, labelToNode) ;
-        else
-            return new ParserProfileBase(prologue, handler, labelToNode) ;
+        ParserProfileBase profile = checking
+            ? new ParserProfileChecker(prologue, handler, labelToNode)
+            : new ParserProfileBase(prologue, handler, labelToNode) ;
+        profile.setNodeInterner(interner) ;
+        return profile ;
     }
 
     public static Collection<Triple> triplesOfSubject(Graph graph, Node subj)
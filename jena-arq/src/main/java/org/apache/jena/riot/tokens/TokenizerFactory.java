@@ -43,6 +43,14 @@ public class TokenizerFactory
         return tokenizer ;
     }
    
+    /** Tokenizer for a UTF-8 file, read by memory mapping the file */
+    public static Tokenizer makeTokenizerMapped(String filename)
+    {
+        PeekReader peekReader = PeekReader.openMapped(filename) ;
+        Tokenizer tokenizer = new TokenizerText(peekReader) ;
+        return tokenizer ;
+    }
+
     public static Tokenizer makeTokenizerASCII(InputStream in)
     {
         PeekReader peekReader = PeekReader.makeASCII(in) ;
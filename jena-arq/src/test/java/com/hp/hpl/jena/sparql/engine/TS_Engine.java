@@ -24,14 +24,20 @@ import org.junit.runners.Suite ;
 import com.hp.hpl.jena.sparql.engine.binding.TestBindingStreams ;
 import com.hp.hpl.jena.sparql.engine.http.TestQueryEngineHTTP ;
 import com.hp.hpl.jena.sparql.engine.http.TestService ;
+import com.hp.hpl.jena.sparql.engine.http.TestServiceBatch ;
+import com.hp.hpl.jena.sparql.engine.iterator.TestQueryIterGroup ;
 import com.hp.hpl.jena.sparql.engine.iterator.TestQueryIterSort ;
+import com.hp.hpl.jena.sparql.engine.main.iterator.TestQueryIterHashJoin ;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
         TestBindingStreams.class
       , TestTableLib.class
       , TestQueryIterSort.class
+      , TestQueryIterGroup.class
+      , TestQueryIterHashJoin.class
       , TestService.class
+      , TestServiceBatch.class
       , TestQueryEngineHTTP.class
       , TestQueryEngineMultiThreaded.class
 })
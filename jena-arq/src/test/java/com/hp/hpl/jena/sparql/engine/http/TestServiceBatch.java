@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.http;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.OutputStream ;
+import java.net.InetSocketAddress ;
+import java.net.URLDecoder ;
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.junit.AfterClass ;
+import org.junit.Assert ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.query.* ;
+import com.hp.hpl.jena.rdf.model.Model ;
+import com.hp.hpl.jena.rdf.model.ModelFactory ;
+import com.hp.hpl.jena.sparql.util.Context ;
+import com.sun.net.httpserver.HttpExchange ;
+import com.sun.net.httpserver.HttpHandler ;
+import com.sun.net.httpserver.HttpServer ;
+
+/** SERVICE with solutions sent in batches, against a small local endpoint */
+public class TestServiceBatch {
+    private static HttpServer server ;
+    private static String endpoint ;
+    private static final AtomicInteger requests = new AtomicInteger(0) ;
+    private static final Model remote = ModelFactory.createDefaultModel() ;
+
+    private static final String PREFIX = "PREFIX : <http://example/>" ;
+    private static final int N = 23 ;
+
+    @BeforeClass public static void startEndpoint() throws IOException {
+        StringBuilder sb = new StringBuilder(PREFIX.replace("PREFIX :", "@prefix :")).append(" .\n") ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            sb.append(":x").append(i).append(" :p ").append(i).append(" .\n") ;
+            if ( i % 2 == 0 )
+                sb.append(":x").append(i).append(" :q 'even' .\n") ;
+        }
+        remote.read(new java.io.StringReader(sb.toString()), null, "TTL") ;
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0) ;
+        server.createContext("/sparql", new Endpoint()) ;
+        server.start() ;
+        endpoint = "http://localhost:" + server.getAddress().getPort() + "/sparql" ;
+    }
+
+    @AfterClass public static void stopEndpoint() {
+        server.stop(0) ;
+    }
+
+    /** Answers SPARQL queries over the "remote" model and counts the requests */
+    static class Endpoint implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet() ;
+            String params = exchange.getRequestURI().getRawQuery() ;
+            if ( "POST".equals(exchange.getRequestMethod()) ) {
+                InputStream in = exchange.getRequestBody() ;
+                params = IO.readWholeFileAsUTF8(in) ;
+            }
+            String queryString = null ;
+            for ( String p : params.split("&") ) {
+                if ( p.startsWith("query=") )
+                    queryString = URLDecoder.decode(p.substring("query=".length()), "UTF-8") ;
+            }
+            QueryExecution qExec = QueryExecutionFactory.create(queryString, remote) ;
+            try {
+                ResultSet rs = qExec.execSelect() ;
+                String xml = ResultSetFormatter.asXMLString(rs) ;
+                byte[] bytes = StrUtils.asUTF8bytes(xml) ;
+                exchange.getResponseHeaders().set("Content-Type", "application/sparql-results+xml") ;
+                exchange.sendResponseHeaders(200, bytes.length) ;
+                OutputStream out = exchange.getResponseBody() ;
+                out.write(bytes) ;
+                out.close() ;
+            } finally { qExec.close() ; }
+        }
+    }
+
+    private static String values() {
+        StringBuilder sb = new StringBuilder("VALUES ?x {") ;
+        for ( int i = 0 ; i < N ; i++ )
+            sb.append(" :x").append(i) ;
+        // Not in the remote data.
+        sb.append(" :other }") ;
+        return sb.toString() ;
+    }
+
+    private static List<String> exec(String pattern, int batchSize, int threads) {
+        String qs = StrUtils.strjoinNL(PREFIX,
+                                       "SELECT * {",
+                                       values(),
+                                       "SERVICE <" + endpoint + "> { " + pattern + " }",
+                                       "}") ;
+        Query query = QueryFactory.create(qs) ;
+        QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.createMem()) ;
+        Context cxt = qExec.getContext() ;
+        cxt.set(Service.queryBatchSize, batchSize) ;
+        cxt.set(Service.queryBatchThreads, threads) ;
+        requests.set(0) ;
+        List<String> results = new ArrayList<String>() ;
+        try {
+            ResultSet rs = qExec.execSelect() ;
+            while ( rs.hasNext() )
+                results.add(rs.next().toString()) ;
+        } finally { qExec.close() ; }
+        return results ;
+    }
+
+    @Test public void service_batch_01() {
+        List<String> expected = exec("?x :p ?o", 1, 1) ;
+        Assert.assertEquals(N+1, requests.get()) ;
+        Assert.assertEquals(N, expected.size()) ;
+
+        List<String> results = exec("?x :p ?o", 5, 1) ;
+        Assert.assertEquals(5, requests.get()) ;
+        Assert.assertEquals(expected, results) ;
+    }
+
+    @Test public void service_batch_02() {
+        List<String> expected = exec("?x :p ?o", 1, 1) ;
+        List<String> results = exec("?x :p ?o", 4, 3) ;
+        Assert.assertEquals(6, requests.get()) ;
+        Assert.assertEquals(expected, results) ;
+    }
+
+    @Test public void service_batch_03() {
+        // No shared variables - one request for each batch.
+        List<String> results = exec("?y :q 'even'", 10, 1) ;
+        Assert.assertEquals(3, requests.get()) ;
+        Assert.assertEquals((N+1)*((N+1)/2), results.size()) ;
+    }
+
+    @Test public void service_batch_04() {
+        // OPTIONAL on ?x in the service: can not use VALUES, one request per solution.
+        String pattern = "?z :p ?o OPTIONAL { ?x :q ?v }" ;
+        List<String> expected = exec(pattern, 1, 1) ;
+        List<String> results = exec(pattern, 10, 1) ;
+        Assert.assertEquals(N+1, requests.get()) ;
+        Assert.assertEquals(expected, results) ;
+    }
+
+    @Test public void service_batch_05() {
+        String pattern = "?x :p ?o OPTIONAL { ?x :q ?v }" ;
+        List<String> expected = exec(pattern, 1, 1) ;
+        List<String> results = exec(pattern, 100, 2) ;
+        Assert.assertEquals(1, requests.get()) ;
+        Assert.assertEquals(expected, results) ;
+    }
+}
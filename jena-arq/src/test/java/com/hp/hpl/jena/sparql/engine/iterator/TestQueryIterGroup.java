@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.iterator;
+
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.HashSet ;
+import java.util.List ;
+import java.util.Set ;
+
+import org.apache.jena.atlas.data.AbstractDataBag ;
+import org.apache.jena.atlas.data.DataBag ;
+import org.apache.jena.atlas.data.DataBagExaminer ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.query.ARQ ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.core.VarExprList ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.sparql.engine.QueryIterator ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingFactory ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingMap ;
+import com.hp.hpl.jena.sparql.expr.ExprAggregator ;
+import com.hp.hpl.jena.sparql.expr.ExprVar ;
+import com.hp.hpl.jena.sparql.expr.NodeValue ;
+import com.hp.hpl.jena.sparql.expr.aggregate.AggregatorFactory ;
+import com.hp.hpl.jena.sparql.util.Context ;
+
+public class TestQueryIterGroup extends BaseTest
+{
+    private static Var varK = Var.alloc("k") ;
+    private static Var varV = Var.alloc("v") ;
+    private static Var varCount = Var.alloc("count") ;
+    private static Var varSum = Var.alloc("sum") ;
+
+    @Test public void group_01() { test(0, 5, true) ; }
+    @Test public void group_02() { test(100, 7, true) ; }
+    @Test public void group_03() { test(100, 7, false) ; }
+    @Test public void group_04() { test(1000, 300, true) ; }
+    @Test public void group_05() { test(1000, 300, false) ; }
+    @Test public void group_06() { test(1000, 1000, true) ; }
+
+    @Test public void group_spill_01() {
+        List<Binding> rows = data(1000, 300) ;
+        QueryIterGroup qIter = group(rows, true, 10L) ;
+        try {
+            assertTrue(qIter.hasNext()) ;
+            assertFalse(qIter.bags.isEmpty()) ;
+            assertEquals(300, Iter.count(qIter)) ;
+        } finally { qIter.close() ; }
+        for ( DataBag<Binding> bag : qIter.bags )
+            assertEquals(0, DataBagExaminer.countTemporaryFiles((AbstractDataBag<Binding>)bag)) ;
+    }
+
+    @Test public void group_spill_02() {
+        // Few groups - no spill.
+        List<Binding> rows = data(1000, 5) ;
+        QueryIterGroup qIter = group(rows, true, 10L) ;
+        try {
+            assertEquals(5, Iter.count(qIter)) ;
+            assertTrue(qIter.bags.isEmpty()) ;
+        } finally { qIter.close() ; }
+    }
+
+    /** Compare grouping in memory with grouping that spills to disk */
+    private static void test(int N, int groups, boolean withAggregators) {
+        List<Binding> rows = data(N, groups) ;
+        Set<Binding> expected = results(group(rows, withAggregators, -1L)) ;
+        for ( long threshold : new long[]{0, 1, 10, 50} ) {
+            Set<Binding> actual = results(group(rows, withAggregators, threshold)) ;
+            assertEquals("Threshold: "+threshold, expected, actual) ;
+        }
+    }
+
+    private static Set<Binding> results(QueryIterator qIter) {
+        Set<Binding> x = new HashSet<Binding>() ;
+        try {
+            while ( qIter.hasNext() ) {
+                Binding b = qIter.next() ;
+                // Copy to get a plain binding.
+                BindingMap b2 = BindingFactory.create() ;
+                b2.addAll(b) ;
+                assertTrue("Duplicate group: "+b, x.add(b2)) ;
+            }
+        } finally { qIter.close() ; }
+        return x ;
+    }
+
+    private static List<Binding> data(int N, int groups) {
+        List<Binding> rows = new ArrayList<Binding>() ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            Node k = NodeFactory.createLiteral("k"+(i%groups)) ;
+            Node v = NodeValue.makeInteger(i).asNode() ;
+            rows.add(BindingFactory.binding(BindingFactory.binding(varK, k), varV, v)) ;
+        }
+        return rows ;
+    }
+
+    private static QueryIterGroup group(List<Binding> rows, boolean withAggregators, long threshold) {
+        Context context = new Context(ARQ.getContext()) ;
+        context.set(ARQ.spillToDiskThreshold, threshold) ;
+        ExecutionContext execCxt = new ExecutionContext(context, null, null, null) ;
+        List<ExprAggregator> aggregators = new ArrayList<ExprAggregator>() ;
+        if ( withAggregators ) {
+            aggregators.add(new ExprAggregator(varCount, AggregatorFactory.createCount(false))) ;
+            aggregators.add(new ExprAggregator(varSum, AggregatorFactory.createSum(false, new ExprVar(varV)))) ;
+        }
+        QueryIterator input = new QueryIterPlainWrapper(rows.iterator(), execCxt) ;
+        return new QueryIterGroup(input, new VarExprList(Arrays.asList(varK)), aggregators, execCxt) ;
+    }
+}
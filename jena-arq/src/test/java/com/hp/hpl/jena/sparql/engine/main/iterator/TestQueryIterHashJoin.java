@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.query.ARQ ;
+import com.hp.hpl.jena.query.ResultSet ;
+import com.hp.hpl.jena.query.ResultSetFactory ;
+import com.hp.hpl.jena.sparql.algebra.Table ;
+import com.hp.hpl.jena.sparql.algebra.table.TableN ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.sparql.engine.QueryIterator ;
+import com.hp.hpl.jena.sparql.engine.TableJoin ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingFactory ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingMap ;
+import com.hp.hpl.jena.sparql.engine.main.JoinKey ;
+import com.hp.hpl.jena.sparql.expr.ExprList ;
+import com.hp.hpl.jena.sparql.resultset.ResultSetCompare ;
+import com.hp.hpl.jena.sparql.sse.SSE ;
+import com.hp.hpl.jena.sparql.util.Context ;
+
+public class TestQueryIterHashJoin extends BaseTest
+{
+    private static Var varA = Var.alloc("a") ;
+    private static Var varB = Var.alloc("b") ;
+    private static Var varC = Var.alloc("c") ;
+
+    Table data1 = SSE.parseTable("(table (row (?a 1) (?b 2)))") ;
+    Table data2 = SSE.parseTable("(table (row (?a 1) (?c 3)) (row (?a 9) (?c 5))  )") ;
+    Table data3 = SSE.parseTable("(table (row (?a 1) (?c 3)) (row (?a 1) (?c 4)) (row (?a 9) (?c 5))  )") ;
+    // Rows with the key variable unbound.
+    Table data4 = SSE.parseTable("(table (row (?a 1) (?c 3)) (row (?c 4)) (row (?a 9) (?c 5))  )") ;
+    Table data5 = SSE.parseTable("(table (row (?a 1) (?b 2)) (row (?b 7)) )") ;
+    Table zeroData = SSE.parseTable("(table)") ;
+
+    @Test public void hashJoin_01() { test(data1, data2, key(varA)) ; }
+    @Test public void hashJoin_02() { test(data2, data1, key(varA)) ; }
+    @Test public void hashJoin_03() { test(data1, data3, key(varA)) ; }
+    @Test public void hashJoin_04() { test(data3, data1, key(varA)) ; }
+    @Test public void hashJoin_05() { test(data1, data4, key(varA)) ; }
+    @Test public void hashJoin_06() { test(data5, data4, key(varA)) ; }
+    @Test public void hashJoin_07() { test(data4, data5, key(varA)) ; }
+    @Test public void hashJoin_08() { test(data1, zeroData, key(varA)) ; }
+    @Test public void hashJoin_09() { test(zeroData, data1, key(varA)) ; }
+    @Test public void hashJoin_10() { test(data3, data3, key(varA, varC)) ; }
+
+    @Test public void hashJoin_spill_01() { testSpill(data5, data4, key(varA)) ; }
+    @Test public void hashJoin_spill_02() { testSpill(data3, data3, key(varA, varC)) ; }
+    @Test public void hashJoin_spill_03() {
+        Table left = build(200, 7, true) ;
+        Table right = build(300, 11, true) ;
+        testSpill(left, right, key(varA)) ;
+    }
+
+    @Test public void hashJoin_spill_04() {
+        QueryIterHashJoin qIter = hashJoin(build(50, 5, false), build(100, 5, false), key(varA), spillContext()) ;
+        try {
+            assertTrue(qIter.hasNext()) ;
+            assertTrue(qIter.isPartitioned()) ;
+        } finally { qIter.close() ; }
+    }
+
+    @Test public void hashLeftJoin_01() { testLeft(data1, data2, key(varA), null) ; }
+    @Test public void hashLeftJoin_02() { testLeft(data2, data1, key(varA), null) ; }
+    @Test public void hashLeftJoin_03() { testLeft(data3, data1, key(varA), null) ; }
+    @Test public void hashLeftJoin_04() { testLeft(data5, data4, key(varA), null) ; }
+    @Test public void hashLeftJoin_05() { testLeft(data4, data5, key(varA), null) ; }
+    @Test public void hashLeftJoin_06() { testLeft(data1, zeroData, key(varA), null) ; }
+    @Test public void hashLeftJoin_07() { testLeft(data2, data3, key(varA), "(!= ?c 4)") ; }
+    @Test public void hashLeftJoin_08() { testLeft(data4, data2, key(varA), "(= ?c 5)") ; }
+
+    @Test public void hashLeftJoin_spill_01() {
+        Table left = build(60, 11, true) ;
+        Table right = build(40, 8, true) ;
+        testLeft(left, right, key(varA), null, spillContext()) ;
+    }
+
+    @Test public void hashLeftJoin_spill_02() {
+        Table left = build(60, 11, true) ;
+        Table right = build(40, 8, true) ;
+        testLeft(left, right, key(varA), "(!= ?b \"v0\")", spillContext()) ;
+    }
+
+    @Test public void hashLeftJoin_spill_03() {
+        // Rows without the key on both sides, larger than the in-memory allowance.
+        Table left = build(200, 7, true) ;
+        Table right = build(300, 11, true) ;
+        testLeft(left, right, key(varA), null, spillContext()) ;
+    }
+
+    @Test public void hashLeftJoin_spill_04() {
+        Table left = build(300, 11, true) ;
+        Table right = build(200, 6, true) ;
+        testLeft(left, right, key(varA), "(!= ?b \"v1\")", spillContext()) ;
+    }
+
+    @Test public void hashJoin_noSpill_01() {
+        QueryIterHashJoin qIter = hashJoin(build(50, 5, false), build(100, 5, false), key(varA), ARQ.getContext()) ;
+        try {
+            assertTrue(qIter.hasNext()) ;
+            assertFalse(qIter.isPartitioned()) ;
+        } finally { qIter.close() ; }
+    }
+
+    private static JoinKey key(Var... vars) {
+        List<Var> x = new ArrayList<Var>() ;
+        for ( Var v : vars )
+            x.add(v) ;
+        return JoinKey.create(x) ;
+    }
+
+    /** Rows (?a, ?b) or (?a, ?c) with ?a in 0..mod-1, some rows without ?a */
+    private static Table build(int N, int mod, boolean withNoKey) {
+        TableN table = new TableN() ;
+        Var other = (mod%2 == 0) ? varB : varC ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            BindingMap b = BindingFactory.create() ;
+            if ( ! withNoKey || i%17 != 0 )
+                b.add(varA, NodeFactory.createLiteral("a"+(i%mod))) ;
+            b.add(other, NodeFactory.createLiteral("v"+i)) ;
+            table.addBinding(b) ;
+        }
+        return table ;
+    }
+
+    private static Context spillContext() {
+        Context context = new Context(ARQ.getContext()) ;
+        context.set(ARQ.spillToDiskThreshold, 10L) ;
+        return context ;
+    }
+
+    private void test(Table left, Table right, JoinKey joinKey) {
+        test(left, right, joinKey, ARQ.getContext()) ;
+    }
+
+    private void testSpill(Table left, Table right, JoinKey joinKey) {
+        test(left, right, joinKey, spillContext()) ;
+    }
+
+    private void testLeft(Table left, Table right, JoinKey joinKey, String exprStr) {
+        testLeft(left, right, joinKey, exprStr, ARQ.getContext()) ;
+    }
+
+    private void testLeft(Table left, Table right, JoinKey joinKey, String exprStr, Context context) {
+        ExecutionContext execCxt = new ExecutionContext(context, null, null, null) ;
+        ExprList exprs = ( exprStr == null ) ? null : new ExprList(SSE.parseExpr(exprStr)) ;
+        QueryIterator expectedIter = TableJoin.leftJoin(left.iterator(execCxt), right, exprs, execCxt) ;
+        QueryIterator qIter = new QueryIterHashLeftJoin(left.iterator(execCxt), right.iterator(execCxt), joinKey, exprs, execCxt) ;
+        check(new TableN(expectedIter), qIter) ;
+    }
+
+    private static QueryIterHashJoin hashJoin(Table left, Table right, JoinKey joinKey, Context context) {
+        ExecutionContext execCxt = new ExecutionContext(context, null, null, null) ;
+        return new QueryIterHashJoin(left.iterator(execCxt), right.iterator(execCxt), joinKey, execCxt) ;
+    }
+
+    private void test(Table left, Table right, JoinKey joinKey, Context context) {
+        ExecutionContext execCxt = new ExecutionContext(context, null, null, null) ;
+        QueryIterator expectedIter = TableJoin.join(left.iterator(execCxt), right, null, execCxt) ;
+        Table expected = new TableN(expectedIter) ;
+        QueryIterator qIter = hashJoin(left, right, joinKey, context) ;
+        check(expected, qIter) ;
+    }
+
+    private static void check(Table expected, QueryIterator qIter) {
+        Table results = new TableN(qIter) ;
+        qIter.close() ;
+        boolean b = equalsByTerm(expected, results) ;
+        if ( !b ) {
+            System.out.println("** Expected") ;
+            System.out.println(expected) ;
+            System.out.println("** Actual") ;
+            System.out.println(results) ;
+        }
+        assertTrue(b) ;
+    }
+
+    private static boolean equalsByTerm(Table table1, Table table2) {
+        List<String> vars = new ArrayList<String>(table1.getVarNames()) ;
+        for ( String vn : table2.getVarNames() )
+            if ( ! vars.contains(vn) )
+                vars.add(vn) ;
+        ResultSet rs1 = ResultSetFactory.create(table1.iterator(null), vars) ;
+        ResultSet rs2 = ResultSetFactory.create(table2.iterator(null), vars) ;
+        return ResultSetCompare.equalsByTerm(rs1, rs2) ;
+    }
+}
@@ -19,6 +19,7 @@
 package com.hp.hpl.jena.sparql.resultset;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 
 import org.junit.Assert;
 
@@ -27,6 +28,7 @@ import org.junit.Test;
 
 import com.hp.hpl.jena.query.ResultSet;
 import com.hp.hpl.jena.query.ResultSetFactory;
+import com.hp.hpl.jena.query.ResultSetFormatter;
 import com.hp.hpl.jena.sparql.ARQException;
 
 public class TestResultSetFormat2 {
@@ -205,6 +207,30 @@ public class TestResultSetFormat2 {
         parseTSVAsBoolean(x, false);
     }
 
+    @Test
+    public void resultset_binary_boolean_01() {
+        parseBinaryAsBoolean(true);
+        parseBinaryAsBoolean(false);
+    }
+
+    @Test(expected = ResultSetException.class)
+    public void resultset_bad_binary_01() {
+        // Not the binary format.
+        parseBinary("?x\t?y\n'a'\t'b'");
+    }
+
+    @Test(expected = ResultSetException.class)
+    public void resultset_bad_binary_02() {
+        // Truncated row.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResultSetFormatter.outputAsBinary(out, TestResultSetFormat1.make("(resultset (?x ?y) (row (?x 1) (?y 2)))"));
+        byte[] b = out.toByteArray();
+        ResultSet rs = ResultSetFactory.fromBinary(new ByteArrayInputStream(b, 0, b.length-1));
+        while (rs.hasNext()) {
+            rs.nextBinding();
+        }
+    }
+
     @Test(expected = ResultSetException.class)
     public void resultset_bad_tsv_01() {
         // Two vars, row of 3 values.
@@ -371,6 +397,25 @@ public class TestResultSetFormat2 {
         }
     }
 
+    private void parseBinary(String x) {
+        byte[] b = StrUtils.asUTF8bytes(x);
+        ByteArrayInputStream in = new ByteArrayInputStream(b);
+        ResultSet rs = ResultSetFactory.fromBinary(in);
+
+        while (rs.hasNext()) {
+            rs.nextBinding();
+        }
+    }
+
+    private void parseBinaryAsBoolean(boolean expected) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResultSetFormatter.outputAsBinary(out, expected);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        boolean actual = BinaryInput.booleanFromBinary(in);
+
+        Assert.assertEquals(expected, actual);
+    }
+
     private void parseTSVAsBoolean(String x, boolean expected) {
         byte[] b = StrUtils.asUTF8bytes(x);
         ByteArrayInputStream in = new ByteArrayInputStream(b);
@@ -21,9 +21,14 @@ package com.hp.hpl.jena.sparql.solver;
 import static com.hp.hpl.jena.sparql.solver.TestSolverLib.bgp ;
 import static com.hp.hpl.jena.sparql.solver.TestSolverLib.matcher ;
 import static com.hp.hpl.jena.sparql.solver.TestSolverLib.triple ;
+
+import java.util.ArrayList ;
+import java.util.List ;
+
 import org.apache.jena.atlas.junit.BaseTest ;
 import org.junit.Test ;
 
+import com.hp.hpl.jena.graph.Node ;
 import com.hp.hpl.jena.graph.Triple ;
 import com.hp.hpl.jena.sparql.core.BasicPattern ;
 import com.hp.hpl.jena.sparql.engine.optimizer.StatsMatcher ;
@@ -195,6 +200,92 @@ public class TestReorder extends BaseTest
         assertEquals(2, d, 0) ;
     }
 
+    @Test public void match_charset_01()
+    {
+        StatsMatcher matcher = matcher("(meta (charset true))", "(:p 100) (:q 100) (charset 5 :p :q) (charset 20 :p :q :r) (charset 75 :p)") ;
+        assertTrue(matcher.hasCharacteristicSets()) ;
+        assertTrue(matcher.isCharacteristicSetsComplete()) ;
+        double d = matcher.matchStar(bgpPredicates("(bgp (?x :p ?v) (?x :q ?w))")) ;
+        assertEquals(25, d, 0) ;
+    }
+    
+    @Test public void match_charset_02()
+    {
+        StatsMatcher matcher = matcher("(meta (charset true))", "(:p 100) (charset 5 :p :q)") ;
+        double d = matcher.matchStar(bgpPredicates("(bgp (?x :p ?v) (?x :z ?w))")) ;
+        assertEquals(-1, d, 0) ;
+    }
+    
+    @Test public void match_charset_04()
+    {
+        // Only some of the characteristic sets: not a bound. 
+        StatsMatcher matcher = matcher("(meta (charset false))", "(:p 100) (:q 100) (charset 5 :p :q)") ;
+        assertFalse(matcher.isCharacteristicSetsComplete()) ;
+        double d = matcher.matchStar(bgpPredicates("(bgp (?x :p ?v) (?x :q ?w))")) ;
+        assertEquals(-1, d, 0) ;
+        
+        matcher = matcher("(:p 100) (:q 100) (charset 5 :p :q)") ;
+        assertFalse(matcher.isCharacteristicSetsComplete()) ;
+        d = matcher.matchStar(bgpPredicates("(bgp (?x :p ?v) (?x :q ?w))")) ;
+        assertEquals(-1, d, 0) ;
+    }
+    
+    @Test public void match_charset_03()
+    {
+        StatsMatcher matcher = matcher("(:p 100)") ;
+        assertFalse(matcher.hasCharacteristicSets()) ;
+    }
+    
+    @Test public void reorder_charset_01()
+    {
+        // Without characteristic sets, the chain starts with :a 
+        // With them, the star on ?x is known to be small.
+        String stats = "(:a 50) (:p 200) (:q 200) (:b 1000)" ;
+        String x = "(bgp (?y :a ?z) (?z :b ?x) (?x :p ?v) (?x :q ?w))" ;
+        BasicPattern bgp = bgp(x) ;
+        
+        ReorderTransformation transform1 = new ReorderWeighted(matcher(stats)) ;
+        BasicPattern bgp1 = transform1.reorder(bgp) ;
+        assertEquals(triple("(?y :a ?z)"), bgp1.get(0)) ;
+        
+        ReorderTransformation transform2 = new ReorderWeighted(matcher("(meta (charset true))", stats, "(charset 3 :p :q) (charset 197 :p)")) ;
+        BasicPattern bgp2 = transform2.reorder(bgp) ;
+        assertEquals(triple("(?x :p ?v)"), bgp2.get(0)) ;
+        assertEquals(triple("(?x :q ?w)"), bgp2.get(1)) ;
+    }
+    
+    @Test public void reorder_charset_02()
+    {
+        // Incomplete characteristic sets are not used.
+        String stats = "(:a 50) (:p 200) (:q 200) (:b 1000)" ;
+        String x = "(bgp (?y :a ?z) (?z :b ?x) (?x :p ?v) (?x :q ?w))" ;
+        BasicPattern bgp = bgp(x) ;
+        
+        ReorderTransformation transform = new ReorderWeighted(matcher("(meta (charset false))", stats, "(charset 3 :p :q) (charset 197 :p)")) ;
+        BasicPattern bgp1 = transform.reorder(bgp) ;
+        assertEquals(triple("(?y :a ?z)"), bgp1.get(0)) ;
+    }
+    
+    @Test public void reorder_charset_03()
+    {
+        // The star bound is for the most selective pattern of the star only, 
+        // the others keep their weights.
+        String stats = "(meta (charset true)) (:a 50) (:p 200) (:q 100) (charset 3 :p :q) (charset 197 :p)" ;
+        String x = "(bgp (?y :a ?x) (?x :p ?v) (?x :q ?w))" ;
+        ReorderWeighted transform = new ReorderWeighted(matcher(stats)) ;
+        BasicPattern bgp1 = transform.reorder(bgp(x)) ;
+        assertEquals(triple("(?x :q ?w)"), bgp1.get(0)) ;
+        assertEquals(triple("(?x :p ?v)"), bgp1.get(1)) ;
+    }
+    
+    private static List<Node> bgpPredicates(String str)
+    {
+        List<Node> x = new ArrayList<Node>() ;
+        for ( Triple t : bgp(str) )
+            x.add(t.getPredicate()) ;
+        return x ;
+    }
+
     @Test public void reorderIndexes1() 
     { 
         ReorderProc proc = new ReorderProcIndexes(new int[]{0,1}) ;
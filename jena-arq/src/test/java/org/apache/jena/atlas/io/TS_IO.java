@@ -33,6 +33,7 @@ import org.junit.runners.Suite ;
     , TestPeekReaderSource.class
     , TestPeekReaderCharSequence.class
     , TestPeekInputStreamSource.class
+    , TestPeekReaderMapped.class
 
     // Writers
     , TestBufferingWriter.class
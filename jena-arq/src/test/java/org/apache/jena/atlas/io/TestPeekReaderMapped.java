@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io;
+
+import java.io.File ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
+import java.io.OutputStream ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.junit.Test ;
+
+public class TestPeekReaderMapped extends AbstractTestPeekReader
+{
+    @Override
+    PeekReader make(String contents, int size)
+    {
+        return PeekReader.make(new CharStreamMappedUTF8(file(StrUtils.asUTF8bytes(contents)), size, 4)) ;
+    }
+
+    static String file(byte[] bytes)
+    {
+        try {
+            File f = File.createTempFile("mapped", ".txt") ;
+            f.deleteOnExit() ;
+            OutputStream out = new FileOutputStream(f) ;
+            try { out.write(bytes) ; } finally { out.close() ; }
+            return f.getPath() ;
+        } catch (IOException ex) { throw new RuntimeException(ex) ; }
+    }
+
+    private static String read(byte[] bytes, int buffSize, int windowSize)
+    {
+        CharStream cs = new CharStreamMappedUTF8(file(bytes), buffSize, windowSize) ;
+        StringBuilder sb = new StringBuilder() ;
+        for ( int ch = cs.advance() ; ch != IO.EOF ; ch = cs.advance() )
+            sb.append((char)ch) ;
+        cs.closeStream() ;
+        return sb.toString() ;
+    }
+
+    private static void testRead(String x)
+    {
+        byte[] bytes = StrUtils.asUTF8bytes(x) ;
+        assertEquals(x, read(bytes, 1000, 1000)) ;
+        // Small buffers and windows: multi-byte sequences cross the boundaries.
+        assertEquals(x, read(bytes, 2, 4)) ;
+        assertEquals(x, read(bytes, 3, 5)) ;
+        assertEquals(x, read(bytes, 7, 6)) ;
+    }
+
+    @Test public void mapped_01() { testRead("") ; }
+    @Test public void mapped_02() { testRead("abc\ndef") ; }
+    @Test public void mapped_03() { testRead("Àéíÿ αβγ") ; }
+    @Test public void mapped_04() { testRead("a孫子兵法b日本c") ; }
+    // Outside the BMP - a surrogate pair.
+    @Test public void mapped_05() { testRead("x\uD83D\uDE00y\uD83D\uDE00") ; }
+
+    // An ASCII run that ends just before a multi-byte sequence at the end of a window.
+    private static void testWindowBoundary(String multi)
+    {
+        for ( int prefix = 0 ; prefix < 12 ; prefix++ )
+        {
+            String x = "abcdefghijk".substring(0, prefix)+multi+"xyz"+multi+"end" ;
+            byte[] bytes = StrUtils.asUTF8bytes(x) ;
+            for ( int window = 4 ; window < 10 ; window++ )
+                assertEquals(x, read(bytes, 64, window)) ;
+        }
+    }
+
+    @Test public void mapped_window_01() { testWindowBoundary("\u00E9") ; }
+    @Test public void mapped_window_02() { testWindowBoundary("\u20AC") ; }
+    @Test public void mapped_window_03() { testWindowBoundary("\uD83D\uDE00") ; }
+    @Test public void mapped_window_04() { assertEquals("abcdef\u20ACxyz\u00E9end", read(StrUtils.asUTF8bytes("abcdef\u20ACxyz\u00E9end"), 64, 8)) ; }
+
+    @Test public void mapped_bom()
+    {
+        String fn = file(StrUtils.asUTF8bytes("\uFEFFabc")) ;
+        PeekReader r = PeekReader.openMapped(fn) ;
+        assertEquals('a', r.readChar()) ;
+        IO.close(r) ;
+    }
+
+    @Test(expected=AtlasException.class)
+    public void mapped_bad_01()
+    {
+        // Truncated sequence.
+        read(new byte[]{ 'a', (byte)0xE2, (byte)0x82 }, 10, 10) ;
+    }
+
+    @Test(expected=AtlasException.class)
+    public void mapped_bad_02()
+    {
+        // Overlong encoding of '/'.
+        read(new byte[]{ 'a', (byte)0xC0, (byte)0xAF }, 10, 10) ;
+    }
+}
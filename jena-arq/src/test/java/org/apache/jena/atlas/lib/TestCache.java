@@ -60,6 +60,16 @@ public class TestCache extends BaseTest
         }
     ;
 
+    private static CacheMaker<Integer, Integer> concurrent = 
+        new CacheMaker<Integer, Integer>()
+        {
+        @Override
+        public Cache<Integer, Integer> make(int size) { return CacheFactory.createConcurrentCache(size) ; }
+        @Override
+        public String name() { return "Concurrent" ; } 
+        }
+    ;
+
     private static CacheMaker<Integer, Integer> stats = 
         new CacheMaker<Integer, Integer>()
         {
@@ -98,6 +108,9 @@ public class TestCache extends BaseTest
             , { standard , 10 }
             , { standard , 2 }
             , { standard , 1 }
+            , { concurrent , 10 }
+            , { concurrent , 2 }
+            , { concurrent , 1 }
             , { stats , 10 }
             , { stats , 2 }
             , { stats , 1 }
@@ -50,6 +50,45 @@ public class TestCache2 extends BaseTest
         assertEquals("1", str) ;
     }
     
+    // CacheClock
+    @Test public void cacheClock_1()
+    {
+        Cache<Integer, String> cache = CacheFactory.createConcurrentCache(3) ;
+        cache.put(1, "1") ;
+        cache.put(2, "2") ;
+        cache.put(3, "3") ;
+        // All used once: the clock clears them all and drops the first.
+        cache.put(4, "4") ;
+        assertEquals(3, cache.size()) ;
+        assertFalse(cache.containsKey(1)) ;
+        // 2 is used again so it gets a second chance; 3 goes.
+        cache.get(2) ;
+        cache.put(5, "5") ;
+        assertTrue(cache.containsKey(2)) ;
+        assertFalse(cache.containsKey(3)) ;
+        assertEquals("4", cache.get(4)) ;
+        assertEquals("5", cache.get(5)) ;
+    }
+
+    @Test public void cacheClock_2()
+    {
+        final int[] drops = { 0 } ;
+        Cache<Integer, String> cache = CacheFactory.createConcurrentCache(2) ;
+        cache.setDropHandler(new ActionKeyValue<Integer, String>() {
+            @Override
+            public void apply(Integer key, String value) { drops[0]++ ; }
+        }) ;
+        cache.put(1, "1") ;
+        cache.put(2, "2") ;
+        assertTrue(cache.remove(1)) ;
+        // Uses the free slot - no drop.
+        cache.put(3, "3") ;
+        assertEquals(0, drops[0]) ;
+        cache.put(4, "4") ;
+        assertEquals(1, drops[0]) ;
+        assertEquals(2, cache.size()) ;
+    }
+
     static Getter<Integer, String> getter = new Getter<Integer, String>() {
         @Override
         public String get(Integer key)
@@ -38,6 +38,8 @@ import org.junit.runners.Suite ;
     , TestLangTurtle.class
     , TestLangTrig.class
     , TestLangRdfJson.class
+    , TestLangBinary.class
+    , TestParserNTuplesParallel.class
     , TestParserFactory.class
     , TestPipedRDFIterators.class
     , TestCollectorStream.class
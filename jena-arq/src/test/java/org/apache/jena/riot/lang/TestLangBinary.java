@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RDFFormat ;
+import org.apache.jena.riot.RDFLanguages ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.binary.BinaryRDF ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.system.StreamRDFBase ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+import com.hp.hpl.jena.sparql.sse.SSE ;
+
+public class TestLangBinary extends BaseTest
+{
+    @Test public void binary_lang_01()
+    {
+        assertEquals(RDFLanguages.RDFBINARY, RDFLanguages.filenameToLang("data.rdfb")) ;
+        assertEquals(RDFLanguages.RDFBINARY, RDFLanguages.contentTypeToLang("application/rdf+binary")) ;
+    }
+
+    @Test public void binary_triples_01()   { testGraph(false, "(graph)") ; }
+    @Test public void binary_triples_02()   { testGraph(false, "(graph (<http://example/s> <http://example/p> <http://example/o>))") ; }
+    @Test public void binary_triples_03()   { testGraph(true,  "(graph (<http://example/s> <http://example/p> <http://example/o>))") ; }
+
+    private static final String graph = StrUtils.strjoinNL(
+        "(graph",
+        "  (<http://example/s> <http://example/p> 'abc')",
+        "  (<http://example/s> <http://example/p> 'abc'@en)",
+        "  (<http://example/s> <http://example/p> 'é ü 漢字')",
+        "  (<http://example/s> <http://example/p> 123)",
+        "  (<http://example/s> <http://example/p> -45)",
+        "  (<http://example/s> <http://example/p> 0)",
+        "  (<http://example/s> <http://example/p> '0123'^^<http://www.w3.org/2001/XMLSchema#integer>)",
+        "  (<http://example/s> <http://example/p> '123456789012345678901234567890'^^<http://www.w3.org/2001/XMLSchema#integer>)",
+        "  (<http://example/s> <http://example/p> 1.5)",
+        "  (<http://example/s> <http://example/p> 'x'^^<http://example/dt>)",
+        "  (_:a <http://example/p> _:b)",
+        "  (_:b <http://example/p> _:a)",
+        "  (<urn:x> <http://example/ns#p> <http://example/ns#o>)",
+        ")") ;
+
+    @Test public void binary_triples_04()   { testGraph(false, graph) ; }
+    @Test public void binary_triples_05()   { testGraph(true, graph) ; }
+
+    @Test public void binary_triples_06()
+    {
+        // More IRIs than the dictionary holds, and more than a block of data.
+        Graph g = GraphFactory.createDefaultGraph() ;
+        Node p = NodeFactory.createURI("http://example/p") ;
+        for ( int i = 0 ; i < 70000 ; i++ )
+        {
+            Node s = NodeFactory.createURI("http://example/ns"+(i%5000)+"/s"+i) ;
+            Node o = NodeFactory.createURI("http://example/o"+(i%100)) ;
+            g.add(Triple.create(s, p, o)) ;
+        }
+        testGraph(false, g) ;
+        testGraph(true, g) ;
+    }
+
+    @Test public void binary_triples_07()
+    {
+        // A string longer than a block.
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 100000 ; i++ )
+            sb.append((char)('a'+i%26)) ;
+        Graph g = GraphFactory.createDefaultGraph() ;
+        g.add(Triple.create(SSE.parseNode("<http://example/s>"), SSE.parseNode("<http://example/p>"),
+                            NodeFactory.createLiteral(sb.toString()))) ;
+        testGraph(false, g) ;
+        testGraph(true, g) ;
+    }
+
+    @Test public void binary_prefixes_01()
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDF stream = BinaryRDF.streamWriter(out) ;
+        stream.start() ;
+        stream.base("http://example/base") ;
+        stream.prefix("ex", "http://example/") ;
+        stream.triple(SSE.parseTriple("(<http://example/s> <http://example/p> <http://example/o>)")) ;
+        stream.finish() ;
+
+        final List<String> prefixes = new ArrayList<String>() ;
+        final List<String> bases = new ArrayList<String>() ;
+        final List<Triple> triples = new ArrayList<Triple>() ;
+        StreamRDF dest = new StreamRDFBase() {
+            @Override public void triple(Triple triple)             { triples.add(triple) ; }
+            @Override public void base(String base)                 { bases.add(base) ; }
+            @Override public void prefix(String prefix, String iri) { prefixes.add(prefix+"="+iri) ; }
+        } ;
+        BinaryRDF.read(new ByteArrayInputStream(out.toByteArray()), dest) ;
+        assertEquals(1, triples.size()) ;
+        assertEquals(1, bases.size()) ;
+        assertEquals("http://example/base", bases.get(0)) ;
+        assertEquals(1, prefixes.size()) ;
+        assertEquals("ex=http://example/", prefixes.get(0)) ;
+    }
+
+    private static final String dataset = StrUtils.strjoinNL(
+        "(dataset",
+        "  (graph (<http://example/s> <http://example/p> 1))",
+        "  (graph <http://example/g1>",
+        "     (<http://example/s> <http://example/p> 'a')",
+        "     (_:b <http://example/p> 'b'@en))",
+        "  (graph <http://example/g2> (<http://example/s> <http://example/p> _:b))",
+        ")") ;
+
+    @Test public void binary_quads_01()     { testDataset(false, dataset) ; }
+    @Test public void binary_quads_02()     { testDataset(true, dataset) ; }
+
+    @Test(expected=RiotException.class)
+    public void binary_bad_01()
+    {
+        BinaryRDF.read(new ByteArrayInputStream("<s> <p> <o> .".getBytes()), StreamRDFLib.sinkNull()) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void binary_bad_02()
+    {
+        byte[] b = write(SSE.parseGraph("(graph (<http://example/s> <http://example/p> <http://example/o>))"), false) ;
+        byte[] b2 = new byte[b.length-1] ;
+        System.arraycopy(b, 0, b2, 0, b2.length) ;
+        BinaryRDF.read(new ByteArrayInputStream(b2), StreamRDFLib.sinkNull()) ;
+    }
+
+    private static byte[] write(Graph g, boolean compressed)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out, g, compressed ? RDFFormat.RDFBINARY_COMPRESSED : RDFFormat.RDFBINARY) ;
+        return out.toByteArray() ;
+    }
+
+    private static void testGraph(boolean compressed, String x)
+    {
+        testGraph(compressed, SSE.parseGraph(x)) ;
+    }
+
+    private static void testGraph(boolean compressed, Graph g)
+    {
+        byte[] b = write(g, compressed) ;
+        Graph g2 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.read(g2, new ByteArrayInputStream(b), RDFLanguages.RDFBINARY) ;
+        assertEquals(g.size(), g2.size()) ;
+        assertTrue(g.isIsomorphicWith(g2)) ;
+    }
+
+    private static void testDataset(boolean compressed, String x)
+    {
+        DatasetGraph dsg = SSE.parseDatasetGraph(x) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out, dsg, compressed ? RDFFormat.RDFBINARY_COMPRESSED : RDFFormat.RDFBINARY) ;
+        DatasetGraph dsg2 = DatasetGraphFactory.createMem() ;
+        RDFDataMgr.read(dsg2, new ByteArrayInputStream(out.toByteArray()), RDFLanguages.RDFBINARY) ;
+        assertTrue(dsg.getDefaultGraph().isIsomorphicWith(dsg2.getDefaultGraph())) ;
+        for ( Iterator<Node> iter = dsg.listGraphNodes() ; iter.hasNext() ; )
+        {
+            Node gn = iter.next() ;
+            assertTrue(dsg.getGraph(gn).isIsomorphicWith(dsg2.getGraph(gn))) ;
+        }
+        assertEquals(Iter.count(dsg.listGraphNodes()), Iter.count(dsg2.listGraphNodes())) ;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.junit.After ;
+import org.junit.Before ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+
+public class TestParserNTuplesParallel extends BaseTest
+{
+    private int chunkSize ;
+
+    // Small chunks so the tests data is split many times.
+    @Before public void before()    { chunkSize = ParserNTuplesParallel.ChunkSize ; ParserNTuplesParallel.ChunkSize = 200 ; }
+    @After  public void after()     { ParserNTuplesParallel.ChunkSize = chunkSize ; }
+
+    private static String data(int N, boolean quads)
+    {
+        StringBuilder sb = new StringBuilder() ;
+        sb.append("_:a <http://example/p> \"first\" "+(quads?"<http://example/g> ":"")+".\n") ;
+        for ( int i = 0 ; i < N ; i++ )
+        {
+            String g = quads && i%3 != 0 ? " <http://example/g"+(i%5)+">" : "" ;
+            sb.append("<http://example/s"+i+"> <http://example/p> \"value "+i+"\""+g+" .\n") ;
+            if ( i%10 == 0 )
+                sb.append("# comment\n\n") ;
+        }
+        sb.append("_:a <http://example/p> \"last\" "+(quads?"<http://example/g> ":"")+".") ;
+        return sb.toString() ;
+    }
+
+    private static ByteArrayInputStream input(String x)
+    {
+        return new ByteArrayInputStream(StrUtils.asUTF8bytes(x)) ;
+    }
+
+    @Test public void parallel_triples_01()
+    {
+        String x = data(500, false) ;
+        Graph g1 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parse(StreamRDFLib.graph(g1), input(x), Lang.NTRIPLES) ;
+        Graph g2 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parseParallel(StreamRDFLib.graph(g2), input(x), Lang.NTRIPLES, 4, false) ;
+        assertEquals(502, g2.size()) ;
+        assertTrue(g1.isIsomorphicWith(g2)) ;
+    }
+
+    @Test public void parallel_triples_02()
+    {
+        // In order: same sequence as the single threaded parser.
+        String x = data(500, false) ;
+        CollectorStreamTriples c1 = new CollectorStreamTriples() ;
+        RDFDataMgr.parse(c1, input(x), Lang.NTRIPLES) ;
+        CollectorStreamTriples c2 = new CollectorStreamTriples() ;
+        RDFDataMgr.parseParallel(c2, input(x), Lang.NTRIPLES, 4, true) ;
+        List<Triple> t1 = new ArrayList<Triple>(c1.getCollected()) ;
+        List<Triple> t2 = new ArrayList<Triple>(c2.getCollected()) ;
+        assertEquals(t1.size(), t2.size()) ;
+        for ( int i = 1 ; i < t1.size()-1 ; i++ )
+            assertEquals(t1.get(i), t2.get(i)) ;
+        // Blank nodes are in document scope across chunks.
+        Node b1 = t2.get(0).getSubject() ;
+        Node b2 = t2.get(t2.size()-1).getSubject() ;
+        assertTrue(b1.isBlank()) ;
+        assertEquals(b1, b2) ;
+    }
+
+    @Test public void parallel_triples_03()
+    {
+        // A line longer than a chunk.
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 1000 ; i++ )
+            sb.append('x') ;
+        String x = "<http://example/s> <http://example/p> \""+sb+"\" .\n<http://example/s> <http://example/p> \"1\" ." ;
+        CollectorStreamTriples c = new CollectorStreamTriples() ;
+        RDFDataMgr.parseParallel(c, input(x), Lang.NTRIPLES, 2, true) ;
+        assertEquals(2, c.getCollected().size()) ;
+    }
+
+    @Test public void parallel_triples_04()
+    {
+        CollectorStreamTriples c = new CollectorStreamTriples() ;
+        RDFDataMgr.parseParallel(c, input(""), Lang.NTRIPLES, 2, true) ;
+        assertEquals(0, c.getCollected().size()) ;
+    }
+
+    @Test public void parallel_memory_01()
+    {
+        // Chunks are not kept once delivered: a bounded number are in progress.
+        memory(false) ;
+        memory(true) ;
+    }
+    
+    private static void memory(boolean ordered)
+    {
+        ParserNTuplesParallel parser = new ParserNTuplesParallel(Lang.NTRIPLES, 2, ordered) ;
+        parser.parse(input(data(500, false)), StreamRDFLib.sinkNull()) ;
+        assertTrue(parser.chunksRead() > 20) ;
+        assertTrue(parser.maxChunksInProgress() > 0) ;
+        assertTrue("Chunks in progress: "+parser.maxChunksInProgress(), parser.maxChunksInProgress() <= 4) ;
+    }
+    
+    @Test public void parallel_triples_05()
+    {
+        // Carriage return line endings.
+        String x = data(500, false).replace('\n', '\r') ;
+        Graph g1 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parse(StreamRDFLib.graph(g1), input(x), Lang.NTRIPLES) ;
+        ParserNTuplesParallel parser = new ParserNTuplesParallel(Lang.NTRIPLES, 2, true) ;
+        Graph g2 = GraphFactory.createDefaultGraph() ;
+        parser.parse(input(x), StreamRDFLib.graph(g2)) ;
+        assertTrue(parser.chunksRead() > 20) ;
+        assertEquals(502, g2.size()) ;
+        assertTrue(g1.isIsomorphicWith(g2)) ;
+    }
+    
+    @Test public void parallel_triples_06()
+    {
+        // CR LF line endings.
+        String x = data(500, false).replace("\n", "\r\n") ;
+        Graph g1 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parse(StreamRDFLib.graph(g1), input(x), Lang.NTRIPLES) ;
+        Graph g2 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parseParallel(StreamRDFLib.graph(g2), input(x), Lang.NTRIPLES, 2, true) ;
+        assertEquals(502, g2.size()) ;
+        assertTrue(g1.isIsomorphicWith(g2)) ;
+    }
+
+    @Test public void parallel_quads_01()
+    {
+        String x = data(500, true) ;
+        DatasetGraph dsg1 = DatasetGraphFactory.createMem() ;
+        RDFDataMgr.parse(StreamRDFLib.dataset(dsg1), input(x), Lang.NQUADS) ;
+        CollectorStreamQuads c = new CollectorStreamQuads() ;
+        RDFDataMgr.parseParallel(c, input(x), Lang.NQUADS, 3, true) ;
+        List<Quad> quads = new ArrayList<Quad>(c.getCollected()) ;
+        assertEquals(502, quads.size()) ;
+        for ( Quad q : quads )
+        {
+            if ( ! q.getSubject().isBlank() )
+                assertTrue(dsg1.contains(q)) ;
+        }
+        assertEquals(quads.get(0).getSubject(), quads.get(501).getSubject()) ;
+    }
+
+    @Test public void parallel_error_01()
+    {
+        // Line numbers are for the whole input.
+        String d = data(100, false) ;
+        long expected = 2 ;
+        for ( int i = 0 ; i < d.length() ; i++ )
+        {
+            if ( d.charAt(i) == '\n' )
+                expected++ ;
+        }
+        String x = d+"\n<http://example/s> <http://example/p> .\n" ;
+        ParserNTuplesParallel parser = new ParserNTuplesParallel(Lang.NTRIPLES, 2, false) ;
+        final long[] errorLine = { -1 } ;
+        parser.setErrorHandler(new ErrorHandler() {
+            @Override public void warning(String message, long line, long col) {}
+            @Override public void error(String message, long line, long col)   { fatal(message, line, col) ; }
+            @Override public void fatal(String message, long line, long col)
+            {
+                errorLine[0] = line ;
+                throw new RiotException(message) ;
+            }
+        }) ;
+        try {
+            parser.parse(input(x), StreamRDFLib.sinkNull()) ;
+            fail("No exception") ;
+        } catch (RiotException ex) {}
+        assertEquals(expected, errorLine[0]) ;
+    }
+}
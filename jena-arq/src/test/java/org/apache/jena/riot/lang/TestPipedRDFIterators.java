@@ -21,6 +21,7 @@ package org.apache.jena.riot.lang;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -865,4 +866,145 @@ public class TestPipedRDFIterators {
         // Should throw an error after the iterator is closed
         iter.hasNext();
     }
+
+    private void test_batched(int bufferSize, int batchSize, int generateSize) {
+        PipedRDFIterator<Triple> iter = new PipedRDFIterator<Triple>(bufferSize, false, PipedRDFIterator.DEFAULT_POLL_TIMEOUT,
+                PipedRDFIterator.DEFAULT_MAX_POLLS, batchSize);
+        PipedTriplesStream stream = new PipedTriplesStream(iter);
+        stream.start();
+        for (int i = 1; i <= generateSize; i++)
+            stream.triple(Triple.create(com.hp.hpl.jena.graph.NodeFactory.createURI("urn:s"),
+                    com.hp.hpl.jena.graph.NodeFactory.createURI("urn:p"), NodeFactoryExtra.intToNode(i)));
+        stream.finish();
+        for (int i = 1; i <= generateSize; i++) {
+            Assert.assertTrue(iter.hasNext());
+            Assert.assertEquals(NodeFactoryExtra.intToNode(i), iter.next().getObject());
+        }
+        Assert.assertFalse(iter.hasNext());
+    }
+
+    /**
+     * Items are delivered in order whatever the batch size
+     */
+    @Test
+    public void streamed_batch_01() {
+        test_batched(1000, 1, 500);
+        test_batched(1000, 7, 500);
+        test_batched(1000, 100, 500);
+        test_batched(1000, 1000, 999);
+        // Batch size larger than the buffer
+        test_batched(10, 100, 5);
+    }
+
+    /**
+     * A partly filled batch is passed to a waiting consumer without waiting
+     * for the producer to fill it or finish.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void streamed_batch_02() throws Exception {
+        final PipedRDFIterator<Triple> it = new PipedRDFIterator<Triple>(1000, false, 100, 20, 100);
+        final PipedTriplesStream out = new PipedTriplesStream(it);
+        final CountDownLatch received = new CountDownLatch(1);
+
+        Callable<Boolean> producer = new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                out.start();
+                out.triple(Triple.create(com.hp.hpl.jena.graph.NodeFactory.createURI("urn:s"),
+                        com.hp.hpl.jena.graph.NodeFactory.createURI("urn:p"),
+                        com.hp.hpl.jena.graph.NodeFactory.createURI("urn:o")));
+                // Wait for the consumer to have the triple; keep producing
+                // so the consumer's request for data is seen.
+                boolean b = false;
+                for (int i = 0; i < 50 && !b; i++) {
+                    b = received.await(50, TimeUnit.MILLISECONDS);
+                    if (!b)
+                        out.triple(Triple.create(com.hp.hpl.jena.graph.NodeFactory.createURI("urn:s"),
+                                com.hp.hpl.jena.graph.NodeFactory.createURI("urn:p"),
+                                NodeFactoryExtra.intToNode(i)));
+                }
+                out.finish();
+                return b;
+            }
+        };
+        Future<Boolean> f = executor.submit(producer);
+        Assert.assertTrue(it.hasNext());
+        it.next();
+        received.countDown();
+        Assert.assertTrue(f.get(5, TimeUnit.SECONDS));
+        while (it.hasNext())
+            it.next();
+    }
+
+    /**
+     * A producer that stalls with a partly filled batch does not stop the
+     * consumer seeing the items already produced.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void streamed_batch_03() throws Exception {
+        // The producer is declared dead after 10 polls of 50ms with no data
+        final PipedRDFIterator<Triple> it = new PipedRDFIterator<Triple>(1000, false, 50, 10, 100);
+        final PipedTriplesStream out = new PipedTriplesStream(it);
+        final CountDownLatch produced = new CountDownLatch(1);
+        final CountDownLatch received = new CountDownLatch(1);
+
+        Callable<Boolean> producer = new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                out.start();
+                for (int i = 1; i <= 5; i++)
+                    out.triple(Triple.create(com.hp.hpl.jena.graph.NodeFactory.createURI("urn:s"),
+                            com.hp.hpl.jena.graph.NodeFactory.createURI("urn:p"), NodeFactoryExtra.intToNode(i)));
+                produced.countDown();
+                // Stall, longer than the consumer would wait for data, until
+                // the consumer has the items.
+                boolean b = received.await(5, TimeUnit.SECONDS);
+                out.finish();
+                return b;
+            }
+        };
+        Future<Boolean> f = executor.submit(producer);
+        // Items produced before the consumer asks for them stay in the
+        // producer's batch.
+        Assert.assertTrue(produced.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(NodeFactoryExtra.intToNode(i), it.next().getObject());
+        }
+        received.countDown();
+        Assert.assertTrue(f.get(5, TimeUnit.SECONDS));
+        Assert.assertFalse(it.hasNext());
+    }
+
+    /**
+     * The producer finds the consumer has died without waiting to fill a batch
+     * 
+     * @throws Exception
+     */
+    @Test(expected = RiotException.class)
+    public void streamed_batch_04() throws Exception {
+        final PipedRDFIterator<Triple> it = new PipedRDFIterator<Triple>(1000, false, 50, 10, 100);
+        PipedTriplesStream out = new PipedTriplesStream(it);
+        out.start();
+        // One full batch, passed to the consumer.
+        for (int i = 1; i <= 100; i++)
+            out.triple(Triple.create(com.hp.hpl.jena.graph.NodeFactory.createURI("urn:s"),
+                    com.hp.hpl.jena.graph.NodeFactory.createURI("urn:p"), NodeFactoryExtra.intToNode(i)));
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                it.next();
+            }
+        });
+        consumer.start();
+        consumer.join();
+        // Should throw an error as the consumer is dead, even though this
+        // starts a new batch
+        out.triple(Triple.create(com.hp.hpl.jena.graph.NodeFactory.createURI("urn:s"),
+                com.hp.hpl.jena.graph.NodeFactory.createURI("urn:p"), NodeFactoryExtra.intToNode(101)));
+    }
 }
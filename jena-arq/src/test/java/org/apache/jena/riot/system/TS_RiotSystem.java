@@ -41,6 +41,7 @@ import org.junit.runners.Suite.SuiteClasses ;
     , TestIO_JenaWriters.class
     , TestLangRegistration.class
     , TestFormatRegistration.class
+    , TestNodeInterner.class
     , TestJsonLDReadWrite.class         // Some simple testing of the jsonld-java engine. 
     // May be subject to performance vagaries, with the improvements made
     // to the fast implementation this should be fairly safe
@@ -52,6 +52,8 @@ public class TestFormatRegistration extends BaseTest
         add("NQUADS",   x, RDFFormat.NQUADS,     true, true) ;
         add("NQ",       x, RDFFormat.NQ,         true, true) ;
         add("TRIG",     x, RDFFormat.TRIG,       true, true) ;
+        add("RDFBINARY", x, RDFFormat.RDFBINARY, true, true) ;
+        add("RDFBINARY", x, RDFFormat.RDFBINARY_COMPRESSED, true, true) ;
         return x ;
     }
     
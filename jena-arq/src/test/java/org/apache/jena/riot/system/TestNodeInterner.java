@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import java.io.ByteArrayInputStream ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.SysRIOT ;
+import org.apache.jena.riot.lang.LangRIOT ;
+import org.apache.jena.riot.lang.LangTurtle ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype ;
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+
+public class TestNodeInterner extends BaseTest
+{
+    @Test public void interner_01()
+    {
+        NodeInterner interner = new NodeInterner(100) ;
+        assertEquals(128, interner.getSize()) ;
+        Node n1 = NodeFactory.createURI("http://example/a") ;
+        Node n2 = NodeFactory.createURI("http://example/a") ;
+        assertNull(interner.getURI("http://example/a")) ;
+        assertSame(n1, interner.internURI(n1)) ;
+        assertSame(n1, interner.internURI(n2)) ;
+        assertSame(n1, interner.getURI("http://example/a")) ;
+        assertNull(interner.getURI("http://example/b")) ;
+        assertEquals(2, interner.getHits()) ;
+        assertEquals(1, interner.getMisses()) ;
+    }
+
+    @Test public void interner_02()
+    {
+        NodeInterner interner = new NodeInterner(16) ;
+        Node n1 = NodeFactory.createLiteral("abc", "en", null) ;
+        Node n2 = NodeFactory.createLiteral("abc", "en", null) ;
+        Node n3 = NodeFactory.createLiteral("abc", "EN", null) ;
+        Node n4 = NodeFactory.createLiteral("abc", null, XSDDatatype.XSDstring) ;
+        Node n5 = NodeFactory.createLiteral("abc") ;
+        assertSame(n1, interner.internLiteral(n1)) ;
+        assertSame(n1, interner.internLiteral(n2)) ;
+        // Different terms are never merged.
+        assertSame(n3, interner.internLiteral(n3)) ;
+        assertSame(n4, interner.internLiteral(n4)) ;
+        assertSame(n5, interner.internLiteral(n5)) ;
+        // An IRI with the same string as a literal.
+        assertNull(interner.getURI("abc")) ;
+    }
+
+    private static final String data = StrUtils.strjoinNL
+        ("@prefix : <http://example/> ."
+        , "@base <http://example/base/> ."
+        , ":s1 :p <rel> , \"x\" ."
+        , ":s2 :p <rel> , \"x\" ."
+        , "@base <http://example/other/> ."
+        , ":s3 :p <rel> , <http://example/s1> ."
+        ) ;
+
+    @Test public void interner_parse_01()
+    {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerString(data) ;
+        ParserProfile profile = RiotLib.profile(null, true, true, ErrorHandlerFactory.errorHandlerStrictSilent(), new NodeInterner(1000)) ;
+        LangRIOT parser = new LangTurtle(tokenizer, profile, StreamRDFLib.graph(graph)) ;
+        parser.parse() ;
+        assertEquals(6, graph.size()) ;
+        // Relative IRIs are resolved against the base in force.
+        Node p = NodeFactory.createURI("http://example/p") ;
+        assertTrue(graph.contains(NodeFactory.createURI("http://example/s1"), p, NodeFactory.createURI("http://example/base/rel"))) ;
+        assertTrue(graph.contains(NodeFactory.createURI("http://example/s3"), p, NodeFactory.createURI("http://example/other/rel"))) ;
+        // Repeated terms are the same node.
+        Triple t1 = graph.find(NodeFactory.createURI("http://example/s1"), p, NodeFactory.createLiteral("x")).next() ;
+        Triple t2 = graph.find(NodeFactory.createURI("http://example/s2"), p, NodeFactory.createLiteral("x")).next() ;
+        assertSame(t1.getPredicate(), t2.getPredicate()) ;
+        assertSame(t1.getObject(), t2.getObject()) ;
+        NodeInterner interner = ((ParserProfileBase)profile).getNodeInterner() ;
+        assertTrue(interner.getHits() > 0) ;
+    }
+
+    @Test public void interner_parse_02()
+    {
+        int size = SysRIOT.nodeInternerSize ;
+        try {
+            SysRIOT.nodeInternerSize = 1000 ;
+            Graph g1 = GraphFactory.createDefaultGraph() ;
+            RDFDataMgr.parse(StreamRDFLib.graph(g1), new ByteArrayInputStream(StrUtils.asUTF8bytes(data)), Lang.TURTLE) ;
+            SysRIOT.nodeInternerSize = 0 ;
+            Graph g2 = GraphFactory.createDefaultGraph() ;
+            RDFDataMgr.parse(StreamRDFLib.graph(g2), new ByteArrayInputStream(StrUtils.asUTF8bytes(data)), Lang.TURTLE) ;
+            assertTrue(g1.isIsomorphicWith(g2)) ;
+        } finally { SysRIOT.nodeInternerSize = size ; }
+    }
+}
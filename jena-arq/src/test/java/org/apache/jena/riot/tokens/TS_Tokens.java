@@ -25,6 +25,7 @@ import org.junit.runners.Suite ;
 @Suite.SuiteClasses( {
       TestTokenizer.class
     , TestTokenForNode.class
+    , TestTokenizerMapped.class
 })
 
 public class TS_Tokens
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens;
+
+import java.io.File ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
+import java.io.OutputStream ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+
+public class TestTokenizerMapped extends BaseTest
+{
+    private static String file(String contents, String ext)
+    {
+        try {
+            File f = File.createTempFile("mapped", ext) ;
+            f.deleteOnExit() ;
+            OutputStream out = new FileOutputStream(f) ;
+            try { out.write(StrUtils.asUTF8bytes(contents)) ; } finally { out.close() ; }
+            return f.getPath() ;
+        } catch (IOException ex) { throw new RuntimeException(ex) ; }
+    }
+
+    private static void testTokens(String x)
+    {
+        Tokenizer t1 = TokenizerFactory.makeTokenizerString(x) ;
+        Tokenizer t2 = TokenizerFactory.makeTokenizerMapped(file(x, ".txt")) ;
+        while ( t1.hasNext() )
+        {
+            assertTrue(t2.hasNext()) ;
+            assertEquals(t1.next(), t2.next()) ;
+        }
+        assertFalse(t2.hasNext()) ;
+        t2.close() ;
+    }
+
+    @Test public void tokens_mapped_01() { testTokens("") ; }
+    @Test public void tokens_mapped_02() { testTokens("<http://example/s> <http://example/p> \"abc\"@en .") ; }
+    @Test public void tokens_mapped_03() { testTokens("@prefix : <http://example/> . :s :p \"αβγ\", 123, 1.5e6 ; :q _:b0 .") ; }
+
+    private static final String turtle = StrUtils.strjoinNL
+        ("@prefix : <http://example/> ."
+        , ":s :p 1, 2, \"日本\" ; :q [ :r :o ] ."
+        , ":s :p \"\"\"long"
+        , "string\"\"\" ."
+        ) ;
+
+    @Test public void parse_mapped_01()
+    {
+        Graph g1 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parse(StreamRDFLib.graph(g1), file(turtle, ".ttl")) ;
+        Graph g2 = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parseMapped(StreamRDFLib.graph(g2), file(turtle, ".ttl"), null) ;
+        assertEquals(6, g2.size()) ;
+        assertTrue(g1.isIsomorphicWith(g2)) ;
+    }
+
+    @Test public void parse_mapped_02()
+    {
+        // No extension: the hint is used.
+        Graph g = GraphFactory.createDefaultGraph() ;
+        RDFDataMgr.parseMapped(StreamRDFLib.graph(g), file("<http://example/s> <http://example/p> <http://example/o> .", ""), Lang.NTRIPLES) ;
+        assertEquals(1, g.size()) ;
+    }
+}
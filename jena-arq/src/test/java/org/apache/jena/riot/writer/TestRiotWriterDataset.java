@@ -49,6 +49,8 @@ public class TestRiotWriterDataset extends AbstractWriterTest
             , { RDFFormat.NQUADS}
             , { RDFFormat.NQUADS_UTF8}
             , { RDFFormat.NQUADS_ASCII}
+            , { RDFFormat.RDFBINARY }
+            , { RDFFormat.RDFBINARY_COMPRESSED }
         }) ; 
     }
 
@@ -54,6 +54,8 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             , { RDFFormat.JSONLD_PRETTY }
             , { RDFFormat.JSONLD_FLAT }
             , { RDFFormat.RDFJSON }
+            , { RDFFormat.RDFBINARY }
+            , { RDFFormat.RDFBINARY_COMPRESSED }
 
             // graph in quad formats.
             , { RDFFormat.TRIG }
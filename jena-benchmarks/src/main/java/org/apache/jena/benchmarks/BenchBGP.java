@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.concurrent.TimeUnit ;
+
+import org.openjdk.jmh.annotations.* ;
+
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.query.Query ;
+import com.hp.hpl.jena.query.QueryFactory ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+import com.hp.hpl.jena.tdb.TDBFactory ;
+import com.hp.hpl.jena.tdb.base.file.Location ;
+
+/** Basic graph pattern evaluation over the synthetic university data,
+ *  for the in-memory graph (GraphMem) and for TDB on disk.
+ *  The queries follow the shape of LUBM queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchBGP
+{
+    static final Map<String, String> queries = new HashMap<String, String>() ;
+    static {
+        // Bound object, selective.
+        queries.put("lubm1",
+                    "SELECT ?x { ?x rdf:type ub:GraduateStudent . ?x ub:takesCourse <"+SyntheticData.course(0, 0, 15)+"> }") ;
+        // Star on a bound object.
+        queries.put("lubm4",
+                    "SELECT ?x ?n ?e { ?x ub:worksFor <"+SyntheticData.department(0, 0)+"> ; ub:name ?n ; ub:emailAddress ?e }") ;
+        // Triangle : students taking a course taught by their advisor.
+        queries.put("lubm9",
+                    "SELECT ?s ?p ?c { ?s ub:advisor ?p . ?p ub:teacherOf ?c . ?s ub:takesCourse ?c }") ;
+        // Path through the organization, no bound terms.
+        queries.put("chain",
+                    "SELECT ?s ?u { ?s ub:memberOf ?d . ?d ub:subOrganizationOf ?u . ?s rdf:type ub:UndergraduateStudent }") ;
+    }
+
+    @Param({"mem", "tdb"})
+    public String store ;
+
+    @Param({"lubm1", "lubm4", "lubm9", "chain"})
+    public String queryName ;
+
+    @Param({"5"})
+    public int universities ;
+
+    private String dir = null ;
+    private DatasetGraph dsg ;
+    private Query query ;
+
+    @Setup
+    public void setup()
+    {
+        if ( store.equals("tdb") )
+        {
+            dir = BenchLib.tmpDir("bench-bgp") ;
+            dsg = TDBFactory.createDatasetGraph(new Location(dir)) ;
+        }
+        else
+            dsg = DatasetGraphFactory.createMem() ;
+        for ( Triple t : SyntheticData.triples(universities) )
+            dsg.getDefaultGraph().add(t) ;
+        query = QueryFactory.create(SyntheticData.PREFIXES+queries.get(queryName)) ;
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        if ( dir != null )
+        {
+            TDBFactory.release(dsg) ;
+            BenchLib.removeDir(dir) ;
+        }
+    }
+
+    @Benchmark
+    public long query()
+    {
+        return BenchLib.count(query, dsg) ;
+    }
+}
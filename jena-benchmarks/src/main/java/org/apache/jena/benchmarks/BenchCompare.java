@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.util.Map ;
+import java.util.TreeMap ;
+import java.util.TreeSet ;
+
+import org.apache.jena.atlas.json.JSON ;
+import org.apache.jena.atlas.json.JsonObject ;
+import org.apache.jena.atlas.json.JsonValue ;
+
+/** Compare two JMH result files, written with "-rf json -rff FILE", and
+ *  report the change of each benchmark against the baseline.
+ *  <p>
+ *  Usage: <tt>BenchCompare baseline.json current.json [threshold%]</tt>
+ *  <p>
+ *  A benchmark is reported as a regression if it is slower by more than the
+ *  threshold (default 10%) and by more than the error bounds of the two runs.
+ *  The exit code is 1 if there are any regressions.
+ */
+public class BenchCompare
+{
+    public static void main(String... argv)
+    {
+        if ( argv.length < 2 || argv.length > 3 )
+        {
+            System.err.println("Usage: BenchCompare baseline.json current.json [threshold%]") ;
+            System.exit(2) ;
+        }
+        double threshold = ( argv.length == 3 ) ? Double.parseDouble(argv[2]) : 10.0 ;
+        Map<String, Result> baseline = read(argv[0]) ;
+        Map<String, Result> current = read(argv[1]) ;
+
+        int regressions = 0 ;
+        for ( Map.Entry<String, Result> e : current.entrySet() )
+        {
+            Result rCurrent = e.getValue() ;
+            Result rBase = baseline.get(e.getKey()) ;
+            if ( rBase == null )
+            {
+                System.out.printf("%-70s %12.3f %-8s (new)\n", e.getKey(), rCurrent.score, rCurrent.unit) ;
+                continue ;
+            }
+            // Percentage change, positive is worse.
+            double change = 100.0 * (rCurrent.score - rBase.score) / rBase.score ;
+            if ( ! rCurrent.lowerIsBetter )
+                change = -change ;
+            boolean significant = Math.abs(rCurrent.score - rBase.score) > rCurrent.error + rBase.error ;
+            String flag = "" ;
+            if ( significant && change > threshold )
+            {
+                flag = "REGRESSION" ;
+                regressions++ ;
+            }
+            else if ( significant && change < -threshold )
+                flag = "improved" ;
+            System.out.printf("%-70s %12.3f %12.3f %-8s %+7.1f%% %s\n",
+                              e.getKey(), rBase.score, rCurrent.score, rCurrent.unit, change, flag) ;
+        }
+        for ( String k : baseline.keySet() )
+        {
+            if ( ! current.containsKey(k) )
+                System.out.printf("%-70s (missing)\n", k) ;
+        }
+        if ( regressions > 0 )
+        {
+            System.out.println("Regressions: "+regressions) ;
+            System.exit(1) ;
+        }
+    }
+
+    static class Result
+    {
+        final double score ;
+        final double error ;
+        final String unit ;
+        final boolean lowerIsBetter ;
+
+        Result(double score, double error, String unit, boolean lowerIsBetter)
+        {
+            this.score = score ;
+            this.error = error ;
+            this.unit = unit ;
+            this.lowerIsBetter = lowerIsBetter ;
+        }
+    }
+
+    /** Read a JMH JSON results file : benchmark name and parameters to result */
+    static Map<String, Result> read(String filename)
+    {
+        Map<String, Result> results = new TreeMap<String, Result>() ;
+        JsonValue json = JSON.readAny(filename) ;
+        for ( JsonValue v : json.getAsArray() )
+        {
+            JsonObject obj = v.getAsObject() ;
+            StringBuilder key = new StringBuilder() ;
+            key.append(shortName(obj.get("benchmark").getAsString().value())) ;
+            if ( obj.hasKey("params") )
+            {
+                // Sorted for a stable key.
+                JsonObject params = obj.get("params").getAsObject() ;
+                for ( String p : new TreeSet<String>(params.keys()) )
+                    key.append(" ").append(p).append("=").append(params.get(p).getAsString().value()) ;
+            }
+            String mode = obj.get("mode").getAsString().value() ;
+            JsonObject metric = obj.get("primaryMetric").getAsObject() ;
+            double score = number(metric.get("score")) ;
+            double error = number(metric.get("scoreError")) ;
+            String unit = metric.get("scoreUnit").getAsString().value() ;
+            // Throughput ("thrpt") is ops per time, bigger is better.
+            results.put(key.toString(), new Result(score, error, unit, ! mode.equals("thrpt"))) ;
+        }
+        return results ;
+    }
+
+    private static String shortName(String benchmark)
+    {
+        String prefix = BenchCompare.class.getPackage().getName()+"." ;
+        if ( benchmark.startsWith(prefix) )
+            return benchmark.substring(prefix.length()) ;
+        return benchmark ;
+    }
+
+    private static double number(JsonValue v)
+    {
+        // JMH writes "NaN" as a string when the error is not known (single iteration).
+        if ( v.isNumber() )
+            return v.getAsNumber().value().doubleValue() ;
+        return 0 ;
+    }
+}
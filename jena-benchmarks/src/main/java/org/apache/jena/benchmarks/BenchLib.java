@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.io.File ;
+import java.io.IOException ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.lib.FileOps ;
+
+import com.hp.hpl.jena.query.* ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+
+/** Support code for the benchmarks */
+public class BenchLib
+{
+    /** Create a new, empty, temporary directory. */
+    public static String tmpDir(String prefix)
+    {
+        try {
+            File f = File.createTempFile(prefix, "") ;
+            f.delete() ;
+            f.mkdirs() ;
+            return f.getAbsolutePath() ;
+        } catch (IOException ex) { IO.exception(ex) ; return null ; }
+    }
+
+    /** Remove a directory made by {@link #tmpDir} */
+    public static void removeDir(String dir)
+    {
+        if ( dir == null )
+            return ;
+        FileOps.clearDirectory(dir) ;
+        FileOps.delete(dir) ;
+    }
+
+    /** Execute a SELECT query and return the number of rows. */
+    public static long count(Query query, DatasetGraph dsg)
+    {
+        Dataset ds = DatasetFactory.create(dsg) ;
+        QueryExecution qExec = QueryExecutionFactory.create(query, ds) ;
+        try {
+            return ResultSetFormatter.consume(qExec.execSelect()) ;
+        } finally { qExec.close() ; }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.concurrent.TimeUnit ;
+
+import org.openjdk.jmh.annotations.* ;
+
+import com.hp.hpl.jena.query.Query ;
+import com.hp.hpl.jena.query.QueryFactory ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+
+/** SPARQL operators over in-memory data : joins, sorting (including top-N),
+ *  grouping and aggregation, DISTINCT and OPTIONAL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchOperators
+{
+    static final Map<String, String> queries = new HashMap<String, String>() ;
+    static {
+        // Join of two groups sharing one variable (hash join).
+        queries.put("join",
+                    "SELECT * { { ?s ub:memberOf ?d } { ?s ub:age ?a FILTER(?a > 20) } }") ;
+        queries.put("leftjoin",
+                    "SELECT * { ?s ub:memberOf ?d OPTIONAL { ?s ub:advisor ?p } }") ;
+        queries.put("sort",
+                    "SELECT ?s ?n { ?s ub:name ?n } ORDER BY ?n") ;
+        queries.put("topN",
+                    "SELECT ?s ?n { ?s ub:name ?n } ORDER BY DESC(?n) LIMIT 10") ;
+        queries.put("group",
+                    "SELECT ?c (count(*) AS ?count) (avg(?a) AS ?avgAge) { ?s ub:takesCourse ?c ; ub:age ?a } GROUP BY ?c") ;
+        queries.put("distinct",
+                    "SELECT DISTINCT ?c { ?s ub:takesCourse ?c }") ;
+    }
+
+    @Param({"join", "leftjoin", "sort", "topN", "group", "distinct"})
+    public String queryName ;
+
+    @Param({"5"})
+    public int universities ;
+
+    private DatasetGraph dsg ;
+    private Query query ;
+
+    @Setup
+    public void setup()
+    {
+        dsg = DatasetGraphFactory.create(SyntheticData.graph(universities)) ;
+        query = QueryFactory.create(SyntheticData.PREFIXES+queries.get(queryName)) ;
+    }
+
+    @Benchmark
+    public long query()
+    {
+        return BenchLib.count(query, dsg) ;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.system.StreamRDFBase ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
+import org.openjdk.jmh.annotations.* ;
+
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Triple ;
+
+/** Parsing: RIOT parsers via {@link RDFDataMgr} and the tokenizer on its own. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchParse
+{
+    @Param({"N-Triples", "Turtle"})
+    public String syntax ;
+
+    @Param({"2"})
+    public int universities ;
+
+    private Lang lang ;
+    private byte[] bytes ;
+
+    @Setup
+    public void setup()
+    {
+        lang = syntax.equals("Turtle") ? Lang.TURTLE : Lang.NTRIPLES ;
+        Graph graph = SyntheticData.graph(universities) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out, graph, lang) ;
+        bytes = out.toByteArray() ;
+    }
+
+    @Benchmark
+    public long parse()
+    {
+        CountingSink sink = new CountingSink() ;
+        RDFDataMgr.parse(sink, new ByteArrayInputStream(bytes), lang) ;
+        return sink.count ;
+    }
+
+    @Benchmark
+    public long tokenize()
+    {
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(new ByteArrayInputStream(bytes)) ;
+        long count = 0 ;
+        while ( tokenizer.hasNext() )
+        {
+            tokenizer.next() ;
+            count++ ;
+        }
+        tokenizer.close() ;
+        return count ;
+    }
+
+    static class CountingSink extends StreamRDFBase
+    {
+        long count = 0 ;
+        @Override
+        public void triple(Triple triple)   { count++ ; }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.lang.PipedRDFIterator ;
+import org.apache.jena.riot.lang.PipedTriplesStream ;
+import org.openjdk.jmh.annotations.* ;
+
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Triple ;
+
+/** Parsing N-Triples in one thread and reading the triples in another
+ *  through a {@link PipedRDFIterator}. Compare with {@link BenchParse#parse}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchPipe
+{
+    /** Items passed between the threads at a time */
+    @Param({"1", "100"})
+    public int batchSize ;
+
+    @Param({"2"})
+    public int universities ;
+
+    private byte[] bytes ;
+    private ExecutorService executor ;
+
+    @Setup
+    public void setup()
+    {
+        Graph graph = SyntheticData.graph(universities) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out, graph, Lang.NTRIPLES) ;
+        bytes = out.toByteArray() ;
+        executor = Executors.newSingleThreadExecutor() ;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdownNow() ;
+    }
+
+    @Benchmark
+    public long pipe()
+    {
+        PipedRDFIterator<Triple> iter = new PipedRDFIterator<Triple>(PipedRDFIterator.DEFAULT_BUFFER_SIZE, false,
+                                                                     PipedRDFIterator.DEFAULT_POLL_TIMEOUT,
+                                                                     PipedRDFIterator.DEFAULT_MAX_POLLS, batchSize) ;
+        final PipedTriplesStream stream = new PipedTriplesStream(iter) ;
+        executor.submit(new Runnable() {
+            @Override
+            public void run() { RDFDataMgr.parse(stream, new ByteArrayInputStream(bytes), Lang.NTRIPLES) ; }
+        }) ;
+        long count = 0 ;
+        while ( iter.hasNext() )
+        {
+            iter.next() ;
+            count++ ;
+        }
+        return count ;
+    }
+}
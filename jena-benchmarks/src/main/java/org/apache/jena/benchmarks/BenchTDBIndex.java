@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.Random ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.atlas.lib.Bytes ;
+import org.openjdk.jmh.annotations.* ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.tdb.base.file.FileSet ;
+import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.base.record.Record ;
+import com.hp.hpl.jena.tdb.base.record.RecordFactory ;
+import com.hp.hpl.jena.tdb.index.RangeIndex ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+import com.hp.hpl.jena.tdb.sys.Names ;
+import com.hp.hpl.jena.tdb.sys.SetupTDB ;
+import com.hp.hpl.jena.tdb.sys.SystemTDB ;
+
+/** TDB storage: B+Tree point lookups and range scans over an on-disk
+ *  index of triple-sized records (3 x NodeId, as the SPO index) and
+ *  node table lookups, without the node cache, in both directions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchTDBIndex
+{
+    /** Number of records in the B+Tree */
+    @Param({"200000"})
+    public int size ;
+
+    /** Number of distinct subjects - the range scan returns size/subjects records */
+    @Param({"2000"})
+    public int subjects ;
+
+    private static final int SizeOfNodeId = SystemTDB.SizeOfNodeId ;
+    private static final int LookupKeys   = 4096 ;
+
+    private String dir ;
+    private RangeIndex index ;
+    private RecordFactory factory ;
+    private Record[] keys ;
+    private NodeTable nodeTable ;
+    private Node[] nodes ;
+    private NodeId[] nodeIds ;
+    private int idx = 0 ;
+
+    @Setup
+    public void setup()
+    {
+        dir = BenchLib.tmpDir("bench-tdb") ;
+        Location location = new Location(dir) ;
+        factory = new RecordFactory(3*SizeOfNodeId, 0) ;
+        index = SetupTDB.createBPTree(new FileSet(location, "SPO"), -1, SystemTDB.BlockSize,
+                                      SystemTDB.BlockReadCacheSize, SystemTDB.BlockWriteCacheSize,
+                                      factory) ;
+        Random random = new Random(SyntheticData.SEED) ;
+        keys = new Record[LookupKeys] ;
+        for ( int i = 0 ; i < size ; i++ )
+        {
+            Record r = record(random.nextInt(subjects), random.nextInt(100), random.nextInt(size)) ;
+            index.add(r) ;
+            if ( i < LookupKeys )
+                keys[i] = r ;
+        }
+        index.sync() ;
+
+        nodeTable = SetupTDB.makeNodeTableBase(location, Names.indexNode2Id, Names.indexId2Node) ;
+        List<Triple> triples = SyntheticData.triples(1) ;
+        nodes = new Node[LookupKeys] ;
+        nodeIds = new NodeId[LookupKeys] ;
+        int i = 0 ;
+        for ( Triple t : triples )
+        {
+            NodeId id = nodeTable.getAllocateNodeId(t.getSubject()) ;
+            nodeTable.getAllocateNodeId(t.getObject()) ;
+            nodes[i % LookupKeys] = t.getSubject() ;
+            nodeIds[i % LookupKeys] = id ;
+            i++ ;
+        }
+        nodeTable.sync() ;
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        index.close() ;
+        nodeTable.close() ;
+        BenchLib.removeDir(dir) ;
+    }
+
+    private Record record(long s, long p, long o)
+    {
+        byte[] b = new byte[3*SizeOfNodeId] ;
+        Bytes.setLong(s, b, 0) ;
+        Bytes.setLong(p, b, SizeOfNodeId) ;
+        Bytes.setLong(o, b, 2*SizeOfNodeId) ;
+        return factory.create(b) ;
+    }
+
+    private int next()
+    {
+        idx = (idx+1) % LookupKeys ;
+        return idx ;
+    }
+
+    @Benchmark
+    public Record pointLookup()
+    {
+        return index.find(keys[next()]) ;
+    }
+
+    @Benchmark
+    public long rangeScan()
+    {
+        // All the records for one subject, as for a (S ? ?) pattern.
+        long s = Bytes.getLong(keys[next()].getKey(), 0) ;
+        Iterator<Record> iter = index.iterator(record(s, 0, 0), record(s+1, 0, 0)) ;
+        long count = 0 ;
+        while ( iter.hasNext() )
+        {
+            iter.next() ;
+            count++ ;
+        }
+        return count ;
+    }
+
+    @Benchmark
+    public NodeId nodeToNodeId()
+    {
+        return nodeTable.getNodeIdForNode(nodes[next()]) ;
+    }
+
+    @Benchmark
+    public Node nodeIdToNode()
+    {
+        return nodeTable.getNodeForNodeId(nodeIds[next()]) ;
+    }
+}
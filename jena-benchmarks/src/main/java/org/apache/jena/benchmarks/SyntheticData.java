@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.Random ;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype ;
+import com.hp.hpl.jena.graph.Graph ;
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+import com.hp.hpl.jena.vocabulary.RDF ;
+
+/** Synthetic data in the style of LUBM: universities made of departments,
+ *  each with faculty, courses, undergraduate and graduate students.
+ *  <p>
+ *  The data is generated from a fixed seed so every run, and the baseline
+ *  run being compared against, sees the same data. About 8,000 triples
+ *  per university.
+ */
+public class SyntheticData
+{
+    public static final String NS       = "http://example/univ-bench#" ;
+    public static final String DATA     = "http://example/data/" ;
+    public static final long   SEED     = 20140101L ;
+
+    public static final String PREFIXES = "PREFIX ub: <"+NS+">\nPREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>\n" ;
+
+    static final int Departments    = 10 ;
+    static final int Faculty        = 10 ;
+    static final int Courses        = 20 ;
+    static final int Undergraduates = 80 ;
+    static final int Graduates      = 20 ;
+
+    static final Node University          = p("University") ;
+    static final Node Department          = p("Department") ;
+    static final Node FullProfessor       = p("FullProfessor") ;
+    static final Node AssociateProfessor  = p("AssociateProfessor") ;
+    static final Node Course              = p("Course") ;
+    static final Node GraduateCourse      = p("GraduateCourse") ;
+    static final Node UndergraduateStudent = p("UndergraduateStudent") ;
+    static final Node GraduateStudent     = p("GraduateStudent") ;
+
+    static final Node subOrganizationOf   = p("subOrganizationOf") ;
+    static final Node worksFor            = p("worksFor") ;
+    static final Node teacherOf           = p("teacherOf") ;
+    static final Node memberOf            = p("memberOf") ;
+    static final Node takesCourse         = p("takesCourse") ;
+    static final Node advisor             = p("advisor") ;
+    static final Node name                = p("name") ;
+    static final Node emailAddress        = p("emailAddress") ;
+    static final Node age                 = p("age") ;
+
+    private static Node p(String localName) { return NodeFactory.createURI(NS+localName) ; }
+
+    /** Generate the triples for a number of universities */
+    public static List<Triple> triples(int universities)
+    {
+        List<Triple> triples = new ArrayList<Triple>() ;
+        Random random = new Random(SEED) ;
+        for ( int u = 0 ; u < universities ; u++ )
+            university(triples, random, u) ;
+        return triples ;
+    }
+
+    /** Generate an in-memory graph for a number of universities */
+    public static Graph graph(int universities)
+    {
+        Graph graph = GraphFactory.createGraphMem() ;
+        for ( Triple t : triples(universities) )
+            graph.add(t) ;
+        return graph ;
+    }
+
+    /** The URI of a department, for use in queries */
+    public static String department(int university, int department)
+    {
+        return DATA+"u"+university+"/d"+department ;
+    }
+
+    /** The URI of a course, for use in queries */
+    public static String course(int university, int department, int course)
+    {
+        return department(university, department)+"/course"+course ;
+    }
+
+    private static void university(List<Triple> triples, Random random, int u)
+    {
+        Node univ = NodeFactory.createURI(DATA+"u"+u) ;
+        add(triples, univ, RDF.Nodes.type, University) ;
+        add(triples, univ, name, literal("University "+u)) ;
+
+        for ( int d = 0 ; d < Departments ; d++ )
+        {
+            String base = department(u, d) ;
+            Node dept = NodeFactory.createURI(base) ;
+            add(triples, dept, RDF.Nodes.type, Department) ;
+            add(triples, dept, subOrganizationOf, univ) ;
+            add(triples, dept, name, literal("Department "+d+" of University "+u)) ;
+
+            Node[] courses = new Node[Courses] ;
+            for ( int c = 0 ; c < Courses ; c++ )
+            {
+                courses[c] = NodeFactory.createURI(course(u, d, c)) ;
+                add(triples, courses[c], RDF.Nodes.type, c < Courses/2 ? Course : GraduateCourse) ;
+                add(triples, courses[c], name, literal("Course "+c)) ;
+            }
+
+            Node[] faculty = new Node[Faculty] ;
+            for ( int f = 0 ; f < Faculty ; f++ )
+            {
+                faculty[f] = NodeFactory.createURI(base+"/faculty"+f) ;
+                add(triples, faculty[f], RDF.Nodes.type, f < Faculty/2 ? FullProfessor : AssociateProfessor) ;
+                add(triples, faculty[f], worksFor, dept) ;
+                add(triples, faculty[f], name, literal("Faculty "+f+" "+base)) ;
+                add(triples, faculty[f], emailAddress, literal("faculty"+f+"@d"+d+".u"+u+".example")) ;
+                // Each course has one teacher.
+                add(triples, faculty[f], teacherOf, courses[2*f]) ;
+                add(triples, faculty[f], teacherOf, courses[2*f+1]) ;
+            }
+
+            for ( int s = 0 ; s < Undergraduates+Graduates ; s++ )
+            {
+                boolean graduate = ( s >= Undergraduates ) ;
+                Node student = NodeFactory.createURI(base+"/student"+s) ;
+                add(triples, student, RDF.Nodes.type, graduate ? GraduateStudent : UndergraduateStudent) ;
+                add(triples, student, memberOf, dept) ;
+                add(triples, student, name, literal("Student "+s+" "+base)) ;
+                add(triples, student, age, integer(18+random.nextInt(graduate ? 20 : 6))) ;
+                int numCourses = 2+random.nextInt(3) ;
+                for ( int i = 0 ; i < numCourses ; i++ )
+                {
+                    int c = random.nextInt(Courses/2) + (graduate ? Courses/2 : 0) ;
+                    add(triples, student, takesCourse, courses[c]) ;
+                }
+                if ( graduate )
+                    add(triples, student, advisor, faculty[random.nextInt(Faculty)]) ;
+            }
+        }
+    }
+
+    private static void add(List<Triple> triples, Node s, Node p, Node o)
+    {
+        triples.add(Triple.create(s, p, o)) ;
+    }
+
+    private static Node literal(String lex)
+    {
+        return NodeFactory.createLiteral(lex) ;
+    }
+
+    private static Node integer(int value)
+    {
+        return NodeFactory.createLiteral(Integer.toString(value), null, XSDDatatype.XSDinteger) ;
+    }
+}
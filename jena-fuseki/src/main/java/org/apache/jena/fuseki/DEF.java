@@ -35,7 +35,8 @@ public class DEF
                                                                           contentTypeNTriplesAlt,
                                                                           contentTypeRDFXML,
                                                                           contentTypeJSONLD,
-                                                                          contentTypeRDFJSON
+                                                                          contentTypeRDFJSON,
+                                                                          contentTypeRDFBinary
                                                                           ) ;
     
     public static final AcceptList quadsOffer         = AcceptList.create(contentTypeTriG,
@@ -44,13 +45,15 @@ public class DEF
                                                                           contentTypeJSONLD,
                                                                           contentTypeNQuads,
                                                                           contentTypeNQuadsAlt1,
-                                                                          contentTypeNQuadsAlt2 
+                                                                          contentTypeNQuadsAlt2,
+                                                                          contentTypeRDFBinary
                                                                           ) ;
     
     public static final AcceptList rsOffer            = AcceptList.create(contentTypeResultsJSON,
                                                                           contentTypeTextCSV,
                                                                           contentTypeTextTSV,
                                                                           contentTypeResultsXML,
-                                                                          contentTypeTextPlain
+                                                                          contentTypeTextPlain,
+                                                                          contentTypeResultsBinary
                                                                           ) ;
 }
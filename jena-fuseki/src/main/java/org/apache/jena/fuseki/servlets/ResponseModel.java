@@ -112,6 +112,9 @@ public class ResponseModel
         Lang lang = RDFLanguages.contentTypeToLang(contentType) ;
         if ( lang == null )
             errorBadRequest("Can't determine output content type: "+contentType) ;
+        if ( lang == Lang.RDFBINARY )
+            // Not text - no charset.
+            charset = null ;
         
 //        if ( rdfw instanceof RDFXMLWriterI )
 //            rdfw.setProperty("showXmlDeclaration", "true") ;
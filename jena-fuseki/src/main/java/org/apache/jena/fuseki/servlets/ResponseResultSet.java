@@ -61,6 +61,7 @@ public class ResponseResultSet
     private static final String contentOutputText          = "text" ;
     private static final String contentOutputCSV           = "csv" ;
     private static final String contentOutputTSV           = "tsv" ;
+    private static final String contentOutputBinary        = "binary" ;
     
     public static Map<String,String> shortNamesResultSet = new HashMap<String, String>() ;
     static {
@@ -71,6 +72,7 @@ public class ResponseResultSet
         ResponseOps.put(shortNamesResultSet, contentOutputText,   WebContent.contentTypeTextPlain) ;
         ResponseOps.put(shortNamesResultSet, contentOutputCSV,    WebContent.contentTypeTextCSV) ;
         ResponseOps.put(shortNamesResultSet, contentOutputTSV,    WebContent.contentTypeTextTSV) ;
+        ResponseOps.put(shortNamesResultSet, contentOutputBinary, WebContent.contentTypeResultsBinary) ;
     }
     
     interface OutputContent { void output(ServletOutputStream out) ; }
@@ -147,6 +149,8 @@ public class ResponseResultSet
             csvOutput(action, contentType, resultSet, booleanResult) ;
         else if (equal(serializationType, WebContent.contentTypeTextTSV) )
             tsvOutput(action, contentType, resultSet, booleanResult) ;
+        else if (equal(serializationType, WebContent.contentTypeResultsBinary) )
+            binaryOutput(action, contentType, resultSet, booleanResult) ;
         else
             errorBadRequest("Can't determine output serialization: "+serializationType) ;
     }
@@ -272,6 +276,21 @@ public class ResponseResultSet
         output(action, contentType, WebContent.charsetUTF8, proc) ; 
     }
 
+    private static void binaryOutput(HttpAction action, String contentType, final ResultSet resultSet, final Boolean booleanResult) {
+        OutputContent proc = new OutputContent(){
+            @Override
+            public void output(ServletOutputStream out)
+            {
+                if ( resultSet != null )
+                    ResultSetFormatter.outputAsBinary(out, resultSet) ;
+                if (  booleanResult != null )
+                    ResultSetFormatter.outputAsBinary(out, booleanResult.booleanValue()) ;
+            }
+        } ;
+        // Not text - no charset.
+        output(action, contentType, null, proc) ; 
+    }
+
     private static void output(HttpAction action, String contentType, String charset, OutputContent proc) 
     {
         try {
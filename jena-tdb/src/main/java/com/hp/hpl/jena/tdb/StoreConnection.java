@@ -27,6 +27,8 @@ import com.hp.hpl.jena.query.ReadWrite ;
 import com.hp.hpl.jena.sparql.mgt.ARQMgt ;
 import com.hp.hpl.jena.tdb.base.file.ChannelManager ;
 import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTableCache ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTableCacheInfo ;
 import com.hp.hpl.jena.tdb.setup.DatasetBuilderStd ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
 import com.hp.hpl.jena.tdb.transaction.* ;
@@ -252,6 +254,9 @@ public class StoreConnection
             String NS = TDB.PATH ;
             TransactionInfo txInfo = new TransactionInfo(sConn.transactionManager) ;
             ARQMgt.register(NS + ".system:type=Transactions", txInfo) ;
+            NodeTableCache nodeCache = NodeTableCacheInfo.findCache(dsg.getTripleTable().getNodeTupleTable().getNodeTable()) ;
+            if ( nodeCache != null )
+                ARQMgt.register(NS + ".system:type=NodeCache", new NodeTableCacheInfo(nodeCache)) ;
         }
         return sConn ;
     }
@@ -86,6 +86,17 @@ public class TDB {
     /** Symbol to use the union of named graphs as the default graph of a query */
     public static final Symbol  symUnionDefaultGraph             = SystemTDB.allocSymbol("unionDefaultGraph") ;
 
+    /** Symbol to allow merge joins of index scans when solving a basic graph pattern (default: true) */
+    public static final Symbol  symMergeJoin                     = SystemTDB.allocSymbol("mergeJoin") ;
+
+    /** Symbol for the number of input bindings matched together, in index order,
+     *  by each step of a basic graph pattern (default: 1, one at a time).
+     *  Larger batches change the order of results. */
+    public static final Symbol  symSolverBatchSize               = SystemTDB.allocSymbol("solverBatchSize") ;
+
+    /** Symbol to evaluate FILTERs of a basic graph pattern in the solver, on inline values where possible (default: true) */
+    public static final Symbol  symInlineFilter                  = SystemTDB.allocSymbol("inlineFilter") ;
+
     /**
      * A String enum Symbol that specifies the type of temporary storage for
      * transaction journal write blocks.
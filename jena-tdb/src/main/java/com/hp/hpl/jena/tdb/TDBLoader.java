@@ -32,6 +32,7 @@ import com.hp.hpl.jena.sparql.util.Timer ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
 import com.hp.hpl.jena.tdb.store.GraphTDB ;
 import com.hp.hpl.jena.tdb.store.bulkloader.BulkLoader ;
+import com.hp.hpl.jena.tdb.store.bulkloader.BulkLoaderParallel ;
 
 /** Public interface to the loader functionality.
  * The bulk loader is not transactional. 
@@ -148,6 +149,7 @@ public class TDBLoader
     
     private boolean showProgress = true ;
     private boolean generateStats = false ;
+    private boolean parallel = false ;
     private Logger loaderLog  = TDB.logLoader ;
     private boolean checking ;
     
@@ -173,13 +175,13 @@ public class TDBLoader
     /** Load a graph from a list of URL - assumes the URLs name triples format documents */
     public void loadGraph(GraphTDB graph, List<String> urls)
     {
-        loadGraph$(graph, urls, showProgress) ;
+        loadGraph$(graph, urls, showProgress, parallel) ;
     }
     
     /** Load a graph from a list of URL - assumes the URLs name triples format documents */
     public void loadGraph(GraphTDB graph, InputStream in)
     {
-        loadGraph$(graph, in, showProgress) ;
+        loadGraph$(graph, in, showProgress, parallel) ;
     }
     
     /** Load a dataset from a URL - assumes URL names a quads format */
@@ -192,14 +194,14 @@ public class TDBLoader
     public void loadDataset(DatasetGraphTDB dataset, List<String> urls)
     {
         // Triples languages are quads languages so no test for quad-ness needed.
-        loadDataset$(dataset, urls, showProgress) ;
+        loadDataset$(dataset, urls, showProgress, parallel) ;
     }
     
     /** Load a dataset from an input steram which must be in N-Quads form */
     public void loadDataset(DatasetGraphTDB dataset, InputStream input)
     {
         // Triples languages are quads languages so no test for quad-ness needed.
-        loadDataset$(dataset, input, showProgress) ;
+        loadDataset$(dataset, input, showProgress, parallel) ;
     }
 
     public boolean getChecking()  
@@ -215,6 +217,13 @@ public class TDBLoader
     public final void setShowProgress(boolean showProgress)
     { this.showProgress = showProgress ; }
 
+    public final boolean getParallel()
+    { return parallel ; }
+
+    /** Use the loader that parses, encodes and indexes concurrently */
+    public final void setParallel(boolean parallel)
+    { this.parallel = parallel ; }
+
     public final boolean getGenerateStats()
     { return generateStats ; }
 
@@ -227,7 +236,7 @@ public class TDBLoader
 //    public final void setLogger(Logger log)
 //    { this.loaderLog = log ; }
     
-    private static void loadGraph$(GraphTDB graph, List<String> urls, boolean showProgress)
+    private static void loadGraph$(GraphTDB graph, List<String> urls, boolean showProgress, boolean parallel)
     {
         if ( false )
         {
@@ -240,52 +249,70 @@ public class TDBLoader
         }
 
         if ( graph.getGraphName() == null )
-            loadDefaultGraph$(graph.getDSG(), urls, showProgress) ;
+            loadDefaultGraph$(graph.getDSG(), urls, showProgress, parallel) ;
         else
-            loadNamedGraph$(graph.getDSG(), graph.getGraphName(), urls, showProgress) ;
+            loadNamedGraph$(graph.getDSG(), graph.getGraphName(), urls, showProgress, parallel) ;
     }
 
     // These are the basic operations for TDBLoader.
 
-    private static void loadGraph$(GraphTDB graph, InputStream input, boolean showProgress)
+    private static void loadGraph$(GraphTDB graph, InputStream input, boolean showProgress, boolean parallel)
     {
         if ( graph.getGraphName() == null )
-            loadDefaultGraph$(graph.getDSG(), input, showProgress) ;
+            loadDefaultGraph$(graph.getDSG(), input, showProgress, parallel) ;
         else
-            loadNamedGraph$(graph.getDSG(), graph.getGraphName(), input, showProgress) ;
+            loadNamedGraph$(graph.getDSG(), graph.getGraphName(), input, showProgress, parallel) ;
     }
 
-    private static void loadDefaultGraph$(DatasetGraphTDB dataset, List<String> urls, boolean showProgress)
+    private static void loadDefaultGraph$(DatasetGraphTDB dataset, List<String> urls, boolean showProgress, boolean parallel)
     {
-        BulkLoader.loadDefaultGraph(dataset, urls, showProgress) ;
+        if ( parallel )
+            BulkLoaderParallel.loadDefaultGraph(dataset, urls, showProgress) ;
+        else
+            BulkLoader.loadDefaultGraph(dataset, urls, showProgress) ;
     }
 
-    private static void loadDefaultGraph$(DatasetGraphTDB dataset, InputStream input, boolean showProgress)
+    private static void loadDefaultGraph$(DatasetGraphTDB dataset, InputStream input, boolean showProgress, boolean parallel)
     {
-        BulkLoader.loadDefaultGraph(dataset, input, showProgress) ;
+        if ( parallel )
+            BulkLoaderParallel.loadDefaultGraph(dataset, input, showProgress) ;
+        else
+            BulkLoader.loadDefaultGraph(dataset, input, showProgress) ;
     }
 
-    private static void loadNamedGraph$(DatasetGraphTDB dataset, Node graphName, List<String> urls, boolean showProgress)
+    private static void loadNamedGraph$(DatasetGraphTDB dataset, Node graphName, List<String> urls, boolean showProgress, boolean parallel)
     {
-        BulkLoader.loadNamedGraph(dataset, graphName, urls, showProgress) ;
+        if ( parallel )
+            BulkLoaderParallel.loadNamedGraph(dataset, graphName, urls, showProgress) ;
+        else
+            BulkLoader.loadNamedGraph(dataset, graphName, urls, showProgress) ;
     }
 
-    private static void loadNamedGraph$(DatasetGraphTDB dataset, Node graphName, InputStream input, boolean showProgress)
+    private static void loadNamedGraph$(DatasetGraphTDB dataset, Node graphName, InputStream input, boolean showProgress, boolean parallel)
     {
         //N-Triples
-        BulkLoader.loadNamedGraph(dataset, graphName, input, showProgress) ;
+        if ( parallel )
+            BulkLoaderParallel.loadNamedGraph(dataset, graphName, input, showProgress) ;
+        else
+            BulkLoader.loadNamedGraph(dataset, graphName, input, showProgress) ;
     }
 
-    private static void loadDataset$(DatasetGraphTDB dataset, List<String> urls, boolean showProgress)
+    private static void loadDataset$(DatasetGraphTDB dataset, List<String> urls, boolean showProgress, boolean parallel)
     {
         //N-Quads
-        BulkLoader.loadDataset(dataset, urls, showProgress) ;
+        if ( parallel )
+            BulkLoaderParallel.loadDataset(dataset, urls, showProgress) ;
+        else
+            BulkLoader.loadDataset(dataset, urls, showProgress) ;
     }
 
-    private static void loadDataset$(DatasetGraphTDB dataset, InputStream input, boolean showProgress)
+    private static void loadDataset$(DatasetGraphTDB dataset, InputStream input, boolean showProgress, boolean parallel)
     {
         //N-Quads
-        BulkLoader.loadDataset(dataset, input, showProgress) ;
+        if ( parallel )
+            BulkLoaderParallel.loadDataset(dataset, input, showProgress) ;
+        else
+            BulkLoader.loadDataset(dataset, input, showProgress) ;
     }
     
     /** Load any model, not necessarily efficiently. */ 
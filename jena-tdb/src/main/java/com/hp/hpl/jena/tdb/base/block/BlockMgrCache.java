@@ -19,6 +19,7 @@
 package com.hp.hpl.jena.tdb.base.block;
 
 import java.util.Iterator ;
+import java.util.concurrent.atomic.AtomicLong ;
 
 import org.apache.jena.atlas.lib.ActionKeyValue ;
 import org.apache.jena.atlas.lib.Cache ;
@@ -26,16 +27,33 @@ import org.apache.jena.atlas.lib.CacheFactory ;
 import org.slf4j.Logger ;
 import org.slf4j.LoggerFactory ;
 
-/** Caching block manager - this is an LRU cache */
+/** Caching block manager - a read cache and a write-back cache of dirty blocks.
+ *  Read cache hits do not take a lock.
+ */
 public class BlockMgrCache extends BlockMgrSync
 {
     // Actually, this is two cache one on the read blocks and one on the write blocks.
-    // The overridden public operations are sync'ed.
+    // The overridden public operations are sync'ed except for getRead/getReadIterator.
     // As sync is on "this", it also covers all the other operations via BlockMgrSync
+    //
+    // The read cache is a concurrent cache so a read hit does not lock.
+    // That relies on a block in the read cache not changing while readers 
+    // may have it:
+    // - Transactions write to the journal, not to these blocks.
+    // - Journal write-back replaces the cached block with a new one (overwrite)
+    //   rather than changing it, and first freezes a copy of the old contents 
+    //   in the snapshot (BlockMgrSnapshot) of every version still being read.
+    //   A reader of an older version finds the frozen copy, or gets the old 
+    //   block; readers of the new version only start once write-back finishes.
+    //   Memory mapped blocks are changed in place so there write-back waits 
+    //   until there are no readers.
+    // - Without transactions, the caller provides MRSW so there are no readers 
+    //   during an update.
     
     private static Logger log = LoggerFactory.getLogger(BlockMgrCache.class) ;
     // Read cache : always present.
     private final Cache<Long, Block> readCache ;
+    private final boolean lockFreeReads ;
 
     // Delayed dirty writes.  May be present, may not.
     private final Cache<Long, Block> writeCache ;
@@ -44,9 +62,11 @@ public class BlockMgrCache extends BlockMgrSync
     private boolean logging = false ;                       // Also enable the logging level. 
     private String indexName ; 
     // ---- stats
-    long cacheReadHits = 0 ;
-    long cacheMisses = 0 ;
-    long cacheWriteHits = 0 ;
+    private final AtomicLong cacheReadHits = new AtomicLong(0) ;
+    private final AtomicLong cacheMisses = new AtomicLong(0) ;
+    private final AtomicLong cacheWriteHits = new AtomicLong(0) ;
+    private final AtomicLong readEvictions = new AtomicLong(0) ;
+    private final AtomicLong writeEvictions = new AtomicLong(0) ;
     
     static BlockMgr create(String indexName, int readSlots, int writeSlots, final BlockMgr blockMgr)
     {
@@ -61,9 +81,28 @@ public class BlockMgrCache extends BlockMgrSync
         this.indexName = String.format("%-12s", indexName) ;
         // Caches are related so we can't use a Getter for cache management.
         if ( readSlots < -1 )
+        {
             readCache = CacheFactory.createNullCache() ;
+            lockFreeReads = true ;
+        }
         else
-            readCache = CacheFactory.createCache(readSlots) ;
+        {
+            // The concurrent cache needs at least one slot; otherwise, as before,
+            // an LRU cache (not thread-safe so read hits are not lock-free).
+            lockFreeReads = ( readSlots > 0 ) ;
+            if ( lockFreeReads )
+                readCache = CacheFactory.createConcurrentCache(readSlots) ;
+            else
+                readCache = CacheFactory.createCache(readSlots) ;
+            readCache.setDropHandler(new ActionKeyValue<Long, Block>(){
+                @Override
+                public void apply(Long id, Block block)
+                {
+                    // Read blocks are clean - just count them.
+                    readEvictions.incrementAndGet() ;
+                }
+            }) ;
+        }
         if ( writeSlots <= 0 )
             writeCache = null ;
         else
@@ -75,6 +114,7 @@ public class BlockMgrCache extends BlockMgrSync
                 { 
                     // We're inside a synchronized operation at this point.
                     log("Cache spill: write block: %d", id) ;
+                    writeEvictions.incrementAndGet() ;
                     if (block == null)
                     {
                         log.warn("Write cache: " + id + " dropping an entry that isn't there") ;
@@ -96,19 +136,35 @@ public class BlockMgrCache extends BlockMgrSync
 //    }
     
     @Override
-    synchronized
     public Block getRead(long id)
     {
         // A Block may be in the read cache or the write cache.
         // It can be just in the write cache because the read cache is finite.
+        // No lock for a read cache hit.
+        if ( ! lockFreeReads )
+            return getReadMiss(id) ;
         Block blk = readCache.get(id) ;
         if ( blk != null )
         {
-            cacheReadHits++ ;
+            cacheReadHits.incrementAndGet() ;
             log("Hit(r->r) : %d", id) ;
             return blk ;
         }
-        
+        return getReadMiss(id) ;
+    }
+
+    synchronized
+    private Block getReadMiss(long id)
+    {
+        // Another reader may have loaded the block while we waited.
+        Block blk = readCache.get(id) ;
+        if ( blk != null )
+        {
+            cacheReadHits.incrementAndGet() ;
+            log("Hit(r->r) : %d", id) ;
+            return blk ;
+        }
+
         // A requested block may be in the other cache.
         // Writable blocks are readable.
         // readable blocks are not writeable (see below).
@@ -118,12 +174,12 @@ public class BlockMgrCache extends BlockMgrSync
             blk = writeCache.get(id) ;
         if ( blk != null )
         {
-            cacheWriteHits++ ;
+            cacheWriteHits.incrementAndGet() ;
             log("Hit(r->w) : %d",id) ;
             return blk ;
         }
         
-        cacheMisses++ ;
+        cacheMisses.incrementAndGet() ;
         log("Miss/r: %d", id) ;
         blk = super.getRead(id) ;
         readCache.put(id, blk) ;
@@ -131,7 +187,6 @@ public class BlockMgrCache extends BlockMgrSync
     }
     
     @Override
-    synchronized
     public Block getReadIterator(long id)
     {
         // And don't pass down "iterator" calls.
@@ -149,7 +204,7 @@ public class BlockMgrCache extends BlockMgrSync
             blk = writeCache.get(id) ;
         if ( blk != null )
         {
-            cacheWriteHits++ ;
+            cacheWriteHits.incrementAndGet() ;
             log("Hit(w->w) : %d", id) ;
             return blk ;
         }
@@ -160,14 +215,14 @@ public class BlockMgrCache extends BlockMgrSync
         if ( readCache.containsKey(id) )
         {
             blk = readCache.get(id) ;
-            cacheReadHits++ ;
+            cacheReadHits.incrementAndGet() ;
             log("Hit(w->r) : %d", id) ;
             blk = promote(blk) ;
             return blk ;
         }
         
         // Did not find.
-        cacheMisses++ ;
+        cacheMisses.incrementAndGet() ;
         log("Miss/w: %d", id) ;
         // Pass operation to wrapper.
         blk = super.getWrite(id);
@@ -263,6 +318,21 @@ public class BlockMgrCache extends BlockMgrSync
         super.close() ;
     }
     
+    /** Number of requests found in the read cache */
+    public long getCacheReadHits()      { return cacheReadHits.get() ; }
+
+    /** Number of requests found in the write cache */
+    public long getCacheWriteHits()     { return cacheWriteHits.get() ; }
+
+    /** Number of requests passed to the underlying BlockMgr */
+    public long getCacheMisses()        { return cacheMisses.get() ; }
+
+    /** Number of blocks dropped from the read cache to make space */
+    public long getReadEvictions()      { return readEvictions.get() ; }
+
+    /** Number of dirty blocks written out to make space in the write cache */
+    public long getWriteEvictions()     { return writeEvictions.get() ; }
+
     @Override
     public String toString()
     {
@@ -286,7 +356,8 @@ public class BlockMgrCache extends BlockMgrSync
             String x = "" ;
             if ( indexName != null )
                 x = indexName+" : ";
-            log("%sH=%d, M=%d, W=%d", x, cacheReadHits, cacheMisses, cacheWriteHits) ;
+            log("%sH=%d, M=%d, W=%d, E=%d/%d", x, cacheReadHits.get(), cacheMisses.get(), cacheWriteHits.get(),
+                readEvictions.get(), writeEvictions.get()) ;
         }
         
         if ( writeCache != null )
@@ -99,6 +99,8 @@ public class BlockMgrFactory
         BlockMgr blockMgr =  wrapFileAccess(file, blockSize) ;
 
         String fn = FileOps.basename(filename) ;
+        readBlockCacheSize = SystemTDB.perFileValue("BlockReadCacheSize", fn, readBlockCacheSize) ;
+        writeBlockCacheSize = SystemTDB.perFileValue("BlockWriteCacheSize", fn, writeBlockCacheSize) ;
         
         blockMgr = BlockMgrCache.create(fn, readBlockCacheSize, writeBlockCacheSize, blockMgr) ;
         return track(blockMgr) ;
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.base.buffer;
+
+import java.nio.ByteBuffer ;
+
+import com.hp.hpl.jena.tdb.base.StorageException ;
+import com.hp.hpl.jena.tdb.base.record.RecordException ;
+
+/** Prefix compression of the sorted records of a RecordBuffer.
+ * <p>
+ * Each record is written as one byte, the number of leading bytes it shares
+ * with the previous record, followed by the rest of the record.
+ * The first record shares nothing.  For NodeId tuples, this drops the leading
+ * NodeIds that are the same as the record before and the high order bytes of
+ * the first NodeId that differs.
+ * <p>
+ * The encoding of a record depends only on its predecessor, and inserting or
+ * removing a record never makes the encoding of the record after it longer.
+ * So adding a record grows the encoded length by at most {@link #maxEncodedLength},
+ * and removing records never grows it.
+ */
+public final class PrefixCompression
+{
+    private PrefixCompression() {}
+
+    /** Check the records of the buffer can be encoded */
+    public static void checkSupported(int recordLength)
+    {
+        if ( recordLength > 0xFF )
+            throw new RecordException("Record too long for prefix compression: "+recordLength) ;
+    }
+
+    /** The longest encoding of one record */
+    public static int maxEncodedLength(int recordLength)
+    {
+        return 1+recordLength ;
+    }
+
+    /** Length of the encoding of all the records */
+    public static int encodedLength(RecordBuffer rb)
+    {
+        return encodedLength(rb, 0, rb.numSlot) ;
+    }
+
+    /** Length of the encoding of the records from index start (inclusive) to finish (exclusive)
+     * when they follow the record at start-1.
+     */
+    public static int encodedLength(RecordBuffer rb, int start, int finish)
+    {
+        byte[] b = rb.bb.array() ;
+        int base = rb.bb.arrayOffset() ;
+        int len = rb.slotLen ;
+        int x = 0 ;
+        for ( int i = start ; i < finish ; i++ )
+            x += 1+len-shared(b, base, len, i) ;
+        return x ;
+    }
+
+    /** The index of the last record of the lower half when the records are
+     * split so as to divide the encoded length evenly. There is at least one
+     * record in each half.
+     */
+    public static int splitIndex(RecordBuffer rb)
+    {
+        int n = rb.numSlot ;
+        if ( n < 2 )
+            throw new RecordException("Too few records to split: "+n) ;
+        int half = encodedLength(rb)/2 ;
+        byte[] b = rb.bb.array() ;
+        int base = rb.bb.arrayOffset() ;
+        int len = rb.slotLen ;
+        int x = 0 ;
+        for ( int i = 0 ; i < n-1 ; i++ )
+        {
+            x += 1+len-shared(b, base, len, i) ;
+            if ( x >= half )
+                return i ;
+        }
+        return n-2 ;
+    }
+
+    /** Encode the records into the ByteBuffer, starting at the given offset.
+     *  Return the number of bytes written. */
+    public static int encode(RecordBuffer rb, ByteBuffer dst, int offset)
+    {
+        byte[] b = rb.bb.array() ;
+        int base = rb.bb.arrayOffset() ;
+        int len = rb.slotLen ;
+        ByteBuffer out = dst.duplicate() ;
+        out.clear() ;
+        out.position(offset) ;
+        if ( encodedLength(rb) > out.remaining() )
+            throw new StorageException("Compressed records overflow the block: "+rb.numSlot+" records") ;
+        for ( int i = 0 ; i < rb.numSlot ; i++ )
+        {
+            int s = shared(b, base, len, i) ;
+            out.put((byte)s) ;
+            out.put(b, base+i*len+s, len-s) ;
+        }
+        return out.position()-offset ;
+    }
+
+    /** Decode count records from the ByteBuffer, starting at the given offset,
+     * replacing the contents of the RecordBuffer.
+     */
+    public static void decode(ByteBuffer src, int offset, int count, RecordBuffer rb)
+    {
+        if ( count > rb.maxSlot )
+            throw new StorageException("Compressed records block has too many records: "+count) ;
+        byte[] b = rb.bb.array() ;
+        int base = rb.bb.arrayOffset() ;
+        int len = rb.slotLen ;
+        ByteBuffer in = src.duplicate() ;
+        in.clear() ;
+        in.position(offset) ;
+        for ( int i = 0 ; i < count ; i++ )
+        {
+            int s = in.get() & 0xFF ;
+            int dst = base+i*len ;
+            if ( s > len || ( i == 0 && s != 0 ) )
+                throw new StorageException("Corrupt compressed records block") ;
+            if ( s > 0 )
+                System.arraycopy(b, dst-len, b, dst, s) ;
+            in.get(b, dst+s, len-s) ;
+        }
+        rb.numSlot = count ;
+    }
+
+    /** Number of leading bytes record i shares with record i-1 */
+    private static int shared(byte[] b, int base, int len, int i)
+    {
+        if ( i == 0 )
+            return 0 ;
+        int x = base+i*len ;
+        int y = x-len ;
+        int s = 0 ;
+        while ( s < len && b[x+s] == b[y+s] )
+            s++ ;
+        return s ;
+    }
+}
@@ -19,13 +19,21 @@
 package com.hp.hpl.jena.tdb.base.recordbuffer;
 
 import com.hp.hpl.jena.tdb.base.block.Block ;
+import com.hp.hpl.jena.tdb.base.buffer.PrefixCompression ;
+import com.hp.hpl.jena.tdb.base.buffer.RecordBuffer ;
 import com.hp.hpl.jena.tdb.base.page.Page ;
+import com.hp.hpl.jena.tdb.base.record.RecordException ;
 import com.hp.hpl.jena.tdb.base.record.RecordFactory ;
 import com.hp.hpl.jena.tdb.sys.SystemTDB ;
 
 /**
  * B+Tree records nodes and hash buckets.
  * Add link field to a RecordBufferPageBase
+ * <p>
+ * A page may be compressed: the records are then held in a RecordBuffer of
+ * their own, and are prefix-compressed (see {@link PrefixCompression}) into
+ * the block when it is written. A compressed page is full, or at its minimum
+ * size, by the length of the encoded records, not just by the count.
  */
 
 public final class RecordBufferPage extends RecordBufferPageBase
@@ -42,8 +50,16 @@ public final class RecordBufferPage extends RecordBufferPageBase
 //    final public static int COUNT      = 0 ;
     final public static int LINK            = 4 ;
     final private static int FIELD_LENGTH   = SystemTDB.SizeOfInt ; // Length of the space needed here (not count)
+    /** Start of the records */
+    final public static int HEADER          = LINK+FIELD_LENGTH ;
+    
+    // The most records a compressed page holds, as a multiple of the uncompressed maximum.
+    // Limits the size of the RecordBuffer of a compressed page.
+    final private static int CompressedRecordsFactor = 4 ;
 
     private int link = Page.NO_ID ;
+    // Length of the space in the block for compressed records; -1 if not compressed.
+    private final int compressedCapacity ;
     
     public final int getLink() { return link ; }
     
@@ -56,9 +72,53 @@ public final class RecordBufferPage extends RecordBufferPageBase
     @Override
     protected void _reset(Block block)
     { 
-        super.reset(block, this.getCount()) ;
+        // A compressed page keeps its records - the new block is a copy of the old one. 
+        if ( ! isCompressed() )
+            super.reset(block, this.getCount()) ;
         this.link = block.getByteBuffer().getInt(LINK) ;
     }
+    
+    public boolean isCompressed()   { return compressedCapacity >= 0 ; }
+    
+    /** Is there no room for another record? */
+    public boolean isFull()
+    {
+        if ( getCount() >= getMaxSize() )
+            return true ;
+        if ( ! isCompressed() )
+            return false ;
+        return isFull(PrefixCompression.encodedLength(recBuff)) ;
+    }
+    
+    /** Is there no room for another record, given the length of the encoding of the current records?
+     *  Always false for an uncompressed page. */ 
+    public boolean isFull(int encodedLength)
+    {
+        if ( ! isCompressed() )
+            return false ;
+        int maxRecord = PrefixCompression.maxEncodedLength(recBuff.slotLen()) ;
+        return encodedLength+maxRecord > compressedCapacity ;
+    }
+    
+    /** Is the page at, or below, half full?  Two such pages can be merged. */
+    public boolean isMinSize()
+    {
+        // 50% packing minimum.
+        // If of max length 5 (i.e. odd), min size is 2.  Integer division works.  
+        if ( getCount() > getMaxSize()/2 )
+            return false ;
+        if ( ! isCompressed() )
+            return true ;
+        return PrefixCompression.encodedLength(recBuff) <= compressedCapacity/2 ;
+    }
+    
+    /** The index of the last record to keep when splitting the page */
+    public int getSplitIndex()
+    {
+        if ( ! isCompressed() )
+            return getCount()/2-1 ;
+        return PrefixCompression.splitIndex(recBuff) ;
+    }
 
     public static int calcRecordSize(RecordFactory factory, int blkSize)
     { return RecordBufferPageBase.calcRecordSize(factory, blkSize, FIELD_LENGTH) ; }
@@ -68,24 +128,75 @@ public final class RecordBufferPage extends RecordBufferPageBase
     
     /** The construction methods */
     public static RecordBufferPage createBlank(Block block,RecordFactory factory)
+    {
+        return createBlank(block, factory, false) ;
+    }
+
+    public static RecordBufferPage createBlank(Block block, RecordFactory factory, boolean compressed)
     {
         int count = 0 ;
         int linkId = NO_ID ;
+        if ( compressed )
+            return new RecordBufferPage(block, factory, createBuffer(block, factory), linkId) ;
         return new RecordBufferPage(block, factory, count, linkId) ;
     }
 
     public static RecordBufferPage format(Block block, RecordFactory factory)
+    {
+        return format(block, factory, false) ;
+    }
+    
+    public static RecordBufferPage format(Block block, RecordFactory factory, boolean compressed)
     {
         int count = block.getByteBuffer().getInt(COUNT) ;
         int linkId = block.getByteBuffer().getInt(LINK) ;
+        if ( compressed )
+        {
+            RecordBuffer rb = createBuffer(block, factory) ;
+            PrefixCompression.decode(block.getByteBuffer(), HEADER, count, rb) ;
+            return new RecordBufferPage(block, factory, rb, linkId) ;
+        }
         return new RecordBufferPage(block, factory, count, linkId) ;
     } 
-        
+    
+    /** Write the records of a compressed page to its block */
+    public void encode()
+    {
+        if ( ! isCompressed() )
+            return ;
+        PrefixCompression.encode(recBuff, getBackingBlock().getByteBuffer(), HEADER) ;
+    }
+    
+    private static RecordBuffer createBuffer(Block block, RecordFactory factory)
+    {
+        int capacity = compressedCapacity(block) ;
+        int recordLength = factory.recordLength() ;
+        PrefixCompression.checkSupported(recordLength) ;
+        // Each half of a split page must have room for another record. 
+        if ( capacity < 4*PrefixCompression.maxEncodedLength(recordLength) )
+            throw new RecordException("Block too small for compressed records: "+block.getByteBuffer().capacity()) ;
+        // Two bytes is the shortest encoding of a record that is not a duplicate.
+        int maxRecords = Math.min(capacity/2, CompressedRecordsFactor*(capacity/recordLength)) ; 
+        return new RecordBuffer(factory, maxRecords) ;
+    }
+    
+    private static int compressedCapacity(Block block)
+    {
+        return block.getByteBuffer().capacity()-HEADER ;
+    }
     
     private RecordBufferPage(Block block, RecordFactory factory, int count, int linkId)  
     {
         super(block, FIELD_LENGTH, factory, count) ;
         this.link = linkId ;
+        this.compressedCapacity = -1 ;
+    }
+    
+    private RecordBufferPage(Block block, RecordFactory factory, RecordBuffer recBuff, int linkId)  
+    {
+        super(block, FIELD_LENGTH, factory, recBuff) ;
+        this.link = linkId ;
+        this.compressedCapacity = compressedCapacity(block) ;
     }
     
     @Override
@@ -179,6 +179,71 @@ public class TupleIndexRecord extends TupleIndexBase
         return tuples ;
     }
     
+    /** Find the tuples matching a pattern, in index order, starting at the first
+     *  tuple with NodeId {@code start} or later in the first slot of the index
+     *  not fixed by the pattern ({@code start} null means from the beginning).
+     *  The fixed slots of the pattern must be the leading slots of the index and
+     *  must not be all the slots; returns null otherwise.
+     *  Input pattern in natural order, not index order.
+     */
+    public Iterator<Tuple<NodeId>> findFrom(Tuple<NodeId> patternNaturalOrder, NodeId start)
+    {
+        if ( prefixLength(colMap.map(patternNaturalOrder)) == 0 )
+            return null ;
+        return findRange(patternNaturalOrder, start, null) ;
+    }
+    
+    /** Find the tuples matching a pattern, in index order, with a NodeId from
+     *  {@code lo} (inclusive) to {@code hi} (exclusive) in the first slot of the index
+     *  not fixed by the pattern (null for no limit).
+     *  The fixed slots of the pattern must be the leading slots of the index and
+     *  must not be all the slots; returns null otherwise.
+     *  Input pattern in natural order, not index order.
+     */
+    public Iterator<Tuple<NodeId>> findRange(Tuple<NodeId> patternNaturalOrder, NodeId lo, NodeId hi)
+    {
+        Tuple<NodeId> pattern = colMap.map(patternNaturalOrder) ;
+        int prefixLen = prefixLength(pattern) ;
+        if ( prefixLen < 0 || prefixLen == pattern.size() )
+            return null ;
+        
+        Record minRec = factory.createKeyOnly() ;
+        Record maxRec = factory.createKeyOnly() ;
+        for ( int i = 0 ; i < prefixLen ; i++ )
+        {
+            long x = pattern.get(i).getId() ;
+            Bytes.setLong(x, minRec.getKey(), i*SizeOfNodeId) ;
+            Bytes.setLong(x, maxRec.getKey(), i*SizeOfNodeId) ;
+        }
+        if ( lo != null )
+            Bytes.setLong(lo.getId(), minRec.getKey(), prefixLen*SizeOfNodeId) ;
+        if ( hi != null )
+            Bytes.setLong(hi.getId(), maxRec.getKey(), prefixLen*SizeOfNodeId) ;
+        else if ( prefixLen > 0 )
+            // As findWorker : the leading NodeIds, +1 on the last one, exclusive.
+            Bytes.setLong(pattern.get(prefixLen-1).getId()+1, maxRec.getKey(), (prefixLen-1)*SizeOfNodeId) ;
+        else
+            maxRec = null ;
+        if ( lo == null && prefixLen == 0 )
+            minRec = null ;
+        Iterator<Record> iter = index.iterator(minRec, maxRec) ;
+        return Iter.map(iter, transformToTuple) ;
+    }
+    
+    /** Number of leading fixed slots of a pattern in index order, or -1 if there are other fixed slots */ 
+    private static int prefixLength(Tuple<NodeId> pattern)
+    {
+        int prefixLen = 0 ;
+        while ( prefixLen < pattern.size() && ! NodeId.isAny(pattern.get(prefixLen)) )
+            prefixLen++ ;
+        for ( int i = prefixLen ; i < pattern.size() ; i++ )
+        {
+            if ( ! NodeId.isAny(pattern.get(i)) )
+                return -1 ;
+        }
+        return prefixLen ;
+    }
+    
     @Override
     public Iterator<Tuple<NodeId>> all()
     {
@@ -175,6 +175,12 @@ public class TupleTable implements Sync, Closeable
         if ( numSlots == 0 )
             return scanAllIndex.all() ;
         
+        return chooseIndex(pattern).find(pattern) ;
+    }
+    
+    /** The index that {@link #find} uses for a pattern */
+    public TupleIndex chooseIndex(Tuple<NodeId> pattern)
+    {
         int indexNumSlots = 0 ;
         TupleIndex index = null ;
         for ( int i = 0 ; i < indexes.length ; i++ )
@@ -192,9 +198,19 @@ public class TupleTable implements Sync, Closeable
         }
         
         if ( index == null )
-            // No index at all.  Scan.
-            index = indexes[0] ;
-        return index.find(pattern) ;
+            // No fixed slots, or no index at all.  Scan.
+            index = isAllAny(pattern) ? scanAllIndex : indexes[0] ;
+        return index ;
+    }
+    
+    private static boolean isAllAny(Tuple<NodeId> pattern)
+    {
+        for ( NodeId x : pattern )
+        {
+            if ( ! NodeId.isAny(x) )
+                return false ;
+        }
+        return true ;
     }
     
     @Override
@@ -924,8 +924,9 @@ public final class BPTreeNode extends BPTreePage
             if ( isLeaf )
             {
                 // If two data blocks, then the split key is not inlcuded (it's alread ythere, with it value)
-                // Size is N+N and max could be odd so N+N and N+N+1 are possible. 
-                if ( left.getCount()+1 != left.getMaxSize() && left.getCount() != left.getMaxSize() )
+                // Size is N+N and max could be odd so N+N and N+N+1 are possible.
+                // (Not for compressed data blocks, which are merged by length.)
+                if ( ! params.isCompressedLeaves() && left.getCount()+1 != left.getMaxSize() && left.getCount() != left.getMaxSize() )
                     error("Inconsistent data node size: %d/%d", left.getCount(), left.getMaxSize()) ;
             }
             else if ( ! left.isFull() )
@@ -71,7 +71,7 @@ public final class BPTreeRecords extends BPTreePage
     @Override
     public boolean isFull()
     {
-        return ( rBuff.size() >= rBuff.maxSize() ) ;
+        return rBuffPage.isFull() ;
     }
     
     @Override
@@ -83,10 +83,8 @@ public final class BPTreeRecords extends BPTreePage
     @Override
     public boolean isMinSize()
     {
-        // 50% packing minimum.
-        // If of max length 5 (i.e. odd), min size is 2.  Integer division works.  
-        return ( rBuff.size() <= rBuff.maxSize()/2 ) ;
-   }
+        return rBuffPage.isMinSize() ;
+    }
 
     @Override
     public Record internalSearch(Record rec)
@@ -165,7 +163,7 @@ public final class BPTreeRecords extends BPTreePage
     @Override final
     public Record getSplitKey()
     {
-        int splitIdx = rBuff.size()/2-1 ;
+        int splitIdx = rBuffPage.getSplitIndex() ;
         Record r = rBuff.get(splitIdx) ;
         return r ;
     }
@@ -182,7 +180,7 @@ public final class BPTreeRecords extends BPTreePage
         BPTreeRecords other = create(rBuffPage.getLink()) ;
         rBuffPage.setLink(other.getId()) ;
         
-        int splitIdx = rBuff.size()/2-1 ;
+        int splitIdx = rBuffPage.getSplitIndex() ;
         Record r = rBuff.get(splitIdx) ;                // Only need key for checking later.
         
         int moveLen =  rBuff.size()-(splitIdx+1) ;      // Number to move.
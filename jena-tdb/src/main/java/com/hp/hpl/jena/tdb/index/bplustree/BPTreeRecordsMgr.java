@@ -50,7 +50,7 @@ final public class BPTreeRecordsMgr extends BPTreePageMgr<BPTreeRecords>
         Block2BPTreeRecords(BPlusTree bpTree, RecordFactory recordFactory)
         { 
             this.bpTree = bpTree ; 
-            this.recordBufferConverter = new RecordBufferPageMgr.Block2RecordBufferPage(recordFactory) ;
+            this.recordBufferConverter = new RecordBufferPageMgr.Block2RecordBufferPage(recordFactory, bpTree.getParams().isCompressedLeaves()) ;
         }
         
         @Override
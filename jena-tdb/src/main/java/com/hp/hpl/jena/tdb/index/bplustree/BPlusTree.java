@@ -196,7 +196,7 @@ public class BPlusTree implements Iterable<Record>, RangeIndex
         // Consistency checks.
         this.bpTreeParams = params ;
         this.nodeManager = new BPTreeNodeMgr(this, blkMgrNodes) ;
-        RecordBufferPageMgr recordPageMgr = new RecordBufferPageMgr(params.getRecordFactory(), blkMgrRecords) ;
+        RecordBufferPageMgr recordPageMgr = new RecordBufferPageMgr(params.getRecordFactory(), blkMgrRecords, params.isCompressedLeaves()) ;
         recordsMgr = new BPTreeRecordsMgr(this, recordPageMgr) ;
     }
 
@@ -23,6 +23,7 @@ import org.apache.jena.atlas.logging.Log ;
 import org.slf4j.Logger;
 
 import com.hp.hpl.jena.tdb.TDBException;
+import com.hp.hpl.jena.tdb.base.file.Location;
 import com.hp.hpl.jena.tdb.base.file.MetaFile;
 import com.hp.hpl.jena.tdb.base.record.RecordFactory;
 import com.hp.hpl.jena.tdb.sys.Names;
@@ -44,6 +45,7 @@ public class BPlusTreeParams
     public static final String ParamKeyLength      = NS+".keyLength" ;
     public static final String ParamValueLength    = NS+".valueLength" ;
     public static final String ParamBlockSize      = NS+".blockSize" ;
+    public static final String ParamCompressedLeaves = NS+".compressedLeaves" ;
 
     public static void checkAll()
     { 
@@ -81,6 +83,9 @@ public class BPlusTreeParams
     /** Factory for key-only records */ 
     final RecordFactory keyFactory ;
     
+    /** Are the records blocks (the leaves) prefix-compressed? */
+    final boolean compressedLeaves ;
+    
     // ---- Derived constants.
 
     /** Maximum number of keys per non-leaf block */
@@ -117,13 +122,14 @@ public class BPlusTreeParams
     @Override
     public String toString()
     {
-        return String.format("Order=%d : Records [key=%d, value=%d] : records=[%d,%d] : pointers=[%d,%d] : split=%d",
+        return String.format("Order=%d : Records [key=%d, value=%d] : records=[%d,%d] : pointers=[%d,%d] : split=%d%s",
                              order,
                              keyFactory.keyLength() ,
                              recordFactory.valueLength() ,
                              MinRec, MaxRec, 
                              MinPtr, MaxPtr,
-                             SplitIndex
+                             SplitIndex,
+                             compressedLeaves ? " : compressed leaves" : ""
                              ) ;
     }
 
@@ -133,7 +139,8 @@ public class BPlusTreeParams
             int pOrder = mf.getPropertyAsInteger(ParamOrder) ;
             int pKeyLen = mf.getPropertyAsInteger(ParamKeyLength) ;
             int pRecLen = mf.getPropertyAsInteger(ParamValueLength) ;
-            return new BPlusTreeParams(pOrder, pKeyLen, pRecLen) ;
+            boolean pCompressed = Boolean.parseBoolean(mf.getProperty(ParamCompressedLeaves, "false")) ;
+            return new BPlusTreeParams(pOrder, new RecordFactory(pKeyLen, pRecLen), pCompressed) ;
         } catch (NumberFormatException ex)
         {
             Log.fatal(BPlusTreeParams.class, "Badly formed metadata for B+Tree") ;
@@ -146,8 +153,17 @@ public class BPlusTreeParams
         mf.setProperty(ParamOrder, order) ;
         mf.setProperty(ParamKeyLength, recordFactory.keyLength()) ;
         mf.setProperty(ParamValueLength, recordFactory.valueLength()) ;
+        mf.setProperty(ParamCompressedLeaves, Boolean.toString(compressedLeaves)) ;
         mf.flush() ;
     }
+    
+    /** Whether the B+Trees at a location have compressed leaves.
+     *  This is decided when the dataset is created and recorded in the location metadata.
+     */
+    public static boolean isCompressedLeaves(Location location)
+    {
+        return Boolean.parseBoolean(location.getMetaFile().getProperty(ParamCompressedLeaves, "false")) ;
+    }
 
     public BPlusTreeParams(int order, int keyLen, int valLen)
     { 
@@ -155,6 +171,11 @@ public class BPlusTreeParams
     }
     
     public BPlusTreeParams(int order, RecordFactory factory)
+    {
+        this(order, factory, false) ;
+    }
+    
+    public BPlusTreeParams(int order, RecordFactory factory, boolean compressedLeaves)
     {
         // BTrees of order one aren't strictly BTrees, where the order is >= 2
         // Order 1 => Min size = 0 and max size = 2*N-1 = 1.
@@ -168,6 +189,7 @@ public class BPlusTreeParams
         this.order = order ;
         recordFactory = factory ;
         keyFactory = factory.keyFactory() ;
+        this.compressedLeaves = compressedLeaves ;
 
         // Derived constants.
         MaxRec  = 2*order-1 + Gap ;
@@ -211,6 +233,11 @@ public class BPlusTreeParams
         return keyFactory ;
     }
     
+    public boolean isCompressedLeaves()
+    {
+        return compressedLeaves ;
+    }
+    
     
     public int getCalcBlockSize()
     {
@@ -201,6 +201,9 @@ public class BPlusTreeRewriter
             // Wrong calculatation.
             for ( int i = page2.getCount() ; i <  page1.getMaxSize()/2 ; i++ )
             {
+                // Compressed pages are half full by length.
+                if ( page2.isCompressed() && ! page2.isMinSize() )
+                    break ;
                 //shiftOneup(node1, node2) ;
                 Record r = page1.getRecordBuffer().getHigh() ;
                 page1.getRecordBuffer().removeTop() ;
@@ -21,6 +21,7 @@ package com.hp.hpl.jena.tdb.index.bplustree;
 import java.util.Iterator ;
 import java.util.NoSuchElementException ;
 
+import com.hp.hpl.jena.tdb.base.buffer.PrefixCompression ;
 import com.hp.hpl.jena.tdb.base.buffer.RecordBuffer ;
 import com.hp.hpl.jena.tdb.base.record.Record ;
 import com.hp.hpl.jena.tdb.base.recordbuffer.RecordBufferPage ;
@@ -66,10 +67,14 @@ class RecordBufferPagePacker implements Iterator<RecordBufferPage>
             recordBufferPage = rbMgr.create() ;
             
             RecordBuffer rb = recordBufferPage.getRecordBuffer() ;
-            while ( !rb.isFull() && records.hasNext() )
+            // Length of the records when compressed, kept as records are added. 
+            int encodedLength = 0 ;
+            while ( !rb.isFull() && !recordBufferPage.isFull(encodedLength) && records.hasNext() )
             {
                 Record r = records.next();
                 rb.add(r) ;
+                if ( recordBufferPage.isCompressed() )
+                    encodedLength += PrefixCompression.encodedLength(rb, rb.size()-1, rb.size()) ;
             }
             if ( ! records.hasNext() )
                 records = null ;
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.nodetable;
+
+import java.io.File ;
+import java.io.IOException ;
+import java.io.RandomAccessFile ;
+import java.nio.ByteBuffer ;
+import java.nio.LongBuffer ;
+import java.nio.channels.FileChannel ;
+
+import org.apache.jena.atlas.lib.Bytes ;
+import org.apache.jena.atlas.lib.FileOps ;
+import org.slf4j.Logger ;
+import org.slf4j.LoggerFactory ;
+
+import com.hp.hpl.jena.tdb.base.file.FileSet ;
+import com.hp.hpl.jena.tdb.sys.Names ;
+import com.hp.hpl.jena.tdb.sys.SystemTDB ;
+
+/** A Bloom filter over the hashes of the nodes in a node table.
+ * <p>
+ * {@link #mightContain} returning false means the node is definitely not in
+ * the node table so the probe of the node-to-NodeId index can be skipped.
+ * Node hashes are already well mixed (MD5) so the bit positions are taken
+ * directly from the two halves of the hash (double hashing).
+ * <p>
+ * The filter can only grow; when it is holding more nodes than it was sized
+ * for, {@link #isOverloaded} is true and the owner rebuilds it, larger, from
+ * the index. The filter is saved to a file with the length of the node data
+ * file at the time; it is only reused if the node data file is still that
+ * length, otherwise it is rebuilt.
+ * <p>
+ * The filter is only used if {@link SystemTDB#NodeHashFilterBitsPerNode} is set.
+ */
+public class NodeHashFilter
+{
+    private static Logger log = LoggerFactory.getLogger(NodeHashFilter.class) ;
+
+    private static final int Magic = 0x54444246 ;   // "TDBF"
+    private static final int HeaderLength = 4+8+8+4+4+4 ;
+    private static final long MinCapacity = 1024 ;
+
+    private final int bitsPerNode ;
+    private final int numHashes ;
+    private final String filename ;     // Null for in-memory.
+
+    private long[] bits = null ;
+    private long mask ;
+    private long capacity ;
+    private long count ;
+    private boolean dirty = false ;
+
+    /** A filter for the node table index of the FileSet, or null if filters are switched off. */
+    public static NodeHashFilter create(FileSet fsIndex)
+    {
+        int bitsPerNode = SystemTDB.NodeHashFilterBitsPerNode ;
+        if ( bitsPerNode <= 0 )
+            return null ;
+        String filename = ( fsIndex == null || fsIndex.isMem() ) ? null : fsIndex.filename(Names.extNodeHashFilter) ;
+        return new NodeHashFilter(bitsPerNode, filename) ;
+    }
+
+    public NodeHashFilter(int bitsPerNode, String filename)
+    {
+        this.bitsPerNode = bitsPerNode ;
+        this.numHashes = Math.max(1, Math.min(16, (int)Math.round(bitsPerNode*Math.log(2)))) ;
+        this.filename = filename ;
+    }
+
+    /** Has the filter been set up, by {@link #reset} or {@link #load}? */
+    public boolean isReady()            { return bits != null ; }
+
+    /** Number of nodes added */
+    public long getCount()              { return count ; }
+
+    /** More nodes have been added than the filter was sized for */
+    public boolean isOverloaded()       { return count > capacity ; }
+
+    /** Clear the filter, sizing it for the expected number of nodes */
+    public void reset(long expectedNodes)
+    {
+        capacity = Math.max(MinCapacity, expectedNodes) ;
+        long numBits = Long.highestOneBit(capacity*bitsPerNode-1)<<1 ;
+        if ( numBits/64 > Integer.MAX_VALUE )
+            numBits = 64L*Integer.MAX_VALUE ;
+        bits = new long[(int)(numBits/64)] ;
+        mask = numBits-1 ;
+        count = 0 ;
+        dirty = true ;
+    }
+
+    public void add(byte[] hash)
+    {
+        long h1 = Bytes.getLong(hash, 0) ;
+        long h2 = Bytes.getLong(hash, 8) | 1 ;
+        for ( int i = 0 ; i < numHashes ; i++ )
+        {
+            long b = (h1+i*h2) & mask ;
+            bits[(int)(b>>>6)] |= 1L<<b ;
+        }
+        count++ ;
+        dirty = true ;
+    }
+
+    /** False if the hash has definitely not been added */
+    public boolean mightContain(byte[] hash)
+    {
+        long h1 = Bytes.getLong(hash, 0) ;
+        long h2 = Bytes.getLong(hash, 8) | 1 ;
+        for ( int i = 0 ; i < numHashes ; i++ )
+        {
+            long b = (h1+i*h2) & mask ;
+            if ( (bits[(int)(b>>>6)] & (1L<<b)) == 0 )
+                return false ;
+        }
+        return true ;
+    }
+
+    /** Read the saved filter, if there is one and it was saved when
+     * the node data file was the given length.
+     */
+    public boolean load(long objectsLength)
+    {
+        if ( filename == null || ! FileOps.exists(filename) )
+            return false ;
+        try {
+            RandomAccessFile file = new RandomAccessFile(filename, "r") ;
+            try {
+                FileChannel channel = file.getChannel() ;
+                ByteBuffer header = ByteBuffer.allocate(HeaderLength) ;
+                if ( readFully(channel, header) < HeaderLength )
+                    return false ;
+                header.flip() ;
+                if ( header.getInt() != Magic || header.getLong() != objectsLength )
+                    return false ;
+                long savedCount = header.getLong() ;
+                int savedBitsPerNode = header.getInt() ;
+                int savedHashes = header.getInt() ;
+                int words = header.getInt() ;
+                if ( savedBitsPerNode != bitsPerNode || savedHashes != numHashes || words <= 0 || Integer.bitCount(words) != 1 )
+                    return false ;
+                ByteBuffer data = ByteBuffer.allocate(words*8) ;
+                if ( readFully(channel, data) < words*8 )
+                    return false ;
+                data.flip() ;
+                long[] x = new long[words] ;
+                data.asLongBuffer().get(x) ;
+                bits = x ;
+                mask = 64L*words-1 ;
+                count = savedCount ;
+                capacity = Math.max(MinCapacity, 64L*words/bitsPerNode) ;
+                dirty = false ;
+                return true ;
+            } finally { file.close() ; }
+        } catch (IOException ex)
+        {
+            log.warn("Failed to read the node hash filter: "+filename+" : "+ex.getMessage()) ;
+            return false ;
+        }
+    }
+
+    /** Write the filter, if it has changed, recording the length of the node data file. */
+    public void save(long objectsLength)
+    {
+        if ( filename == null || bits == null || ! dirty )
+            return ;
+        String tmp = filename+".tmp" ;
+        try {
+            RandomAccessFile file = new RandomAccessFile(tmp, "rw") ;
+            try {
+                file.setLength(0) ;
+                FileChannel channel = file.getChannel() ;
+                ByteBuffer header = ByteBuffer.allocate(HeaderLength) ;
+                header.putInt(Magic).putLong(objectsLength).putLong(count) ;
+                header.putInt(bitsPerNode).putInt(numHashes).putInt(bits.length) ;
+                header.flip() ;
+                writeFully(channel, header) ;
+                ByteBuffer data = ByteBuffer.allocate(bits.length*8) ;
+                LongBuffer lb = data.asLongBuffer() ;
+                lb.put(bits) ;
+                writeFully(channel, data) ;
+                channel.force(true) ;
+            } finally { file.close() ; }
+            File f = new File(filename) ;
+            f.delete() ;
+            if ( ! new File(tmp).renameTo(f) )
+                log.warn("Failed to rename the node hash filter: "+tmp) ;
+            dirty = false ;
+        } catch (IOException ex)
+        {
+            // Not fatal - the filter is rebuilt when the dataset is next opened.
+            log.warn("Failed to write the node hash filter: "+filename+" : "+ex.getMessage()) ;
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer bb) throws IOException
+    {
+        int n = 0 ;
+        while ( bb.hasRemaining() )
+        {
+            int x = channel.read(bb) ;
+            if ( x < 0 )
+                break ;
+            n += x ;
+        }
+        return n ;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bb) throws IOException
+    {
+        while ( bb.hasRemaining() )
+            channel.write(bb) ;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("NodeHashFilter[%d nodes, %d bits, %d hashes]", count, (bits == null ? 0 : 64L*bits.length), numHashes) ;
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.lib.Cache ;
 import org.apache.jena.atlas.lib.CacheFactory ;
 import org.apache.jena.atlas.lib.CacheSet ;
+import org.apache.jena.atlas.lib.CacheStats ;
 import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.atlas.logging.Log ;
 
@@ -35,13 +36,19 @@ import com.hp.hpl.jena.tdb.store.NodeId ;
 /** Cache wrapper around a NodeTable.  
  * Assumes all access goes through this wrapper.
  * Read-cache - write caching is done via the object file used by the base NodeTable. 
+ * <p>
+ * The caches are safe for concurrent use and a cache hit does not take a lock;
+ * a cache miss is handled under a lock.
+ * Closing does not touch the caches, which lock-free readers may be using;
+ * it is the base table that is checked, under the lock.
  */ 
 public class NodeTableCache implements NodeTable
 {
-    // These caches are updated together.
+    // These caches are updated together, under the lock.
     // See synchronization in _retrieveNodeByNodeId and _idForNode
-    private Cache<Node, NodeId> node2id_Cache = null ;
-    private Cache<NodeId, Node> id2node_Cache = null ;
+    // Fixed at construction; null if there is no cache.
+    private final CacheStats<Node, NodeId> node2id_Cache ;
+    private final CacheStats<NodeId, Node> id2node_Cache ;
     
     // A small cache of "known unknowns" to speed up searching for impossible things.   
     // Cache update needed on NodeTable changes because a node may become "known"
@@ -59,14 +66,23 @@ public class NodeTableCache implements NodeTable
     private NodeTableCache(NodeTable baseTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize)
     {
         this.baseTable = baseTable ;
-        if ( nodeToIdCacheSize > 0) 
-            node2id_Cache = CacheFactory.createCache(nodeToIdCacheSize) ;
-        if ( idToNodeCacheSize > 0)
-            id2node_Cache = CacheFactory.createCache(idToNodeCacheSize) ;
+        node2id_Cache = ( nodeToIdCacheSize > 0 ) 
+            ? CacheFactory.createStats(CacheFactory.<Node, NodeId>createConcurrentCache(nodeToIdCacheSize))
+            : null ;
+        id2node_Cache = ( idToNodeCacheSize > 0 ) 
+            ? CacheFactory.createStats(CacheFactory.<NodeId, Node>createConcurrentCache(idToNodeCacheSize))
+            : null ;
         if ( nodeMissesCacheSize > 0 )
+            // Only used on the miss path, under the lock.
             notPresent = CacheFactory.createCacheSet(nodeMissesCacheSize) ;
     }
 
+    /** Statistics for the Node to NodeId cache, or null if there is no cache */
+    public CacheStats<Node, NodeId> getNodeToIdCacheStats()   { return node2id_Cache ; }
+
+    /** Statistics for the NodeId to Node cache, or null if there is no cache */
+    public CacheStats<NodeId, Node> getIdToNodeCacheStats()   { return id2node_Cache ; }
+
     /** Get the Node for this NodeId, or null if none */
     @Override
     public Node getNodeForNodeId(NodeId id)
@@ -91,15 +107,14 @@ public class NodeTableCache implements NodeTable
         if ( NodeId.isAny(id) )
             return null ;
 
+        Node n = cacheLookup(id) ;
+        if ( n != null )
+            return n ; 
+
+        // Two threads may both miss and both read the base table. 
         synchronized (lock)
         {
-            Node n = cacheLookup(id) ;
-            if ( n != null )
-                return n ; 
-
-            if ( baseTable == null )
-                System.err.println(""+this) ;
-            
+            checkOpen() ;
             n = baseTable.getNodeForNodeId(id) ;
             cacheUpdate(n, id) ;
             return n ;
@@ -112,13 +127,14 @@ public class NodeTableCache implements NodeTable
         if ( node == Node.ANY )
             return NodeId.NodeIdAny ;
         
+        // Check caches.
+        NodeId nodeId = cacheLookup(node) ;
+        if ( nodeId != null )
+            return nodeId ; 
+
         synchronized (lock)
         {
-            // Check caches.
-            NodeId nodeId = cacheLookup(node) ;
-            if ( nodeId != null )
-                return nodeId ; 
-
+            checkOpen() ;
             if ( allocate )
                 nodeId = baseTable.getAllocateNodeId(node) ;
             else
@@ -130,6 +146,13 @@ public class NodeTableCache implements NodeTable
         }
     }
 
+    // Call holding the lock.
+    private void checkOpen()
+    {
+        if ( baseTable == null )
+            throw new TDBException("NodeTableCache: closed") ;
+    }
+
     // ----------------
     // ---- Only places that the caches are touched
     
@@ -143,11 +166,10 @@ public class NodeTableCache implements NodeTable
     /** Check caches to see if we can map a Node to a NodeId. Returns null on no cache entry. */ 
     private NodeId cacheLookup(Node node)
     {
-        // Remember things known (currently) not to exist
-        if ( notPresent != null && notPresent.contains(node) ) 
-            return null ;
         if ( node2id_Cache == null )
             return null ;
+        // A node in the cache is never also in "notPresent": cacheUpdate
+        // removes it from there when it is added here.
         return node2id_Cache.get(node) ; 
     }
 
@@ -165,6 +187,10 @@ public class NodeTableCache implements NodeTable
             return ;
         }
         
+        if ( node == null )
+            // No such NodeId - nothing to cache.
+            return ;
+
         if ( id == NodeId.NodeIdAny )
         {
             Log.warn(this, "Attempt to cache NodeIdAny - ignored") ;
@@ -202,17 +228,20 @@ public class NodeTableCache implements NodeTable
     }
 
     @Override
-    public synchronized void close()
+    public void close()
     {
-        if ( baseTable == null )
-            // Already closed (NodeTables can be shared so .close via two routes).
-            return ;
-
-        baseTable.close() ;
-        node2id_Cache = null ;
-        id2node_Cache = null ;
-        notPresent = null ;
-        baseTable = null ;
+        synchronized (lock)
+        {
+            if ( baseTable == null )
+                // Already closed (NodeTables can be shared so .close via two routes).
+                return ;
+    
+            baseTable.close() ;
+            // Lock-free readers may still be using the Node/NodeId caches:
+            // leave them to the garbage collector.
+            notPresent = null ;
+            baseTable = null ;
+        }
     }
 
     @Override
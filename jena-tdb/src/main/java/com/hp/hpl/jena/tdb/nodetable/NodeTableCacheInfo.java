@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.hpl.jena.tdb.nodetable;
+
+import org.apache.jena.atlas.lib.CacheStats ;
+
+public class NodeTableCacheInfo implements NodeTableCacheInfoMBean {
+
+    private final NodeTableCache nodeTable ;
+
+    public NodeTableCacheInfo(NodeTableCache nodeTable) {
+        this.nodeTable = nodeTable ;
+    }
+
+    /** Find the cache in a stack of node tables, or return null */
+    public static NodeTableCache findCache(NodeTable nodeTable) {
+        while ( nodeTable instanceof NodeTableWrapper )
+            nodeTable = ((NodeTableWrapper)nodeTable).getWrapped() ;
+        if ( nodeTable instanceof NodeTableCache )
+            return (NodeTableCache)nodeTable ;
+        return null ;
+    }
+
+    @Override
+    public long getNodeToIdCacheHits() {
+        CacheStats<?,?> stats = nodeTable.getNodeToIdCacheStats() ;
+        return stats == null ? 0 : stats.getCacheHits() ;
+    }
+
+    @Override
+    public long getNodeToIdCacheMisses() {
+        CacheStats<?,?> stats = nodeTable.getNodeToIdCacheStats() ;
+        return stats == null ? 0 : stats.getCacheMisses() ;
+    }
+
+    @Override
+    public long getNodeToIdCacheEjects() {
+        CacheStats<?,?> stats = nodeTable.getNodeToIdCacheStats() ;
+        return stats == null ? 0 : stats.getCacheEjects() ;
+    }
+
+    @Override
+    public long getNodeToIdCacheSize() {
+        CacheStats<?,?> stats = nodeTable.getNodeToIdCacheStats() ;
+        return stats == null ? 0 : stats.size() ;
+    }
+
+    @Override
+    public long getIdToNodeCacheHits() {
+        CacheStats<?,?> stats = nodeTable.getIdToNodeCacheStats() ;
+        return stats == null ? 0 : stats.getCacheHits() ;
+    }
+
+    @Override
+    public long getIdToNodeCacheMisses() {
+        CacheStats<?,?> stats = nodeTable.getIdToNodeCacheStats() ;
+        return stats == null ? 0 : stats.getCacheMisses() ;
+    }
+
+    @Override
+    public long getIdToNodeCacheEjects() {
+        CacheStats<?,?> stats = nodeTable.getIdToNodeCacheStats() ;
+        return stats == null ? 0 : stats.getCacheEjects() ;
+    }
+
+    @Override
+    public long getIdToNodeCacheSize() {
+        CacheStats<?,?> stats = nodeTable.getIdToNodeCacheStats() ;
+        return stats == null ? 0 : stats.size() ;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.hpl.jena.tdb.nodetable;
+
+/** Interface to stats for the caches of a node table */ 
+public interface NodeTableCacheInfoMBean
+{
+    /** Number of Node to NodeId lookups found in the cache */
+    long getNodeToIdCacheHits() ;
+
+    /** Number of Node to NodeId lookups not found in the cache */
+    long getNodeToIdCacheMisses() ;
+
+    /** Number of entries dropped from the Node to NodeId cache */
+    long getNodeToIdCacheEjects() ;
+
+    /** Current number of entries in the Node to NodeId cache */
+    long getNodeToIdCacheSize() ;
+
+    /** Number of NodeId to Node lookups found in the cache */
+    long getIdToNodeCacheHits() ;
+
+    /** Number of NodeId to Node lookups not found in the cache */
+    long getIdToNodeCacheMisses() ;
+
+    /** Number of entries dropped from the NodeId to Node cache */
+    long getIdToNodeCacheEjects() ;
+
+    /** Current number of entries in the NodeId to Node cache */
+    long getIdToNodeCacheSize() ;
+}
@@ -63,7 +63,7 @@ public class NodeTableFactory
         {
             Index nodeToId = indexBuilder.newIndex(FileSet.mem(), SystemTDB.nodeRecordFactory) ;
             ObjectFile objects = FileFactory.createObjectFileMem(filename) ;
-            NodeTable nodeTable = new NodeTableNative(nodeToId, objects) ;
+            NodeTable nodeTable = new NodeTableNative(nodeToId, objects, NodeHashFilter.create(null)) ;
             
             nodeTable = NodeTableCache.create(nodeTable, 100, 100, 100) ; 
             nodeTable =  NodeTableInline.create(nodeTable) ;
@@ -76,7 +76,7 @@ public class NodeTableFactory
         Index nodeToId = indexBuilder.newIndex(fsNodeToId, SystemTDB.nodeRecordFactory) ;
         // Node table.
         ObjectFile objects = FileFactory.createObjectFileDisk(filename);
-        NodeTable nodeTable = new NodeTableNative(nodeToId, objects) ;
+        NodeTable nodeTable = new NodeTableNative(nodeToId, objects, NodeHashFilter.create(fsNodeToId)) ;
         nodeTable = NodeTableCache.create(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, nodeMissCacheSize) ; 
         nodeTable = NodeTableInline.create(nodeTable) ;
         return nodeTable ;
@@ -47,6 +47,9 @@ public class NodeTableNative implements NodeTable
 
     protected ObjectFile objects ;
     protected Index nodeHashToId ;        // hash -> int
+    // Optional: nodes definitely not in the index, without probing it.
+    // Set up on first use.
+    private NodeHashFilter filter = null ;
     private boolean syncNeeded = false ;
     
     // Delayed construction - must call init explicitly.
@@ -59,10 +62,25 @@ public class NodeTableNative implements NodeTable
         init(nodeToId, objectFile) ;
     }
     
+    /** A NodeTable with a filter (which may be null) in front of the node to NodeId index */
+    public NodeTableNative(Index nodeToId, ObjectFile objectFile, NodeHashFilter filter)
+    {
+        this() ;
+        init(nodeToId, objectFile, filter) ;
+    }
+    
     protected void init(Index nodeToId, ObjectFile objectFile)
+    {
+        init(nodeToId, objectFile, null) ;
+    }
+    
+    protected void init(Index nodeToId, ObjectFile objectFile, NodeHashFilter filter)
     {
         this.nodeHashToId = nodeToId ;
         this.objects = objectFile;
+        // The filter takes its bits from the first 16 bytes of the hash.
+        if ( nodeToId.getRecordFactory().keyLength() >= 16 )
+            this.filter = filter ;
     }
 
     // ---- Public interface for Node <==> NodeId
@@ -129,7 +147,9 @@ public class NodeTableNative implements NodeTable
         synchronized (this)  // Pair to readNodeFromTable.
         {
             // Key and value, or null
-            Record r2 = nodeHashToId.find(r) ;
+            Record r2 = null ;
+            if ( filter == null || mightContain(k) )
+                r2 = nodeHashToId.find(r) ;
             if ( r2 != null )
             {
                 // Found.  Get the NodeId.
@@ -150,10 +170,40 @@ public class NodeTableNative implements NodeTable
             // Put in index - may appear because of concurrency
             if ( ! nodeHashToId.add(r) )
                 throw new TDBException("NodeTableBase::nodeToId - record mysteriously appeared") ;
+            if ( filter != null )
+            {
+                filter.add(k) ;
+                if ( filter.isOverloaded() )
+                    // Resize: more nodes than the filter was built for.
+                    rebuildFilter(2*filter.getCount()) ;
+            }
             return id ;
         }
     }
     
+    // -------- Node hash filter
+    // Synchronized in accessIndex and sync.
+    
+    private boolean mightContain(byte[] hash)
+    {
+        if ( ! filter.isReady() && ! filter.load(getObjects().length()) )
+            // Guess at 32 bytes per node; resized if too small.
+            rebuildFilter(2*(getObjects().length()/32)) ;
+        return filter.mightContain(hash) ;
+    }
+    
+    private void rebuildFilter(long expectedNodes)
+    {
+        filter.reset(expectedNodes) ;
+        Iterator<Record> iter = nodeHashToId.iterator() ;
+        try {
+            for ( ; iter.hasNext() ; )
+                filter.add(iter.next().getKey()) ;
+        } finally { Iter.close(iter) ; }
+        if ( filter.isOverloaded() )
+            rebuildFilter(2*filter.getCount()) ;
+    }
+    
     // -------- NodeId<->Node
     // Synchronization:
     //   write: in accessIndex
@@ -184,6 +234,11 @@ public class NodeTableNative implements NodeTable
     public synchronized void close()
     {
         // Close once.  This may be shared (e.g. triples table and quads table). 
+        if ( filter != null && getObjects() != null )
+        {
+            filter.save(getObjects().length()) ;
+            filter = null ;
+        }
         if ( nodeHashToId != null )
         {
             nodeHashToId.close() ;
@@ -251,6 +306,8 @@ public class NodeTableNative implements NodeTable
                 getObjects().sync() ;
             syncNeeded = false ;
         }
+        // The node hash filter is only saved on close: a missing or out of date
+        // filter file is detected when loading and the filter is rebuilt.
     }
 
     public ObjectFile getObjects()
@@ -35,6 +35,12 @@ public class NodeTableWrapper implements NodeTable
     {
         this.nodeTable = nodeTable ;
     }
+
+    /** The node table this one wraps */
+    public NodeTable getWrapped()
+    {
+        return nodeTable ;
+    }
     
     
     @Override
@@ -35,6 +35,7 @@ import com.hp.hpl.jena.tdb.index.TupleIndex ;
 import com.hp.hpl.jena.tdb.index.TupleIndexRecord ;
 import com.hp.hpl.jena.tdb.index.bplustree.BPlusTree ;
 import com.hp.hpl.jena.tdb.index.bplustree.BPlusTreeParams ;
+import com.hp.hpl.jena.tdb.nodetable.NodeHashFilter ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTableCache ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTableInline ;
@@ -84,7 +85,7 @@ public class Builder
             RecordFactory recordFactory = new RecordFactory(SystemTDB.LenNodeHash, SystemTDB.SizeOfNodeId) ;
             Index idx = indexBuilder.buildIndex(fsIndex, recordFactory) ;
             ObjectFile objectFile = objectFileBuilder.buildObjectFile(fsObjectFile, Names.extNodeData) ;
-            NodeTable nodeTable = new NodeTableNative(idx, objectFile) ;
+            NodeTable nodeTable = new NodeTableNative(idx, objectFile, NodeHashFilter.create(fsIndex)) ;
             nodeTable = NodeTableCache.create(nodeTable, sizeNode2NodeIdCache, sizeNodeId2NodeCache, sizeNodeMissCacheSize) ;
             nodeTable = NodeTableInline.create(nodeTable) ;
             return nodeTable ;
@@ -131,7 +132,10 @@ public class Builder
                 int order = BPlusTreeParams.calcOrder(blkSize, recordFactory.recordLength()) ;
                 int readCacheSize = SystemTDB.BlockReadCacheSize ;
                 int writeCacheSize = SystemTDB.BlockWriteCacheSize ;
-                RangeIndex rIndex = createBPTree(fileSet, order, blkSize, readCacheSize, writeCacheSize, bMgrNodes, bMgrRecords, recordFactory) ;
+                // Only key-only records (the tuple indexes) are compressed. 
+                boolean compressedLeaves = ! recordFactory.hasValue() && fileSet.getLocation() != null 
+                                           && BPlusTreeParams.isCompressedLeaves(fileSet.getLocation()) ;
+                RangeIndex rIndex = createBPTree(fileSet, order, blkSize, readCacheSize, writeCacheSize, bMgrNodes, bMgrRecords, recordFactory, compressedLeaves) ;
                 return rIndex ;
             }
             
@@ -141,7 +145,8 @@ public class Builder
                                             int readCacheSize, int writeCacheSize,
                                             BlockMgrBuilder blockMgrBuilderNodes,
                                             BlockMgrBuilder blockMgrBuilderRecords,
-                                            RecordFactory factory)
+                                            RecordFactory factory,
+                                            boolean compressedLeaves)
             {
                 // ---- Checking
                 if (blockSize < 0 && order < 0) throw new IllegalArgumentException("Neither blocksize nor order specified") ;
@@ -160,7 +165,7 @@ public class Builder
                     blockSize = BPlusTreeParams.calcBlockSize(order, factory) ;
                 }
             
-                BPlusTreeParams params = new BPlusTreeParams(order, factory) ;
+                BPlusTreeParams params = new BPlusTreeParams(order, factory, compressedLeaves) ;
                 
                 BlockMgr blkMgrNodes = blockMgrBuilderNodes.buildBlockMgr(fileset, Names.bptExtTree, blockSize) ;
                 BlockMgr blkMgrRecords = blockMgrBuilderRecords.buildBlockMgr(fileset, Names.bptExtRecords, blockSize) ;
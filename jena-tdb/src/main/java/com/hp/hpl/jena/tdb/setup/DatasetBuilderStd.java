@@ -36,7 +36,9 @@ import com.hp.hpl.jena.tdb.base.block.BlockMgr ;
 import com.hp.hpl.jena.tdb.base.file.BufferChannel ;
 import com.hp.hpl.jena.tdb.base.file.FileSet ;
 import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.base.file.MetaFile ;
 import com.hp.hpl.jena.tdb.index.TupleIndex ;
+import com.hp.hpl.jena.tdb.index.bplustree.BPlusTreeParams ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
 import com.hp.hpl.jena.tdb.solver.OpExecutorTDB1 ;
 import com.hp.hpl.jena.tdb.store.* ;
@@ -161,6 +163,14 @@ public class DatasetBuilderStd implements DatasetBuilder
     protected void init(Location location)
     {
         // Build params.
+        // The leaf format of the B+Trees is fixed when the dataset is created.
+        MetaFile metafile = location.getMetaFile() ;
+        if ( params.compressedLeaves && ! metafile.hasProperty(BPlusTreeParams.ParamCompressedLeaves)
+             && ! location.exists(params.primaryIndexTriples, Names.bptExtTree) )
+        {
+            metafile.setProperty(BPlusTreeParams.ParamCompressedLeaves, "true") ;
+            metafile.flush() ;
+        }
     }
     
     // ==== TODO makeNodeTupleTable.
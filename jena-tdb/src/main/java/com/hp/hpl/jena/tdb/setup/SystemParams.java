@@ -32,6 +32,9 @@ public class SystemParams
     public int      Node2NodeIdCacheSize = SystemTDB.Node2NodeIdCacheSize ;
     public int      NodeId2NodeCacheSize = SystemTDB.NodeId2NodeCacheSize ;
     public int      NodeMissCacheSize    = SystemTDB.NodeMissCacheSize ;
+    /** Prefix-compress the leaves of the tuple indexes of a new dataset.
+     *  Existing datasets keep the format they were created with. */
+    public boolean  compressedLeaves     = false ;
 
     public String   indexNode2Id         = Names.indexNode2Id ;
     public String   indexId2Node         = Names.indexId2Node ;
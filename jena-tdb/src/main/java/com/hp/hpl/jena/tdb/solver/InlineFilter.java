@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import java.math.BigDecimal ;
+import java.math.RoundingMode ;
+
+import org.apache.jena.atlas.iterator.Filter ;
+import org.apache.jena.atlas.logging.Log ;
+
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.sparql.engine.binding.Binding ;
+import com.hp.hpl.jena.sparql.expr.* ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
+import com.hp.hpl.jena.tdb.store.DecimalNode ;
+import com.hp.hpl.jena.tdb.store.IntegerNode ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+
+/** Evaluate the expressions of a FILTER on BindingNodeIds, inside the solver.
+ *  <p>
+ *  Comparisons of a variable with an integer or decimal constant are evaluated
+ *  directly on inline integer and decimal NodeIds, without making a Node or a
+ *  NodeValue.  Other expressions, and other values, are evaluated as usual on a
+ *  {@link BindingTDB}, which gets nodes from the node table as needed.
+ *  <p>
+ *  The comparisons also limit the inline integers a variable can be bound to
+ *  (see {@link IntegerRangeScan}).
+ */
+public class InlineFilter implements Filter<BindingNodeId>
+{
+    private static final int FALSE = 0 ;
+    private static final int TRUE = 1 ;
+    private static final int UNKNOWN = -1 ;
+
+    private final ExprList exprs ;
+    // Same order as exprs; null for an expression that is not a comparison with a constant.
+    private final Comparison[] comparisons ;
+    private final NodeTable nodeTable ;
+    private final ExecutionContext execCxt ;
+
+    public InlineFilter(ExprList exprs, NodeTable nodeTable, ExecutionContext execCxt)
+    {
+        this.exprs = exprs ;
+        this.nodeTable = nodeTable ;
+        this.execCxt = execCxt ;
+        this.comparisons = new Comparison[exprs.size()] ;
+        for ( int i = 0 ; i < exprs.size() ; i++ )
+            comparisons[i] = Comparison.create(exprs.get(i)) ;
+    }
+
+    @Override
+    public boolean accept(BindingNodeId bindingIds)
+    {
+        Binding binding = null ;
+        for ( int i = 0 ; i < exprs.size() ; i++ )
+        {
+            if ( comparisons[i] != null )
+            {
+                int x = comparisons[i].eval(bindingIds) ;
+                if ( x == FALSE )
+                    return false ;
+                if ( x == TRUE )
+                    continue ;
+            }
+            if ( binding == null )
+                binding = new BindingTDB(bindingIds, nodeTable) ;
+            if ( ! isSatisfied(exprs.get(i), binding) )
+                return false ;
+        }
+        return true ;
+    }
+
+    // As QueryIterFilterExpr
+    private boolean isSatisfied(Expr expr, Binding binding)
+    {
+        try {
+            return expr.isSatisfied(binding, execCxt) ;
+        } catch (ExprException ex) {
+            Log.warn(this, "Expression Exception in "+expr, ex) ;
+            return false ;
+        }
+    }
+
+    /** The range of inline integers, for a variable in a slot of a tuple pattern,
+     *  that can pass the filter, or null if the filter does not restrict the variable.
+     */
+    IntegerRangeScan rangeScan(Var var, int slot)
+    {
+        BigDecimal lo = null ;
+        BigDecimal hi = null ;
+        for ( Comparison c : comparisons )
+        {
+            if ( c == null || ! c.var.equals(var) )
+                continue ;
+            BigDecimal floor = c.value.setScale(0, RoundingMode.FLOOR) ;
+            BigDecimal ceiling = c.value.setScale(0, RoundingMode.CEILING) ;
+            switch (c.op)
+            {
+                case LT: hi = min(hi, ceiling.subtract(BigDecimal.ONE)) ; break ;
+                case LE: hi = min(hi, floor) ; break ;
+                case GT: lo = max(lo, floor.add(BigDecimal.ONE)) ; break ;
+                case GE: lo = max(lo, ceiling) ; break ;
+                case EQ: lo = max(lo, ceiling) ; hi = min(hi, floor) ; break ;
+                case NE: break ;
+            }
+        }
+        if ( lo == null && hi == null )
+            return null ;
+        return new IntegerRangeScan(slot, toLong(lo, IntegerNode.MIN), toLong(hi, IntegerNode.MAX)) ;
+    }
+
+    private static BigDecimal min(BigDecimal x, BigDecimal y) { return x == null ? y : x.min(y) ; }
+    private static BigDecimal max(BigDecimal x, BigDecimal y) { return x == null ? y : x.max(y) ; }
+
+    // Within the range of inline integers, or one outside it.
+    private static long toLong(BigDecimal x, long dft)
+    {
+        if ( x == null )
+            return dft ;
+        x = x.max(BigDecimal.valueOf(IntegerNode.MIN-1)).min(BigDecimal.valueOf(IntegerNode.MAX+1)) ;
+        return x.longValue() ;
+    }
+
+    private enum Op { LT, LE, GT, GE, EQ, NE } ;
+
+    /** Comparison of a variable with a numeric constant : var op value */
+    private static class Comparison
+    {
+        final Var var ;
+        final Op op ;
+        final BigDecimal value ;
+        // The value as a long, if it is an integer in the range of inline integers.
+        final boolean isLong ;
+        final long longValue ;
+
+        static Comparison create(Expr expr)
+        {
+            if ( ! ( expr instanceof ExprFunction2 ) )
+                return null ;
+            Op op = null ;
+            if ( expr instanceof E_LessThan )                   op = Op.LT ;
+            else if ( expr instanceof E_LessThanOrEqual )       op = Op.LE ;
+            else if ( expr instanceof E_GreaterThan )           op = Op.GT ;
+            else if ( expr instanceof E_GreaterThanOrEqual )    op = Op.GE ;
+            else if ( expr instanceof E_Equals )                op = Op.EQ ;
+            else if ( expr instanceof E_NotEquals )             op = Op.NE ;
+            else
+                return null ;
+
+            Expr arg1 = ((ExprFunction2)expr).getArg1() ;
+            Expr arg2 = ((ExprFunction2)expr).getArg2() ;
+            if ( arg1.isConstant() && arg2.isVariable() )
+            {
+                // constant op var => var op' constant
+                Expr x = arg1 ; arg1 = arg2 ; arg2 = x ;
+                switch (op)
+                {
+                    case LT: op = Op.GT ; break ;
+                    case LE: op = Op.GE ; break ;
+                    case GT: op = Op.LT ; break ;
+                    case GE: op = Op.LE ; break ;
+                    default: break ;
+                }
+            }
+            if ( ! arg1.isVariable() || ! arg2.isConstant() )
+                return null ;
+            NodeValue nv = arg2.getConstant() ;
+            BigDecimal value ;
+            if ( nv.isInteger() )
+                value = new BigDecimal(nv.getInteger()) ;
+            else if ( nv.isDecimal() )
+                value = nv.getDecimal() ;
+            else
+                return null ;
+            return new Comparison(arg1.asVar(), op, value) ;
+        }
+
+        private Comparison(Var var, Op op, BigDecimal value)
+        {
+            this.var = var ;
+            this.op = op ;
+            this.value = value ;
+            boolean b = false ;
+            long x = 0 ;
+            try {
+                x = value.longValueExact() ;
+                b = ( x >= IntegerNode.MIN && x <= IntegerNode.MAX ) ;
+            } catch (ArithmeticException ex) {}
+            this.isLong = b ;
+            this.longValue = x ;
+        }
+
+        int eval(BindingNodeId bindingIds)
+        {
+            NodeId id = bindingIds.get(var) ;
+            if ( id == null )
+                return UNKNOWN ;
+            int x ;
+            switch (id.type())
+            {
+                case NodeId.INTEGER:
+                {
+                    long v = IntegerNode.unpack(id.getId()) ;
+                    if ( isLong )
+                        x = ( v < longValue ) ? -1 : ( ( v == longValue ) ? 0 : 1 ) ;
+                    else
+                        x = BigDecimal.valueOf(v).compareTo(value) ;
+                    break ;
+                }
+                case NodeId.DECIMAL:
+                    x = DecimalNode.unpackAsBigDecimal(id.getId()).compareTo(value) ;
+                    break ;
+                default:
+                    return UNKNOWN ;
+            }
+            boolean b = false ;
+            switch (op)
+            {
+                case LT: b = ( x < 0 ) ; break ;
+                case LE: b = ( x <= 0 ) ; break ;
+                case GT: b = ( x > 0 ) ; break ;
+                case GE: b = ( x >= 0 ) ; break ;
+                case EQ: b = ( x == 0 ) ; break ;
+                case NE: b = ( x != 0 ) ; break ;
+            }
+            return b ? TRUE : FALSE ;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import java.util.Iterator ;
+
+import org.apache.jena.atlas.iterator.IteratorConcat ;
+import org.apache.jena.atlas.lib.ColumnMap ;
+import org.apache.jena.atlas.lib.Tuple ;
+
+import com.hp.hpl.jena.tdb.index.TupleIndex ;
+import com.hp.hpl.jena.tdb.index.TupleIndexRecord ;
+import com.hp.hpl.jena.tdb.index.TupleTable ;
+import com.hp.hpl.jena.tdb.store.IntegerNode ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+
+/** Restrict the matches of a tuple pattern to those where one slot, if not
+ *  already fixed, is not an inline integer outside a range.
+ *  <p>
+ *  NodeIds are ordered by type, then by value, so the inline integers in the
+ *  range are a part of the index and the others can be skipped.  All the other
+ *  values that may compare as numbers (integers and decimals stored in
+ *  the node table, inline decimals) are still returned; this is only an
+ *  optimization for a filter that must still be applied to the results.
+ *  Other inline values (dates, booleans) are skipped.
+ */
+final class IntegerRangeScan
+{
+    private static final NodeId startInteger = startOfType(NodeId.INTEGER) ;
+    private static final NodeId startDecimal = startOfType(NodeId.DECIMAL) ;
+    private static final NodeId startDate    = startOfType(NodeId.DATE) ;
+
+    private final int slot ;
+    private final long lo ;
+    private final long hi ;
+
+    /** The slot, in natural tuple order, and the range lo to hi inclusive */
+    IntegerRangeScan(int slot, long lo, long hi)
+    {
+        this.slot = slot ;
+        this.lo = Math.max(lo, IntegerNode.MIN) ;
+        this.hi = Math.min(hi, IntegerNode.MAX) ;
+    }
+
+    /** Find the matches for a pattern, or return null if the range is not
+     *  usable (the slot is fixed, or there is no index with the slot
+     *  following the fixed slots of the pattern).
+     */
+    Iterator<Tuple<NodeId>> find(TupleTable tupleTable, NodeId[] ids)
+    {
+        if ( ! NodeId.isAny(ids[slot]) )
+            return null ;
+        TupleIndexRecord index = chooseIndex(tupleTable, ids) ;
+        if ( index == null )
+            return null ;
+
+        Tuple<NodeId> pattern = Tuple.create(ids) ;
+        IteratorConcat<Tuple<NodeId>> iter = new IteratorConcat<Tuple<NodeId>>() ;
+        // Values in the node table.
+        iter.add(index.findRange(pattern, null, startInteger)) ;
+        // Inline integers : two's complement in the value bits, so negative numbers are after positive ones.
+        if ( lo <= hi )
+        {
+            if ( lo >= 0 || hi < 0 )
+                iter.add(range(index, pattern, lo, hi)) ;
+            else
+            {
+                iter.add(range(index, pattern, 0, hi)) ;
+                iter.add(range(index, pattern, lo, -1)) ;
+            }
+        }
+        // Inline decimals.
+        iter.add(index.findRange(pattern, startDecimal, startDate)) ;
+        return iter ;
+    }
+
+    private static Iterator<Tuple<NodeId>> range(TupleIndexRecord index, Tuple<NodeId> pattern, long lo, long hi)
+    {
+        NodeId idLo = NodeId.create(IntegerNode.pack(lo)) ;
+        NodeId idHi = NodeId.create(IntegerNode.pack(hi)+1) ;
+        return index.findRange(pattern, idLo, idHi) ;
+    }
+
+    /** An index where the fixed slots of the pattern are leading, followed by the range slot */
+    private TupleIndexRecord chooseIndex(TupleTable tupleTable, NodeId[] ids)
+    {
+        for ( TupleIndex index : tupleTable.getIndexes() )
+        {
+            if ( ! ( index instanceof TupleIndexRecord ) )
+                continue ;
+            ColumnMap colMap = index.getColumnMap() ;
+            int i = 0 ;
+            while ( i < ids.length && ! NodeId.isAny(colMap.fetchSlot(i, ids)) )
+                i++ ;
+            if ( i == ids.length || colMap.fetchSlotIdx(i) != slot )
+                continue ;
+            int j = i+1 ;
+            while ( j < ids.length && NodeId.isAny(colMap.fetchSlot(j, ids)) )
+                j++ ;
+            if ( j == ids.length )
+                return (TupleIndexRecord)index ;
+        }
+        return null ;
+    }
+
+    private static NodeId startOfType(int type)
+    {
+        return NodeId.create(((long)type) << 56) ;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IntegerRangeScan["+slot+": "+lo+", "+hi+"]" ;
+    }
+}
@@ -45,6 +45,7 @@ import com.hp.hpl.jena.sparql.engine.optimizer.reorder.ReorderProc ;
 import com.hp.hpl.jena.sparql.engine.optimizer.reorder.ReorderTransformation ;
 import com.hp.hpl.jena.sparql.expr.ExprList ;
 import com.hp.hpl.jena.sparql.mgt.Explain ;
+import com.hp.hpl.jena.tdb.TDB ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
 import com.hp.hpl.jena.tdb.store.GraphTDB ;
 import com.hp.hpl.jena.tdb.store.NodeId ;
@@ -386,6 +387,36 @@ public class OpExecutorTDB1 extends OpExecutor
             return super.execute(opBGP, input) ;
         }
         
+        @Override
+        public QueryIterator execute(OpFilter opFilter, QueryIterator input)
+        {
+            // (filter (bgp ...)) or (filter (quadpattern ...)) from filter placement:
+            // evaluate the expressions in the solver, before NodeIds are turned into Nodes.
+            if ( execCxt.getContext().isTrueOrUndef(TDB.symInlineFilter) )
+            {
+                Op subOp = opFilter.getSubOp() ;
+                ExprList exprs = opFilter.getExprs() ;
+                Graph g = execCxt.getActiveGraph() ;
+                if ( OpBGP.isBGP(subOp) && g instanceof GraphTDB )
+                {
+                    BasicPattern bgp = ((OpBGP)subOp).getPattern() ;
+                    Explain.explain("Execute", bgp, execCxt.getContext()) ;
+                    GraphTDB gtdb = (GraphTDB)g ;
+                    Node gn = decideGraphNode(gtdb.getGraphName(), execCxt) ;
+                    return SolverLib.execute(gtdb.getDSG(), gn, bgp, input, filter, exprs, execCxt) ;
+                }
+                if ( subOp instanceof OpQuadPattern && execCxt.getDataset() instanceof DatasetGraphTDB )
+                {
+                    OpQuadPattern opQuadPattern = (OpQuadPattern)subOp ;
+                    Node gn = decideGraphNode(opQuadPattern.getGraphNode(), execCxt) ;
+                    DatasetGraphTDB ds = (DatasetGraphTDB)execCxt.getDataset() ;
+                    Explain.explain("Execute", opQuadPattern.getPattern(), execCxt.getContext()) ;
+                    return SolverLib.execute(ds, gn, opQuadPattern.getBasicPattern(), input, filter, exprs, execCxt) ;
+                }
+            }
+            return super.execute(opFilter, input) ;
+        }
+        
         @Override
         public QueryIterator execute(OpQuadPattern opQuadPattern, QueryIterator input)
         {
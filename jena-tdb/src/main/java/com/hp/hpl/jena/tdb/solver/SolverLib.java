@@ -39,10 +39,13 @@ import com.hp.hpl.jena.sparql.engine.binding.Binding ;
 import com.hp.hpl.jena.sparql.engine.binding.BindingFactory ;
 import com.hp.hpl.jena.sparql.engine.binding.BindingMap ;
 import com.hp.hpl.jena.sparql.engine.iterator.QueryIterNullIterator ;
+import com.hp.hpl.jena.sparql.expr.ExprList ;
+import com.hp.hpl.jena.tdb.TDB ;
 import com.hp.hpl.jena.tdb.TDBException ;
 import com.hp.hpl.jena.tdb.lib.NodeLib ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTupleTable ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTupleTableView ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
 import com.hp.hpl.jena.tdb.store.GraphTDB ;
 import com.hp.hpl.jena.tdb.store.NodeId ;
@@ -53,6 +56,11 @@ public class SolverLib
 {
     private static Logger log = LoggerFactory.getLogger(SolverLib.class) ; 
     
+    /** Default number of input bindings matched together by each step of a BGP.
+     *  Batching is off by default: a batch is read before the first result
+     *  of the step, and results come in index order, not input order. */
+    public static final int DefaultBatchSize = 1 ;
+    
     /** Non-reordering execution of a basic graph pattern, given a iterator of bindings as input */ 
     public static QueryIterator execute(GraphTDB graph, BasicPattern pattern, 
                                         QueryIterator input, Filter<Tuple<NodeId>> filter,
@@ -60,7 +68,7 @@ public class SolverLib
     {
         // Maybe default graph or named graph.
         NodeTupleTable ntt = graph.getNodeTupleTable() ;
-        return execute(ntt, graph.getGraphName(), pattern, input, filter, execCxt) ;
+        return execute(ntt, graph.getGraphName(), pattern, input, filter, null, execCxt) ;
     }
     
     /** Non-reordering execution of a quad pattern, given a iterator of bindings as input.
@@ -70,9 +78,20 @@ public class SolverLib
     public static QueryIterator execute(DatasetGraphTDB ds, Node graphNode, BasicPattern pattern,
                                         QueryIterator input, Filter<Tuple<NodeId>> filter,
                                         ExecutionContext execCxt)
+    {
+        return execute(ds, graphNode, pattern, input, filter, null, execCxt) ;
+    }
+    
+    /** Non-reordering execution of a quad pattern, given a iterator of bindings as input,
+     *  and with the expressions of a FILTER evaluated on the results, before they are
+     *  converted to Nodes. GraphNode as {@link #execute(DatasetGraphTDB, Node, BasicPattern, QueryIterator, Filter, ExecutionContext)}. 
+     */ 
+    public static QueryIterator execute(DatasetGraphTDB ds, Node graphNode, BasicPattern pattern,
+                                        QueryIterator input, Filter<Tuple<NodeId>> filter,
+                                        ExprList exprs, ExecutionContext execCxt)
     {
         NodeTupleTable ntt = ds.chooseNodeTupleTable(graphNode) ;
-        return execute(ntt, graphNode, pattern, input, filter, execCxt) ;
+        return execute(ntt, graphNode, pattern, input, filter, exprs, execCxt) ;
     }
     
     public static Iterator<BindingNodeId> convertToIds(Iterator<Binding> iterBindings, NodeTable nodeTable)
@@ -90,7 +109,7 @@ public class SolverLib
 
     private static QueryIterator execute(NodeTupleTable nodeTupleTable, Node graphNode, BasicPattern pattern, 
                                          QueryIterator input, Filter<Tuple<NodeId>> filter,
-                                         ExecutionContext execCxt)
+                                         ExprList exprs, ExecutionContext execCxt)
     {
         if ( Quad.isUnionGraph(graphNode) )
             graphNode = Node.ANY ;
@@ -115,19 +134,40 @@ public class SolverLib
         Iterator<BindingNodeId> chain = Iter.map(input, SolverLib.convFromBinding(nodeTable)) ;
         List<Abortable> killList = new ArrayList<Abortable>() ;
         
-        for ( Triple triple : triples )
+        // Merge joins need the index order of the tuple table itself (not a view)
+        // and can't be used when making quads into unique triples. 
+        boolean mergeJoin = ! anyGraph && ! ( nodeTupleTable instanceof NodeTupleTableView ) 
+                            && execCxt.getContext().isTrueOrUndef(TDB.symMergeJoin) ;
+        // Batches are sorted, and ranges scanned, using the indexes of the tuple table itself.
+        boolean isView = ( nodeTupleTable instanceof NodeTupleTableView ) ; 
+        int batchSize = isView ? 1 : execCxt.getContext().getInt(TDB.symSolverBatchSize, DefaultBatchSize) ;
+        InlineFilter inlineFilter = ( exprs == null ) ? null : new InlineFilter(exprs, nodeTable, execCxt) ;
+        
+        for ( int i = 0 ; i < triples.size() ; i++ )
         {
-            Tuple<Node> tuple = null ;
-            if ( graphNode == null )
-                // 3-tuples
-                tuple = Tuple.createTuple(triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+            Tuple<Node> tuple = tuple(graphNode, triples.get(i)) ;
+            if ( mergeJoin && i+1 < triples.size() )
+            {
+                Tuple<Node> tuple2 = tuple(graphNode, triples.get(i+1)) ;
+                if ( StageMergeJoin.isCandidate(tuple, tuple2) )
+                {
+                    chain = new StageMergeJoin(nodeTupleTable, chain, tuple, tuple2, filter, execCxt) ;
+                    chain = makeAbortable(chain, killList) ;
+                    i++ ;
+                    continue ;
+                }
+            }
+            IntegerRangeScan range = ( inlineFilter == null || isView ) ? null : rangeScan(inlineFilter, tuple) ;
+            if ( batchSize > 1 )
+                chain = new StageMatchTupleBatch(nodeTupleTable, chain, tuple, anyGraph, filter, range, batchSize, execCxt) ;
             else
-                // 4-tuples.
-                tuple = Tuple.createTuple(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
-            chain = solve(nodeTupleTable, tuple, anyGraph, chain, filter, execCxt) ;
+                chain = new StageMatchTuple(nodeTupleTable, chain, tuple, anyGraph, filter, range, execCxt) ;
             chain = makeAbortable(chain, killList) ; 
         }
         
+        if ( inlineFilter != null )
+            chain = Iter.filter(chain, inlineFilter) ;
+        
         // DEBUG POINT
         if ( false )
         {
@@ -152,6 +192,25 @@ public class SolverLib
         return new QueryIterTDB(iterBinding, killList, input, execCxt) ;
     }
     
+    /** The range of inline integers for the object of a tuple pattern, if it is a variable */
+    private static IntegerRangeScan rangeScan(InlineFilter inlineFilter, Tuple<Node> tuple)
+    {
+        int slot = tuple.size()-1 ;
+        Node n = tuple.get(slot) ;
+        if ( ! Var.isVar(n) )
+            return null ;
+        return inlineFilter.rangeScan(Var.alloc(n), slot) ;
+    }
+    
+    private static Tuple<Node> tuple(Node graphNode, Triple triple)
+    {
+        if ( graphNode == null )
+            // 3-tuples
+            return Tuple.createTuple(triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+        // 4-tuples.
+        return Tuple.createTuple(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+    }
+    
     /** Create an abortable iterator, storing it in the killList.
      *  Just return the input iterator if kilList is null. 
      */
@@ -200,15 +259,6 @@ public class SolverLib
         }
     }
     
-    private static Iterator<BindingNodeId> solve(NodeTupleTable nodeTupleTable, 
-                                                 Tuple<Node> tuple,
-                                                 boolean anyGraph,
-                                                 Iterator<BindingNodeId> chain, Filter<Tuple<NodeId>> filter,
-                                                 ExecutionContext execCxt)
-    {
-        return new StageMatchTuple(nodeTupleTable, chain, tuple, anyGraph, filter, execCxt) ;
-    }
-    
     // Transform : BindingNodeId ==> Binding
     private static Transform<BindingNodeId, Binding> convToBinding(final NodeTable nodeTable) {
         return new Transform<BindingNodeId, Binding>() {
@@ -42,13 +42,23 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
     private final ExecutionContext execCxt ;
     private boolean anyGraphs ;
     private Filter<Tuple<NodeId>> filter ;
+    private IntegerRangeScan range ;
 
     public StageMatchTuple(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, 
                             Tuple<Node> tuple, boolean anyGraphs, 
                             Filter<Tuple<NodeId>> filter, 
                             ExecutionContext execCxt)
+    {
+        this(nodeTupleTable, input, tuple, anyGraphs, filter, null, execCxt) ;
+    }
+
+    StageMatchTuple(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, 
+                    Tuple<Node> tuple, boolean anyGraphs, 
+                    Filter<Tuple<NodeId>> filter, IntegerRangeScan range,
+                    ExecutionContext execCxt)
     {
         super(input) ;
+        this.range = range ;
         this.filter = filter ;
         this.nodeTupleTable = nodeTupleTable ; 
         this.patternTuple = tuple ;
@@ -88,7 +98,21 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
 
         prepare(nodeTupleTable.getNodeTable(), patternTuple, input, ids, var) ;
         
-        Iterator<Tuple<NodeId>> iterMatches = nodeTupleTable.find(Tuple.create(ids)) ;  
+        Iterator<Tuple<NodeId>> iterMatches = find(nodeTupleTable, ids, anyGraphs, filter, range) ;
+        return bind(iterMatches, input, var) ;
+    }
+    
+    /** Find the tuples matching a pattern of NodeIds (null for a variable),
+     *  skipping inline integers outside the range, if any, when possible.
+     */
+    static Iterator<Tuple<NodeId>> find(NodeTupleTable nodeTupleTable, NodeId[] ids, boolean anyGraphs,
+                                        Filter<Tuple<NodeId>> filter, IntegerRangeScan range)
+    {
+        Iterator<Tuple<NodeId>> iterMatches = null ;
+        if ( range != null )
+            iterMatches = range.find(nodeTupleTable.getTupleTable(), ids) ;
+        if ( iterMatches == null )
+            iterMatches = nodeTupleTable.find(Tuple.create(ids)) ;  
         
         // ** Allow a triple or quad filter here.
         if ( filter != null )
@@ -121,8 +145,12 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
             //  No G part way through.
             iterMatches = Iter.distinctAdjacent(iterMatches) ;
         }
-        
-        // Map Tuple<NodeId> to BindingNodeId
+        return iterMatches ;
+    }
+    
+    /** Map Tuple<NodeId> to BindingNodeId, extending the input binding with the variables var */
+    static Iterator<BindingNodeId> bind(Iterator<Tuple<NodeId>> iterMatches, final BindingNodeId input, final Var[] var)
+    {
         Transform<Tuple<NodeId>, BindingNodeId> binder = new Transform<Tuple<NodeId>, BindingNodeId>()
         {
             @Override
@@ -176,7 +204,7 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return iter ;
     }
     
-    private static boolean reject(BindingNodeId output , Var var, NodeId value)
+    static boolean reject(BindingNodeId output , Var var, NodeId value)
     {
         if ( ! output.containsKey(var) )
             return false ;
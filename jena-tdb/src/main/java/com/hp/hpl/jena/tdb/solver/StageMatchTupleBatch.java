@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.Arrays ;
+import java.util.Comparator ;
+import java.util.Iterator ;
+import java.util.List ;
+
+import org.apache.jena.atlas.iterator.Filter ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.IteratorSlotted ;
+import org.apache.jena.atlas.lib.ColumnMap ;
+import org.apache.jena.atlas.lib.Tuple ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.tdb.index.TupleIndex ;
+import com.hp.hpl.jena.tdb.index.TupleTable ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTupleTable ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+
+/** Solve a tuple pattern for a batch of input bindings at a time.
+ *  <p>
+ *  The lookups for a batch are sorted into the key order of the index
+ *  they use so the B+Tree is accessed in order (neighbouring lookups follow
+ *  the same path from the root and touch the same leaf blocks) and a lookup
+ *  that is the same for several input bindings is done once.
+ *  <p>
+ *  The results are the same as {@link StageMatchTuple} but in a different order.
+ */
+public class StageMatchTupleBatch extends IteratorSlotted<BindingNodeId>
+{
+    /** Matches for a repeated lookup are kept, and reused, up to this number */
+    private static final int MaxShared = 10000 ;
+
+    private final NodeTupleTable nodeTupleTable ;
+    private final Iterator<BindingNodeId> input ;
+    private final Tuple<Node> patternTuple ;
+    private final int batchSize ;
+    private final boolean anyGraphs ;
+    private final Filter<Tuple<NodeId>> filter ;
+    private final IntegerRangeScan range ;
+
+    // The current batch.
+    private final List<Lookup> batch ;
+    private int batchIdx = 0 ;
+    private Iterator<BindingNodeId> current = null ;
+
+    // The matches of the last lookup, if kept for the next lookup.
+    private NodeId[] sharedIds = null ;
+    private List<Tuple<NodeId>> shared = null ;
+
+    StageMatchTupleBatch(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input,
+                         Tuple<Node> tuple, boolean anyGraphs,
+                         Filter<Tuple<NodeId>> filter, IntegerRangeScan range,
+                         int batchSize, ExecutionContext execCxt)
+    {
+        this.range = range ;
+        this.nodeTupleTable = nodeTupleTable ;
+        this.input = input ;
+        this.patternTuple = tuple ;
+        this.anyGraphs = anyGraphs ;
+        this.filter = filter ;
+        this.batchSize = batchSize ;
+        this.batch = new ArrayList<Lookup>(batchSize) ;
+    }
+
+    /** One input binding and the lookup for it */
+    private static class Lookup
+    {
+        final BindingNodeId binding ;
+        final NodeId[] ids ;
+        final Var[] vars ;
+        // Sort key : the index to be used, and the ids in the order of that index.
+        int indexNum ;
+        NodeId[] key ;
+
+        Lookup(BindingNodeId binding, NodeId[] ids, Var[] vars)
+        {
+            this.binding = binding ;
+            this.ids = ids ;
+            this.vars = vars ;
+        }
+    }
+
+    @Override
+    protected boolean hasMore()     { return true ; }
+
+    @Override
+    protected BindingNodeId moveToNext()
+    {
+        for ( ;; )
+        {
+            if ( current != null && current.hasNext() )
+                return current.next() ;
+            current = null ;
+            if ( batchIdx >= batch.size() && ! fillBatch() )
+                return null ;
+            Lookup lookup = batch.get(batchIdx++) ;
+            if ( doesNotExist(lookup.ids) )
+                continue ;
+            boolean repeated = ( batchIdx < batch.size() && Arrays.equals(lookup.ids, batch.get(batchIdx).ids) ) ;
+            current = StageMatchTuple.bind(matches(lookup, repeated), lookup.binding, lookup.vars) ;
+        }
+    }
+
+    private Iterator<Tuple<NodeId>> matches(Lookup lookup, boolean repeated)
+    {
+        if ( sharedIds != null && Arrays.equals(sharedIds, lookup.ids) )
+            return shared.iterator() ;
+        sharedIds = null ;
+        shared = null ;
+        Iterator<Tuple<NodeId>> iter = StageMatchTuple.find(nodeTupleTable, lookup.ids, anyGraphs, filter, range) ;
+        if ( ! repeated )
+            return iter ;
+        List<Tuple<NodeId>> matches = new ArrayList<Tuple<NodeId>>() ;
+        while ( iter.hasNext() && matches.size() < MaxShared )
+            matches.add(iter.next()) ;
+        if ( iter.hasNext() )
+            // Too many to keep - the next lookup is done again.
+            return Iter.concat(matches.iterator(), iter) ;
+        sharedIds = lookup.ids ;
+        shared = matches ;
+        return matches.iterator() ;
+    }
+
+    /** Read the next batch of input and sort it */
+    private boolean fillBatch()
+    {
+        batch.clear() ;
+        batchIdx = 0 ;
+        sharedIds = null ;
+        shared = null ;
+        TupleTable tupleTable = nodeTupleTable.getTupleTable() ;
+        TupleIndex[] indexes = tupleTable.getIndexes() ;
+        while ( batch.size() < batchSize && input.hasNext() )
+        {
+            BindingNodeId binding = input.next() ;
+            NodeId[] ids = new NodeId[patternTuple.size()] ;
+            Var[] vars = new Var[patternTuple.size()] ;
+            StageMatchTuple.prepare(nodeTupleTable.getNodeTable(), patternTuple, binding, ids, vars) ;
+            Lookup lookup = new Lookup(binding, ids, vars) ;
+            TupleIndex index = tupleTable.chooseIndex(Tuple.create(ids)) ;
+            lookup.indexNum = Arrays.asList(indexes).indexOf(index) ;
+            lookup.key = indexOrder(index.getColumnMap(), ids) ;
+            batch.add(lookup) ;
+        }
+        if ( batch.size() > 1 )
+            Collections.sort(batch, lookupOrder) ;
+        return ! batch.isEmpty() ;
+    }
+
+    private static NodeId[] indexOrder(ColumnMap colMap, NodeId[] ids)
+    {
+        NodeId[] key = new NodeId[ids.length] ;
+        for ( int i = 0 ; i < ids.length ; i++ )
+            key[i] = colMap.fetchSlot(i, ids) ;
+        return key ;
+    }
+
+    private static boolean doesNotExist(NodeId[] ids)
+    {
+        for ( NodeId id : ids )
+            if ( NodeId.isDoesNotExist(id) )
+                return true ;
+        return false ;
+    }
+
+    private static Comparator<Lookup> lookupOrder = new Comparator<Lookup>() {
+        @Override
+        public int compare(Lookup lookup1, Lookup lookup2)
+        {
+            if ( lookup1.indexNum != lookup2.indexNum )
+                return lookup1.indexNum < lookup2.indexNum ? -1 : 1 ;
+            for ( int i = 0 ; i < lookup1.key.length ; i++ )
+            {
+                int x = compareSlot(lookup1.key[i], lookup2.key[i]) ;
+                if ( x != 0 )
+                    return x ;
+            }
+            return 0 ;
+        }
+    } ;
+
+    /** Variables first, then unsigned order of the NodeIds as in the index */
+    private static int compareSlot(NodeId id1, NodeId id2)
+    {
+        if ( id1 == null || id2 == null )
+            return ( id1 == id2 ) ? 0 : ( id1 == null ? -1 : 1 ) ;
+        long x1 = id1.getId()^Long.MIN_VALUE ;
+        long x2 = id2.getId()^Long.MIN_VALUE ;
+        return ( x1 < x2 ) ? -1 : ( ( x1 == x2 ) ? 0 : 1 ) ;
+    }
+}
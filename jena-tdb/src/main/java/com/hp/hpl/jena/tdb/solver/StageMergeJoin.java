@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+
+import org.apache.jena.atlas.iterator.Filter ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.IteratorSlotted ;
+import org.apache.jena.atlas.iterator.PeekIterator ;
+import org.apache.jena.atlas.iterator.RepeatApplyIterator ;
+import org.apache.jena.atlas.lib.ColumnMap ;
+import org.apache.jena.atlas.lib.Tuple ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.sparql.core.Var ;
+import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
+import com.hp.hpl.jena.tdb.index.TupleIndex ;
+import com.hp.hpl.jena.tdb.index.TupleIndexRecord ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTupleTable ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+import com.hp.hpl.jena.tdb.sys.DatasetControl ;
+
+/** Solve two tuple patterns that share a variable by merging two index scans
+ *  that are both in order of that variable (a merge join), instead of probing
+ *  an index for the second pattern once for each match of the first.
+ *  <p>
+ *  This applies when, after substituting the incoming binding, the fixed slots
+ *  of each pattern are the leading slots of an index and the shared variable is
+ *  the next slot of that index, for example {@code (?x :p :o1) (?x :q :o2)}
+ *  (POS for both) or {@code (?s :p ?d) (?d :q :o)}. Otherwise the patterns are
+ *  solved one after the other with {@link StageMatchTuple}.
+ *  <p>
+ *  When one scan is behind the other by more than a few tuples, it restarts
+ *  its index scan from the other side's current value rather than step
+ *  through the gap.
+ */
+public class StageMergeJoin extends RepeatApplyIterator<BindingNodeId>
+{
+    /** Number of tuples to step through before restarting the scan further on */
+    private static final int SeekThreshold = 16 ;
+
+    private final NodeTupleTable nodeTupleTable ;
+    private final Tuple<Node> patternTuple1 ;
+    private final Tuple<Node> patternTuple2 ;
+    private final Filter<Tuple<NodeId>> filter ;
+    private final ExecutionContext execCxt ;
+
+    public StageMergeJoin(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input,
+                          Tuple<Node> tuple1, Tuple<Node> tuple2,
+                          Filter<Tuple<NodeId>> filter,
+                          ExecutionContext execCxt)
+    {
+        super(input) ;
+        this.nodeTupleTable = nodeTupleTable ;
+        this.patternTuple1 = tuple1 ;
+        this.patternTuple2 = tuple2 ;
+        this.filter = filter ;
+        this.execCxt = execCxt ;
+    }
+
+    /** Whether two patterns might be solved by a merge join: they have a
+     *  variable in common and each has at least one fixed term.
+     */
+    public static boolean isCandidate(Tuple<Node> tuple1, Tuple<Node> tuple2)
+    {
+        if ( ! hasFixedTerm(tuple1) || ! hasFixedTerm(tuple2) )
+            return false ;
+        for ( Node n1 : tuple1 )
+        {
+            if ( ! Var.isVar(n1) )
+                continue ;
+            for ( Node n2 : tuple2 )
+                if ( n1.equals(n2) )
+                    return true ;
+        }
+        return false ;
+    }
+
+    private static boolean hasFixedTerm(Tuple<Node> tuple)
+    {
+        for ( Node n : tuple )
+            if ( ! Var.isVar(n) )
+                return true ;
+        return false ;
+    }
+
+    @Override
+    protected Iterator<BindingNodeId> makeNextStage(BindingNodeId input)
+    {
+        int N = patternTuple1.size() ;
+        NodeId[] ids1 = new NodeId[N] ;
+        Var[] vars1 = new Var[N] ;
+        NodeId[] ids2 = new NodeId[N] ;
+        Var[] vars2 = new Var[N] ;
+        StageMatchTuple.prepare(nodeTupleTable.getNodeTable(), patternTuple1, input, ids1, vars1) ;
+        StageMatchTuple.prepare(nodeTupleTable.getNodeTable(), patternTuple2, input, ids2, vars2) ;
+
+        if ( doesNotExist(ids1) || doesNotExist(ids2) )
+            return Iter.nullIterator() ;
+
+        for ( int j1 = 0 ; j1 < N ; j1++ )
+        {
+            if ( vars1[j1] == null )
+                continue ;
+            for ( int j2 = 0 ; j2 < N ; j2++ )
+            {
+                if ( ! vars1[j1].equals(vars2[j2]) )
+                    continue ;
+                TupleIndexRecord index1 = chooseIndex(ids1, j1) ;
+                TupleIndexRecord index2 = chooseIndex(ids2, j2) ;
+                if ( index1 != null && index2 != null )
+                {
+                    Scan scan1 = new Scan(index1, Tuple.create(ids1), j1) ;
+                    Scan scan2 = new Scan(index2, Tuple.create(ids2), j2) ;
+                    return new MergeJoin(input, scan1, vars1, scan2, vars2) ;
+                }
+            }
+        }
+
+        // No suitable indexes : nested loop.
+        Iterator<BindingNodeId> chain = Iter.singleton(input) ;
+        chain = new StageMatchTuple(nodeTupleTable, chain, patternTuple1, false, filter, execCxt) ;
+        return new StageMatchTuple(nodeTupleTable, chain, patternTuple2, false, filter, execCxt) ;
+    }
+
+    private static boolean doesNotExist(NodeId[] ids)
+    {
+        for ( NodeId id : ids )
+            if ( NodeId.isDoesNotExist(id) )
+                return true ;
+        return false ;
+    }
+
+    /** Find an index where the fixed slots (non-null ids) lead and are followed by the slot j */
+    private TupleIndexRecord chooseIndex(NodeId[] ids, int j)
+    {
+        int numFixed = 0 ;
+        for ( NodeId id : ids )
+            if ( id != null )
+                numFixed++ ;
+        if ( numFixed == 0 )
+            return null ;
+
+        for ( TupleIndex index : nodeTupleTable.getTupleTable().getIndexes() )
+        {
+            if ( ! ( index instanceof TupleIndexRecord ) )
+                continue ;
+            ColumnMap colMap = index.getColumnMap() ;
+            boolean leading = true ;
+            for ( int i = 0 ; i < numFixed ; i++ )
+            {
+                if ( ids[colMap.fetchSlotIdx(i)] == null )
+                {
+                    leading = false ;
+                    break ;
+                }
+            }
+            if ( leading && colMap.fetchSlotIdx(numFixed) == j )
+                return (TupleIndexRecord)index ;
+        }
+        return null ;
+    }
+
+    /** Unsigned comparison of NodeIds - the order of the keys in an index */
+    private static int compare(NodeId id1, NodeId id2)
+    {
+        long x1 = id1.getId()^Long.MIN_VALUE ;
+        long x2 = id2.getId()^Long.MIN_VALUE ;
+        return ( x1 < x2 ) ? -1 : ( ( x1 == x2 ) ? 0 : 1 ) ;
+    }
+
+    /** One side of the merge : a scan of an index in order of the join slot. */
+    private class Scan
+    {
+        private final TupleIndexRecord index ;
+        private final Tuple<NodeId> pattern ;
+        private final int slot ;
+        private PeekIterator<Tuple<NodeId>> iter ;
+
+        Scan(TupleIndexRecord index, Tuple<NodeId> pattern, int slot)
+        {
+            this.index = index ;
+            this.pattern = pattern ;
+            this.slot = slot ;
+            start(null) ;
+        }
+
+        private void start(NodeId from)
+        {
+            DatasetControl policy = nodeTupleTable.getPolicy() ;
+            Iterator<Tuple<NodeId>> tuples ;
+            try {
+                policy.startRead() ;
+                tuples = policy.iteratorControl(index.findFrom(pattern, from)) ;
+            } finally { policy.finishRead() ; }
+            if ( filter != null )
+                tuples = Iter.filter(tuples, filter) ;
+            iter = PeekIterator.create(tuples) ;
+        }
+
+        /** The join value of the current tuple, or null if the scan is finished. */
+        NodeId key()
+        {
+            if ( ! iter.hasNext() )
+                return null ;
+            return iter.peek().get(slot) ;
+        }
+
+        /** Move to the first tuple with join value of target or later */
+        void advanceTo(NodeId target)
+        {
+            for ( int i = 0 ; i < SeekThreshold ; i++ )
+            {
+                NodeId k = key() ;
+                if ( k == null || compare(k, target) >= 0 )
+                    return ;
+                iter.next() ;
+            }
+            start(target) ;
+        }
+
+        /** The tuples with the join value k, which must be the current join value */
+        List<Tuple<NodeId>> group(NodeId k)
+        {
+            List<Tuple<NodeId>> group = new ArrayList<Tuple<NodeId>>() ;
+            while ( iter.hasNext() && iter.peek().get(slot).equals(k) )
+                group.add(iter.next()) ;
+            return group ;
+        }
+    }
+
+    private static class MergeJoin extends IteratorSlotted<BindingNodeId>
+    {
+        private final BindingNodeId input ;
+        private final Scan scan1 ;
+        private final Var[] vars1 ;
+        private final Scan scan2 ;
+        private final Var[] vars2 ;
+        // The tuples for the current join value.
+        private List<Tuple<NodeId>> group1 = null ;
+        private List<Tuple<NodeId>> group2 = null ;
+        private int idx1 = 0 ;
+        private int idx2 = 0 ;
+
+        MergeJoin(BindingNodeId input, Scan scan1, Var[] vars1, Scan scan2, Var[] vars2)
+        {
+            this.input = input ;
+            this.scan1 = scan1 ;
+            this.vars1 = vars1 ;
+            this.scan2 = scan2 ;
+            this.vars2 = vars2 ;
+        }
+
+        @Override
+        protected boolean hasMore()     { return true ; }
+
+        @Override
+        protected BindingNodeId moveToNext()
+        {
+            for ( ;; )
+            {
+                // Cross product of the current groups.
+                while ( group1 != null && idx1 < group1.size() )
+                {
+                    if ( idx2 >= group2.size() )
+                    {
+                        idx1++ ;
+                        idx2 = 0 ;
+                        continue ;
+                    }
+                    BindingNodeId b = bind(group1.get(idx1), group2.get(idx2++)) ;
+                    if ( b != null )
+                        return b ;
+                }
+                if ( ! nextGroups() )
+                    return null ;
+            }
+        }
+
+        private boolean nextGroups()
+        {
+            for ( ;; )
+            {
+                NodeId k1 = scan1.key() ;
+                NodeId k2 = scan2.key() ;
+                if ( k1 == null || k2 == null )
+                    return false ;
+                int x = compare(k1, k2) ;
+                if ( x < 0 )
+                    scan1.advanceTo(k2) ;
+                else if ( x > 0 )
+                    scan2.advanceTo(k1) ;
+                else
+                {
+                    group1 = scan1.group(k1) ;
+                    group2 = scan2.group(k2) ;
+                    idx1 = 0 ;
+                    idx2 = 0 ;
+                    return true ;
+                }
+            }
+        }
+
+        private BindingNodeId bind(Tuple<NodeId> tuple1, Tuple<NodeId> tuple2)
+        {
+            BindingNodeId output = new BindingNodeId(input) ;
+            if ( ! bind(output, vars1, tuple1) || ! bind(output, vars2, tuple2) )
+                return null ;
+            return output ;
+        }
+
+        private static boolean bind(BindingNodeId output, Var[] vars, Tuple<NodeId> tuple)
+        {
+            for ( int i = 0 ; i < vars.length ; i++ )
+            {
+                Var v = vars[i] ;
+                if ( v == null )
+                    continue ;
+                NodeId id = tuple.get(i) ;
+                if ( StageMatchTuple.reject(output, v, id) )
+                    return false ;
+                output.put(v, id) ;
+            }
+            return true ;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.hpl.jena.tdb.solver.stats;
+
+import java.util.Arrays ;
+
+/** Estimate the number of distinct items in a stream in fixed space.
+ *  <p>
+ *  This is a "k minimum values" sketch: the items are hashed and only the
+ *  k smallest hash values are kept. If there are fewer than k distinct items,
+ *  the count is exact (up to hash collisions); otherwise the estimate is
+ *  (k-1)/h where h is the k'th smallest hash value scaled to [0,1).
+ *  The relative error is about 1/sqrt(k).
+ */
+class DistinctCounter
+{
+    public static final int DefaultSize = 256 ;
+
+    private final int k ;
+    // Sorted, no duplicates, non-negative.
+    private long[] hashes = new long[8] ;
+    private int size = 0 ;
+
+    DistinctCounter() { this(DefaultSize) ; }
+
+    DistinctCounter(int k)
+    {
+        this.k = k ;
+    }
+
+    void add(Object item)
+    {
+        long h = hash(item.hashCode()) ;
+        if ( size == k && h >= hashes[size-1] )
+            return ;
+        int idx = Arrays.binarySearch(hashes, 0, size, h) ;
+        if ( idx >= 0 )
+            return ;
+        idx = -(idx+1) ;
+        if ( size < k )
+        {
+            if ( size == hashes.length )
+                hashes = Arrays.copyOf(hashes, Math.min(k, 2*hashes.length)) ;
+            size++ ;
+        }
+        // Shift up, dropping the largest if full.
+        System.arraycopy(hashes, idx, hashes, idx+1, size-idx-1) ;
+        hashes[idx] = h ;
+    }
+
+    /** The estimated number of distinct items */
+    long estimate()
+    {
+        if ( size < k )
+            return size ;
+        // Hashes are 63 bit.
+        double x = hashes[k-1] / (double)Long.MAX_VALUE ;
+        return Math.round((k-1)/x) ;
+    }
+
+    // Spread the bits of a hash code over a 63 bit value (MurmurHash3 finalizer).
+    private static long hash(int hashCode)
+    {
+        long h = hashCode ;
+        h ^= h >>> 33 ;
+        h *= 0xff51afd7ed558ccdL ;
+        h ^= h >>> 33 ;
+        h *= 0xc4ceb9fe1a85ec53L ;
+        h ^= h >>> 33 ;
+        return h >>> 1 ;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.hpl.jena.tdb.solver.stats;
+
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.Comparator ;
+import java.util.HashMap ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.lib.Pair ;
+
+/** Find the most frequent items in a stream in fixed space ("space saving" algorithm).
+ *  <p>
+ *  At most {@code capacity} items are tracked. When a new item arrives and
+ *  the table is full, the item with the smallest count is replaced and the new item
+ *  inherits that count, recorded as its possible overestimate. Any item that
+ *  occurs more than n/capacity times in a stream of n items is guaranteed to be tracked.
+ */
+class FrequentItems<T>
+{
+    public static final int DefaultCapacity = 32 ;
+
+    private final int capacity ;
+    // Item -> (count, error)
+    private final Map<T, long[]> counters ;
+
+    FrequentItems() { this(DefaultCapacity) ; }
+
+    FrequentItems(int capacity)
+    {
+        this.capacity = capacity ;
+        this.counters = new HashMap<T, long[]>(2*capacity) ;
+    }
+
+    void add(T item)
+    {
+        long[] x = counters.get(item) ;
+        if ( x != null )
+        {
+            x[0]++ ;
+            return ;
+        }
+        if ( counters.size() < capacity )
+        {
+            counters.put(item, new long[]{1, 0}) ;
+            return ;
+        }
+        T minItem = null ;
+        long[] min = null ;
+        for ( Map.Entry<T, long[]> e : counters.entrySet() )
+        {
+            if ( min == null || e.getValue()[0] < min[0] )
+            {
+                minItem = e.getKey() ;
+                min = e.getValue() ;
+            }
+        }
+        counters.remove(minItem) ;
+        // Reuse the array.
+        min[1] = min[0] ;
+        min[0]++ ;
+        counters.put(item, min) ;
+    }
+
+    /** The items that certainly occurred at least {@code threshold} times,
+     *  with their (over)estimated counts, most frequent first.
+     */
+    List<Pair<T, Long>> frequent(long threshold)
+    {
+        List<Pair<T, Long>> results = new ArrayList<Pair<T, Long>>() ;
+        for ( Map.Entry<T, long[]> e : counters.entrySet() )
+        {
+            long[] x = e.getValue() ;
+            if ( x[0]-x[1] >= threshold )
+                results.add(new Pair<T, Long>(e.getKey(), x[0])) ;
+        }
+        Collections.sort(results, new Comparator<Pair<T, Long>>() {
+            @Override
+            public int compare(Pair<T, Long> e1, Pair<T, Long> e2)
+            {
+                return e2.getRight().compareTo(e1.getRight()) ;
+            }}) ;
+        return results ;
+    }
+}
@@ -27,6 +27,7 @@ import java.io.OutputStream ;
 import java.util.Iterator ;
 import java.util.Map ;
 import java.util.Map.Entry ;
+import java.util.Set ;
 
 import org.apache.jena.atlas.logging.Log ;
 
@@ -44,36 +45,28 @@ import com.hp.hpl.jena.sparql.util.Utils ;
 public class Stats
 {
     static Item ZERO = Item.createNode(NodeFactoryExtra.intToNode(0)) ;
+    static Item VAR  = Item.createSymbol("VAR") ;
+    static Item TERM = Item.createSymbol("TERM") ;
+    static Item ANY  = Item.createSymbol("ANY") ;
 
     /** Write statistics */
     static public void write(String filename, StatsResults stats)
-    {
-        write(filename, stats.getPredicates(), stats.getTypes(), stats.getCount()) ;
-    }
-    
-    /** Write statistics */
-    static public void write(OutputStream output, StatsResults stats)
-    {
-        write(output, stats.getPredicates(), stats.getTypes(), stats.getCount()) ;
-    }
-    
-    static private void write(String filename, Map<Node, Integer> predicateStats, Map<Node, Integer> typeStats, long statsTotal)
     {
         // Write out the stats
         try {
             OutputStream statsOut = new FileOutputStream(filename) ;
-            write(statsOut, predicateStats, typeStats, statsTotal) ;
+            write(statsOut, stats) ;
             statsOut.close() ;
         } catch (IOException ex)
         { Log.warn(Stats.class, "Problem when writing stats file", ex) ; }
     }
     
-    static private void write(OutputStream output, Map<Node, Integer> predicateStats, Map<Node, Integer> typeStats, long statsTotal)
+    /** Write statistics */
+    static public void write(OutputStream output, StatsResults stats)
     {
-        Item item = format(predicateStats, typeStats, statsTotal) ;
+        Item item = format(stats) ;
         ItemWriter.write(output, item) ;
     }
-    
 
     /** Gather statistics, any graph */
     public static StatsCollector gather(Graph graph)
@@ -90,37 +83,65 @@ public class Stats
         return stats ;
     }
 
-    public static Item format(StatsResults stats)
-    {
-        return format(stats.getPredicates(), stats.getTypes(), stats.getCount()) ;
-    }
-    
-    private static Item format(Map<Node, Integer> predicates, Map<Node, Integer> types, long count)
+    public static Item format(StatsResults results)
     {
         Item stats = Item.createList() ;
         ItemList statsList = stats.getList() ;
         statsList.add("stats") ;
 
+        long count = results.getCount() ;
         Item meta = createTagged(StatsMatcher.META) ;
         addPair(meta.getList(), "timestamp", NodeFactoryExtra.nowAsDateTime()) ;
         addPair(meta.getList(), "run@",  Utils.nowAsString()) ;
         if ( count >= 0 )
             addPair(meta.getList(), StatsMatcher.COUNT, NodeFactoryExtra.intToNode((int)count)) ;
+        // The optimizer only uses characteristic sets as a bound if they are all there.
+        if ( ! results.getCharacteristicSets().isEmpty() )
+            addPair(meta.getList(), Item.createSymbol(StatsMatcher.CHARSET), 
+                    Item.createSymbol(results.isCharacteristicSetsComplete() ? "true" : "false")) ;
         statsList.add(meta) ;
         
-        for ( Entry<Node, Integer> entry : types.entrySet() )
+        for ( Entry<Node, Integer> entry : results.getTypes().entrySet() )
         {
             Node type = entry.getKey() ;
             addTypeTriple(statsList, type, NodeFactoryExtra.intToNode(entry.getValue()) ) ;
         }
         
-        for ( Entry<Node, Integer> entry : predicates.entrySet() )
+        for ( Entry<Node, Integer> entry : results.getPredicates().entrySet() )
         {
             Node node = entry.getKey() ;
             // Skip these - they just clog things up!
             if ( node.getURI().startsWith("http://www.w3.org/1999/02/22-rdf-syntax-ns#_") )
                 continue ;
-            addPair(statsList, node, NodeFactoryExtra.intToNode(entry.getValue())) ;
+            int numTriples = entry.getValue() ;
+            boolean isType = NodeConst.nodeRDFType.equals(node) ;
+            
+            // Specific patterns come before the abbreviation - the first match is used.
+            // rdf:type objects are covered by the type triples.
+            Map<Node, Integer> frequent = results.getFrequentObjects().get(node) ;
+            if ( frequent != null && ! isType )
+            {
+                for ( Entry<Node, Integer> e : frequent.entrySet() )
+                    addTriple(statsList, VAR, node, Item.createNode(e.getKey()), NodeFactoryExtra.intToNode(e.getValue())) ;
+            }
+            Integer numSubjects = results.getDistinctSubjects().get(node) ;
+            if ( numSubjects != null && numSubjects > 0 )
+                addTriple(statsList, TERM, node, ANY, NodeFactoryExtra.doubleToNode(average(numTriples, numSubjects))) ;
+            Integer numObjects = results.getDistinctObjects().get(node) ;
+            if ( numObjects != null && numObjects > 0 && ! isType )
+                addTriple(statsList, ANY, node, TERM, NodeFactoryExtra.doubleToNode(average(numTriples, numObjects))) ;
+            
+            addPair(statsList, node, NodeFactoryExtra.intToNode(numTriples)) ;
+        }
+        
+        for ( Entry<Set<Node>, Integer> entry : results.getCharacteristicSets().entrySet() )
+        {
+            // (charset count <p1> <p2> ...)
+            Item charSet = createTagged(StatsMatcher.CHARSET) ;
+            charSet.getList().add(NodeFactoryExtra.intToNode(entry.getValue())) ;
+            for ( Node p : entry.getKey() )
+                charSet.getList().add(p) ;
+            statsList.add(charSet) ;
         }
         
         // Add a default rule.
@@ -129,6 +150,21 @@ public class Stats
         return stats ;
     }
 
+    private static double average(int total, int n)
+    {
+        // Round to make the file readable.
+        return Math.round(100.0*total/n)/100.0 ;
+    }
+
+    private static void addTriple(ItemList statsList, Item subj, Node pred, Item obj, Node weight)
+    {
+        ItemList triple = new ItemList() ;
+        triple.add(subj) ;
+        triple.add(pred) ;
+        triple.add(obj) ;
+        addPair(statsList, Item.createList(triple), Item.createNode(weight)) ;
+    }
+
     private static void addTypeTriple(ItemList statsList, Node type, Node intCount)
     {
         ItemList triple = new ItemList() ;
@@ -18,19 +18,22 @@
 
 package com.hp.hpl.jena.tdb.solver.stats;
 
-import java.util.Map ;
-
 import com.hp.hpl.jena.graph.Node ;
 import com.hp.hpl.jena.sparql.graph.NodeConst ;
 
 /** Statistics collector, general purpose, uses Nodes */
 public class StatsCollector extends StatsCollectorBase<Node>
 {
-    public StatsCollector() { super(NodeConst.nodeRDFType) ; }
+    /** Statistics for triples in any order */
+    public StatsCollector() { this(false) ; }
+    
+    /** Statistics for triples where, if subjectOrder, all the triples for a subject
+     *  are recorded together.  Only then are the characteristic sets complete. */ 
+    public StatsCollector(boolean subjectOrder) { super(NodeConst.nodeRDFType, subjectOrder) ; }
 
     @Override
-    protected Map<Node, Integer> convert(Map<Node, Integer> map)
+    protected Node toNode(Node node)
     {
-        return map ;
+        return node ;
     }
 }
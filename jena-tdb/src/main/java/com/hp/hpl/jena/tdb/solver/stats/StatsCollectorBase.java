@@ -19,24 +19,49 @@
 package com.hp.hpl.jena.tdb.solver.stats;
 
 
-import java.util.HashMap ;
-import java.util.Map ;
-
-import com.hp.hpl.jena.graph.Node ;
+import java.util.* ;
 
 import org.apache.jena.atlas.lib.MapUtils ;
+import org.apache.jena.atlas.lib.Pair ;
+
+import com.hp.hpl.jena.graph.Node ;
 
-/** Statistics collector, general purpose */
+/** Statistics collector, general purpose.
+ *  <p>
+ *  As well as the triple count for each predicate, this gathers, in one pass
+ *  and in bounded space per predicate, estimates of the number of distinct
+ *  subjects and objects, the most frequent objects, and the characteristic
+ *  sets (the sets of predicates that occur together on a subject).
+ *  Characteristic sets assume the triples for a subject arrive together, as
+ *  they do from a scan of the SPO index; if not, a subject contributes several
+ *  partial sets.  The caller says whether the triples are in subject order.
+ *  The results record whether the characteristic sets are complete (in subject 
+ *  order, and none left out): only then does the optimizer use them to bound 
+ *  star joins.
+ */
 abstract class StatsCollectorBase<T>
 {
+    /** Maximum number of different characteristic sets tracked */
+    public static final int MaxCharacteristicSets = 10000 ;
+    /** Maximum number of characteristic sets in the results */
+    public static final int NumCharacteristicSets = 100 ;
+
     private long count = 0 ;
     private Map<T, Integer> predicates = new HashMap<T, Integer>(10000) ;
     private Map<T, Integer> types = new HashMap<T, Integer>(10000) ;
+    private Map<T, PredicateStats<T>> predicateStats = new HashMap<T, PredicateStats<T>>(10000) ;
+    private Map<Set<T>, Integer> charSets = new HashMap<Set<T>, Integer>() ;
+    // False if the triples are not in subject order, or if a set of more than 
+    // one predicate was not tracked or not in the results. 
+    private boolean charSetsComplete ;
+    private T currentSubject = null ;
+    private Set<T> currentPredicates = new HashSet<T>() ;
     private T typeTrigger ;
     
-    protected StatsCollectorBase(T typeTrigger)
+    protected StatsCollectorBase(T typeTrigger, boolean subjectOrder)
     {
         this.typeTrigger = typeTrigger ;
+        this.charSetsComplete = subjectOrder ;
     }
 
     public void record(T g, T s, T p, T o)
@@ -45,12 +70,131 @@ abstract class StatsCollectorBase<T>
         MapUtils.increment(predicates, p) ;
         if ( typeTrigger != null && typeTrigger.equals(p) )
             MapUtils.increment(types, o) ;
+        
+        PredicateStats<T> ps = predicateStats.get(p) ;
+        if ( ps == null )
+        {
+            ps = new PredicateStats<T>() ;
+            predicateStats.put(p, ps) ;
+        }
+        ps.subjects.add(s) ;
+        ps.objects.add(o) ;
+        ps.frequentObjects.add(o) ;
+        
+        if ( ! s.equals(currentSubject) )
+        {
+            endSubject() ;
+            currentSubject = s ;
+        }
+        currentPredicates.add(p) ;
     }
 
-    protected abstract Map<Node, Integer> convert(Map<T, Integer> map) ;
+    private void endSubject()
+    {
+        if ( currentPredicates.isEmpty() )
+            return ;
+        Integer x = charSets.get(currentPredicates) ;
+        if ( x != null )
+        {
+            charSets.put(currentPredicates, x+1) ;
+            currentPredicates.clear() ;
+            return ;
+        }
+        if ( charSets.size() < MaxCharacteristicSets )
+        {
+            charSets.put(currentPredicates, 1) ;
+            currentPredicates = new HashSet<T>() ;
+        }
+        else
+        {
+            if ( currentPredicates.size() > 1 )
+                charSetsComplete = false ;
+            currentPredicates.clear() ;
+        }
+    }
+
+    protected abstract Node toNode(T t) ;
+    
+    private Map<Node, Integer> convert(Map<T, Integer> map)
+    {
+        Map<Node, Integer> x = new HashMap<Node, Integer>(1000) ;
+        for ( Map.Entry<T, Integer> e : map.entrySet() )
+            x.put(toNode(e.getKey()), e.getValue()) ;
+        return x ;
+    }
     
     public StatsResults results()
     {
-        return new StatsResults(convert(predicates), convert(types), count) ;
+        endSubject() ;
+        currentSubject = null ;
+        
+        Map<Node, Integer> distinctSubjects = new HashMap<Node, Integer>(1000) ;
+        Map<Node, Integer> distinctObjects = new HashMap<Node, Integer>(1000) ;
+        Map<Node, Map<Node, Integer>> frequentObjects = new HashMap<Node, Map<Node, Integer>>(1000) ;
+        for ( Map.Entry<T, PredicateStats<T>> e : predicateStats.entrySet() )
+        {
+            Node p = toNode(e.getKey()) ;
+            PredicateStats<T> ps = e.getValue() ;
+            long numObjects = ps.objects.estimate() ;
+            distinctSubjects.put(p, asInt(ps.subjects.estimate())) ;
+            distinctObjects.put(p, asInt(numObjects)) ;
+            
+            // Only objects well above the average are of interest.
+            long average = predicates.get(e.getKey()) / Math.max(1, numObjects) ;
+            Map<Node, Integer> x = new LinkedHashMap<Node, Integer>() ;
+            for ( Pair<T, Long> item : ps.frequentObjects.frequent(Math.max(2, 2*average)) )
+                x.put(toNode(item.getLeft()), asInt(item.getRight())) ;
+            if ( ! x.isEmpty() )
+                frequentObjects.put(p, x) ;
+        }
+        
+        Map<Set<Node>, Integer> sets = characteristicSets() ;
+        return new StatsResults(convert(predicates), convert(types), count,
+                                distinctSubjects, distinctObjects, frequentObjects, 
+                                sets, charSetsComplete) ;
+    }
+    
+    // The largest characteristic sets with more than one predicate.
+    private Map<Set<Node>, Integer> characteristicSets()
+    {
+        List<Map.Entry<Set<T>, Integer>> entries = new ArrayList<Map.Entry<Set<T>, Integer>>() ;
+        for ( Map.Entry<Set<T>, Integer> e : charSets.entrySet() )
+        {
+            if ( e.getKey().size() > 1 )
+                entries.add(e) ;
+        }
+        Collections.sort(entries, new Comparator<Map.Entry<Set<T>, Integer>>() {
+            @Override
+            public int compare(Map.Entry<Set<T>, Integer> e1, Map.Entry<Set<T>, Integer> e2)
+            {
+                return e2.getValue().compareTo(e1.getValue()) ;
+            }}) ;
+        
+        Map<Set<Node>, Integer> x = new LinkedHashMap<Set<Node>, Integer>() ;
+        for ( Map.Entry<Set<T>, Integer> e : entries )
+        {
+            if ( x.size() >= NumCharacteristicSets )
+            {
+                charSetsComplete = false ;
+                break ;
+            }
+            Set<Node> preds = new LinkedHashSet<Node>() ;
+            for ( T p : e.getKey() )
+                preds.add(toNode(p)) ;
+            x.put(preds, e.getValue()) ;
+        }
+        return x ;
+    }
+    
+    private static int asInt(long x)
+    {
+        return (int)Math.min(Integer.MAX_VALUE, x) ;
+    }
+    
+    private static class PredicateStats<T>
+    {
+        final DistinctCounter subjects = new DistinctCounter() ;
+        final DistinctCounter objects = new DistinctCounter() ;
+        final FrequentItems<T> frequentObjects = new FrequentItems<T>() ;
     }
 }
@@ -18,9 +18,6 @@
 
 package com.hp.hpl.jena.tdb.solver.stats;
 
-import java.util.HashMap ;
-import java.util.Map ;
-
 import com.hp.hpl.jena.graph.Node ;
 import com.hp.hpl.jena.sparql.graph.NodeConst ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
@@ -31,9 +28,18 @@ public class StatsCollectorNodeId extends StatsCollectorBase<NodeId>
 {
     private NodeTable nodeTable ;
     
+    /** Statistics for tuples in any order */
     public StatsCollectorNodeId(NodeTable nodeTable)
     {
-        super(findRDFType(nodeTable)) ;
+        this(nodeTable, false) ;
+    }
+    
+    /** Statistics for tuples where, if subjectOrder, all the tuples for a subject
+     *  are recorded together, as from a scan of the SPO index.
+     *  Only then are the characteristic sets complete. */ 
+    public StatsCollectorNodeId(NodeTable nodeTable, boolean subjectOrder)
+    {
+        super(findRDFType(nodeTable), subjectOrder) ;
         this.nodeTable = nodeTable ;
     }
     
@@ -43,14 +49,8 @@ public class StatsCollectorNodeId extends StatsCollectorBase<NodeId>
     }
 
     @Override
-    protected Map<Node, Integer> convert(Map<NodeId, Integer> stats)
+    protected Node toNode(NodeId nodeId)
     {
-        Map<Node, Integer> statsNodes = new HashMap<Node, Integer>(1000) ;
-        for ( NodeId p : stats.keySet() )
-        {
-            Node n = nodeTable.getNodeForNodeId(p) ;
-            statsNodes.put(n, stats.get(p)) ;
-        }
-        return statsNodes ;
+        return nodeTable.getNodeForNodeId(nodeId) ;
     }
 }
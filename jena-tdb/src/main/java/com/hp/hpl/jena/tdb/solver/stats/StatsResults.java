@@ -19,6 +19,7 @@
 package com.hp.hpl.jena.tdb.solver.stats;
 
 import java.util.Map ;
+import java.util.Set ;
 
 import com.hp.hpl.jena.graph.Node ;
 
@@ -28,12 +29,25 @@ public class StatsResults
     private final Map<Node, Integer> predicates ;
     private final Map<Node, Integer> types ;
     private final long count ;
+    private final Map<Node, Integer> distinctSubjects ;
+    private final Map<Node, Integer> distinctObjects ;
+    private final Map<Node, Map<Node, Integer>> frequentObjects ;
+    private final Map<Set<Node>, Integer> characteristicSets ;
+    private final boolean characteristicSetsComplete ;
 
-    StatsResults(Map<Node, Integer> predicates, Map<Node, Integer> types, long count)
+    StatsResults(Map<Node, Integer> predicates, Map<Node, Integer> types, long count,
+                 Map<Node, Integer> distinctSubjects, Map<Node, Integer> distinctObjects,
+                 Map<Node, Map<Node, Integer>> frequentObjects, Map<Set<Node>, Integer> characteristicSets,
+                 boolean characteristicSetsComplete)
     {
         this.count = count ;
         this.predicates = predicates ;
         this.types = types ;
+        this.distinctSubjects = distinctSubjects ;
+        this.distinctObjects = distinctObjects ;
+        this.frequentObjects = frequentObjects ;
+        this.characteristicSets = characteristicSets ;
+        this.characteristicSetsComplete = characteristicSetsComplete ;
     }
 
     public Map<Node, Integer> getPredicates()
@@ -50,4 +64,34 @@ public class StatsResults
     {
         return count ;
     }
+
+    /** Estimated number of distinct subjects of each predicate */
+    public Map<Node, Integer> getDistinctSubjects()
+    {
+        return distinctSubjects ;
+    }
+
+    /** Estimated number of distinct objects of each predicate */
+    public Map<Node, Integer> getDistinctObjects()
+    {
+        return distinctObjects ;
+    }
+
+    /** The objects that occur much more often than average for a predicate, with their counts */
+    public Map<Node, Map<Node, Integer>> getFrequentObjects()
+    {
+        return frequentObjects ;
+    }
+
+    /** The most common sets of predicates used together on a subject, with the number of subjects */
+    public Map<Set<Node>, Integer> getCharacteristicSets()
+    {
+        return characteristicSets ;
+    }
+
+    /** Whether {@link #getCharacteristicSets()} has every set of more than one predicate */
+    public boolean isCharacteristicSetsComplete()
+    {
+        return characteristicSetsComplete ;
+    }
 }
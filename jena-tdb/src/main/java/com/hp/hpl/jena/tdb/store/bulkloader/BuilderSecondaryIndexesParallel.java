@@ -18,14 +18,27 @@
 
 package com.hp.hpl.jena.tdb.store.bulkloader;
 
+import java.util.Iterator ;
 import java.util.concurrent.Semaphore ;
 
+import org.apache.jena.atlas.lib.Tuple ;
+
 import com.hp.hpl.jena.sparql.util.Timer ;
+import com.hp.hpl.jena.tdb.TDBException ;
 import com.hp.hpl.jena.tdb.index.TupleIndex ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
 
+/** Build each secondary index on its own thread, each thread doing its own
+ * scan of the primary index.  Progress is reported as one stage per index
+ * because the per-index counters of {@link LoadMonitor} are not thread safe.
+ */
 public class BuilderSecondaryIndexesParallel implements BuilderSecondaryIndexes
 {
+    /** Number of slots between progress updates */ 
+    private static final int StageBatch = 10000 ;
+    
     private LoadMonitor monitor ;
+    private volatile Throwable failure = null ;
 
     public BuilderSecondaryIndexesParallel(LoadMonitor monitor) { this.monitor = monitor ; } 
     
@@ -45,12 +58,17 @@ public class BuilderSecondaryIndexesParallel implements BuilderSecondaryIndexes
             if ( index != null )
             {
                 Runnable builder = setup(sema, primaryIndex, index, index.getMapping()) ;
-                new Thread(builder).start() ;
+                Thread thread = new Thread(builder, "Index "+index.getMapping()) ;
+                thread.start() ;
                 semaCount++ ;
             }
         }
 
-        try {  sema.acquire(semaCount) ; } catch (InterruptedException ex) { ex.printStackTrace(); }
+        try {  sema.acquire(semaCount) ; }
+        catch (InterruptedException ex) { throw new TDBException("Interrupted while building indexes", ex) ; }
+        
+        if ( failure != null )
+            throw new TDBException("Failed to build secondary indexes", failure) ;
 
         long time = timer.readTimer() ;
         timer.endTimer() ;
@@ -63,10 +81,32 @@ public class BuilderSecondaryIndexesParallel implements BuilderSecondaryIndexes
             @Override
             public void run()
             {
-                LoaderNodeTupleTable.copyIndex(srcIndex.all(), new TupleIndex[]{destIndex}, label, monitor) ;
-                sema.release() ;
+                try { copyIndex(srcIndex.all(), destIndex, label) ; }
+                catch (Throwable th) { failure = th ; }
+                finally { sema.release() ; }
             }} ;
 
             return builder ;
     }
+    
+    private void copyIndex(Iterator<Tuple<NodeId>> srcIter, TupleIndex destIndex, String label)
+    {
+        String stage = "index "+label ;
+        monitor.startStage(stage) ;
+        long n = 0 ;
+        for ( ; srcIter.hasNext() ; )
+        {
+            if ( failure != null )
+                // Another index failed : give up.
+                return ;
+            destIndex.add(srcIter.next()) ;
+            if ( ++n == StageBatch )
+            {
+                monitor.stageItems(stage, n) ;
+                n = 0 ;
+            }
+        }
+        monitor.stageItems(stage, n) ;
+        monitor.finishStage(stage) ;
+    }
 }
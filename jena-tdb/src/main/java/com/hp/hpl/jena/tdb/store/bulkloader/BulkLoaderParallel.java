@@ -0,0 +1,566 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.store.bulkloader ;
+
+import java.io.InputStream ;
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.List ;
+import java.util.concurrent.ArrayBlockingQueue ;
+import java.util.concurrent.BlockingQueue ;
+import java.util.concurrent.TimeUnit ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.lib.Tuple ;
+import org.apache.jena.atlas.web.TypedInputStream ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RDFLanguages ;
+import org.apache.jena.riot.lang.ParserNTuplesParallel ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.slf4j.Logger ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.shared.PrefixMapping ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.util.Utils ;
+import com.hp.hpl.jena.tdb.TDB ;
+import com.hp.hpl.jena.tdb.TDBException ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
+import com.hp.hpl.jena.tdb.solver.stats.Stats ;
+import com.hp.hpl.jena.tdb.solver.stats.StatsCollector ;
+import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+import com.hp.hpl.jena.tdb.sys.Names ;
+
+/** Bulk loader that runs the stages of a load concurrently.
+ * <ul>
+ * <li>Parsing: each input is parsed on its own thread (up to {@link #ParserThreads} at once).
+ *     N-Triples and N-Quads inputs are also split into chunks parsed in parallel
+ *     (see {@link ParserNTuplesParallel}).
+ * <li>Node encoding: {@link #EncoderThreads} threads turn nodes into NodeIds,
+ *     sharing the node table. Inline values and nodes in the node table cache
+ *     are encoded concurrently; allocating a new NodeId appends to the node
+ *     table and is done one at a time.
+ * <li>Statistics: one thread, fed by the encoders.
+ * <li>Tuple indexing: one thread per tuple table adds to the primary index
+ *     (all indexes if the table was not empty to start with).
+ * <li>Secondary indexes: built at the end, one thread per index, by copying
+ *     from the primary index. (BPlusTreeRewriter can only build a tree into
+ *     new block managers, not into the dataset's existing indexes: 
+ *     for a new database, {@code BulkLoader2} sorts and packs every index that way.)
+ * </ul>
+ * Stages are connected by bounded queues of batches so parsing does not get
+ * too far ahead.  Each stage reports its throughput through the {@link LoadMonitor}.
+ * <p>
+ * The same API as {@link BulkLoader}.
+ */
+public class BulkLoaderParallel
+{
+    /** Maximum number of inputs parsed at the same time */
+    public static int ParserThreads = Math.max(1, Runtime.getRuntime().availableProcessors()-2) ;
+    /** Number of threads turning nodes into NodeIds */
+    public static int EncoderThreads = Math.max(1, Runtime.getRuntime().availableProcessors()/4) ;
+    /** Split N-Triples and N-Quads inputs into chunks parsed in parallel */
+    public static boolean SplitInput = true ;
+    /** Number of triples or quads passed between stages in one go */
+    public static int BatchSize     = 10 * 1000 ;
+    /** Number of batches waiting between two stages */
+    public static int QueueSize     = 10 ;
+
+    static private Logger loadLogger = TDB.logLoader ;
+
+    static final String stageParse  = "parse" ;
+    static final String stageEncode = "encode" ;
+    static final String stageIndex  = "index" ;
+
+    /** Load into default graph */
+    public static void loadDefaultGraph(DatasetGraphTDB dsg, List<String> urls, boolean showProgress) {
+        load(new Destination(dsg, null, false, showProgress), urls, Lang.NTRIPLES) ;
+    }
+
+    /** Load into default graph */
+    public static void loadDefaultGraph(DatasetGraphTDB dsg, InputStream input, boolean showProgress) {
+        load(new Destination(dsg, null, false, showProgress), input, Lang.NTRIPLES) ;
+    }
+
+    /** Load into named graph */
+    public static void loadNamedGraph(DatasetGraphTDB dsg, Node graphNode, List<String> urls, boolean showProgress) {
+        load(new Destination(dsg, graphNode, false, showProgress), urls, Lang.NTRIPLES) ;
+    }
+
+    /** Load into named graph */
+    public static void loadNamedGraph(DatasetGraphTDB dsg, Node graphNode, InputStream input, boolean showProgress) {
+        load(new Destination(dsg, graphNode, false, showProgress), input, Lang.NTRIPLES) ;
+    }
+
+    /** Load into a dataset */
+    public static void loadDataset(DatasetGraphTDB dsg, List<String> urls, boolean showProgress) {
+        load(new Destination(dsg, null, true, showProgress), urls, Lang.NQUADS) ;
+    }
+
+    /** Load into a dataset */
+    public static void loadDataset(DatasetGraphTDB dsg, InputStream input, boolean showProgress) {
+        load(new Destination(dsg, null, true, showProgress), input, Lang.NQUADS) ;
+    }
+
+    private static void load(Destination dest, final List<String> urls, final Lang dftLang) {
+        // The threads for the inputs parsed at the same time are shared out
+        // between the chunks of each input.
+        final int splitThreads = Math.max(1, ParserThreads / Math.max(1, Math.min(ParserThreads, urls.size()))) ;
+        List<Parser> parsers = new ArrayList<Parser>() ;
+        for ( final String url : urls ) {
+            parsers.add(new Parser(dest, url) {
+                @Override
+                void parse(StreamRDF stream) {
+                    loadLogger.info("Load: " + url + " -- " + Utils.nowAsString()) ;
+                    Lang lang = RDFLanguages.filenameToLang(url, dftLang) ;
+                    if ( !split(lang, splitThreads) ) {
+                        RDFDataMgr.parse(stream, url, lang) ;
+                        return ;
+                    }
+                    TypedInputStream in = RDFDataMgr.open(url) ;
+                    try {
+                        new ParserNTuplesParallel(lang, splitThreads, false).parse(in, stream) ;
+                    } finally {
+                        IO.close(in) ;
+                    }
+                }
+            }) ;
+        }
+        dest.run(parsers) ;
+    }
+
+    private static void load(Destination dest, final InputStream input, final Lang lang) {
+        loadLogger.info("Load: from input stream -- " + Utils.nowAsString()) ;
+        Parser parser = new Parser(dest, "input stream") {
+            @Override
+            void parse(StreamRDF stream) {
+                if ( split(lang, ParserThreads) )
+                    new ParserNTuplesParallel(lang, ParserThreads, false).parse(input, stream) ;
+                else
+                    RDFDataMgr.parse(stream, input, lang) ;
+            }
+        } ;
+        dest.run(Collections.singletonList(parser)) ;
+    }
+
+    /** Parse this input in chunks? The order of the triples or quads does not matter to the load. */
+    private static boolean split(Lang lang, int threads) {
+        return SplitInput && threads > 1 && ParserNTuplesParallel.canParse(lang) ;
+    }
+
+    // ---- Stages
+
+    /** Something that goes wrong in one stage stops all the others */
+    private static final class Control {
+        private volatile Throwable failure = null ;
+
+        void fail(Throwable th) {
+            if ( failure == null )
+                failure = th ;
+        }
+
+        boolean failed() {
+            return failure != null ;
+        }
+
+        void check() {
+            if ( failure == null )
+                return ;
+            if ( failure instanceof RuntimeException )
+                throw (RuntimeException)failure ;
+            if ( failure instanceof Error )
+                throw (Error)failure ;
+            throw new TDBException("Load failed", failure) ;
+        }
+
+        /** Pass a batch to the next stage; give up if some other stage fails. */
+        <T> void put(BlockingQueue<T> queue, T item) {
+            try {
+                while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    if ( failed() )
+                        throw new CancelledLoad() ;
+                }
+            } catch (InterruptedException ex) {
+                throw new TDBException("Interrupted", ex) ;
+            }
+        }
+
+        /** Get the next batch from the previous stage; return null if some other stage fails. */
+        <T> T take(BlockingQueue<T> queue) {
+            try {
+                for ( ;; ) {
+                    T item = queue.poll(100, TimeUnit.MILLISECONDS) ;
+                    if ( item != null )
+                        return item ;
+                    if ( failed() )
+                        return null ;
+                }
+            } catch (InterruptedException ex) {
+                throw new TDBException("Interrupted", ex) ;
+            }
+        }
+    }
+
+    // Another stage has failed: unwind this one.
+    private static final class CancelledLoad extends RuntimeException {
+        @Override
+        public synchronized Throwable fillInStackTrace() { return this ; }
+    }
+
+    /** Parse one input, sending batches of quads (triples as quads with a null graph) to the encoders.
+     *  Called by one thread at a time. */
+    private static abstract class Parser implements StreamRDF {
+        private final Destination dest ;
+        private final String      label ;
+        private List<Quad>        batch = new ArrayList<Quad>(BatchSize) ;
+
+        Parser(Destination dest, String label) {
+            this.dest = dest ;
+            this.label = label ;
+        }
+
+        abstract void parse(StreamRDF stream) ;
+
+        @Override
+        public void start() {}
+
+        @Override
+        public void triple(Triple triple) {
+            add(new Quad(Quad.tripleInQuad, triple)) ;
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            if ( !dest.datasetLoad )
+                throw new TDBException("Quad encountered while loading a single graph") ;
+            add(quad) ;
+        }
+
+        private void add(Quad quad) {
+            batch.add(quad) ;
+            if ( batch.size() >= BatchSize )
+                flushBatch() ;
+        }
+
+        private void flushBatch() {
+            if ( batch.isEmpty() )
+                return ;
+            dest.monitor.stageItems(stageParse, batch.size()) ;
+            dest.control.put(dest.parsed, batch) ;
+            batch = new ArrayList<Quad>(BatchSize) ;
+        }
+
+        @Override
+        public void tuple(Tuple<Node> tuple) {
+            throw new TDBException("Tuple encountered while loading " + label) ;
+        }
+
+        @Override
+        public void base(String base) {}
+
+        @Override
+        public void prefix(String prefix, String iri) {
+            dest.prefix(prefix, iri) ;
+        }
+
+        @Override
+        public void finish() {
+            flushBatch() ;
+        }
+    }
+
+    // End of a stream of batches.
+    private static final List<Quad>          endOfQuads  = Collections.emptyList() ;
+    private static final List<Tuple<NodeId>> endOfTuples = Collections.emptyList() ;
+
+    private static final class Destination {
+        final DatasetGraphTDB                     dsg ;
+        final Node                                graphName ;
+        final boolean                             datasetLoad ;
+        final boolean                             startedEmpty ;
+        final LoadMonitor                         monitor ;
+        final LoadMonitor                         monitorTriples ;
+        final LoadMonitor                         monitorQuads ;
+        final LoaderNodeTupleTable                loaderTriples ;
+        final LoaderNodeTupleTable                loaderQuads ;
+        final NodeTable                           nodeTable ;
+        final Control                             control = new Control() ;
+        final BlockingQueue<List<Quad>>           parsed ;
+        final BlockingQueue<List<Tuple<NodeId>>>  encodedTriples ;
+        final BlockingQueue<List<Tuple<NodeId>>>  encodedQuads ;
+        // Batches already encoded, for the statistics.
+        final BlockingQueue<List<Quad>>           encoded ;
+        // Batches reach the statistics out of input order, so the characteristic
+        // sets are partial: a subject's triples may be recorded in several runs.
+        final StatsCollector                      stats = new StatsCollector(false) ;
+        final AtomicInteger                       encodersRunning = new AtomicInteger(0) ;
+
+        // graphName is null for the default graph, or when loading a dataset.
+        Destination(DatasetGraphTDB dsg, Node graphName, boolean datasetLoad, boolean showProgress) {
+            this.dsg = dsg ;
+            if ( graphName != null && Quad.isDefaultGraph(graphName) )
+                graphName = null ;
+            this.graphName = graphName ;
+            this.datasetLoad = datasetLoad ;
+            this.startedEmpty = dsg.isEmpty() ;
+            // One monitor for the stages, one for each tuple table.
+            this.monitor = BulkLoader.createLoadMonitor(dsg, datasetLoad ? "quads" : "triples", showProgress) ;
+            this.monitorTriples = BulkLoader.createLoadMonitor(dsg, "triples", showProgress) ;
+            this.monitorQuads = BulkLoader.createLoadMonitor(dsg, "quads", showProgress) ;
+            // Named graphs are loaded directly into the quad table.
+            this.loaderTriples = new LoaderNodeTupleTable(dsg.getTripleTable().getNodeTupleTable(), "triples", monitorTriples) ;
+            this.loaderQuads = new LoaderNodeTupleTable(dsg.getQuadTable().getNodeTupleTable(), "quads", monitorQuads) ;
+            loaderTriples.setParallel(true) ;
+            loaderQuads.setParallel(true) ;
+            this.nodeTable = dsg.getTripleTable().getNodeTupleTable().getNodeTable() ;
+            if ( nodeTable != dsg.getQuadTable().getNodeTupleTable().getNodeTable() )
+                throw new TDBException("Parallel loading requires the triple and quad tables to share a node table") ;
+            this.parsed = new ArrayBlockingQueue<List<Quad>>(QueueSize) ;
+            this.encodedTriples = new ArrayBlockingQueue<List<Tuple<NodeId>>>(QueueSize) ;
+            this.encodedQuads = new ArrayBlockingQueue<List<Tuple<NodeId>>>(QueueSize) ;
+            this.encoded = new ArrayBlockingQueue<List<Quad>>(QueueSize) ;
+        }
+
+        void run(List<Parser> parsers) {
+            loaderTriples.loadStart() ;
+            loaderQuads.loadStart() ;
+            loaderTriples.loadDataStart() ;
+            loaderQuads.loadDataStart() ;
+
+            monitor.startStage(stageParse) ;
+            monitor.startStage(stageEncode) ;
+            monitor.startStage(stageIndex) ;
+
+            List<Thread> threads = new ArrayList<Thread>() ;
+            threads.add(indexer(loaderTriples, encodedTriples, "triples")) ;
+            threads.add(indexer(loaderQuads, encodedQuads, "quads")) ;
+            threads.add(statistics()) ;
+            int numEncoders = Math.max(1, EncoderThreads) ;
+            encodersRunning.set(numEncoders) ;
+            for ( int i = 0 ; i < numEncoders ; i++ )
+                threads.add(encoder(i)) ;
+            threads.add(parseAll(parsers, numEncoders)) ;
+            for ( Thread t : threads )
+                t.start() ;
+            join(threads) ;
+            control.check() ;
+
+            monitor.finishStage(stageParse) ;
+            monitor.finishStage(stageEncode) ;
+            monitor.finishStage(stageIndex) ;
+            loaderTriples.loadDataFinish() ;
+            loaderQuads.loadDataFinish() ;
+
+            loaderTriples.loadIndexStart() ;
+            loaderQuads.loadIndexStart() ;
+            loaderTriples.loadIndexFinish() ;
+            loaderQuads.loadIndexFinish() ;
+
+            loaderTriples.loadFinish() ;
+            loaderQuads.loadFinish() ;
+            if ( !dsg.getLocation().isMem() && startedEmpty ) {
+                String filename = dsg.getLocation().getPath(Names.optStats) ;
+                Stats.write(filename, stats.results()) ;
+            }
+            BulkLoader.forceSync(dsg) ;
+        }
+
+        private static void join(List<Thread> threads) {
+            for ( Thread t : threads ) {
+                try {
+                    t.join() ;
+                } catch (InterruptedException ex) {
+                    throw new TDBException("Interrupted", ex) ;
+                }
+            }
+        }
+
+        /** Run the parsers, a limited number at a time, then signal the end of input to each encoder */
+        private Thread parseAll(final List<Parser> parsers, final int numEncoders) {
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    final List<Parser> todo = Collections.synchronizedList(new ArrayList<Parser>(parsers)) ;
+                    int N = Math.min(ParserThreads, parsers.size()) ;
+                    List<Thread> workers = new ArrayList<Thread>() ;
+                    for ( int i = 0 ; i < N ; i++ ) {
+                        Runnable worker = new Runnable() {
+                            @Override
+                            public void run() {
+                                for ( ;; ) {
+                                    Parser parser ;
+                                    synchronized (todo) {
+                                        if ( todo.isEmpty() || control.failed() )
+                                            break ;
+                                        parser = todo.remove(0) ;
+                                    }
+                                    // Not all parsers call start/finish.
+                                    parser.parse(parser) ;
+                                    parser.finish() ;
+                                }
+                            }
+                        } ;
+                        workers.add(stageThread(worker, "Parser-" + i)) ;
+                    }
+                    for ( Thread t : workers )
+                        t.start() ;
+                    join(workers) ;
+                    for ( int i = 0 ; i < numEncoders ; i++ )
+                        control.put(parsed, endOfQuads) ;
+                }
+            } ;
+            return stageThread(r, "Parsers") ;
+        }
+
+        /** Turn nodes into NodeIds. One of several encoders sharing the node table. */
+        private Thread encoder(int i) {
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for ( ;; ) {
+                            List<Quad> batch = control.take(parsed) ;
+                            if ( batch == null || batch == endOfQuads )
+                                break ;
+                            encode(batch) ;
+                            monitor.stageItems(stageEncode, batch.size()) ;
+                            control.put(encoded, batch) ;
+                        }
+                    } finally {
+                        // The last encoder to finish ends the streams to the
+                        // indexers and the statistics, so they always finish.
+                        if ( encodersRunning.decrementAndGet() == 0 ) {
+                            control.put(encodedTriples, endOfTuples) ;
+                            control.put(encodedQuads, endOfTuples) ;
+                            control.put(encoded, endOfQuads) ;
+                        }
+                    }
+                }
+            } ;
+            return stageThread(r, "Encoder-" + i) ;
+        }
+
+        /** The graph a quad is loaded into; null for the default graph */
+        private Node graph(Quad quad) {
+            if ( graphName != null )
+                return graphName ;
+            if ( !quad.isTriple() && !quad.isDefaultGraph() )
+                return quad.getGraph() ;
+            return null ;
+        }
+
+        private void encode(List<Quad> batch) {
+            List<Tuple<NodeId>> triples = null ;
+            List<Tuple<NodeId>> quads = null ;
+            for ( Quad quad : batch ) {
+                Node g = graph(quad) ;
+                Node s = quad.getSubject() ;
+                Node p = quad.getPredicate() ;
+                Node o = quad.getObject() ;
+                if ( g == null ) {
+                    if ( triples == null )
+                        triples = new ArrayList<Tuple<NodeId>>(batch.size()) ;
+                    triples.add(Tuple.create(new NodeId[]{id(s), id(p), id(o)})) ;
+                } else {
+                    if ( quads == null )
+                        quads = new ArrayList<Tuple<NodeId>>(batch.size()) ;
+                    quads.add(Tuple.create(new NodeId[]{id(g), id(s), id(p), id(o)})) ;
+                }
+            }
+            if ( triples != null )
+                control.put(encodedTriples, triples) ;
+            if ( quads != null )
+                control.put(encodedQuads, quads) ;
+        }
+
+        private NodeId id(Node node) {
+            return nodeTable.getAllocateNodeId(node) ;
+        }
+
+        /** Gather statistics from the encoded batches (StatsCollector is not thread-safe) */
+        private Thread statistics() {
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    for ( ;; ) {
+                        List<Quad> batch = control.take(encoded) ;
+                        if ( batch == null || batch == endOfQuads )
+                            break ;
+                        // As BulkLoader: statistics for a single graph ignore the graph name.
+                        for ( Quad quad : batch )
+                            stats.record(datasetLoad ? graph(quad) : null, 
+                                         quad.getSubject(), quad.getPredicate(), quad.getObject()) ;
+                    }
+                }
+            } ;
+            return stageThread(r, "Statistics") ;
+        }
+
+        /** Add tuples to one tuple table */
+        private Thread indexer(final LoaderNodeTupleTable loader, final BlockingQueue<List<Tuple<NodeId>>> queue, String label) {
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    for ( ;; ) {
+                        List<Tuple<NodeId>> batch = control.take(queue) ;
+                        if ( batch == null || batch == endOfTuples )
+                            break ;
+                        for ( Tuple<NodeId> tuple : batch )
+                            loader.load(tuple) ;
+                        monitor.stageItems(stageIndex, batch.size()) ;
+                    }
+                }
+            } ;
+            return stageThread(r, "Indexer-" + label) ;
+        }
+
+        private Thread stageThread(final Runnable r, String name) {
+            Runnable r2 = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        r.run() ;
+                    } catch (CancelledLoad ex) {
+                    } catch (Throwable th) {
+                        control.fail(th) ;
+                    }
+                }
+            } ;
+            Thread t = new Thread(r2, "Loader-" + name) ;
+            t.setDaemon(true) ;
+            return t ;
+        }
+
+        // Called from the parser threads.
+        synchronized void prefix(String prefix, String iri) {
+            if ( graphName != null && graphName.isBlank() ) {
+                loadLogger.warn("Prefixes for blank node graphs not stored") ;
+                return ;
+            }
+            PrefixMapping pmap = (graphName == null)
+                ? dsg.getPrefixes().getPrefixMapping()
+                : dsg.getPrefixes().getPrefixMapping(graphName.getURI()) ;
+            pmap.setNsPrefix(prefix, iri) ;
+        }
+    }
+}
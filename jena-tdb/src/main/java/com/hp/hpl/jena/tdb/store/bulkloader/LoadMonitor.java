@@ -19,6 +19,10 @@
 package com.hp.hpl.jena.tdb.store.bulkloader;
 
 import static com.hp.hpl.jena.sparql.util.Utils.nowAsString ;
+
+import java.util.HashMap ;
+import java.util.Map ;
+
 import org.apache.jena.atlas.event.Event ;
 import org.apache.jena.atlas.event.EventManager ;
 import org.slf4j.Logger ;
@@ -245,6 +249,92 @@ public final class LoadMonitor
     
     }
 
+    // ---- Stages
+    // The parallel loader runs several stages at once, each on its own
+    // thread(s).  Stage counters are updated in batches and are thread safe.
+    // Stages are timed by the clock, not the timer, so they can be used
+    // outside startLoad/finishLoad.
+    
+    private static class Stage
+    {
+        long items = 0 ;
+        long startTime = 0 ;
+        long finishTime = -1 ;
+        long nextTick ;
+        Stage(long startTime, long tick) { this.startTime = startTime ; this.nextTick = tick ; }
+    }
+    
+    private final Map<String, Stage> stages = new HashMap<String, Stage>() ;
+    
+    /** Start timing a stage of a parallel load */
+    public void startStage(String label)
+    {
+        synchronized(stages)
+        {
+            stages.put(label, new Stage(System.currentTimeMillis(), dataTickPoint)) ;
+        }
+    }
+    
+    /** Note that a stage has processed a number of items (triples, quads, slots) */
+    public void stageItems(String label, long n)
+    {
+        long items ;
+        long now ;
+        long startTime ;
+        synchronized(stages)
+        {
+            Stage stage = stages.get(label) ;
+            if ( stage == null )
+                return ;
+            stage.items += n ;
+            if ( stage.items < stage.nextTick )
+                return ;
+            while ( stage.nextTick <= stage.items )
+                stage.nextTick += dataTickPoint ;
+            items = stage.items ;
+            startTime = stage.startTime ;
+            now = System.currentTimeMillis() ;
+        }
+        long time = now - startTime ;
+        if ( time > 0 )
+            print("Stage %s: %,d %s (Avg: %,d per second)", label, items, itemsName, (items * 1000L) / time) ;
+        else
+            print("Stage %s: %,d %s", label, items, itemsName) ;
+    }
+    
+    /** Finish timing a stage of a parallel load and print its throughput */
+    public void finishStage(String label)
+    {
+        long items ;
+        long time ;
+        synchronized(stages)
+        {
+            Stage stage = stages.get(label) ;
+            if ( stage == null )
+                return ;
+            stage.finishTime = System.currentTimeMillis() ;
+            items = stage.items ;
+            time = stage.finishTime - stage.startTime ;
+        }
+        if ( items == 0 )
+            return ;
+        if ( time > 0 )
+            print("** Stage %s: %,d %s in %,.2f seconds [Rate: %,.2f per second]",
+                  label, items, itemsName, time/1000.0F, 1000F*items/time) ;
+        else
+            print("** Stage %s: %,d %s", label, items, itemsName) ;
+    }
+    
+    /** Number of items processed by a stage so far */
+    public long getStageItems(String label)
+    {
+        synchronized(stages)
+        {
+            Stage stage = stages.get(label) ;
+            return stage == null ? 0 : stage.items ;
+        }
+    }
+
     public void print(String fmt, Object...args)
     {
         if ( log != null && log.isInfoEnabled() )
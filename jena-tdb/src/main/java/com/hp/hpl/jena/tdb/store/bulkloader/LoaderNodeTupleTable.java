@@ -40,6 +40,7 @@ public class LoaderNodeTupleTable implements Closeable, Sync
 {
     private LoadMonitor monitor          = null ;
     private boolean doIncremental   = false ;
+    private boolean doInParallel    = false ;
 
     private int          numIndexes ; 
     private TupleIndex   primaryIndex ;
@@ -89,6 +90,11 @@ public class LoaderNodeTupleTable implements Closeable, Sync
             createSecondaryIndexes() ;
     }
 
+    /** Build the secondary indexes concurrently, one thread per index */
+    public void setParallel(boolean doInParallel)   { this.doInParallel = doInParallel ; }
+    
+    public NodeTupleTable getNodeTupleTable()       { return nodeTupleTable ; } 
+    
     public void loadStart()     { monitor.startLoad() ; }
     public void loadFinish()    { monitor.finishLoad() ; }
     
@@ -107,6 +113,15 @@ public class LoaderNodeTupleTable implements Closeable, Sync
         nodeTupleTable.addRow(nodes) ;  
     }
     
+    /** Stream in items to load where the nodes have already been converted to NodeIds.
+     *  The NodeIds must be in the natural order of the underlying tuple table. */
+    public void load(Tuple<NodeId> tuple)
+    {
+        count++ ;
+        monitor.dataItem() ;
+        nodeTupleTable.getTupleTable().add(tuple) ;
+    }
+    
     /** Notify End of data to load - this operation may 
      * undertake a significant amount of work.
      */
@@ -160,7 +175,11 @@ public class LoaderNodeTupleTable implements Closeable, Sync
 
     private void createSecondaryIndexes()
     {
-        BuilderSecondaryIndexes builder = new BuilderSecondaryIndexesSequential(monitor) ;
+        BuilderSecondaryIndexes builder ;
+        if ( doInParallel )
+            builder = new BuilderSecondaryIndexesParallel(monitor) ;
+        else
+            builder = new BuilderSecondaryIndexesSequential(monitor) ;
         
 //        if ( doInParallel )
 //            builder = new BuilderSecondaryIndexesParallel(printer) ;
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.store.bulkloader2;
+
+import java.io.File ;
+import java.io.InputStream ;
+import java.util.ArrayList ;
+import java.util.Comparator ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.concurrent.Callable ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+
+import org.apache.jena.atlas.data.SortedDataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.PeekIterator ;
+import org.apache.jena.atlas.lib.ColumnMap ;
+import org.apache.jena.atlas.lib.FileOps ;
+import org.slf4j.Logger ;
+
+import com.hp.hpl.jena.sparql.util.Timer ;
+import com.hp.hpl.jena.tdb.TDB ;
+import com.hp.hpl.jena.tdb.TDBException ;
+import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.base.file.MetaFile ;
+import com.hp.hpl.jena.tdb.base.record.Record ;
+import com.hp.hpl.jena.tdb.base.record.RecordFactory ;
+import com.hp.hpl.jena.tdb.index.bplustree.BPlusTree ;
+import com.hp.hpl.jena.tdb.index.bplustree.BPlusTreeParams ;
+import com.hp.hpl.jena.tdb.sys.Names ;
+import com.hp.hpl.jena.tdb.sys.SystemTDB ;
+
+/** The tdbloader2 process run inside the JVM.
+ * <p>
+ * The data phase is {@link CmdNodeTableBuilder}: it builds the node table and
+ * writes the tuples of NodeIds to work files. For the index phase, instead of
+ * Unix sort, each index is sorted with an external merge sort
+ * (a {@link SortedDataBag} that spills sorted runs to temporary files, which may
+ * be compressed) and the sorted records are packed into a B+Tree by
+ * {@link CmdIndexBuild#packIndex}. Indexes are sorted and built at the same time,
+ * sharing the memory allowance for sorting.
+ * <p>
+ * The location must be empty.
+ */
+public class BulkLoader2
+{
+    private static Logger log = TDB.logLoader ;
+
+    // Number of rows read from the work files in one go.
+    private static final int RowBlock = 1000 ;
+
+    private final Location location ;
+    private int threads = Runtime.getRuntime().availableProcessors() ;
+    private long sortMemory = Runtime.getRuntime().maxMemory()/4 ;
+    private boolean compressTempFiles = false ;
+    private boolean keepWorkFiles = false ;
+    private boolean compressedLeaves = false ;
+
+    public BulkLoader2(Location location)
+    {
+        if ( location.isMem() )
+            throw new TDBException("Can't bulk load into an in-memory location") ;
+        this.location = location ;
+    }
+
+    /** Number of indexes sorted and built at the same time */
+    public void setThreads(int threads)                     { this.threads = Math.max(1, threads) ; }
+    public int getThreads()                                 { return threads ; }
+
+    /** Memory, in bytes, for sorting; shared by the indexes being built at the same time */
+    public void setSortMemory(long bytes)                   { this.sortMemory = bytes ; }
+    public long getSortMemory()                             { return sortMemory ; }
+
+    /** Compress the temporary files of the sort */
+    public void setCompressTempFiles(boolean compress)      { this.compressTempFiles = compress ; }
+    public boolean getCompressTempFiles()                   { return compressTempFiles ; }
+
+    /** Keep the files of NodeIds written by the data phase */
+    public void setKeepWorkFiles(boolean keepWorkFiles)     { this.keepWorkFiles = keepWorkFiles ; }
+    public boolean getKeepWorkFiles()                       { return keepWorkFiles ; }
+
+    /** Create the dataset with prefix-compressed B+Tree leaves for the tuple indexes */
+    public void setCompressedLeaves(boolean compressedLeaves) { this.compressedLeaves = compressedLeaves ; }
+    public boolean getCompressedLeaves()                    { return compressedLeaves ; }
+
+    public void load(List<String> datafiles)
+    {
+        checkEmpty() ;
+        if ( compressedLeaves )
+        {
+            // Recorded before any index is created.
+            MetaFile metafile = location.getMetaFile() ;
+            metafile.setProperty(BPlusTreeParams.ParamCompressedLeaves, "true") ;
+            metafile.flush() ;
+        }
+        Timer timer = new Timer() ;
+        timer.startTimer() ;
+        log.info("-- TDB Bulk Loader Start") ;
+
+        String dataTriples = location.getPath("data-triples", "tmp") ;
+        String dataQuads = location.getPath("data-quads", "tmp") ;
+
+        log.info("Data phase") ;
+        CmdNodeTableBuilder.buildNodeTable(location, datafiles, dataTriples, dataQuads) ;
+
+        log.info("Index phase") ;
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>() ;
+        if ( new File(dataTriples).length() > 0 )
+        {
+            for ( String idx : Names.tripleIndexes )
+                tasks.add(indexTask(idx, dataTriples)) ;
+        }
+        if ( new File(dataQuads).length() > 0 )
+        {
+            for ( String idx : Names.quadIndexes )
+                tasks.add(indexTask(idx, dataQuads)) ;
+        }
+        runAll(tasks) ;
+        log.info("Index phase end") ;
+
+        if ( ! keepWorkFiles )
+        {
+            FileOps.delete(dataTriples) ;
+            FileOps.delete(dataQuads) ;
+        }
+        long time = timer.endTimer() ;
+        log.info("-- TDB Bulk Loader Finish") ;
+        log.info(String.format("-- %.2f seconds", time/1000.0)) ;
+    }
+
+    private void checkEmpty()
+    {
+        File dir = new File(location.getDirectoryPath()) ;
+        File[] files = dir.listFiles() ;
+        if ( files == null )
+            return ;
+        for ( File f : files )
+        {
+            if ( f.isFile() && ! f.getName().startsWith("this.") )
+                throw new TDBException("Not empty: "+location.getDirectoryPath()) ;
+        }
+    }
+
+    private void runAll(List<Callable<Object>> tasks)
+    {
+        if ( tasks.isEmpty() )
+            return ;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size())) ;
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>() ;
+            for ( Callable<Object> task : tasks )
+                results.add(executor.submit(task)) ;
+            for ( Future<Object> f : results )
+                f.get() ;
+        }
+        catch (InterruptedException ex) { throw new TDBException("Interrupted", ex) ; }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause() ;
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause ;
+            throw new TDBException("Index build failed", cause) ;
+        }
+        finally { executor.shutdownNow() ; }
+    }
+
+    private Callable<Object> indexTask(final String indexName, final String dataFile)
+    {
+        return new Callable<Object>() {
+            @Override
+            public Object call()
+            {
+                buildIndex(indexName, dataFile) ;
+                return null ;
+            }
+        } ;
+    }
+
+    private static final Comparator<Record> keyOrder = new Comparator<Record>() {
+        @Override
+        public int compare(Record r1, Record r2) { return Record.compareByKey(r1, r2) ; }
+    } ;
+
+    /** Sort the rows of the data file into index order and pack them into a new B+Tree */
+    private void buildIndex(String indexName, String dataFile)
+    {
+        Timer timer = new Timer() ;
+        timer.startTimer() ;
+        int tupleLength = indexName.length() ;
+        ColumnMap colMap = new ColumnMap(CmdIndexBuild.primaryOrder(indexName), indexName) ;
+        RecordFactory recordFactory = new RecordFactory(tupleLength*SystemTDB.SizeOfNodeId, 0) ;
+        RecordSerializationFactory serializer = new RecordSerializationFactory(recordFactory, compressTempFiles) ;
+
+        long recordSize = serializer.getEstimatedMemorySize(recordFactory.create()) ;
+        long recordsInMemory = sortMemory/threads/recordSize ;
+        ThresholdPolicy<Record> policy = ThresholdPolicyFactory.count(Math.max(1000, recordsInMemory)) ;
+        SortedDataBag<Record> bag = new SortedDataBag<Record>(policy, serializer, keyOrder) ;
+        try {
+            log.info("Index "+indexName) ;
+            InputStream input = IO.openFile(dataFile) ;
+            try { bag.addAll(new RecordsFromInput(input, tupleLength, colMap, RowBlock)) ; }
+            finally { IO.close(input) ; }
+
+            log.info("Build "+indexName) ;
+            FileOps.delete(location.getPath(indexName, Names.bptExtTree)) ;
+            FileOps.delete(location.getPath(indexName, Names.bptExtRecords)) ;
+            Iterator<Record> sorted = bag.iterator() ;
+            try {
+                BPlusTree bpt = CmdIndexBuild.packIndex(location, indexName, distinct(sorted)) ;
+                bpt.close() ;
+            } finally { Iter.close(sorted) ; }
+        } finally { bag.close() ; }
+        long time = timer.endTimer() ;
+        log.info(String.format("Index %s: %,d slots in %.2f seconds", indexName, bag.size(), time/1000.0)) ;
+    }
+
+    /** Remove adjacent duplicates (the data may contain the same tuple more than once) */
+    private static Iterator<Record> distinct(Iterator<Record> sorted)
+    {
+        final PeekIterator<Record> iter = PeekIterator.create(sorted) ;
+        return new Iterator<Record>() {
+            @Override
+            public boolean hasNext() { return iter.hasNext() ; }
+
+            @Override
+            public Record next()
+            {
+                Record r = iter.next() ;
+                while ( iter.hasNext() && Record.keyEQ(r, iter.peek()) )
+                    iter.next() ;
+                return r ;
+            }
+
+            @Override
+            public void remove() { throw new UnsupportedOperationException() ; }
+        } ;
+    }
+}
@@ -74,30 +74,45 @@ public class CmdIndexBuild
         //InputStream input = System.in ;
         InputStream input = IO.openFile(dataFile) ;
         
-        int keyLength = SystemTDB.SizeOfNodeId * indexName.length() ;
-        int valueLength = 0 ;
-        
-        // The name is the order.
-        String primary = indexName ;  
-        
+        int tupleLength = indexName.length() ;
+        ColumnMap colMap = new ColumnMap(primaryOrder(indexName), indexName) ;
+
+        int rowBlock = 1000 ;
+        Iterator<Record> iter = new RecordsFromInput(input, tupleLength, colMap, rowBlock) ;
+        BPlusTree bpt2 = packIndex(location, indexName, iter) ;
+        bpt2.close() ;
+    }
+    
+    /** The primary index order for an index name : the data files are in this order */ 
+    public static String primaryOrder(String indexName)
+    {
+        int tupleLength = indexName.length() ;
+        if ( tupleLength == 3 )
+            return Names.primaryIndexTriples ;
+        if ( tupleLength == 4 )
+            return Names.primaryIndexQuads ;
+        throw new AtlasException("Index name: "+indexName) ;
+    }
+
+    /** Build a (packed) index from records sorted in index order.
+     *  The index files must not exist already. */
+    public static BPlusTree packIndex(Location location, String indexName, Iterator<Record> records)
+    {
         // Scope for optimization:
         // Null column map => no churn.
         // Do record -> record copy, not Tuple, Tuple copy.
 
-        String primaryOrder ;
         int dftKeyLength ;
         int dftValueLength ;
         int tupleLength = indexName.length() ;
 
         if ( tupleLength == 3 )
         {
-            primaryOrder = Names.primaryIndexTriples ;
             dftKeyLength = SystemTDB.LenIndexTripleRecord ;
             dftValueLength = 0 ;
         }
         else if ( tupleLength == 4 )
         {
-            primaryOrder = Names.primaryIndexQuads ;
             dftKeyLength = SystemTDB.LenIndexQuadRecord ;
             dftValueLength = 0 ;
         }
@@ -105,9 +120,6 @@ public class CmdIndexBuild
         {
             throw new AtlasException("Index name: "+indexName) ;
         }
-        
-        ColumnMap colMap = new ColumnMap(primaryOrder, indexName) ;
-
 
         // -1? Write only.
         // Also flush cache every so often => block writes (but not sequential so boring).
@@ -118,7 +130,8 @@ public class CmdIndexBuild
         RecordFactory recordFactory = new RecordFactory(dftKeyLength, dftValueLength) ;
         
         int order = BPlusTreeParams.calcOrder(blockSize, recordFactory) ;
-        BPlusTreeParams bptParams = new BPlusTreeParams(order, recordFactory) ;
+        boolean compressedLeaves = BPlusTreeParams.isCompressedLeaves(location) ;
+        BPlusTreeParams bptParams = new BPlusTreeParams(order, recordFactory, compressedLeaves) ;
 
         int blockSizeNodes = blockSize ;
         int blockSizeRecords = blockSize ;
@@ -128,9 +141,6 @@ public class CmdIndexBuild
         BlockMgr blkMgrNodes = BlockMgrFactory.create(destination, Names.bptExtTree, blockSizeNodes, readCacheSize, writeCacheSize) ;
         BlockMgr blkMgrRecords = BlockMgrFactory.create(destination, Names.bptExtRecords, blockSizeRecords, readCacheSize, writeCacheSize) ;
         
-        int rowBlock = 1000 ;
-        Iterator<Record> iter = new RecordsFromInput(input, tupleLength, colMap, rowBlock) ;
-        BPlusTree bpt2 = BPlusTreeRewriter.packIntoBPlusTree(iter, bptParams, recordFactory, blkMgrNodes, blkMgrRecords) ;
-        bpt2.close() ;
+        return BPlusTreeRewriter.packIntoBPlusTree(records, bptParams, recordFactory, blkMgrNodes, blkMgrRecords) ;
     }
 }
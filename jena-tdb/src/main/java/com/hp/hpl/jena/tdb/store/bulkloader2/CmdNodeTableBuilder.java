@@ -133,6 +133,15 @@ public class CmdNodeTableBuilder extends CmdGeneral
     
     @Override
     protected void exec()
+    {
+        buildNodeTable(location, datafiles, dataFileTriples, dataFileQuads) ;
+    }
+    
+    /** Parse the data files into the node table at the location and write
+     *  the tuples of NodeIds, in hex, to the triples and quads work files.
+     *  Statistics for the data are written to the location.
+     */
+    public static void buildNodeTable(Location location, List<String> datafiles, String dataFileTriples, String dataFileQuads)
     {
         // This formats the location correctly.
         // But we're not really interested in it all.
@@ -181,6 +190,7 @@ public class CmdNodeTableBuilder extends CmdGeneral
         float rate = (elapsedSecs!=0) ? total/elapsedSecs : 0 ;
         String str =  String.format("Total: %,d tuples : %,.2f seconds : %,.2f tuples/sec [%s]", total, elapsedSecs, rate, nowAsString()) ;
         cmdLog.info(str) ;
+        dsg.getTripleTable().getNodeTupleTable().getNodeTable().close() ;
     }
 
     static class NodeTableBuilder implements BulkStreamRDF
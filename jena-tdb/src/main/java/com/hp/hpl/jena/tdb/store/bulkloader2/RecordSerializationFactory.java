@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.store.bulkloader2;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.OutputStream ;
+import java.util.Iterator ;
+import java.util.NoSuchElementException ;
+import java.util.zip.Deflater ;
+import java.util.zip.GZIPInputStream ;
+import java.util.zip.GZIPOutputStream ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.data.SerializationFactory ;
+import org.apache.jena.atlas.lib.Sink ;
+
+import com.hp.hpl.jena.tdb.base.record.Record ;
+import com.hp.hpl.jena.tdb.base.record.RecordFactory ;
+
+/** Serialization of key-only records, for sorting with a {@link org.apache.jena.atlas.data.DataBag}.
+ *  Records are written as their key bytes, optionally compressed.
+ */
+public class RecordSerializationFactory implements SerializationFactory<Record>
+{
+    private static final int BufferSize = 64*1024 ;
+    // Java object overhead of a Record and its key array.
+    private static final int RecordOverhead = 48 ;
+
+    private final RecordFactory recordFactory ;
+    private final boolean compress ;
+
+    public RecordSerializationFactory(RecordFactory recordFactory, boolean compress)
+    {
+        if ( recordFactory.hasValue() )
+            throw new AtlasException("Records with values not supported") ;
+        this.recordFactory = recordFactory ;
+        this.compress = compress ;
+    }
+
+    @Override
+    public Sink<Record> createSerializer(OutputStream out)
+    {
+        if ( compress )
+        {
+            try {
+                out = new GZIPOutputStream(out, BufferSize) {
+                    // Fast rather than small.
+                    { def.setLevel(Deflater.BEST_SPEED) ; }
+                } ;
+            } catch (IOException ex) { throw new AtlasException(ex) ; }
+        }
+        return new RecordSink(out) ;
+    }
+
+    @Override
+    public Iterator<Record> createDeserializer(InputStream in)
+    {
+        if ( compress )
+        {
+            try { in = new GZIPInputStream(in, BufferSize) ; }
+            catch (IOException ex) { throw new AtlasException(ex) ; }
+        }
+        return new RecordIterator(in, recordFactory) ;
+    }
+
+    @Override
+    public long getEstimatedMemorySize(Record item)
+    {
+        return recordFactory.keyLength()+RecordOverhead ;
+    }
+
+    private static class RecordSink implements Sink<Record>
+    {
+        private final OutputStream out ;
+
+        RecordSink(OutputStream out) { this.out = out ; }
+
+        @Override
+        public void send(Record record)
+        {
+            try { out.write(record.getKey()) ; }
+            catch (IOException ex) { throw new AtlasException(ex) ; }
+        }
+
+        @Override
+        public void flush()
+        {
+            try { out.flush() ; }
+            catch (IOException ex) { throw new AtlasException(ex) ; }
+        }
+
+        @Override
+        public void close()
+        {
+            try { out.close() ; }
+            catch (IOException ex) { throw new AtlasException(ex) ; }
+        }
+    }
+
+    private static class RecordIterator implements Iterator<Record>
+    {
+        private final InputStream in ;
+        private final RecordFactory recordFactory ;
+        private Record slot = null ;
+        private boolean finished = false ;
+
+        RecordIterator(InputStream in, RecordFactory recordFactory)
+        {
+            this.in = in ;
+            this.recordFactory = recordFactory ;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if ( finished )
+                return false ;
+            if ( slot != null )
+                return true ;
+            Record record = recordFactory.create() ;
+            byte[] key = record.getKey() ;
+            int len = 0 ;
+            try {
+                while ( len < key.length )
+                {
+                    int x = in.read(key, len, key.length-len) ;
+                    if ( x == -1 )
+                        break ;
+                    len += x ;
+                }
+            } catch (IOException ex) { throw new AtlasException(ex) ; }
+            if ( len == 0 )
+            {
+                finished = true ;
+                return false ;
+            }
+            if ( len != key.length )
+                throw new AtlasException("Truncated record") ;
+            slot = record ;
+            return true ;
+        }
+
+        @Override
+        public Record next()
+        {
+            if ( ! hasNext() ) throw new NoSuchElementException() ;
+            Record r = slot ;
+            slot = null ;
+            return r ;
+        }
+
+        @Override
+        public void remove()
+        { throw new UnsupportedOperationException() ; }
+    }
+}
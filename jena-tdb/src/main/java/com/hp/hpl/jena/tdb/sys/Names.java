@@ -47,6 +47,7 @@ public class Names
     /** Node file */
     public static final String extNodeData              = "dat" ;           // Extension of node files
     public static final String extJournal               = "jrnl" ;          // Extension of node files.
+    public static final String extNodeHashFilter        = "bloom" ;         // Filter of the hashes in the node to id index
     public static final String journalFileBase          = "journal" ;
     public static final String journalFile              = journalFileBase+"."+extJournal ;
     
@@ -40,6 +40,7 @@ import com.hp.hpl.jena.tdb.index.TupleIndex ;
 import com.hp.hpl.jena.tdb.index.TupleIndexRecord ;
 import com.hp.hpl.jena.tdb.index.bplustree.BPlusTree ;
 import com.hp.hpl.jena.tdb.index.bplustree.BPlusTreeParams ;
+import com.hp.hpl.jena.tdb.nodetable.NodeHashFilter ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTableCache ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTableFactory ;
@@ -216,7 +217,7 @@ public class SetupTDB
         Index nodeToId = makeIndex(location, indexNode2Id, LenNodeHash, SizeOfNodeId, -1 ,-1) ;
         
         // -- Make the node table using the components established above.
-        NodeTable nodeTable = new NodeTableNative(nodeToId, stringFile) ;
+        NodeTable nodeTable = new NodeTableNative(nodeToId, stringFile, NodeHashFilter.create(new FileSet(location, indexNode2Id))) ;
         return nodeTable ;
     }
 
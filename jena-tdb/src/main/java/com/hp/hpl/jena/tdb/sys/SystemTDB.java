@@ -176,6 +176,14 @@ public class SystemTDB
     /** Size of Node lookup miss cache. */
     public static final int NodeMissCacheSize       = 100 ;
     
+    /** Bits per node of the filter over node hashes checked before probing the node to NodeId index.
+     *  About 1% false positives at 10 bits per node.  0, the default, switches the filter off:
+     *  opening a node table with the filter on builds it with a full scan of the index
+     *  unless a saved, up-to-date filter is available.
+     *  Read when a node table is opened.
+     */
+    public static int NodeHashFilterBitsPerNode = intValue("NodeHashFilterBitsPerNode", 0) ;
+    
     /** Size of the delayed-write block cache (32 bit systems only) (per file) */
     public static final int BlockWriteCacheSize     = intValue("BlockWriteCacheSize", 2*1000) ;
 
@@ -232,6 +240,14 @@ public class SystemTDB
     
     // ----
     
+    /** Setting for one file: the property "name.file" (e.g. "BlockReadCacheSize.SPO")
+     *  from the properties file, or the given default value if not set.
+     */
+    public static int perFileValue(String name, String file, int defaultValue)
+    {
+        return intValue(name, file, defaultValue) ;
+    }
+    
     private static int intValue(String prefix, String name, int defaultValue)
     {
         if ( ! prefix.endsWith(".") )
@@ -19,6 +19,7 @@
 package com.hp.hpl.jena.tdb.transaction;
 
 import java.nio.ByteBuffer ;
+import java.util.Collections ;
 import java.util.HashMap ;
 import java.util.HashSet ;
 import java.util.Iterator ;
@@ -55,6 +56,7 @@ public class BlockMgrJournal implements BlockMgr, TransactionLifecycle
     private final Set<Long> iteratorBlocks = new HashSet<Long>() ;
     private final Map<Long, Block> writeBlocks = new HashMap<Long, Block>() ;
     private final Map<Long, Block> freedBlocks = new HashMap<Long, Block>() ;
+    private final Set<Long> allocatedBlocks = new HashSet<Long>() ;
     private boolean closed  = false ;
     private boolean active  = false ;   // In a transaction, or preparing.
     
@@ -133,6 +135,7 @@ public class BlockMgrJournal implements BlockMgr, TransactionLifecycle
         this.iteratorBlocks.clear() ;
         this.writeBlocks.clear() ;
         this.freedBlocks.clear() ;
+        this.allocatedBlocks.clear() ;
         this.writeBlockBufferAllocator.clear() ;
     }
     
@@ -149,9 +152,18 @@ public class BlockMgrJournal implements BlockMgr, TransactionLifecycle
         {
             block = replicate(block) ;
             writeBlocks.put(block.getId(), block) ;
+            allocatedBlocks.add(block.getId()) ;
         }
         return block ;
     }
+    
+    /** The ids of the blocks written by this transaction. Valid until the commit clearup. */
+    /*package*/ Set<Long> writtenBlocks()     { return Collections.unmodifiableSet(writeBlocks.keySet()) ; }
+
+    /** The ids of the blocks allocated by this transaction. Valid until the commit clearup. */
+    /*package*/ Set<Long> allocatedBlocks()   { return Collections.unmodifiableSet(allocatedBlocks) ; }
+    
+    public FileRef getFileRef()     { return fileRef ; }
 
     @Override
     public Block getRead(long id)
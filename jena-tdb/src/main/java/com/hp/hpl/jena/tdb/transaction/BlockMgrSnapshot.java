@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.hpl.jena.tdb.transaction;
+
+import java.nio.ByteBuffer ;
+import java.util.Map ;
+import java.util.concurrent.ConcurrentHashMap ;
+
+import com.hp.hpl.jena.tdb.base.block.Block ;
+import com.hp.hpl.jena.tdb.base.block.BlockMgr ;
+import com.hp.hpl.jena.tdb.base.block.BlockMgrWrapper ;
+
+/** The view of a base BlockMgr as it was at one version of the base data.
+ *  <p>
+ *  When the journal is written back to the base data while transactions
+ *  using this version are still active, the base blocks about to be
+ *  overwritten are first copied and frozen here; reads of those blocks then
+ *  get the frozen copy, other reads go to the base BlockMgr.
+ *  Writes always go to the base BlockMgr (there are no writers of old versions). 
+ */
+class BlockMgrSnapshot extends BlockMgrWrapper
+{
+    private final Map<Long, Block> frozen = new ConcurrentHashMap<Long, Block>() ;
+
+    BlockMgrSnapshot(BlockMgr baseBlockMgr)
+    {
+        super(baseBlockMgr) ;
+    }
+
+    /** Is there a frozen copy of the block? */
+    boolean isFrozen(long id)
+    {
+        return frozen.containsKey(id) ;
+    }
+
+    /** Keep this copy of the block for readers of this version */
+    void freeze(Block block)
+    {
+        frozen.put(block.getId(), block) ;
+    }
+
+    /** Copy the current contents of a block of the base BlockMgr */
+    Block copyBase(long id)
+    {
+        Block block = blockMgr.getRead(id) ;
+        try {
+            // Copy from a duplicate so as not to disturb the position of the 
+            // ByteBuffer for any concurrent readers.
+            ByteBuffer src = block.getByteBuffer().duplicate() ;
+            src.clear() ;
+            ByteBuffer dst = ByteBuffer.allocate(src.capacity()) ;
+            dst.put(src) ;
+            dst.clear() ;
+            Block copy = new Block(id, dst) ;
+            copy.setReadOnly(true) ;
+            return copy ;
+        } finally { blockMgr.release(block) ; }
+    }
+
+    /** No longer needed - drop the frozen blocks */
+    void clear()
+    {
+        frozen.clear() ;
+    }
+
+    @Override
+    public Block getRead(long id)
+    {
+        Block block = frozen.get(id) ;
+        if ( block != null )
+            return block ;
+        block = blockMgr.getRead(id) ;
+        return recheck(block) ;
+    }
+
+    @Override
+    public Block getReadIterator(long id)
+    {
+        Block block = frozen.get(id) ;
+        if ( block != null )
+            return block ;
+        block = blockMgr.getReadIterator(id) ;
+        return recheck(block) ;
+    }
+
+    // A block is frozen before the base is overwritten so, if the block 
+    // read from the base may be the new version, the frozen copy now exists.
+    private Block recheck(Block block)
+    {
+        Block block2 = frozen.get(block.getId()) ;
+        if ( block2 == null )
+            return block ;
+        blockMgr.release(block) ;
+        return block2 ;
+    }
+
+    @Override
+    public void release(Block block)
+    {
+        if ( frozen.get(block.getId()) == block )
+            return ;
+        blockMgr.release(block) ;
+    }
+
+    @Override
+    public String toString() { return "Snapshot:"+super.toString() ; }
+}
@@ -57,7 +57,13 @@ public class DatasetBuilderTxn
     
     public DatasetGraphTxn build(Transaction transaction, ReadWrite mode, DatasetGraphTDB dsg)
     {
-        this.blockMgrs = dsg.getConfig().blockMgrs ;
+        return build(transaction, mode, dsg, dsg.getConfig().blockMgrs) ;
+    }
+    
+    /** Build, using the given BlockMgrs in place of those of the dataset. */ 
+    public DatasetGraphTxn build(Transaction transaction, ReadWrite mode, DatasetGraphTDB dsg, Map<FileRef, BlockMgr> blockMgrs)
+    {
+        this.blockMgrs = blockMgrs ;
         this.nodeTables = dsg.getConfig().nodeTables ;
         this.txn = transaction ;
         this.dsg = dsg ;
@@ -60,6 +60,17 @@ class Journal implements Sync, Closeable
     
     private BufferChannel channel ;
     private long position ;
+    
+    // Group commit.
+    // "changes" counts the bytes written, and truncations, since the journal 
+    // was opened and "synced" is the value of "changes" at the last completed sync.
+    // Only one sync runs at a time; a caller finding a sync in progress waits for
+    // it and then syncs everything written meanwhile, for all waiting callers at once.
+    // "changes" is updated under the journal lock but read by syncing threads.
+    private volatile long changes = 0 ;
+    private long synced = 0 ;
+    private boolean syncing = false ;
+    private final Object syncLock = new Object() ;
     // Length, type, fileRef, [block id]
     // Length is length of variable part.
     private static int Overhead = 4*SizeOfInt ;
@@ -180,6 +191,7 @@ class Journal implements Sync, Closeable
         channel.write(crcTrailer) ;
 
         position += Overhead + len + SizeofCRC ; // header + payload + checksum
+        changes += Overhead + len + SizeofCRC ;
         return posn ;
     }
     
@@ -285,8 +297,52 @@ class Journal implements Sync, Closeable
         return new IteratorEntries(startPosition) ;
     }
 
+    /** Mark for the changes to the journal so far: pass to {@link #sync(long)}
+     * to wait until they are on disk.
+     */
+    synchronized
+    public long changePoint() { return changes ; }
+    
+    /** Sync everything written to the journal so far */
     @Override
-    public void sync()  { channel.sync() ; }
+    public void sync()  { sync(changePoint()) ; }
+
+    /** Ensure the journal is on disk up to the change point
+     * (see {@link #changePoint()}). Concurrent callers share a sync
+     * of the underlying file.
+     */
+    public void sync(long changePoint)
+    {
+        synchronized(syncLock)
+        {
+            for ( ;; )
+            {
+                if ( synced >= changePoint )
+                    return ;
+                if ( ! syncing )
+                    break ;
+                try { syncLock.wait() ; }
+                catch (InterruptedException ex)
+                { throw new TDBTransactionException("Interrupted waiting for journal sync", ex) ; }
+            }
+            syncing = true ;
+        }
+        
+        boolean success = false ;
+        long upTo = changePoint() ;
+        try {
+            channel.sync() ;
+            success = true ;
+        } finally {
+            synchronized(syncLock)
+            {
+                syncing = false ;
+                if ( success )
+                    synced = Math.max(synced, upTo) ;
+                syncLock.notifyAll() ;
+            }
+        }
+    }
 
     @Override
     public void close() { channel.close() ; }
@@ -295,7 +351,8 @@ class Journal implements Sync, Closeable
     
     public boolean isEmpty()  { return channel.size() == 0 ; }
 
-    public void truncate(long size) { channel.truncate(size) ; }
+    synchronized
+    public void truncate(long size) { channel.truncate(size) ; changes++ ; }
     
     public void append()    { position(size()) ; }
     
@@ -84,7 +84,7 @@ public class Transaction
      * 1/ commitPrepare - call all the components to tell them we are going to
      * commit.
      * 
-     * 2/ Actually commit - write the commit point to the journal
+     * 2/ Actually commit - write the commit point to the journal and sync it
      * 
      * 3/ commitEnact -- make the changes to the original data
      * 
@@ -98,6 +98,7 @@ public class Transaction
     
     public void commit()
     {
+        long commitPoint = -1 ;
         synchronized (this)
         {
             // Do prepare, write the COMMIT record.
@@ -133,7 +134,7 @@ public class Transaction
                     
                     try {
                         journal.write(JournalEntryType.Commit, FileRef.Journal, null) ;
-                        journal.sync() ;        // Commit point.
+                        commitPoint = journal.changePoint() ;
                     } catch (RuntimeException ex) {
                         // It either did all commit or didn't but we don't know which.
                         // Some low level system error - probably a sign of something
@@ -161,6 +162,25 @@ public class Transaction
                 SystemTDB.errlog.warn("Exception after commit point : transaction commited but internal status not recorded properly", ex) ;
             throw new TDBTransactionException("Exception after commit point - transaction did commit", ex) ;
         }
+        
+        // Group commit: the writer lock has been released so the next writer can 
+        // append its commit record while this sync runs, and share the next sync.
+        // The commit is not visible to readers until the journal is on disk 
+        // up to the commit record.
+        if ( commitPoint >= 0 )
+        {
+            try {
+                journal.sync(commitPoint) ;        // Commit point.
+            } catch (RuntimeException ex) {
+                // Write-back stops: the state of the journal is not known.
+                if ( isIOException(ex) )
+                    SystemTDB.errlog.warn("IOException during 'commit' : transaction status not known (but not a partial commit): "+ex.getMessage()) ;
+                else
+                    SystemTDB.errlog.warn("Exception during 'commit' : transaction status not known (but not a partial commit): ",ex) ;
+                throw new TDBTransactionException("Exception at commit point", ex) ;
+            }
+            txnMgr.notifySynced(this) ;
+        }
     }
     
     private boolean isIOException(Throwable ex)
@@ -25,8 +25,10 @@ import static java.lang.String.format ;
 
 import java.io.File ;
 import java.util.ArrayList ;
+import java.util.HashMap ;
 import java.util.HashSet ;
 import java.util.List ;
+import java.util.Map ;
 import java.util.Set ;
 import java.util.concurrent.BlockingQueue ;
 import java.util.concurrent.LinkedBlockingDeque ;
@@ -41,7 +43,11 @@ import org.slf4j.LoggerFactory ;
 
 import com.hp.hpl.jena.query.ReadWrite ;
 import com.hp.hpl.jena.shared.Lock ;
+import com.hp.hpl.jena.tdb.base.block.Block ;
+import com.hp.hpl.jena.tdb.base.block.BlockMgr ;
+import com.hp.hpl.jena.tdb.base.block.FileMode ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
+import com.hp.hpl.jena.tdb.sys.FileRef ;
 import com.hp.hpl.jena.tdb.sys.SystemTDB ;
 
 public class TransactionManager
@@ -76,6 +82,32 @@ public class TransactionManager
         return 0 ;
     }
     
+    /** Also flush the queued write transactions when the journal is larger than 
+     *  this (bytes).  Negative for no limit.
+     */
+    public static /*final*/ long JournalSizeThreshold = -1 ;
+    
+    /** Also flush the queued write transactions when the oldest has been waiting
+     *  longer than this (milliseconds).  Negative for no limit.
+     *  Without a background flush, this is only checked when a transaction finishes.  
+     */
+    public static /*final*/ long QueueDelayThreshold = -1 ;
+    
+    /** Flush the queued write transactions to the base database from a background
+     *  thread, rather than in the transaction that finds it can do so.  
+     *  Takes effect for transaction managers created after it is set.
+     */
+    public static /*final*/ boolean BackgroundFlush = false ;
+    
+    /** Allow the queued write transactions to be written back to the base database
+     *  while read transactions are active: the readers keep the version of the base data
+     *  they started with (see {@link BlockMgrSnapshot}).  Otherwise, write back waits
+     *  until there are no active transactions.
+     *  Not used with memory mapped files, where blocks are updated in-place.  
+     *  Takes effect for transaction managers created after it is set.
+     */
+    public static /*final*/ boolean VersionedWriteBack = true ;
+    
     enum TxnPoint { BEGIN, COMMIT, ABORT, CLOSE, QUEUE, UNQUEUE }
     private List<Pair<Transaction, TxnPoint>> transactionStateTransition ;
     
@@ -91,6 +123,16 @@ public class TransactionManager
     int maxQueue = 0 ;
     List<Transaction> commitedAwaitingFlush = new ArrayList<Transaction>() ;    
     
+    // Group commit.
+    // Write transactions whose commit record is in the journal but maybe not yet
+    // on disk, in commit order.  The writer permit is released when the commit record
+    // is written so the next writer, which builds on the latest of these, can commit
+    // while the journal syncs and share the sync.  Readers do not see these commits,
+    // and they are not queued for write-back, until the journal is on disk up to them.
+    private final List<Transaction> commitedAwaitingSync = new ArrayList<Transaction>() ;
+    // Members of commitedAwaitingSync whose sync has finished.
+    private final Set<Transaction> synced = new HashSet<Transaction>() ;
+    
     static AtomicLong transactionId = new AtomicLong(1) ;
     
     // Accessed by SysTxnState
@@ -116,8 +158,36 @@ public class TransactionManager
     private Semaphore writersWaiting = new Semaphore(1, true) ;
     // Delayes enacting transactions.
     private BlockingQueue<Transaction> queue = new LinkedBlockingDeque<Transaction>() ;
+    // When the oldest transaction in the queue was added.
+    private long queueStartTime = -1 ;
 
-    private Thread committerThread ;    // Later
+    private Thread flusherThread = null ;
+    private boolean closed = false ;
+    
+    // Versions of the base data.  Transactions use the current version;
+    // old versions are kept while there are transactions using them.
+    private final boolean versioned ;
+    private Epoch currentEpoch ;
+    private final List<Epoch> oldEpochs = new ArrayList<Epoch>() ;
+    private final Map<Transaction, Epoch> txnEpochs = new HashMap<Transaction, Epoch>() ;
+    
+    /** A version of the base data and the transactions using it */
+    private static class Epoch
+    {
+        final long version ;
+        // The BlockMgrs for transactions starting from the base data.
+        final Map<FileRef, BlockMgr> blockMgrs ;
+        int users = 0 ;
+        // Transactions written back while this version was in use.
+        // Views of this version still read the blocks of their BlockMgrJournals. 
+        final List<Transaction> writtenBack = new ArrayList<Transaction>() ;
+        
+        Epoch(long version, Map<FileRef, BlockMgr> blockMgrs)
+        {
+            this.version = version ;
+            this.blockMgrs = blockMgrs ;
+        }
+    }
 
     private DatasetGraphTDB baseDataset ;
     private Journal journal ;
@@ -266,18 +336,36 @@ public class TransactionManager
     } ;
     
     public TransactionManager(DatasetGraphTDB dsg)
+    {
+        this(dsg, Journal.create(dsg.getLocation())) ;
+    }
+    
+    /*testing*/ TransactionManager(DatasetGraphTDB dsg, Journal journal)
     {
         this.baseDataset = dsg ; 
-        this.journal = Journal.create(dsg.getLocation()) ;
-        // LATER
-//        Committer c = new Committer() ;
-//        this.committerThread = new Thread(c) ;
-//        committerThread.setDaemon(true) ;
-//        committerThread.start() ;
+        this.journal = journal ;
+        this.versioned = VersionedWriteBack && ( dsg.getLocation().isMem() || SystemTDB.fileMode() != FileMode.mapped ) ;
+        this.currentEpoch = createEpoch(0) ;
+        if ( BackgroundFlush )
+        {
+            this.flusherThread = new Thread(new Flusher(), "TDB flush: "+dsg.getLocation().getDirectoryPath()) ;
+            flusherThread.setDaemon(true) ;
+            flusherThread.start() ;
+        }
     }
 
     public void closedown()
     {
+        synchronized(this)
+        {
+            closed = true ;
+            notifyAll() ;
+        }
+        if ( flusherThread != null )
+        {
+            try { flusherThread.join() ; }
+            catch (InterruptedException ex) { log.warn("Interrupted waiting for the flush thread") ; }
+        }
         processDelayedReplayQueue(null) ;
         journal.close() ;
     }
@@ -333,16 +421,22 @@ public class TransactionManager
         
         DatasetGraphTDB dsg = baseDataset ;
         // *** But, if there are pending, committed transactions, use latest.
-        if ( ! commitedAwaitingFlush.isEmpty() )
+        // A writer also builds on commits that are not on disk yet.
+        List<Transaction> pending = commitedAwaitingFlush ;
+        if ( mode == ReadWrite.WRITE && ! commitedAwaitingSync.isEmpty() )
+            pending = commitedAwaitingSync ;
+        if ( ! pending.isEmpty() )
         {  
-            if ( DEBUG ) System.out.print(commitedAwaitingFlush.size()) ;
-            dsg = commitedAwaitingFlush.get(commitedAwaitingFlush.size()-1).getActiveDataset().getView() ;
+            if ( DEBUG ) System.out.print(pending.size()) ;
+            dsg = pending.get(pending.size()-1).getActiveDataset().getView() ;
         }
         else 
         {
             if ( DEBUG ) System.out.print('_') ;
         }
         Transaction txn = createTransaction(dsg, mode, label) ;
+        currentEpoch.users++ ;
+        txnEpochs.put(txn, currentEpoch) ;
         
         log("begin$", txn) ;
         
@@ -391,7 +485,10 @@ public class TransactionManager
             }
         }
         
-        DatasetGraphTxn dsgTxn = new DatasetBuilderTxn(this).build(txn, mode, dsg) ;
+        // Transactions from the base dataset use the current version of it.
+        // Views of pending, committed transactions are already built on it.
+        Map<FileRef, BlockMgr> blockMgrs = ( dsg == baseDataset ) ? currentEpoch.blockMgrs : dsg.getConfig().blockMgrs ;  
+        DatasetGraphTxn dsgTxn = new DatasetBuilderTxn(this).build(txn, mode, dsg, blockMgrs) ;
         if ( mode == ReadWrite.READ )
         {
             // If a READ transaction, cache the storage view.
@@ -402,8 +499,9 @@ public class TransactionManager
     }
 
     /* Signal a transaction has commited.  The journal has a commit record
-     * and a sync to disk. The code here manages the inter-transaction stage
-     *  of deciding how to play the changes back to the base data
+     * but, for a write transaction, it may not be on disk yet: the transaction 
+     * then calls notifySynced when it is.  The code here manages the inter-transaction 
+     * stage of deciding how to play the changes back to the base data
      *  together with general recording of transaction details and status. 
      */ 
     synchronized
@@ -412,16 +510,47 @@ public class TransactionManager
         if ( ! activeTransactions.contains(transaction) )
             SystemTDB.errlog.warn("Transaction not active: "+transaction.getTxnId()) ;
         
+        releaseEpoch(transaction) ;
         noteTxnCommit(transaction) ;
 
         switch ( transaction.getMode() )
         {
             case READ: break ;
             case WRITE:
-                currentReaderView.set(null) ;       // Clear the READ transaction cache.
                 writersWaiting.release() ;          // Single writer: let another (waiting?) writer have a turn.
         }
     }
+    
+    /* Signal the journal is on disk up to the commit record of a write transaction.
+     * Commits become visible to readers, and are queued for write-back, in commit order:
+     * a sync covering a later commit covers the earlier ones but their transactions
+     * may not have been told yet. 
+     */
+    synchronized
+    public void notifySynced(Transaction transaction)
+    {
+        synced.add(transaction) ;
+        boolean visible = false ;
+        while ( ! commitedAwaitingSync.isEmpty() && synced.remove(commitedAwaitingSync.get(0)) )
+        {
+            Transaction txn = commitedAwaitingSync.remove(0) ;
+            commitedAwaitingFlush.add(txn) ;
+            maxQueue = Math.max(commitedAwaitingFlush.size(), maxQueue) ;
+            if ( log() ) log("Add to pending queue", txn) ; 
+            if ( queue.isEmpty() )
+                queueStartTime = System.currentTimeMillis() ;
+            queue.add(txn) ;
+            visible = true ;
+        }
+        if ( ! visible )
+            return ;
+        currentReaderView.set(null) ;       // Clear the READ transaction cache.
+        // Write back the queue now if it is time to and it is possible.
+        if ( flusherThread != null )
+            notifyAll() ;
+        else if ( flushNeeded() )
+            processDelayedReplayQueue(transaction) ;
+    }
 
     synchronized
     public void notifyAbort(Transaction transaction)
@@ -430,6 +559,7 @@ public class TransactionManager
         if ( ! activeTransactions.contains(transaction) )
             SystemTDB.errlog.warn("Transaction not active: "+transaction.getTxnId()) ;
         
+        releaseEpoch(transaction) ;
         noteTxnAbort(transaction) ;
         
         switch ( transaction.getMode() )
@@ -439,17 +569,117 @@ public class TransactionManager
         }
     }
     
-    /** The stage in a commit after committing - make the changes permanent in the base data */ 
-    private void enactTransaction(Transaction transaction)
+    /** The stage in a commit after committing - make the changes permanent in the base data.
+     *  If keepBlocks, the blocks of the transaction are left for views of the current version
+     *  of the base data.
+     */ 
+    private void enactTransaction(Transaction transaction, boolean keepBlocks)
     {
+        // The journal must be on disk before the base data changes.
+        // The commit has already synced it so this returns at once unless
+        // something else has been written to the journal since.
+        journal.sync() ;
         // Really, really do it!
         for ( TransactionLifecycle x : transaction.lifecycleComponents() )
         {
             x.commitEnact(transaction) ;
+            if ( keepBlocks && x instanceof BlockMgrJournal )
+                continue ;
             x.commitClearup(transaction) ;
         }
         transaction.signalEnacted() ;
     }
+    
+    // ---- Versions of the base data.
+    
+    private Epoch createEpoch(long version)
+    {
+        Map<FileRef, BlockMgr> base = baseDataset.getConfig().blockMgrs ;
+        if ( ! versioned )
+            return new Epoch(version, base) ;
+        Map<FileRef, BlockMgr> blockMgrs = new HashMap<FileRef, BlockMgr>() ;
+        for ( Map.Entry<FileRef, BlockMgr> e : base.entrySet() )
+            blockMgrs.put(e.getKey(), new BlockMgrSnapshot(e.getValue())) ;
+        return new Epoch(version, blockMgrs) ;
+    }
+    
+    private void releaseEpoch(Transaction txn)
+    {
+        Epoch epoch = txnEpochs.remove(txn) ;
+        if ( epoch == null )
+            return ;
+        epoch.users-- ;
+        if ( epoch != currentEpoch && epoch.users == 0 )
+        {
+            // Last transaction using an old version of the base data.
+            if ( log() ) log("Release version "+epoch.version, txn) ;
+            oldEpochs.remove(epoch) ;
+            for ( Transaction txn2 : epoch.writtenBack )
+            {
+                for ( TransactionLifecycle x : txn2.lifecycleComponents() )
+                {
+                    if ( x instanceof BlockMgrJournal )
+                        x.commitClearup(txn2) ;
+                }
+            }
+            epoch.writtenBack.clear() ;
+            for ( BlockMgr blkMgr : epoch.blockMgrs.values() )
+                ((BlockMgrSnapshot)blkMgr).clear() ;
+        }
+    }
+    
+    /** Before writing back transactions, copy the blocks they change for
+     *  the transactions using versions of the base data. */  
+    private void preserveBlocks(List<Transaction> txns, List<Epoch> epochs)
+    {
+        Map<FileRef, Set<Long>> changed = new HashMap<FileRef, Set<Long>>() ;
+        Map<FileRef, Set<Long>> allocated = new HashMap<FileRef, Set<Long>>() ;
+        for ( Transaction txn : txns )
+        {
+            for ( TransactionLifecycle x : txn.lifecycleComponents() )
+            {
+                if ( ! ( x instanceof BlockMgrJournal ) )
+                    continue ;
+                BlockMgrJournal blkMgr = (BlockMgrJournal)x ;
+                add(changed, blkMgr.getFileRef(), blkMgr.writtenBlocks()) ;
+                add(allocated, blkMgr.getFileRef(), blkMgr.allocatedBlocks()) ;
+            }
+        }
+        
+        for ( Map.Entry<FileRef, Set<Long>> e : changed.entrySet() )
+        {
+            FileRef ref = e.getKey() ;
+            Set<Long> ids = e.getValue() ;
+            // New blocks are not in any earlier version.
+            if ( allocated.containsKey(ref) )
+                ids.removeAll(allocated.get(ref)) ;
+            for ( Long id : ids )
+            {
+                // Unless already frozen, the base block is the block of that version.
+                Block copy = null ;
+                for ( Epoch epoch : epochs )
+                {
+                    BlockMgrSnapshot snapshot = (BlockMgrSnapshot)epoch.blockMgrs.get(ref) ;
+                    if ( snapshot == null || snapshot.isFrozen(id) )
+                        continue ;
+                    if ( copy == null )
+                        copy = snapshot.copyBase(id) ;
+                    snapshot.freeze(copy) ;
+                }
+            }
+        }
+    }
+    
+    private static void add(Map<FileRef, Set<Long>> map, FileRef ref, Set<Long> ids)
+    {
+        Set<Long> x = map.get(ref) ;
+        if ( x == null )
+        {
+            x = new HashSet<Long>() ;
+            map.put(ref, x) ;
+        }
+        x.addAll(ids) ;
+    }
 
     /** Try to flush the delayed write queue - only happens if there are no active transactions */ 
     synchronized
@@ -464,50 +694,44 @@ public class TransactionManager
     
     private void readerFinishesWorker(Transaction txn)
     {
-        if ( queue.size() >= QueueBatchSize )
+        if ( flusherThread != null )
+            notifyAll() ;
+        else if ( flushNeeded() )
             processDelayedReplayQueue(txn) ;
     }
     
     private void writerAbortsWorker(Transaction txn)
     {
-        if ( queue.size() >= QueueBatchSize )
+        if ( flusherThread != null )
+            notifyAll() ;
+        else if ( flushNeeded() )
             processDelayedReplayQueue(txn) ;
     }
     
     private void writerCommitsWorker(Transaction txn)
     {
-        if ( activeReaders.get() == 0 && queue.size() >= QueueBatchSize )
-        {
-            // Can commit immediately.
-            // Ensure the queue is empty though.
-            // Could simply add txn to the commit queue and do it that way.  
-            if ( log() ) log("Commit immediately", txn) ; 
-            
-            // Currently, all we need is 
-            //    JournalControl.replay(txn) ;
-            // because that plays queued transactions.
-            // But for long term generallity, at the cost of one check of the journal size
-            // we do this sequence.
-            
-            processDelayedReplayQueue(txn) ;
-            enactTransaction(txn) ;
-            JournalControl.replay(txn) ;
-        }
-        else
-        {
-            // Can't write back to the base database at the moment.
-            commitedAwaitingFlush.add(txn) ;
-            maxQueue = Math.max(commitedAwaitingFlush.size(), maxQueue) ;
-            if ( log() ) log("Add to pending queue", txn) ; 
-            queue.add(txn) ;
-        }
-
+        // Only the next writer sees the commit until the journal is 
+        // on disk up to it (notifySynced).
+        commitedAwaitingSync.add(txn) ;
+    }
+    
+    /** Has the queue of committed transactions reached one of the thresholds to write it back? */ 
+    private boolean flushNeeded()
+    {
+        if ( queue.size() >= QueueBatchSize )
+            return true ;
+        if ( JournalSizeThreshold >= 0 && journal.size() >= JournalSizeThreshold )
+            return true ;
+        if ( QueueDelayThreshold >= 0 && queueStartTime >= 0 
+             && System.currentTimeMillis()-queueStartTime >= QueueDelayThreshold )
+            return true ;
+        return false ;
     }
     
     private void processDelayedReplayQueue(Transaction txn)
     {
         // Can we do work?
-        if ( activeReaders.get() != 0 || activeWriters.get() != 0 )
+        if ( ! replaySafe() )
         {
             if ( queue.size() > 0 && log() )
                 log(format("Pending transactions: R=%s / W=%s", activeReaders, activeWriters), txn) ;
@@ -533,6 +757,17 @@ public class TransactionManager
         // against the updated database.
         currentReaderView.set(null) ;
         
+        // Transactions still active keep their version of the base data.
+        boolean writeBack = ! queue.isEmpty() ;
+        boolean keep = currentEpoch.users > 0 ;
+        if ( writeBack && ( keep || ! oldEpochs.isEmpty() ) )
+        {
+            List<Epoch> epochs = new ArrayList<Epoch>(oldEpochs) ;
+            if ( keep )
+                epochs.add(currentEpoch) ;
+            preserveBlocks(new ArrayList<Transaction>(queue), epochs) ;
+        }
+        
         while ( queue.size() > 0 )
         {
             // Currently, replay is replay everything
@@ -547,17 +782,28 @@ public class TransactionManager
                     log("  Flush delayed commit of "+txn2.getLabel(), txn) ;
                 if ( DEBUG ) checkNodesDatJrnl("2", txn) ;
                 checkReplaySafe() ;
-                enactTransaction(txn2) ;
+                enactTransaction(txn2, keep) ;
+                if ( keep )
+                    currentEpoch.writtenBack.add(txn2) ;
                 commitedAwaitingFlush.remove(txn2) ;
             } catch (InterruptedException ex)
             { Log.fatal(this, "Interruped!", ex) ; }
         }
+        queueStartTime = -1 ;
 
         checkReplaySafe() ;
         if ( DEBUG ) checkNodesDatJrnl("3", txn) ;
 
         // Whole journal to base database
         JournalControl.replay(journal, baseDataset) ;
+        
+        if ( writeBack )
+        {
+            // A new version of the base data.
+            if ( keep )
+                oldEpochs.add(currentEpoch) ;
+            currentEpoch = createEpoch(currentEpoch.version+1) ;
+        }
 
         if ( DEBUG ) checkNodesDatJrnl("4", txn) ;
         
@@ -580,10 +826,21 @@ public class TransactionManager
         }   
     }
     
+    /** Can the journal be written back to the base database now? */ 
+    private boolean replaySafe()
+    {
+        if ( activeWriters.get() != 0 )
+            return false ;
+        // Replay is of the whole journal. 
+        if ( ! commitedAwaitingSync.isEmpty() )
+            return false ;
+        return versioned || activeReaders.get() == 0 ;
+    }
+    
     private void checkReplaySafe()
     {
         if ( ! checking ) return ;
-        if ( activeReaders.get() != 0 || activeWriters.get() != 0 )
+        if ( ! replaySafe() )
             log.error("There are now active transactions") ;
     }
     
@@ -709,31 +966,38 @@ public class TransactionManager
         return new SysTxnState(this) ;
     }
     
-    // LATER.
-    class Committer implements Runnable
+    /** Background write back of the queue of committed transactions.
+     *  Wakes up when a transaction finishes, or when the oldest queued transaction
+     *  reaches the delay threshold, and flushes the queue if there are no
+     *  active transactions and a threshold has been reached.
+     */
+    class Flusher implements Runnable
     {
         @Override
         public void run()
         {
-            for(;;)
+            synchronized(TransactionManager.this)
             {
-                // Wait until the reader count goes to zero.
-                
-                // This wakes up for every transation but maybe 
-                // able to play several transactions at once (later).
-                try {
-                    Transaction txn = queue.take() ;
-                    // This takes a Write lock on the  DSG - this is where it blocks.
-                    JournalControl.replay(txn) ;
-                    synchronized(TransactionManager.this)
-                    {
-                        commitedAwaitingFlush.remove(txn) ;
-                    }
-                } catch (InterruptedException ex)
-                { Log.fatal(this, "Interruped!", ex) ; }
+                while ( ! closed )
+                {
+                    if ( ! queue.isEmpty() && flushNeeded() )
+                        processDelayedReplayQueue(null) ;
+                    try { TransactionManager.this.wait(waitTime()) ; }
+                    catch (InterruptedException ex)
+                    { Log.fatal(this, "Interruped!", ex) ; return ; }
+                }
             }
         }
         
+        // Time to wait until the delay threshold is reached, 0 for wait until woken
+        // (if it has been reached, the queue is waiting for active transactions to finish). 
+        private long waitTime()
+        {
+            if ( QueueDelayThreshold < 0 || queueStartTime < 0 )
+                return 0 ;
+            long x = queueStartTime + QueueDelayThreshold - System.currentTimeMillis() ;
+            return Math.max(0, x) ;
+        }
     }
     
     private void transactionStarts(Transaction txn)
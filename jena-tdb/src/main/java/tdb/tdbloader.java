@@ -20,6 +20,8 @@ package tdb ;
 
 import java.util.List ;
 
+import arq.cmdline.ArgDecl ;
+
 import org.apache.jena.riot.Lang ;
 import org.apache.jena.riot.RDFLanguages ;
 import tdb.cmdline.CmdTDB ;
@@ -32,8 +34,7 @@ import com.hp.hpl.jena.tdb.TDBLoader ;
 import com.hp.hpl.jena.tdb.store.GraphTDB ;
 
 public class tdbloader extends CmdTDBGraph {
-    // private static final ArgDecl argParallel = new ArgDecl(ArgDecl.NoValue,
-    // "parallel") ;
+    private static final ArgDecl argParallel = new ArgDecl(ArgDecl.NoValue, "parallel") ;
     // private static final ArgDecl argIncremental = new
     // ArgDecl(ArgDecl.NoValue, "incr", "incremental") ;
 
@@ -43,7 +44,7 @@ public class tdbloader extends CmdTDBGraph {
     // private Model rdfsVocab = null ;
 
     private boolean               showProgress  = true ;
-    // private boolean doInParallel = false ;
+    private boolean               doInParallel  = false ;
     private boolean               doIncremental = false ;
 
     static public void main(String... argv) {
@@ -55,8 +56,8 @@ public class tdbloader extends CmdTDBGraph {
     protected tdbloader(String[] argv) {
         super(argv) ;
 
-        // super.add(argParallel, "--parallel",
-        // "Do rebuilding of secondary indexes in a parallel") ;
+        super.add(argParallel, "--parallel",
+                  "Parse, encode and index concurrently, and build secondary indexes in parallel") ;
         // super.add(argIncremental, "--incremental",
         // "Do an incremental load (keep indexes during data load)") ;
         // super.add(argStats, "--stats",
@@ -67,7 +68,7 @@ public class tdbloader extends CmdTDBGraph {
     @Override
     protected void processModulesAndArgs() {
         super.processModulesAndArgs() ;
-        // doInParallel = super.contains(argParallel) ;
+        doInParallel = super.contains(argParallel) ;
         // doIncremental = super.contains(argIncremental) ;
     }
 
@@ -135,18 +136,25 @@ public class tdbloader extends CmdTDBGraph {
 
     void loadDefaultGraph(List<String> urls) {
         GraphTDB graph = getGraph() ;
-        TDBLoader.load(graph, urls, showProgress) ;
+        createLoader().loadGraph(graph, urls) ;
         return ;
     }
 
     void loadNamedGraph(List<String> urls) {
         GraphTDB graph = getGraph() ;
-        TDBLoader.load(graph, urls, showProgress) ;
+        createLoader().loadGraph(graph, urls) ;
         return ;
     }
 
     void loadQuads(List<String> urls) {
-        TDBLoader.load(getDatasetGraphTDB(), urls, showProgress) ;
+        createLoader().loadDataset(getDatasetGraphTDB(), urls) ;
         return ;
     }
+
+    private TDBLoader createLoader() {
+        TDBLoader loader = new TDBLoader() ;
+        loader.setShowProgress(showProgress) ;
+        loader.setParallel(doInParallel) ;
+        return loader ;
+    }
 }
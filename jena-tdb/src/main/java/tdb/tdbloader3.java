@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tdb ;
+
+import java.util.Arrays ;
+import java.util.List ;
+
+import org.apache.jena.atlas.lib.FileOps ;
+import org.apache.jena.atlas.logging.LogCtl ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFLanguages ;
+import tdb.cmdline.CmdTDB ;
+import arq.cmd.CmdException ;
+import arq.cmdline.ArgDecl ;
+import arq.cmdline.CmdGeneral ;
+
+import com.hp.hpl.jena.sparql.util.Utils ;
+import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.setup.DatasetBuilderStd ;
+import com.hp.hpl.jena.tdb.store.bulkloader2.BulkLoader2 ;
+
+/** tdbloader2, with the sorting done in the JVM - no scripts or Unix sort needed. */
+public class tdbloader3 extends CmdGeneral
+{
+    static { LogCtl.setLog4j() ; }
+
+    private static ArgDecl argLocation   = new ArgDecl(ArgDecl.HasValue, "loc", "location") ;
+    private static ArgDecl argThreads    = new ArgDecl(ArgDecl.HasValue, "threads") ;
+    private static ArgDecl argSortMemory = new ArgDecl(ArgDecl.HasValue, "sort-memory") ;
+    private static ArgDecl argCompress   = new ArgDecl(ArgDecl.NoValue, "compress") ;
+    private static ArgDecl argKeepWork   = new ArgDecl(ArgDecl.NoValue, "keep-work") ;
+    private static ArgDecl argCompressedLeaves = new ArgDecl(ArgDecl.NoValue, "compressed-leaves") ;
+
+    private BulkLoader2 loader ;
+    private List<String> datafiles ;
+
+    public static void main(String... argv)
+    {
+        CmdTDB.init() ;
+        DatasetBuilderStd.setOptimizerWarningFlag(false) ;
+        new tdbloader3(argv).mainRun() ;
+    }
+
+    protected tdbloader3(String... argv)
+    {
+        super(argv) ;
+        super.add(argLocation,   "--loc",           "Location (must be empty)") ;
+        super.add(argThreads,    "--threads",       "Number of indexes to sort and build at the same time") ;
+        super.add(argSortMemory, "--sort-memory",   "Memory (MB) for sorting, shared between threads") ;
+        super.add(argCompress,   "--compress",      "Compress temporary sort files") ;
+        super.add(argKeepWork,   "--keep-work",     "Keep the intermediate data files") ;
+        super.add(argCompressedLeaves, "--compressed-leaves", "Prefix-compress the leaves of the tuple indexes") ;
+    }
+
+    @Override
+    protected void processModulesAndArgs()
+    {
+        if ( !super.contains(argLocation) ) throw new CmdException("Required: --loc DIR") ;
+        loader = new BulkLoader2(new Location(super.getValue(argLocation))) ;
+        try {
+            if ( super.contains(argThreads) )
+                loader.setThreads(Integer.parseInt(super.getValue(argThreads))) ;
+            if ( super.contains(argSortMemory) )
+                loader.setSortMemory(Long.parseLong(super.getValue(argSortMemory))*1024*1024) ;
+        } catch (NumberFormatException ex) { throw new CmdException("Not a number: "+ex.getMessage()) ; }
+        loader.setCompressTempFiles(super.contains(argCompress)) ;
+        loader.setKeepWorkFiles(super.contains(argKeepWork)) ;
+        loader.setCompressedLeaves(super.contains(argCompressedLeaves)) ;
+
+        datafiles = getPositional() ;
+        if ( datafiles.isEmpty() )
+            datafiles = Arrays.asList("-") ;
+        for ( String filename : datafiles )
+        {
+            if ( filename.equals("-") )
+                continue ;
+            Lang lang = RDFLanguages.filenameToLang(filename, RDFLanguages.NQUADS) ;
+            if ( lang == null )
+                cmdError("File suffix not recognized: " +filename) ;
+            if ( ! FileOps.exists(filename) )
+                cmdError("File does not exist: "+filename) ;
+        }
+    }
+
+    @Override
+    protected void exec()
+    {
+        loader.load(datafiles) ;
+    }
+
+    @Override
+    protected String getSummary()
+    {
+        return getCommandName()+" --loc=DIR [--threads=N] [--sort-memory=MB] [--compress] FILE ..." ;
+    }
+
+    @Override
+    protected String getCommandName()
+    {
+        return Utils.className(this) ;
+    }
+}
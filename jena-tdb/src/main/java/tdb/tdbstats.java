@@ -59,16 +59,15 @@ public class tdbstats extends CmdTDBGraph
     public static StatsResults stats(DatasetGraphTDB dsg, Node gn)
     {
         NodeTable nt = dsg.getTripleTable().getNodeTupleTable().getNodeTable() ;
-        StatsCollectorNodeId stats = new StatsCollectorNodeId(nt) ;
+        Iterator<Tuple<NodeId>> iter ;
+        // Characteristic sets need all the triples of a subject together. 
+        boolean subjectOrder ;
         
         if ( gn == null )
         {
-            Iterator<Tuple<NodeId>> iter = dsg.getTripleTable().getNodeTupleTable().findAll() ;
-            for ( ; iter.hasNext(); )
-            {
-                Tuple<NodeId> t = iter.next() ;
-                stats.record(null, t.get(0), t.get(1), t.get(2)) ;
-            }
+            NodeTupleTable ntt = dsg.getTripleTable().getNodeTupleTable() ;
+            iter = ntt.findAll() ;
+            subjectOrder = ntt.getTupleTable().getIndex(0).getName().startsWith("SPO") ;
         } else {
             // If the union graph, then we need to scan all quads but with uniqueness.
             boolean unionGraph = Quad.isUnionGraph(gn) ;
@@ -81,14 +80,22 @@ public class tdbstats extends CmdTDBGraph
             }
                 
             NodeTupleTable ntt = dsg.getQuadTable().getNodeTupleTable() ;
-            Iterator<Tuple<NodeId>> iter = unionGraph
+            Tuple<NodeId> pattern = Tuple.createTuple(unionGraph ? NodeId.NodeIdAny : gnid, NodeId.NodeIdAny, NodeId.NodeIdAny, NodeId.NodeIdAny) ;
+            String index = ntt.getTupleTable().chooseIndex(pattern).getName() ;
+            iter = unionGraph
                 ? SolverLib.unionGraph(ntt)
                 : ntt.find(gnid, null, null, null) ;
-            for ( ; iter.hasNext(); )
-            {
-                Tuple<NodeId> t = iter.next() ;
+            subjectOrder = index.startsWith(unionGraph ? "SPO" : "GSPO") ;
+        }
+        
+        StatsCollectorNodeId stats = new StatsCollectorNodeId(nt, subjectOrder) ;
+        for ( ; iter.hasNext(); )
+        {
+            Tuple<NodeId> t = iter.next() ;
+            if ( t.size() == 3 )
+                stats.record(null, t.get(0), t.get(1), t.get(2)) ;
+            else
                 stats.record(t.get(0), t.get(1), t.get(2), t.get(3)) ;
-            }
         }
         return stats.results() ;
     }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.base.block;
+
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.Callable ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+public class TestBlockMgrCache extends BaseTest
+{
+    static final int BlkSize = 16 ;
+
+    static BlockMgrCache setup(int readSlots, int writeSlots, int numBlocks)
+    {
+        BlockMgr base = BlockMgrFactory.createMem("BlockMgrCache", BlkSize) ;
+        BlockMgrCache mgr = (BlockMgrCache)BlockMgrCache.create("test", readSlots, writeSlots, base) ;
+        mgr.beginUpdate() ;
+        for ( int i = 0 ; i < numBlocks ; i++ )
+        {
+            Block block = mgr.allocate(BlkSize) ;
+            block.getByteBuffer().putInt(0, 1000+i) ;
+            mgr.write(block) ;
+            mgr.release(block) ;
+        }
+        mgr.endUpdate() ;
+        mgr.sync() ;
+        return mgr ;
+    }
+
+    static int read(BlockMgr mgr, long id)
+    {
+        Block block = mgr.getRead(id) ;
+        int x = block.getByteBuffer().getInt(0) ;
+        mgr.release(block) ;
+        return x ;
+    }
+
+    @Test public void blockCache_01()
+    {
+        BlockMgrCache mgr = setup(10, 10, 3) ;
+        long hits = mgr.getCacheReadHits() ;
+        mgr.beginRead() ;
+        assertEquals(1000, read(mgr, 0)) ;
+        assertEquals(1002, read(mgr, 2)) ;
+        assertEquals(1000, read(mgr, 0)) ;
+        mgr.endRead() ;
+        // Written blocks move to the read cache on sync.
+        assertEquals(hits+3, mgr.getCacheReadHits()) ;
+        assertEquals(0, mgr.getReadEvictions()) ;
+    }
+
+    @Test public void blockCache_02()
+    {
+        // Read cache smaller than the data.
+        BlockMgrCache mgr = setup(2, 10, 5) ;
+        mgr.beginRead() ;
+        for ( int i = 0 ; i < 5 ; i++ )
+            assertEquals(1000+i, read(mgr, i)) ;
+        mgr.endRead() ;
+        assertTrue(mgr.getReadEvictions() > 0) ;
+        assertTrue(mgr.getCacheMisses() > 0) ;
+    }
+
+    @Test public void blockCache_03()
+    {
+        // Write cache smaller than the data : dirty blocks are written out.
+        BlockMgrCache mgr = setup(10, 2, 5) ;
+        assertEquals(3, mgr.getWriteEvictions()) ;
+        mgr.beginRead() ;
+        for ( int i = 0 ; i < 5 ; i++ )
+            assertEquals(1000+i, read(mgr, i)) ;
+        mgr.endRead() ;
+    }
+
+    @Test public void blockCache_04() throws Exception
+    {
+        // Concurrent readers.
+        final int N = 50 ;
+        final BlockMgrCache mgr = setup(20, 10, N) ;
+        ExecutorService executor = Executors.newFixedThreadPool(4) ;
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>() ;
+            for ( int t = 0 ; t < 8 ; t++ )
+            {
+                final int start = t ;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call()
+                    {
+                        mgr.beginRead() ;
+                        try {
+                            for ( int j = 0 ; j < 1000 ; j++ )
+                            {
+                                int id = (start+j*7) % N ;
+                                if ( read(mgr, id) != 1000+id )
+                                    return false ;
+                            }
+                            return true ;
+                        } finally { mgr.endRead() ; }
+                    }})) ;
+            }
+            for ( Future<Boolean> f : results )
+                assertTrue(f.get()) ;
+        } finally { executor.shutdown() ; }
+    }
+
+    @Test public void blockCache_05()
+    {
+        // No read cache.
+        BlockMgrCache mgr = setup(0, 10, 2) ;
+        mgr.beginRead() ;
+        assertEquals(1001, read(mgr, 1)) ;
+        assertEquals(1001, read(mgr, 1)) ;
+        mgr.endRead() ;
+        assertEquals(0, mgr.getCacheReadHits()) ;
+        assertEquals(2, mgr.getCacheMisses()) ;
+    }
+
+    @Test public void blockCache_06()
+    {
+        // -1 is a read cache that holds nothing, as for 0; below that there is none.
+        BlockMgrCache mgr = setup(-1, 10, 2) ;
+        long evictions = mgr.getReadEvictions() ;
+        mgr.beginRead() ;
+        assertEquals(1001, read(mgr, 1)) ;
+        mgr.endRead() ;
+        assertEquals(1, mgr.getCacheMisses()) ;
+        assertEquals(evictions+1, mgr.getReadEvictions()) ;
+
+        mgr = setup(-2, 10, 2) ;
+        mgr.beginRead() ;
+        assertEquals(1001, read(mgr, 1)) ;
+        mgr.endRead() ;
+        assertEquals(1, mgr.getCacheMisses()) ;
+        assertEquals(0, mgr.getReadEvictions()) ;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.index.bplustree;
+
+import static com.hp.hpl.jena.tdb.index.IndexTestLib.randTest ;
+
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.atlas.lib.Bytes ;
+import org.junit.AfterClass ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.tdb.base.block.BlockMgr ;
+import com.hp.hpl.jena.tdb.base.block.BlockMgrFactory ;
+import com.hp.hpl.jena.tdb.base.record.Record ;
+import com.hp.hpl.jena.tdb.base.record.RecordFactory ;
+import com.hp.hpl.jena.tdb.base.record.RecordLib ;
+import com.hp.hpl.jena.tdb.base.recordbuffer.RecordBufferPage ;
+import com.hp.hpl.jena.tdb.base.recordbuffer.RecordBufferPageMgr ;
+import com.hp.hpl.jena.tdb.index.RangeIndex ;
+import com.hp.hpl.jena.tdb.index.TestRangeIndex ;
+import com.hp.hpl.jena.tdb.sys.SystemTDB ;
+
+/** B+Trees with prefix-compressed leaves */
+public class TestBPlusTreeCompressed extends TestRangeIndex
+{
+    static boolean originalNullOut ;
+    @BeforeClass static public void beforeClass()
+    {
+        BPlusTreeParams.CheckingNode = true ;
+        originalNullOut = SystemTDB.NullOut ;
+        SystemTDB.NullOut = true ;
+    }
+
+    @AfterClass static public void afterClass()
+    {
+        SystemTDB.NullOut = originalNullOut ;
+    }
+
+    @Override
+    protected RangeIndex makeRangeIndex(int order, int minRecords)
+    {
+        // Room for the largest encoded records either side of a split.
+        int maxRecords = 2*minRecords+4 ;
+        return makeCompressed(order, RecordLib.recordFactory, RecordBufferPage.calcBlockSize(RecordLib.recordFactory, maxRecords)) ;
+    }
+
+    private static BPlusTree makeCompressed(int order, RecordFactory factory, int blkSize)
+    {
+        BPlusTreeParams params = new BPlusTreeParams(order, factory, true) ;
+        BlockMgr mgr1 = BlockMgrFactory.createMem("nodes", params.getCalcBlockSize()) ;
+        BlockMgr mgr2 = BlockMgrFactory.createMem("records", blkSize) ;
+        return BPlusTree.create(params, mgr1, mgr2) ;
+    }
+
+    @Test public void bpt_compressed_rand_01()
+    {
+        // Larger blocks, more records per block.
+        for ( int i = 0 ; i < 5 ; i++ )
+            randTest(makeCompressed(3, RecordLib.recordFactory, 200), 99999, 1000) ;
+    }
+
+    @Test public void bpt_compressed_rand_02()
+    {
+        for ( int i = 0 ; i < 5 ; i++ )
+            randTest(makeRangeIndex(4, 4), 999, 500) ;
+    }
+
+    @Test public void bpt_compressed_size_01()
+    {
+        // Sequential keys share their leading bytes: fewer records blocks are needed.
+        RecordFactory factory = new RecordFactory(3*SystemTDB.SizeOfNodeId, 0) ;
+        int blkSize = 1024 ;
+        int order = BPlusTreeParams.calcOrder(blkSize, factory) ;
+        BPlusTree bpt1 = BPlusTree.create(new BPlusTreeParams(order, factory),
+                                          BlockMgrFactory.createMem("nodes1", blkSize), BlockMgrFactory.createMem("records1", blkSize)) ;
+        BPlusTree bpt2 = makeCompressed(order, factory, blkSize) ;
+        // Like an SPO index: subjects with a few predicates and several objects each.
+        List<Record> data = new ArrayList<Record>() ;
+        for ( int i = 0 ; i < 2000 ; i++ )
+        {
+            Record r = factory.create() ;
+            Bytes.setLong(1000+i/20, r.getKey(), 0) ;
+            Bytes.setLong(10+(i/5)%4, r.getKey(), SystemTDB.SizeOfNodeId) ;
+            Bytes.setLong(5000+7*i, r.getKey(), 2*SystemTDB.SizeOfNodeId) ;
+            data.add(r) ;
+        }
+        for ( Record r : data )
+        {
+            bpt1.add(r) ;
+            bpt2.add(r) ;
+        }
+        TestBPlusTreeRewriter.scanComparision(data, bpt2) ;
+        TestBPlusTreeRewriter.findComparison(data, bpt2) ;
+        int n1 = countBlocks(bpt1.getRecordsMgr().getRecordBufferPageMgr()) ;
+        int n2 = countBlocks(bpt2.getRecordsMgr().getRecordBufferPageMgr()) ;
+        assertTrue("Blocks: "+n2+" compressed, "+n1+" not compressed", 2*n2 < n1) ;
+    }
+
+    @Test public void bpt_compressed_rewrite_01()
+    {
+        RecordFactory factory = new RecordFactory(2*SystemTDB.SizeOfNodeId, 0) ;
+        int blkSize = 256 ;
+        BPlusTreeParams params = new BPlusTreeParams(BPlusTreeParams.calcOrder(blkSize, factory), factory, true) ;
+        List<Record> data = TestBPlusTreeRewriter.createData(1000, factory) ;
+        BPlusTree bpt = BPlusTreeRewriter.packIntoBPlusTree(data.iterator(), params, factory,
+                                                            BlockMgrFactory.createMem("nodes", blkSize),
+                                                            BlockMgrFactory.createMem("records", blkSize)) ;
+        bpt.check() ;
+        TestBPlusTreeRewriter.scanComparision(data, bpt) ;
+        TestBPlusTreeRewriter.findComparison(data, bpt) ;
+        assertEquals(data.size(), bpt.size()) ;
+        // Still a working B+Tree.
+        for ( Record r : data.subList(0, 500) )
+            assertTrue(bpt.delete(r)) ;
+        TestBPlusTreeRewriter.scanComparision(data.subList(500, 1000), bpt) ;
+    }
+
+    private static int countBlocks(RecordBufferPageMgr mgr)
+    {
+        int n = 0 ;
+        while ( mgr.valid(n) )
+            n++ ;
+        return n ;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.nodetable;
+
+import java.io.File ;
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.Random ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.FileOps ;
+import org.junit.AfterClass ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.tdb.ConfigTest ;
+import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+import com.hp.hpl.jena.tdb.sys.Names ;
+import com.hp.hpl.jena.tdb.sys.SetupTDB ;
+import com.hp.hpl.jena.tdb.sys.SystemTDB ;
+
+public class TestNodeHashFilter extends BaseTest
+{
+    private static Random random = new Random(1234) ;
+    private static int bitsPerNode ;
+
+    @BeforeClass public static void beforeClass()
+    {
+        // The filter is off unless configured.
+        bitsPerNode = SystemTDB.NodeHashFilterBitsPerNode ;
+        SystemTDB.NodeHashFilterBitsPerNode = 10 ;
+    }
+
+    @AfterClass public static void afterClass()
+    {
+        SystemTDB.NodeHashFilterBitsPerNode = bitsPerNode ;
+    }
+
+    private static List<byte[]> hashes(int N)
+    {
+        List<byte[]> x = new ArrayList<byte[]>() ;
+        for ( int i = 0 ; i < N ; i++ )
+        {
+            byte[] b = new byte[16] ;
+            random.nextBytes(b) ;
+            x.add(b) ;
+        }
+        return x ;
+    }
+
+    @Test public void filter_01()
+    {
+        NodeHashFilter filter = new NodeHashFilter(10, null) ;
+        filter.reset(5000) ;
+        List<byte[]> present = hashes(5000) ;
+        for ( byte[] b : present )
+            filter.add(b) ;
+        assertFalse(filter.isOverloaded()) ;
+        for ( byte[] b : present )
+            assertTrue(filter.mightContain(b)) ;
+        int falsePositives = 0 ;
+        for ( byte[] b : hashes(5000) )
+        {
+            if ( filter.mightContain(b) )
+                falsePositives++ ;
+        }
+        assertTrue("False positives: "+falsePositives, falsePositives < 250) ;
+    }
+
+    @Test public void filter_02()
+    {
+        String filename = ConfigTest.getCleanDir()+"/"+Names.indexNode2Id+"."+Names.extNodeHashFilter ;
+        NodeHashFilter filter = new NodeHashFilter(10, filename) ;
+        filter.reset(100) ;
+        List<byte[]> present = hashes(100) ;
+        for ( byte[] b : present )
+            filter.add(b) ;
+        filter.save(1234) ;
+        assertTrue(FileOps.exists(filename)) ;
+
+        NodeHashFilter filter2 = new NodeHashFilter(10, filename) ;
+        assertFalse(filter2.load(1235)) ;
+        assertFalse(filter2.isReady()) ;
+        assertTrue(filter2.load(1234)) ;
+        assertEquals(100, filter2.getCount()) ;
+        for ( byte[] b : present )
+            assertTrue(filter2.mightContain(b)) ;
+    }
+
+    private static Node node(int i) { return NodeFactory.createURI("http://example/node/"+i) ; }
+
+    private static NodeTable open(Location loc)
+    {
+        return SetupTDB.makeNodeTableBase(loc, Names.indexNode2Id, Names.indexId2Node) ;
+    }
+
+    @Test public void filter_nodetable_01()
+    {
+        // More nodes than the smallest filter: it is rebuilt, larger, on the way.
+        Location loc = new Location(ConfigTest.getCleanDir()) ;
+        NodeTable nt = open(loc) ;
+        List<NodeId> ids = new ArrayList<NodeId>() ;
+        for ( int i = 0 ; i < 3000 ; i++ )
+            ids.add(nt.getAllocateNodeId(node(i))) ;
+        for ( int i = 0 ; i < 3000 ; i++ )
+            assertEquals(ids.get(i), nt.getNodeIdForNode(node(i))) ;
+        assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node(-1))) ;
+        nt.sync() ;
+        assertFalse(FileOps.exists(loc.getPath(Names.indexNode2Id, Names.extNodeHashFilter))) ;
+        nt.close() ;
+        assertTrue(FileOps.exists(loc.getPath(Names.indexNode2Id, Names.extNodeHashFilter))) ;
+
+        nt = open(loc) ;
+        for ( int i = 0 ; i < 3000 ; i++ )
+            assertEquals(ids.get(i), nt.getNodeIdForNode(node(i))) ;
+        assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node(-1))) ;
+        nt.close() ;
+    }
+
+    @Test public void filter_nodetable_02()
+    {
+        // A saved filter that is out of date is not used.
+        Location loc = new Location(ConfigTest.getCleanDir()) ;
+        String filterFile = loc.getPath(Names.indexNode2Id, Names.extNodeHashFilter) ;
+        String savedFile = loc.getPath("saved", Names.extNodeHashFilter) ;
+        NodeTable nt = open(loc) ;
+        NodeId id1 = nt.getAllocateNodeId(node(1)) ;
+        nt.close() ;
+        FileOps.copyFile(new File(filterFile), new File(savedFile)) ;
+        nt = open(loc) ;
+        NodeId id2 = nt.getAllocateNodeId(node(2)) ;
+        nt.close() ;
+        // As if the last filter write was lost.
+        FileOps.delete(filterFile) ;
+        FileOps.copyFile(new File(savedFile), new File(filterFile)) ;
+
+        nt = open(loc) ;
+        assertEquals(id1, nt.getNodeIdForNode(node(1))) ;
+        assertEquals(id2, nt.getNodeIdForNode(node(2))) ;
+        nt.close() ;
+    }
+
+    @Test public void filter_nodetable_03()
+    {
+        // Switched off: no filter file.
+        SystemTDB.NodeHashFilterBitsPerNode = 0 ;
+        try {
+            Location loc = new Location(ConfigTest.getCleanDir()) ;
+            NodeTable nt = open(loc) ;
+            NodeId id1 = nt.getAllocateNodeId(node(1)) ;
+            assertEquals(id1, nt.getNodeIdForNode(node(1))) ;
+            assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(node(-1))) ;
+            nt.close() ;
+            assertFalse(FileOps.exists(loc.getPath(Names.indexNode2Id, Names.extNodeHashFilter))) ;
+        } finally { SystemTDB.NodeHashFilterBitsPerNode = 10 ; }
+    }
+}
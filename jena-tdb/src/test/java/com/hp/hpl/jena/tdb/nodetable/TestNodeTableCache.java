@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.nodetable;
+
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.Callable ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.sparql.util.NodeFactoryExtra ;
+import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+import com.hp.hpl.jena.tdb.sys.Names ;
+import com.hp.hpl.jena.tdb.sys.SetupTDB ;
+
+public class TestNodeTableCache extends BaseTest
+{
+    private static final int N = 200 ;
+
+    private static NodeTable create(int cacheSize)
+    {
+        return SetupTDB.makeNodeTable(Location.mem(), Names.indexNode2Id, cacheSize, Names.indexId2Node, cacheSize, 10) ;
+    }
+
+    private static List<Node> nodes()
+    {
+        List<Node> nodes = new ArrayList<Node>() ;
+        for ( int i = 0 ; i < N ; i++ )
+            nodes.add(NodeFactoryExtra.parseNode("<http://example/n"+i+">")) ;
+        return nodes ;
+    }
+
+    @Test public void nodeTableCache_stats()
+    {
+        NodeTable nt = create(N) ;
+        NodeTableCacheInfo info = new NodeTableCacheInfo(NodeTableCacheInfo.findCache(nt)) ;
+        Node n = NodeFactoryExtra.parseNode("<http://example/x>") ;
+        NodeId id = nt.getAllocateNodeId(n) ;
+        long misses = info.getIdToNodeCacheMisses() ;
+        assertEquals(n, nt.getNodeForNodeId(id)) ;
+        assertEquals(n, nt.getNodeForNodeId(id)) ;
+        assertEquals(2, info.getIdToNodeCacheHits()) ;
+        assertEquals(misses, info.getIdToNodeCacheMisses()) ;
+        assertEquals(1, info.getIdToNodeCacheSize()) ;
+    }
+
+    @Test public void nodeTableCache_concurrent() throws Exception
+    {
+        // Cache smaller than the data so there are misses and evictions as well as hits.
+        final NodeTable nt = create(N/4) ;
+        final List<Node> nodes = nodes() ;
+        final List<NodeId> ids = new ArrayList<NodeId>() ;
+        for ( Node n : nodes )
+            ids.add(nt.getAllocateNodeId(n)) ;
+
+        ExecutorService executor = Executors.newFixedThreadPool(4) ;
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>() ;
+        for ( int t = 0 ; t < 4 ; t++ )
+        {
+            final int start = t ;
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call()
+                {
+                    for ( int j = 0 ; j < 20*N ; j++ )
+                    {
+                        int i = (start*31 + j*7) % N ;
+                        if ( ! nodes.get(i).equals(nt.getNodeForNodeId(ids.get(i))) )
+                            return false ;
+                        if ( ! ids.get(i).equals(nt.getNodeIdForNode(nodes.get(i))) )
+                            return false ;
+                    }
+                    return true ;
+                }
+            })) ;
+        }
+        for ( Future<Boolean> f : results )
+            assertTrue(f.get()) ;
+        executor.shutdown() ;
+        NodeTableCacheInfo info = new NodeTableCacheInfo(NodeTableCacheInfo.findCache(nt)) ;
+        assertTrue(info.getIdToNodeCacheEjects() > 0) ;
+        assertTrue(info.getIdToNodeCacheSize() <= N/4) ;
+    }
+}
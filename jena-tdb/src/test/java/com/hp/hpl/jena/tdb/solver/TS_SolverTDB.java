@@ -25,6 +25,9 @@ import org.junit.runners.Suite ;
 @Suite.SuiteClasses( {
     TestSolverTDB.class     // Tests the TDB connectivity
     , TestStats.class
+    , TestMergeJoin.class
+    , TestSolverBatch.class
+    , TestInlineFilter.class
 })
 
 public class TS_SolverTDB
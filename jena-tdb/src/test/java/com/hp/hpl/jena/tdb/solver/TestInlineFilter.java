@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import java.util.Iterator ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.Tuple ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.query.* ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+import com.hp.hpl.jena.sparql.resultset.ResultSetCompare ;
+import com.hp.hpl.jena.sparql.util.NodeFactoryExtra ;
+import com.hp.hpl.jena.tdb.TDB ;
+import com.hp.hpl.jena.tdb.TDBFactory ;
+import com.hp.hpl.jena.tdb.nodetable.NodeTupleTable ;
+import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
+import com.hp.hpl.jena.tdb.store.NodeId ;
+import com.hp.hpl.jena.tdb.sys.TDBInternal ;
+
+/** FILTERs evaluated in the solver, and range scans of inline integers, give
+ *  the same results as the usual evaluation and as the in-memory graph. */
+public class TestInlineFilter extends BaseTest
+{
+    static final String PRE = "PREFIX : <http://example/>\nPREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n" ;
+    static DatasetGraph dsgTDB ;
+    static DatasetGraph dsgMem ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        dsgTDB = TDBFactory.createDatasetGraph() ;
+        dsgMem = DatasetGraphFactory.createMem() ;
+        Node g = NodeFactory.createURI("http://example/g") ;
+        dsgMem.addGraph(g, GraphFactory.createGraphMem()) ;
+        for ( int i = -50 ; i < 150 ; i++ )
+        {
+            Node s = uri("s"+i) ;
+            add(g, s, uri("p"), NodeFactoryExtra.intToNode(i)) ;
+            if ( i%10 == 0 )
+                add(g, s, uri("q"), NodeFactoryExtra.intToNode(i%30)) ;
+        }
+        // Values that are not inline integers.
+        add(g, uri("x1"), uri("p"), NodeFactoryExtra.parseNode("99.5")) ;
+        add(g, uri("x2"), uri("p"), NodeFactoryExtra.parseNode("-7.25")) ;
+        add(g, uri("x3"), uri("p"), NodeFactoryExtra.parseNode("123456789012345678901234")) ;
+        add(g, uri("x4"), uri("p"), NodeFactoryExtra.parseNode("-123456789012345678901234")) ;
+        add(g, uri("x5"), uri("p"), NodeFactoryExtra.parseNode("1.0e2")) ;
+        add(g, uri("x6"), uri("p"), NodeFactoryExtra.parseNode("'100'")) ;
+        add(g, uri("x7"), uri("p"), NodeFactoryExtra.parseNode("'2013-01-01'^^xsd:date")) ;
+        add(g, uri("x8"), uri("p"), NodeFactoryExtra.parseNode("true")) ;
+        add(g, uri("x9"), uri("p"), uri("o")) ;
+    }
+
+    private static Node uri(String localName)
+    {
+        return NodeFactory.createURI("http://example/"+localName) ;
+    }
+
+    private static void add(Node g, Node s, Node p, Node o)
+    {
+        Triple t = Triple.create(s, p, o) ;
+        dsgTDB.getDefaultGraph().add(t) ;
+        dsgMem.getDefaultGraph().add(t) ;
+        dsgTDB.add(new Quad(g, t)) ;
+        dsgMem.add(new Quad(g, t)) ;
+    }
+
+    @Test public void inlineFilter_01()     { test("SELECT * { ?x :p ?v FILTER(?v > 100) }") ; }
+
+    @Test public void inlineFilter_02()     { test("SELECT * { ?x :p ?v FILTER(?v >= 10 && ?v < 20) }") ; }
+
+    @Test public void inlineFilter_03()     { test("SELECT * { ?x :p ?v FILTER(?v <= -3) }") ; }
+
+    // Range over zero : negative and positive inline integers.
+    @Test public void inlineFilter_04()     { test("SELECT * { ?x :p ?v FILTER(?v > -10) FILTER(?v < 10) }") ; }
+
+    @Test public void inlineFilter_05()     { test("SELECT * { ?x :p ?v FILTER(99.2 < ?v) }") ; }
+
+    @Test public void inlineFilter_06()     { test("SELECT * { ?x :p ?v FILTER(?v = 100) }") ; }
+
+    @Test public void inlineFilter_07()     { test("SELECT * { ?x :p ?v FILTER(?v != 100) }") ; }
+
+    @Test public void inlineFilter_08()     { test("SELECT * { ?x :p ?v FILTER(?v = 99.5) }") ; }
+
+    // Empty range.
+    @Test public void inlineFilter_09()     { test("SELECT * { ?x :p ?v FILTER(?v > 5 && ?v < 3) }") ; }
+
+    // Not a comparison with a constant.
+    @Test public void inlineFilter_10()     { test("SELECT * { ?x :p ?v FILTER(?v*2 > 100 || isLiteral(?v)) }") ; }
+
+    @Test public void inlineFilter_11()     { test("SELECT * { ?x :p ?v FILTER(?v > 10000000000000000000000) }") ; }
+
+    // Join.
+    @Test public void inlineFilter_12()     { test("SELECT * { ?x :q ?w . ?x :p ?v FILTER(?v > 20 && ?w < 15) }") ; }
+
+    // Variable bound by input.
+    @Test public void inlineFilter_13()     { test("SELECT * { VALUES ?v { 1 120 99.5 'abc' } ?x :p ?v FILTER(?v > 100) }") ; }
+
+    // Named graphs.
+    @Test public void inlineFilter_14()     { test("SELECT * { GRAPH :g { ?x :p ?v FILTER(?v > 100) } }") ; }
+
+    @Test public void inlineFilter_15()     { test("SELECT * { GRAPH ?g { ?x :p ?v FILTER(?v < -45) } }") ; }
+
+    // No fixed slot.
+    @Test public void inlineFilter_16()     { test("SELECT * { ?x ?p ?v FILTER(?v >= 145) }") ; }
+
+    @Test public void rangeScan_01()
+    {
+        DatasetGraphTDB dsg = TDBInternal.getBaseDatasetGraphTDB(dsgTDB) ;
+        NodeTupleTable ntt = dsg.getTripleTable().getNodeTupleTable() ;
+        NodeId p = ntt.getNodeTable().getNodeIdForNode(uri("p")) ;
+        NodeId[] ids = { null, p, null } ;
+        // Inline integers from 0 to 9, and all values that are not inline integers,
+        // except the date and the boolean.
+        IntegerRangeScan range = new IntegerRangeScan(2, 0, 9) ;
+        Iterator<Tuple<NodeId>> iter = range.find(ntt.getTupleTable(), ids) ;
+        assertNotNull(iter) ;
+        assertEquals(10+7, Iter.count(iter)) ;
+        // The object is fixed.
+        ids[2] = p ;
+        assertNull(range.find(ntt.getTupleTable(), ids)) ;
+    }
+
+    private static void test(String queryString)
+    {
+        Query query = QueryFactory.create(PRE+queryString) ;
+        ResultSetRewindable expected = exec(query, dsgMem, true) ;
+        ResultSetRewindable rsInline = exec(query, dsgTDB, true) ;
+        ResultSetRewindable rsPlain = exec(query, dsgTDB, false) ;
+        assertTrue(ResultSetCompare.equalsByTerm(expected, rsInline)) ;
+        expected.reset() ;
+        assertTrue(ResultSetCompare.equalsByTerm(expected, rsPlain)) ;
+    }
+
+    private static ResultSetRewindable exec(Query query, DatasetGraph dsg, boolean inlineFilter)
+    {
+        QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.create(dsg)) ;
+        try {
+            qExec.getContext().set(TDB.symInlineFilter, inlineFilter) ;
+            return ResultSetFactory.makeRewindable(qExec.execSelect()) ;
+        } finally { qExec.close() ; }
+    }
+}
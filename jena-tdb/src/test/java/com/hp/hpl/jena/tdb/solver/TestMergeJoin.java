@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.query.* ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+import com.hp.hpl.jena.sparql.resultset.ResultSetCompare ;
+import com.hp.hpl.jena.sparql.util.NodeFactoryExtra ;
+import com.hp.hpl.jena.tdb.TDB ;
+import com.hp.hpl.jena.tdb.TDBFactory ;
+
+/** Merge joins in the BGP solver give the same results as the nested loop
+ *  evaluation and as the in-memory graph. */
+public class TestMergeJoin extends BaseTest
+{
+    static final String PRE = "PREFIX : <http://example/>\n" ;
+    static DatasetGraph dsgTDB ;
+    static DatasetGraph dsgMem ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        dsgTDB = TDBFactory.createDatasetGraph() ;
+        dsgMem = DatasetGraphFactory.createMem() ;
+        Node g = NodeFactory.createURI("http://example/g") ;
+        dsgMem.addGraph(g, GraphFactory.createGraphMem()) ;
+        Node p = uri("p") ;
+        Node q = uri("q") ;
+        Node r = uri("r") ;
+        // Enough data that the scans are out of step and restart.
+        for ( int i = 0 ; i < 500 ; i++ )
+        {
+            Node s = uri("s"+i) ;
+            add(g, s, p, uri("o"+(i%3))) ;
+            if ( i%7 == 0 )
+                add(g, s, q, uri("o1")) ;
+            if ( i%5 == 0 || i%11 == 0 )
+                add(g, s, q, uri("o2")) ;
+            // Multiple values per subject.
+            if ( i%50 == 0 )
+            {
+                add(g, s, r, NodeFactoryExtra.intToNode(i)) ;
+                add(g, s, r, NodeFactoryExtra.intToNode(i+1)) ;
+            }
+            add(g, s, uri("next"), uri("s"+((i*31)%500))) ;
+        }
+        add(g, uri("s0"), uri("self"), uri("s0")) ;
+    }
+
+    private static Node uri(String localName)
+    {
+        return NodeFactory.createURI("http://example/"+localName) ;
+    }
+
+    private static void add(Node g, Node s, Node p, Node o)
+    {
+        Triple t = Triple.create(s, p, o) ;
+        dsgTDB.getDefaultGraph().add(t) ;
+        dsgMem.getDefaultGraph().add(t) ;
+        dsgTDB.add(new Quad(g, t)) ;
+        dsgMem.add(new Quad(g, t)) ;
+    }
+
+    // Star, both POS.
+    @Test public void mergeJoin_01()    { test("SELECT * { ?x :p :o1 . ?x :q :o2 }") ; }
+
+    // Chain.
+    @Test public void mergeJoin_02()    { test("SELECT * { ?x :next ?y . ?y :q :o1 }") ; }
+
+    // Many tuples for each join value on both sides.
+    @Test public void mergeJoin_03()    { test("SELECT * { ?x :p ?o . ?y :q ?o }") ; }
+
+    // Not mergeable : nested loop.
+    @Test public void mergeJoin_04()    { test("SELECT * { ?x :p :o1 . ?x :r ?v }") ; }
+
+    // Two shared variables.
+    @Test public void mergeJoin_05()    { test("SELECT * { ?x :next ?y . ?y :next ?x }") ; }
+
+    // Repeated variable.
+    @Test public void mergeJoin_06()    { test("SELECT * { ?x :self ?x . ?x :p ?o }") ; }
+
+    // Input bindings.
+    @Test public void mergeJoin_07()    { test("SELECT * { VALUES ?o { :o1 :o2 :o9 } ?x :q ?o . ?x :p :o2 }") ; }
+
+    // Unknown node.
+    @Test public void mergeJoin_08()    { test("SELECT * { ?x :p :o1 . ?x :q :unknown }") ; }
+
+    // Named graph.
+    @Test public void mergeJoin_09()    { test("SELECT * { GRAPH :g { ?x :p :o1 . ?x :q :o2 } }") ; }
+
+    // Named graph, variable.
+    @Test public void mergeJoin_10()    { test("SELECT * { GRAPH ?g { ?x :next ?y . ?y :q :o1 } }") ; }
+
+    private static void test(String queryString)
+    {
+        Query query = QueryFactory.create(PRE+queryString) ;
+        ResultSetRewindable expected = exec(query, dsgMem, true) ;
+        ResultSetRewindable rsMerge = exec(query, dsgTDB, true) ;
+        ResultSetRewindable rsNested = exec(query, dsgTDB, false) ;
+        assertTrue(ResultSetCompare.equalsByTerm(expected, rsMerge)) ;
+        expected.reset() ;
+        assertTrue(ResultSetCompare.equalsByTerm(expected, rsNested)) ;
+    }
+
+    private static ResultSetRewindable exec(Query query, DatasetGraph dsg, boolean mergeJoin)
+    {
+        QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.create(dsg)) ;
+        try {
+            qExec.getContext().set(TDB.symMergeJoin, mergeJoin) ;
+            return ResultSetFactory.makeRewindable(qExec.execSelect()) ;
+        } finally { qExec.close() ; }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.hpl.jena.tdb.solver;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.graph.Triple ;
+import com.hp.hpl.jena.query.* ;
+import com.hp.hpl.jena.sparql.core.DatasetGraph ;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory ;
+import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.graph.GraphFactory ;
+import com.hp.hpl.jena.sparql.resultset.ResultSetCompare ;
+import com.hp.hpl.jena.tdb.TDB ;
+import com.hp.hpl.jena.tdb.TDBFactory ;
+
+/** Matching batches of bindings in the BGP solver gives the same results as
+ *  matching one binding at a time and as the in-memory graph. */
+public class TestSolverBatch extends BaseTest
+{
+    static final String PRE = "PREFIX : <http://example/>\n" ;
+    static DatasetGraph dsgTDB ;
+    static DatasetGraph dsgMem ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        dsgTDB = TDBFactory.createDatasetGraph() ;
+        dsgMem = DatasetGraphFactory.createMem() ;
+        Node g = NodeFactory.createURI("http://example/g") ;
+        dsgMem.addGraph(g, GraphFactory.createGraphMem()) ;
+        for ( int i = 0 ; i < 100 ; i++ )
+        {
+            Node s = uri("s"+i) ;
+            add(g, s, uri("p"), uri("o"+(i%10))) ;
+            add(g, s, uri("next"), uri("s"+((i*17)%100))) ;
+            if ( i%3 == 0 )
+                add(g, s, uri("q"), uri("s"+(i%10))) ;
+        }
+    }
+
+    private static Node uri(String localName)
+    {
+        return NodeFactory.createURI("http://example/"+localName) ;
+    }
+
+    private static void add(Node g, Node s, Node p, Node o)
+    {
+        Triple t = Triple.create(s, p, o) ;
+        dsgTDB.getDefaultGraph().add(t) ;
+        dsgMem.getDefaultGraph().add(t) ;
+        dsgTDB.add(new Quad(g, t)) ;
+        dsgMem.add(new Quad(g, t)) ;
+    }
+
+    // Chain : many different lookups.
+    @Test public void solverBatch_01()  { test("SELECT * { ?x :p :o1 . ?x :next ?y . ?y :next ?z }") ; }
+
+    // Repeated lookups.
+    @Test public void solverBatch_02()  { test("SELECT * { ?x :p ?o . ?y :p ?o }") ; }
+
+    @Test public void solverBatch_03()  { test("SELECT * { ?x :q ?y . ?y :p ?o }") ; }
+
+    // Input bindings, with duplicates and unknown nodes.
+    @Test public void solverBatch_04()  { test("SELECT * { VALUES ?o { :o1 :o2 :o1 :o9 :o1 } ?x :p ?o }") ; }
+
+    @Test public void solverBatch_05()  { test("SELECT * { VALUES (?x ?o) { (:s1 :o1) (:s5 :o1) (:s9 UNDEF) (UNDEF :o3) } ?x :p ?o }") ; }
+
+    // Named graphs.
+    @Test public void solverBatch_06()  { test("SELECT * { GRAPH ?g { ?x :q ?y . ?y :next ?z } }") ; }
+
+    @Test public void solverBatch_07()  { test("SELECT * { GRAPH :g { ?x :p :o2 . ?x :next ?y } }") ; }
+
+    private static void test(String queryString)
+    {
+        Query query = QueryFactory.create(PRE+queryString) ;
+        ResultSetRewindable expected = exec(query, dsgMem, 1) ;
+        for ( int batchSize : new int[]{1, 2, 7, 256} )
+        {
+            expected.reset() ;
+            ResultSetRewindable rs = exec(query, dsgTDB, batchSize) ;
+            assertTrue("Batch size "+batchSize, ResultSetCompare.equalsByTerm(expected, rs)) ;
+        }
+    }
+
+    private static ResultSetRewindable exec(Query query, DatasetGraph dsg, int batchSize)
+    {
+        QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.create(dsg)) ;
+        try {
+            qExec.getContext().set(TDB.symMergeJoin, false) ;
+            qExec.getContext().set(TDB.symSolverBatchSize, batchSize) ;
+            return ResultSetFactory.makeRewindable(qExec.execSelect()) ;
+        } finally { qExec.close() ; }
+    }
+}
@@ -18,18 +18,27 @@
 
 package com.hp.hpl.jena.tdb.solver;
 
+import java.util.Arrays ;
+import java.util.HashSet ;
 import java.util.Iterator ;
+import java.util.Map ;
+import java.util.Set ;
 
 import org.apache.jena.atlas.junit.BaseTest ;
 import org.apache.jena.atlas.lib.Tuple ;
 import org.junit.Test ;
 
+import com.hp.hpl.jena.graph.Node ;
 import com.hp.hpl.jena.graph.NodeFactory ;
 import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.engine.optimizer.StatsMatcher ;
 import com.hp.hpl.jena.sparql.sse.SSE ;
+import com.hp.hpl.jena.sparql.util.NodeFactoryExtra ;
 import com.hp.hpl.jena.tdb.TDBFactory ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTable ;
 import com.hp.hpl.jena.tdb.nodetable.NodeTupleTable ;
+import com.hp.hpl.jena.tdb.solver.stats.Stats ;
+import com.hp.hpl.jena.tdb.solver.stats.StatsCollector ;
 import com.hp.hpl.jena.tdb.solver.stats.StatsCollectorNodeId ;
 import com.hp.hpl.jena.tdb.solver.stats.StatsResults ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
@@ -109,6 +118,113 @@ public class TestStats extends BaseTest
         assertEquals(1, r.getPredicates().keySet().size()) ;
     }
 
-}
+    private static Node uri(String x) { return NodeFactory.createURI(x) ; }
+
+    private static StatsResults statsStar()
+    {
+        StatsCollector stats = new StatsCollector(true) ;
+        for ( int i = 0 ; i < 20 ; i++ )
+        {
+            Node s = uri("s"+i) ;
+            stats.record(null, s, uri("p"), NodeFactoryExtra.intToNode(i)) ;
+            stats.record(null, s, uri("q"), i < 15 ? uri("o") : uri("o"+i)) ;
+            if ( i < 5 )
+                stats.record(null, s, uri("r"), uri("o")) ;
+        }
+        return stats.results() ;
+    }
+
+    @Test public void stats_distinct_01() { 
+        StatsResults r = statsStar() ;
+        assertEquals(45, r.getCount()) ; 
+        assertEquals(20, r.getDistinctSubjects().get(uri("p")).intValue()) ;
+        assertEquals(20, r.getDistinctObjects().get(uri("p")).intValue()) ;
+        assertEquals(6, r.getDistinctObjects().get(uri("q")).intValue()) ;
+        assertEquals(1, r.getDistinctObjects().get(uri("r")).intValue()) ;
+    }
+
+    @Test public void stats_distinct_02() { 
+        // Beyond the exact range of the estimator.
+        StatsCollector stats = new StatsCollector() ;
+        int N = 20000 ;
+        for ( int i = 0 ; i < N ; i++ )
+            stats.record(null, uri("s"+(i%10)), uri("p"), NodeFactoryExtra.intToNode(i)) ;
+        StatsResults r = stats.results() ;
+        assertEquals(10, r.getDistinctSubjects().get(uri("p")).intValue()) ;
+        int x = r.getDistinctObjects().get(uri("p")) ;
+        assertTrue("Estimate: "+x, Math.abs(x-N) < N/5) ;
+    }
+
+    @Test public void stats_frequent_01() { 
+        StatsResults r = statsStar() ;
+        Map<Node, Integer> x = r.getFrequentObjects().get(uri("q")) ;
+        assertNotNull(x) ;
+        assertEquals(1, x.size()) ;
+        assertEquals(15, x.get(uri("o")).intValue()) ;
+        assertNull(r.getFrequentObjects().get(uri("p"))) ;
+    }
+
+    @Test public void stats_charset_01() { 
+        StatsResults r = statsStar() ;
+        Map<Set<Node>, Integer> x = r.getCharacteristicSets() ;
+        assertEquals(2, x.size()) ;
+        Set<Node> pq = new HashSet<Node>(Arrays.asList(uri("p"), uri("q"))) ;
+        Set<Node> pqr = new HashSet<Node>(Arrays.asList(uri("p"), uri("q"), uri("r"))) ;
+        assertEquals(15, x.get(pq).intValue()) ;
+        assertEquals(5, x.get(pqr).intValue()) ;
+        assertTrue(r.isCharacteristicSetsComplete()) ;
+    }
+
+    @Test public void stats_charset_02() { 
+        // More characteristic sets than are kept.
+        StatsCollector stats = new StatsCollector(true) ;
+        for ( int i = 0 ; i <= StatsCollector.NumCharacteristicSets ; i++ )
+        {
+            Node s = uri("s"+i) ;
+            stats.record(null, s, uri("p"), uri("o")) ;
+            stats.record(null, s, uri("q"+i), uri("o")) ;
+        }
+        StatsResults r = stats.results() ;
+        assertEquals(StatsCollector.NumCharacteristicSets, r.getCharacteristicSets().size()) ;
+        assertFalse(r.isCharacteristicSetsComplete()) ;
+        // The optimizer does not use them as a bound.
+        StatsMatcher matcher = new StatsMatcher(Stats.format(r)) ;
+        assertTrue(matcher.hasCharacteristicSets()) ;
+        assertEquals(-1, matcher.matchStar(Arrays.asList(uri("p"), uri("q1"))), 0) ;
+    }
 
+    @Test public void stats_charset_03() { 
+        // Subjects interleaved: each subject gives two partial sets, {p q} and {r}.
+        StatsCollector stats = new StatsCollector() ;
+        for ( int i = 0 ; i < 20 ; i++ )
+        {
+            stats.record(null, uri("s"+i), uri("p"), NodeFactoryExtra.intToNode(i)) ;
+            stats.record(null, uri("s"+i), uri("q"), uri("o")) ;
+        }
+        for ( int i = 0 ; i < 20 ; i++ )
+            stats.record(null, uri("s"+i), uri("r"), uri("o")) ;
+        StatsResults r = stats.results() ;
+        assertFalse(r.isCharacteristicSetsComplete()) ;
+        StatsMatcher matcher = new StatsMatcher(Stats.format(r)) ;
+        assertTrue(matcher.hasCharacteristicSets()) ;
+        // No star bound: there are 20 subjects with p, q and r, but no set seen has all three.
+        assertFalse(matcher.isCharacteristicSetsComplete()) ;
+        assertEquals(-1, matcher.matchStar(Arrays.asList(uri("p"), uri("q"), uri("r"))), 0) ;
+    }
 
+    @Test public void stats_format_01() { 
+        // Round trip through the format read by the optimizer.
+        StatsResults r = statsStar() ;
+        StatsMatcher matcher = new StatsMatcher(Stats.format(r)) ;
+        // Object frequency
+        assertEquals(15, matcher.match(SSE.parseTriple("(?x <q> <o>)")), 0) ;
+        // Average objects per subject
+        assertEquals(1, matcher.match(SSE.parseTriple("(<s1> <q> ?o)")), 0) ;
+        // Average subjects per object
+        assertEquals(3.33, matcher.match(SSE.parseTriple("(?x <q> <o1>)")), 0) ;
+        assertEquals(20, matcher.match(SSE.parseTriple("(?x <q> ?o)")), 0) ;
+        // Characteristic sets
+        assertEquals(20, matcher.matchStar(Arrays.asList(uri("p"), uri("q"))), 0) ;
+        assertEquals(5, matcher.matchStar(Arrays.asList(uri("r"))), 0) ;
+    }
+}
@@ -18,13 +18,27 @@
 
 package com.hp.hpl.jena.tdb.store ;
 
+import java.io.ByteArrayInputStream ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
 import java.io.InputStream ;
+import java.io.OutputStream ;
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.HashSet ;
+import java.util.Iterator ;
 import java.util.List ;
+import java.util.Set ;
 
 import org.apache.jena.atlas.io.IO ;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.FileOps ;
+import org.apache.jena.atlas.lib.StrUtils ;
 import org.apache.jena.atlas.logging.LogCtl ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.lang.ParserNTuplesParallel ;
+import org.apache.jena.riot.system.ErrorHandlerFactory ;
 import org.junit.AfterClass ;
 import org.junit.BeforeClass ;
 import org.junit.Test ;
@@ -34,10 +48,16 @@ import com.hp.hpl.jena.graph.NodeFactory ;
 import com.hp.hpl.jena.graph.Triple ;
 import com.hp.hpl.jena.query.ARQ ;
 import com.hp.hpl.jena.sparql.core.Quad ;
+import com.hp.hpl.jena.sparql.engine.optimizer.StatsMatcher ;
 import com.hp.hpl.jena.tdb.ConfigTest ;
 import com.hp.hpl.jena.tdb.TDB ;
 import com.hp.hpl.jena.tdb.TDBLoader ;
 import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.index.bplustree.BPlusTreeParams ;
+import com.hp.hpl.jena.tdb.setup.DatasetBuilderStd ;
+import com.hp.hpl.jena.tdb.store.bulkloader.BulkLoaderParallel ;
+import com.hp.hpl.jena.tdb.store.bulkloader2.BulkLoader2 ;
+import com.hp.hpl.jena.tdb.sys.Names ;
 import com.hp.hpl.jena.tdb.sys.TDBMaker ;
 
 public class TestLoader extends BaseTest {
@@ -163,4 +183,213 @@ public class TestLoader extends BaseTest {
         String uri2 = dsg.getDefaultGraph().getPrefixMapping().getNsPrefixURI("") ;
         assertNull(uri2) ;
     }
+
+    static TDBLoader parallelLoader() {
+        TDBLoader loader = new TDBLoader() ;
+        loader.setShowProgress(false) ;
+        loader.setParallel(true) ;
+        return loader ;
+    }
+
+    @Test
+    public void load_parallel_01() {
+        DatasetGraphTDB dsg = fresh() ;
+        parallelLoader().loadDataset(dsg, DIR + "data-1.nq") ;
+        assertTrue(dsg.getDefaultGraph().isEmpty()) ;
+        assertEquals(1, dsg.getGraph(g).size()) ;
+    }
+
+    @Test
+    public void load_parallel_02() {
+        // Several inputs, triples and quads, prefixes.
+        DatasetGraphTDB dsg = fresh() ;
+        List<String> urls = new ArrayList<String>() ;
+        urls.add(DIR + "data-1.nq") ;
+        urls.add(DIR + "data-2.nt") ;
+        urls.add(DIR + "data-3.trig") ;
+        parallelLoader().loadDataset(dsg, urls) ;
+        assertEquals(1, dsg.getGraph(g).size()) ;
+        assertFalse(dsg.getDefaultGraph().isEmpty()) ;
+        String uri = dsg.getDefaultGraph().getPrefixMapping().getNsPrefixURI("") ;
+        assertEquals("http://example/", uri) ;
+    }
+
+    @Test
+    public void load_parallel_03() {
+        DatasetGraphTDB dsg = fresh() ;
+        parallelLoader().loadGraph(dsg.getGraphTDB(g), DIR + "data-2.nt") ;
+        assertEquals(0, dsg.getDefaultGraph().size()) ;
+        assertEquals(1, dsg.getGraph(g).size()) ;
+        assertEquals(1, Iter.count(dsg.getGraph(g).find(null, null, o))) ;
+        assertEquals(1, Iter.count(dsg.find(null, null, p, null))) ;
+    }
+
+    @Test
+    public void load_parallel_04() {
+        // More than one batch, all indexes built.
+        int N = 2 * BulkLoaderParallel.BatchSize + 10 ;
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < N ; i++ )
+            sb.append(String.format("<http://example/s%d> <http://example/p%d> \"%d\" .\n", i, i % 7, i % 100)) ;
+        InputStream in = new ByteArrayInputStream(StrUtils.asUTF8bytes(sb.toString())) ;
+        DatasetGraphTDB dsg = fresh() ;
+        parallelLoader().loadGraph(dsg.getDefaultGraphTDB(), in) ;
+
+        assertEquals(N, dsg.getDefaultGraph().size()) ;
+        Node s1 = NodeFactory.createURI("http://example/s1") ;
+        Node p1 = NodeFactory.createURI("http://example/p1") ;
+        Node o1 = NodeFactory.createLiteral("1") ;
+        assertEquals(1, Iter.count(dsg.getDefaultGraph().find(s1, null, null))) ;
+        assertEquals((N + 6) / 7, Iter.count(dsg.getDefaultGraph().find(null, p1, null))) ;
+        assertEquals((N + 99) / 100, Iter.count(dsg.getDefaultGraph().find(null, null, o1))) ;
+    }
+
+    @Test
+    public void load_parallel_05() {
+        // Into a table with existing data : no index rebuild.
+        DatasetGraphTDB dsg = fresh() ;
+        TDBLoader.load(dsg, DIR + "data-1.nq", false) ;
+        parallelLoader().loadDataset(dsg, DIR + "data-2.nt") ;
+        assertEquals(1, dsg.getGraph(g).size()) ;
+        assertEquals(1, dsg.getDefaultGraph().size()) ;
+        assertEquals(2, Iter.count(dsg.find(null, null, null, o))) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void load_parallel_06() {
+        DatasetGraphTDB dsg = fresh() ;
+        InputStream in = new ByteArrayInputStream(StrUtils.asUTF8bytes("<s> <p> <o> .\n<s> <p> .\n")) ;
+        setTestLogging(ErrorHandlerFactory.errorHandlerStrictNoLogging) ;
+        try { parallelLoader().loadGraph(dsg.getDefaultGraphTDB(), in) ; }
+        finally { unsetTestLogging() ; }
+    }
+
+    @Test
+    public void load_parallel_07() throws IOException {
+        // Several encoders; a file parsed in chunks, with blank nodes across chunks.
+        String dataFile = ConfigTest.getCleanDir() + "/data-split.nt" ;
+        int N = 3 * BulkLoaderParallel.BatchSize ;
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < N ; i++ )
+            sb.append(String.format("_:b%d <http://example/p%d> <http://example/o%d> .\n", i % 10, i % 7, i)) ;
+        OutputStream out = new FileOutputStream(dataFile) ;
+        out.write(StrUtils.asUTF8bytes(sb.toString())) ;
+        out.close() ;
+
+        int parserThreads = BulkLoaderParallel.ParserThreads ;
+        int encoderThreads = BulkLoaderParallel.EncoderThreads ;
+        int chunkSize = ParserNTuplesParallel.ChunkSize ;
+        BulkLoaderParallel.ParserThreads = 3 ;
+        BulkLoaderParallel.EncoderThreads = 3 ;
+        ParserNTuplesParallel.ChunkSize = 16 * 1024 ;
+        try {
+            DatasetGraphTDB dsg = fresh() ;
+            parallelLoader().loadGraph(dsg.getDefaultGraphTDB(), dataFile) ;
+            assertEquals(N, dsg.getDefaultGraph().size()) ;
+            // Ten blank nodes, each the same node throughout the file.
+            Set<Node> subjects = new HashSet<Node>() ;
+            Iterator<Triple> iter = dsg.getDefaultGraph().find(null, null, null) ;
+            while ( iter.hasNext() )
+                subjects.add(iter.next().getSubject()) ;
+            assertEquals(10, subjects.size()) ;
+            Node p1 = NodeFactory.createURI("http://example/p1") ;
+            assertEquals((N + 5) / 7, Iter.count(dsg.getDefaultGraph().find(null, p1, null))) ;
+        } finally {
+            BulkLoaderParallel.ParserThreads = parserThreads ;
+            BulkLoaderParallel.EncoderThreads = encoderThreads ;
+            ParserNTuplesParallel.ChunkSize = chunkSize ;
+        }
+    }
+
+    @Test
+    public void load_parallel_08() throws IOException {
+        // Statistics of a parallel load do not claim complete characteristic sets,
+        // even for subject-ordered input.
+        String dbDir = ConfigTest.getCleanDir() + "/DB-parallel" ;
+        FileOps.ensureDir(dbDir) ;
+        FileOps.clearDirectory(dbDir) ;
+        Location loc = new Location(dbDir) ;
+        int N = 2 * BulkLoaderParallel.BatchSize + 10 ;
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < N ; i++ )
+            sb.append(String.format("<http://example/s%d> <http://example/p%d> \"%d\" .\n", i / 2, i % 2, i)) ;
+        InputStream in = new ByteArrayInputStream(StrUtils.asUTF8bytes(sb.toString())) ;
+        DatasetGraphTDB dsg = DatasetBuilderStd.build(loc) ;
+        try {
+            parallelLoader().loadGraph(dsg.getDefaultGraphTDB(), in) ;
+            assertEquals(N, dsg.getDefaultGraph().size()) ;
+        } finally { dsg.close() ; }
+        StatsMatcher matcher = new StatsMatcher(loc.getPath(Names.optStats)) ;
+        assertTrue(matcher.hasCharacteristicSets()) ;
+        assertFalse(matcher.isCharacteristicSetsComplete()) ;
+    }
+
+    @Test
+    public void load_sorted_01() throws IOException {
+        // Enough data for the sort to spill; some duplicates.
+        String dir = ConfigTest.getCleanDir() ;
+        String dataFile = dir + "/data.nt" ;
+        int N = 3000 ;
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < N ; i++ )
+            sb.append(String.format("<http://example/s%d> <http://example/p%d> \"%d\" .\n", i, i % 7, i % 100)) ;
+        sb.append("<http://example/s1> <http://example/p1> \"1\" .\n") ;
+        OutputStream out = new FileOutputStream(dataFile) ;
+        out.write(StrUtils.asUTF8bytes(sb.toString())) ;
+        out.close() ;
+
+        String dbDir = dir + "/DB" ;
+        FileOps.ensureDir(dbDir) ;
+        FileOps.clearDirectory(dbDir) ;
+        Location loc = new Location(dbDir) ;
+        BulkLoader2 loader = new BulkLoader2(loc) ;
+        loader.setSortMemory(1) ;
+        loader.setThreads(2) ;
+        loader.setCompressTempFiles(true) ;
+        List<String> files = new ArrayList<String>() ;
+        files.add(dataFile) ;
+        files.add(DIR + "data-1.nq") ;
+        loader.load(files) ;
+
+        DatasetGraphTDB dsg = DatasetBuilderStd.build(loc) ;
+        try {
+            assertEquals(N, dsg.getDefaultGraph().size()) ;
+            assertEquals(1, dsg.getGraph(g).size()) ;
+            Node s1 = NodeFactory.createURI("http://example/s1") ;
+            Node p1 = NodeFactory.createURI("http://example/p1") ;
+            Node o1 = NodeFactory.createLiteral("1") ;
+            assertEquals(1, Iter.count(dsg.getDefaultGraph().find(s1, null, null))) ;
+            assertEquals((N + 6) / 7, Iter.count(dsg.getDefaultGraph().find(null, p1, null))) ;
+            assertEquals((N + 99) / 100, Iter.count(dsg.getDefaultGraph().find(null, null, o1))) ;
+            assertEquals(1, Iter.count(dsg.find(null, null, null, o))) ;
+        } finally { dsg.close() ; }
+    }
+
+    @Test
+    public void load_sorted_02() {
+        // Compressed B+Tree leaves
+        String dbDir = ConfigTest.getCleanDir() + "/DB" ;
+        FileOps.ensureDir(dbDir) ;
+        FileOps.clearDirectory(dbDir) ;
+        Location loc = new Location(dbDir) ;
+        BulkLoader2 loader = new BulkLoader2(loc) ;
+        loader.setCompressedLeaves(true) ;
+        loader.load(Arrays.asList(DIR + "data-1.nq", DIR + "data-2.nt")) ;
+        assertTrue(BPlusTreeParams.isCompressedLeaves(new Location(dbDir))) ;
+
+        DatasetGraphTDB dsg = DatasetBuilderStd.build(loc) ;
+        try {
+            assertEquals(1, dsg.getDefaultGraph().size()) ;
+            assertEquals(1, dsg.getGraph(g).size()) ;
+            assertEquals(2, Iter.count(dsg.find(null, null, null, o))) ;
+            // Updates after loading.
+            Node s1 = NodeFactory.createURI("http://example/s1") ;
+            for ( int i = 0 ; i < 1000 ; i++ )
+                dsg.getDefaultGraph().add(new Triple(s1, p, NodeFactory.createLiteral(Integer.toString(i)))) ;
+            assertEquals(1001, dsg.getDefaultGraph().size()) ;
+            assertEquals(1000, Iter.count(dsg.getDefaultGraph().find(s1, null, null))) ;
+            dsg.getDefaultGraph().remove(s1, null, null) ;
+            assertEquals(1, dsg.getDefaultGraph().size()) ;
+        } finally { dsg.close() ; }
+    }
 }
@@ -19,6 +19,9 @@
 package com.hp.hpl.jena.tdb.transaction;
 
 
+import java.util.Iterator ;
+
+import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.junit.BaseTest ;
 import org.apache.jena.atlas.logging.LogCtl ;
 import org.junit.AfterClass ;
@@ -31,6 +34,7 @@ import com.hp.hpl.jena.sparql.core.Quad ;
 import com.hp.hpl.jena.sparql.sse.SSE ;
 import com.hp.hpl.jena.tdb.StoreConnection ;
 import com.hp.hpl.jena.tdb.TDBException ;
+import com.hp.hpl.jena.tdb.base.block.FileMode ;
 import com.hp.hpl.jena.tdb.store.DatasetGraphTDB ;
 import com.hp.hpl.jena.tdb.sys.SystemTDB ;
 
@@ -524,4 +528,118 @@ public abstract class AbstractTestTransSeq extends BaseTest
         dsg.commit() ;
         dsg.end() ;
     }
+    
+    // Write back while a reader is active.
+    
+    private static Quad quad(int i)
+    {
+        return SSE.parseQuad("(<g> <s"+i+"> <p> "+i+")") ;
+    }
+    
+    // Does write back happen while there are active readers? 
+    private static boolean versioned(StoreConnection sConn)
+    {
+        return TransactionManager.VersionedWriteBack && 
+            ( sConn.getLocation().isMem() || SystemTDB.fileMode() != FileMode.mapped ) ;
+    }
+    
+    @Test public void trans_version_01()
+    {
+        int batchSize = TransactionManager.QueueBatchSize ;
+        try {
+            TransactionManager.QueueBatchSize = 0 ;
+            StoreConnection sConn = getStoreConnection() ;
+            DatasetGraphTxn dsgW1 = sConn.begin(ReadWrite.WRITE) ;
+            for ( int i = 0 ; i < 500 ; i++ )
+                dsgW1.add(quad(i)) ;
+            dsgW1.commit() ;
+            dsgW1.end() ;
+            
+            DatasetGraphTxn dsgR1 = sConn.begin(ReadWrite.READ) ;
+            Iterator<Quad> iter = dsgR1.find() ;
+            int count = 0 ;
+            for ( ; count < 10 ; count++ )
+                iter.next() ;
+            
+            // Change most of the blocks.
+            DatasetGraphTxn dsgW2 = sConn.begin(ReadWrite.WRITE) ;
+            for ( int i = 500 ; i < 1000 ; i++ )
+                dsgW2.add(quad(i)) ;
+            for ( int i = 0 ; i < 100 ; i++ )
+                dsgW2.delete(quad(i)) ;
+            dsgW2.commit() ;
+            dsgW2.end() ;
+            if ( versioned(sConn) )
+                assertEquals(0, sConn.getTransMgrState().queuedCommits) ;
+            
+            // The reader still sees the data as it was.
+            count += Iter.count(iter) ;
+            assertEquals(500, count) ;
+            assertEquals(500, Iter.count(dsgR1.find())) ;
+            assertTrue(dsgR1.contains(quad(0))) ;
+            assertFalse(dsgR1.contains(quad(600))) ;
+            dsgR1.end() ;
+            
+            DatasetGraphTxn dsgR2 = sConn.begin(ReadWrite.READ) ;
+            assertEquals(900, Iter.count(dsgR2.find())) ;
+            assertFalse(dsgR2.contains(quad(0))) ;
+            assertTrue(dsgR2.contains(quad(600))) ;
+            dsgR2.end() ;
+            
+            sConn.flush() ;
+            assertEquals(900, Iter.count(sConn.getBaseDataset().find())) ;
+        } finally {
+            TransactionManager.QueueBatchSize = batchSize ;
+        }
+    }
+    
+    @Test public void trans_version_02()
+    {
+        // Reader of a committed transaction that has not been written back
+        // and two write backs while it is active.
+        int batchSize = TransactionManager.QueueBatchSize ;
+        try {
+            TransactionManager.QueueBatchSize = 1000 ;
+            StoreConnection sConn = getStoreConnection() ;
+            DatasetGraphTxn dsgW1 = sConn.begin(ReadWrite.WRITE) ;
+            dsgW1.add(q1) ;
+            dsgW1.commit() ;
+            dsgW1.end() ;
+            
+            DatasetGraphTxn dsgR1 = sConn.begin(ReadWrite.READ) ;
+            TransactionManager.QueueBatchSize = 0 ;
+            
+            DatasetGraphTxn dsgW2 = sConn.begin(ReadWrite.WRITE) ;
+            dsgW2.add(q2) ;
+            dsgW2.commit() ;
+            dsgW2.end() ;
+            
+            DatasetGraphTxn dsgR2 = sConn.begin(ReadWrite.READ) ;
+            
+            DatasetGraphTxn dsgW3 = sConn.begin(ReadWrite.WRITE) ;
+            dsgW3.add(q3) ;
+            dsgW3.commit() ;
+            dsgW3.end() ;
+            if ( versioned(sConn) )
+                assertEquals(0, sConn.getTransMgrState().queuedCommits) ;
+            
+            assertTrue(dsgR1.contains(q1)) ;
+            assertFalse(dsgR1.contains(q2)) ;
+            assertFalse(dsgR1.contains(q3)) ;
+            dsgR1.end() ;
+            
+            assertTrue(dsgR2.contains(q1)) ;
+            assertTrue(dsgR2.contains(q2)) ;
+            assertFalse(dsgR2.contains(q3)) ;
+            dsgR2.end() ;
+
+            DatasetGraphTxn dsgR3 = sConn.begin(ReadWrite.READ) ;
+            assertTrue(dsgR3.contains(q1)) ;
+            assertTrue(dsgR3.contains(q2)) ;
+            assertTrue(dsgR3.contains(q3)) ;
+            dsgR3.end() ;
+        } finally {
+            TransactionManager.QueueBatchSize = batchSize ;
+        }
+    }
 }
@@ -73,6 +73,21 @@ public class TestJournal extends BaseTest
         assertFalse(journal.entries().hasNext()) ;
     }
     
+    @Test public void journal_sync_01()
+    {
+        long x0 = journal.changePoint() ;
+        JournalEntry entry1 = new JournalEntry(JournalEntryType.Buffer, testRef, bb1) ;
+        journal.writeJournal(entry1) ;
+        long x1 = journal.changePoint() ;
+        assertTrue(x1 > x0) ;
+        journal.sync(x1) ;
+        // Already synced.
+        journal.sync(x0) ;
+        journal.truncate(0) ;
+        assertTrue(journal.changePoint() > x1) ;
+        journal.sync() ;
+    }
+    
     @Test public void journal_02()
     {
         JournalEntry entry1 = new JournalEntry(JournalEntryType.Buffer, testRef, bb1) ;
@@ -20,7 +20,13 @@ package com.hp.hpl.jena.tdb.transaction;
 
 import static com.hp.hpl.jena.query.ReadWrite.READ ;
 import static com.hp.hpl.jena.query.ReadWrite.WRITE ;
+
+import java.nio.ByteBuffer ;
+import java.util.concurrent.CountDownLatch ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
 import org.apache.jena.atlas.lib.FileOps ;
+import org.apache.jena.atlas.lib.Lib ;
 import org.apache.jena.atlas.logging.LogCtl ;
 import org.junit.* ;
 
@@ -31,7 +37,10 @@ import com.hp.hpl.jena.sparql.transaction.AbstractTestTransaction ;
 import com.hp.hpl.jena.tdb.ConfigTest ;
 import com.hp.hpl.jena.tdb.StoreConnection ;
 import com.hp.hpl.jena.tdb.TDBFactory ;
+import com.hp.hpl.jena.tdb.base.file.BufferChannel ;
+import com.hp.hpl.jena.tdb.base.file.BufferChannelMem ;
 import com.hp.hpl.jena.tdb.base.file.Location ;
+import com.hp.hpl.jena.tdb.setup.DatasetBuilderStd ;
 import com.hp.hpl.jena.tdb.sys.SystemTDB ;
 
 public class TestTransactionTDB extends AbstractTestTransaction
@@ -86,5 +95,198 @@ public class TestTransactionTDB extends AbstractTestTransaction
         assertEquals(1, ds2.getDefaultModel().size()) ;
         ds2.commit() ;
     }
-}
 
+    @Test public void transaction_51()
+    {
+        // Concurrent writers : commits may share a journal sync.
+        final Dataset ds = create() ;
+        final int N = 4 ;
+        final int M = 20 ;
+        Thread[] threads = new Thread[N] ;
+        final AtomicInteger errors = new AtomicInteger(0) ;
+        for ( int i = 0 ; i < N ; i++ )
+        {
+            final int t = i ;
+            threads[i] = new Thread() {
+                @Override public void run()
+                {
+                    try {
+                        for ( int j = 0 ; j < M ; j++ )
+                        {
+                            ds.begin(WRITE) ;
+                            ds.getDefaultModel().getGraph().add(SSE.parseTriple("(<s"+t+"> <p> "+j+")")) ;
+                            ds.commit() ;
+                            ds.end() ;
+                        }
+                    } catch (Throwable th) { errors.incrementAndGet() ; }
+                }
+            } ;
+            threads[i].start() ;
+        }
+        for ( Thread th : threads )
+        {
+            try { th.join() ; } catch (InterruptedException ex) { fail("Interrupted") ; }
+        }
+        assertEquals(0, errors.get()) ;
+        
+        StoreConnection.release(new Location(DIR)) ;
+        Dataset ds2 = create() ;
+        ds2.begin(READ) ;
+        assertEquals(N*M, ds2.getDefaultModel().size()) ;
+        ds2.end() ;
+    }
+    
+    @Test public void transaction_52()
+    {
+        // Background flush on a delay.
+        int batchSize = TransactionManager.QueueBatchSize ;
+        boolean background = TransactionManager.BackgroundFlush ;
+        long delay = TransactionManager.QueueDelayThreshold ;
+        try {
+            TransactionManager.QueueBatchSize = 1000 ;
+            TransactionManager.BackgroundFlush = true ;
+            TransactionManager.QueueDelayThreshold = 10 ;
+            StoreConnection sConn = StoreConnection.make(DIR) ;
+            Dataset ds = create() ;
+            ds.begin(WRITE) ;
+            ds.getDefaultModel().getGraph().add(triple1) ; 
+            ds.commit() ;
+            ds.end() ;
+            
+            for ( int i = 0 ; i < 500 && sConn.getTransMgrState().queuedCommits > 0 ; i++ )
+                Lib.sleep(10) ;
+            assertEquals(0, sConn.getTransMgrState().queuedCommits) ;
+            
+            ds.begin(READ) ;
+            assertEquals(1, ds.getDefaultModel().size()) ;
+            ds.end() ;
+        } finally {
+            StoreConnection.release(new Location(DIR)) ;
+            TransactionManager.QueueBatchSize = batchSize ;
+            TransactionManager.BackgroundFlush = background ;
+            TransactionManager.QueueDelayThreshold = delay ;
+        }
+    }
+    
+    @Test public void transaction_53()
+    {
+        // Journal size threshold.
+        int batchSize = TransactionManager.QueueBatchSize ;
+        long size = TransactionManager.JournalSizeThreshold ;
+        try {
+            TransactionManager.QueueBatchSize = 1000 ;
+            TransactionManager.JournalSizeThreshold = 0 ;
+            StoreConnection sConn = StoreConnection.make(DIR) ;
+            Dataset ds = create() ;
+            ds.begin(WRITE) ;
+            ds.getDefaultModel().getGraph().add(triple1) ; 
+            ds.commit() ;
+            ds.end() ;
+            assertEquals(0, sConn.getTransMgrState().queuedCommits) ;
+        } finally {
+            TransactionManager.QueueBatchSize = batchSize ;
+            TransactionManager.JournalSizeThreshold = size ;
+        }
+    }
+    
+    @Test(timeout=20000) public void transaction_54() throws Exception
+    {
+        // Group commit: two writers, one after the other, share one sync of the journal.
+        // The sync of an earlier commit is held up while they commit.
+        int batchSize = TransactionManager.QueueBatchSize ;
+        try {
+            TransactionManager.QueueBatchSize = 1000 ;
+            SyncChannel channel = new SyncChannel(BufferChannelMem.create("journal")) ;
+            TransactionManager txnMgr = new TransactionManager(DatasetBuilderStd.build(Location.mem()), new Journal(channel)) ;
+            
+            Writer w0 = new Writer(txnMgr, 0) ;
+            w0.start() ;
+            channel.syncStarted.await() ;
+            Writer w1 = new Writer(txnMgr, 1) ;
+            w1.start() ;
+            Writer w2 = new Writer(txnMgr, 2) ;
+            w2.start() ;
+            while ( ! w1.committed() || ! w2.committed() )
+                Lib.sleep(5) ;
+            
+            // Not visible until on disk.
+            DatasetGraphTxn dsgR = txnMgr.begin(READ) ;
+            assertEquals(0, dsgR.getDefaultGraph().size()) ;
+            dsgR.end() ;
+            
+            channel.release.countDown() ;
+            w0.join() ;
+            w1.join() ;
+            w2.join() ;
+            assertEquals(2, channel.syncs.get()) ;
+            
+            dsgR = txnMgr.begin(READ) ;
+            assertEquals(3, dsgR.getDefaultGraph().size()) ;
+            dsgR.end() ;
+        } finally {
+            TransactionManager.QueueBatchSize = batchSize ;
+        }
+    }
+    
+    /** Write transactions are used in one thread. */ 
+    private static class Writer extends Thread
+    {
+        final TransactionManager txnMgr ;
+        final int i ;
+        volatile DatasetGraphTxn dsg = null ;
+        
+        Writer(TransactionManager txnMgr, int i) { this.txnMgr = txnMgr ; this.i = i ; }
+        
+        /** Has the commit record been written? */
+        boolean committed()
+        {
+            DatasetGraphTxn x = dsg ;
+            return x != null && x.getTransaction().getState() == TxnState.COMMITED ;
+        }
+        
+        @Override public void run()
+        {
+            DatasetGraphTxn x = txnMgr.begin(WRITE) ;
+            dsg = x ;
+            x.getDefaultGraph().add(SSE.parseTriple("(<s> <p> "+i+")")) ;
+            x.commit() ;
+            x.end() ;
+        }
+    }
+    
+    /** Counts syncs; the first waits until released. */ 
+    private static class SyncChannel implements BufferChannel
+    {
+        final BufferChannel channel ;
+        final AtomicInteger syncs = new AtomicInteger(0) ;
+        final CountDownLatch syncStarted = new CountDownLatch(1) ;
+        final CountDownLatch release = new CountDownLatch(1) ;
+        
+        SyncChannel(BufferChannel channel) { this.channel = channel ; }
+        
+        @Override
+        public void sync()
+        {
+            if ( syncs.incrementAndGet() == 1 )
+            {
+                syncStarted.countDown() ;
+                try { release.await() ; } catch (InterruptedException ex) {}
+            }
+            channel.sync() ;
+        }
+        
+        @Override public BufferChannel duplicate()                  { return channel.duplicate() ; }
+        @Override public long position()                            { return channel.position() ; }
+        @Override public void position(long pos)                    { channel.position(pos) ; }
+        @Override public int read(ByteBuffer buffer)                { return channel.read(buffer) ; }
+        @Override public int read(ByteBuffer buffer, long loc)      { return channel.read(buffer, loc) ; }
+        @Override public int write(ByteBuffer buffer)               { return channel.write(buffer) ; }
+        @Override public int write(ByteBuffer buffer, long loc)     { return channel.write(buffer, loc) ; }
+        @Override public void truncate(long size)                   { channel.truncate(size) ; }
+        @Override public long size()                                { return channel.size() ; }
+        @Override public boolean isEmpty()                          { return channel.isEmpty() ; }
+        @Override public String getLabel()                          { return channel.getLabel() ; }
+        @Override public String getFilename()                       { return channel.getFilename() ; }
+        @Override public void close()                               { channel.close() ; }
+    }
+}
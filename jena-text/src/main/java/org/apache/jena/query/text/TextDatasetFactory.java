@@ -67,6 +67,14 @@ public class TextDatasetFactory
         return index ; 
     }
 
+    /** Create a Lucene TextIndex that checks for changes made outside this index
+     *  at most every refreshInterval milliseconds (-1 for never) */ 
+    public static TextIndex createLuceneIndex(Directory directory, EntityDefinition entMap, long refreshInterval)
+    {
+        TextIndex index = new TextIndexLucene(directory, entMap, refreshInterval) ;
+        return index ; 
+    }
+
     /** Create a text-indexed dataset, using Lucene */ 
     public static Dataset createLucene(Dataset base, Directory directory, EntityDefinition entMap)
     {
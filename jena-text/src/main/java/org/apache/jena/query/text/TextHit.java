@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.query.text ;
+
+import com.hp.hpl.jena.graph.Node ;
+
+/** One result of a text query: the entity and its relevance score */
+public class TextHit {
+    private final Node  node ;
+    private final float score ;
+
+    public TextHit(Node node, float score) {
+        this.node = node ;
+        this.score = score ;
+    }
+
+    public Node getNode() {
+        return node ;
+    }
+
+    public float getScore() {
+        return score ;
+    }
+
+    @Override
+    public String toString() {
+        return "TextHit[" + node + " " + score + "]" ;
+    }
+}
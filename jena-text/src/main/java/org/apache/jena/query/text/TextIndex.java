@@ -18,6 +18,7 @@
 
 package org.apache.jena.query.text ;
 
+import java.util.Iterator ;
 import java.util.List ;
 import java.util.Map ;
 
@@ -38,10 +39,15 @@ public interface TextIndex extends Closeable //, Transactional
     /** Get all entries for uri */
     public abstract Map<String, Node> get(String uri) ;
 
-    /** Access the index - limit if -1 for as many as possible */ 
+    /** Access the index - limit is -1 for as many as possible */ 
     public abstract List<Node> query(String qs, int limit) ;
     
     public abstract List<Node> query(String qs) ;
 
+    /** Access the index, with scores, best match first - limit is -1 for as many as possible.
+     *  The iterator may fetch results as it goes; close it (it is an
+     *  {@link org.apache.jena.atlas.lib.Closeable}) if it is not run to the end. */ 
+    public abstract Iterator<TextHit> queryHits(String qs, int limit) ;
+
     public abstract EntityDefinition getDocDef() ;
 }
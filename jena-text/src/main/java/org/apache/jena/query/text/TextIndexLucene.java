@@ -22,6 +22,8 @@ import java.io.IOException ;
 import java.util.* ;
 import java.util.Map.Entry ;
 
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.Closeable ;
 import org.apache.lucene.analysis.Analyzer ;
 import org.apache.lucene.analysis.core.KeywordAnalyzer ;
 import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper ;
@@ -31,8 +33,6 @@ import org.apache.lucene.document.Field ;
 import org.apache.lucene.document.FieldType ;
 import org.apache.lucene.document.StringField ;
 import org.apache.lucene.document.TextField ;
-import org.apache.lucene.index.DirectoryReader ;
-import org.apache.lucene.index.IndexReader ;
 import org.apache.lucene.index.IndexWriter ;
 import org.apache.lucene.index.IndexWriterConfig ;
 import org.apache.lucene.queryparser.classic.ParseException ;
@@ -40,6 +40,9 @@ import org.apache.lucene.queryparser.classic.QueryParser ;
 import org.apache.lucene.search.IndexSearcher ;
 import org.apache.lucene.search.Query ;
 import org.apache.lucene.search.ScoreDoc ;
+import org.apache.lucene.search.SearcherFactory ;
+import org.apache.lucene.search.SearcherManager ;
+import org.apache.lucene.search.TopDocs ;
 import org.apache.lucene.store.Directory ;
 import org.apache.lucene.util.Version ;
 import org.slf4j.Logger ;
@@ -53,6 +56,8 @@ public class TextIndexLucene implements TextIndex {
     private static Logger          log      = LoggerFactory.getLogger(TextIndexLucene.class) ;
 
     private static int             MAX_N    = 10000 ;
+    // Number of results fetched from the index at a time.
+    private static int             PAGE_SIZE = 100 ;
     public static final Version    VER      = Version.LUCENE_46 ;
 
     public static final FieldType  ftIRI ;
@@ -73,9 +78,29 @@ public class TextIndexLucene implements TextIndex {
     private IndexWriter            indexWriter ;
     private Analyzer               analyzer ;
 
+    // One searcher, shared between queries and threads. It is refreshed when
+    // this index commits changes and, if refreshInterval is not negative, when
+    // a query finds that refreshInterval milliseconds have passed since the
+    // last check (to see changes made to the directory by someone else).
+    private SearcherManager        searcherManager ;
+    private final long             refreshInterval ;
+    private volatile long          lastRefresh ;
+
     public TextIndexLucene(Directory directory, EntityDefinition def) {
+        this(directory, def, -1) ;
+    }
+
+    /**
+     * Create a text index over a Lucene directory.
+     * 
+     * @param refreshInterval How often, in milliseconds, to check whether the
+     *            index has been changed other than through this object. 0 means
+     *            check on every query, a negative value means never check.
+     */
+    public TextIndexLucene(Directory directory, EntityDefinition def, long refreshInterval) {
         this.directory = directory ;
         this.docDef = def ;
+        this.refreshInterval = refreshInterval ;
 
         // create the analyzer as a wrapper that uses KeywordAnalyzer for
         // entity and graph fields and StandardAnalyzer for all other
@@ -98,6 +123,13 @@ public class TextIndexLucene implements TextIndex {
         // exception
         startIndexing() ;
         finishIndexing() ;
+        try {
+            searcherManager = new SearcherManager(directory, new SearcherFactory()) ;
+            lastRefresh = System.currentTimeMillis() ;
+        }
+        catch (IOException e) {
+            exception(e) ;
+        }
     }
 
     public Directory getDirectory() {
@@ -108,6 +140,10 @@ public class TextIndexLucene implements TextIndex {
         return analyzer ;
     }
 
+    public long getRefreshInterval() {
+        return refreshInterval ;
+    }
+
     @Override
     public void startIndexing() {
         try {
@@ -125,6 +161,11 @@ public class TextIndexLucene implements TextIndex {
             indexWriter.commit() ;
             indexWriter.close() ;
             indexWriter = null ;
+            // Not set during the constructor.
+            if ( searcherManager != null ) {
+                searcherManager.maybeRefreshBlocking() ;
+                lastRefresh = System.currentTimeMillis() ;
+            }
         }
         catch (IOException e) {
             exception(e) ;
@@ -143,13 +184,15 @@ public class TextIndexLucene implements TextIndex {
 
     @Override
     public void close() {
-        if ( indexWriter != null )
-            try {
+        try {
+            if ( indexWriter != null )
                 indexWriter.close() ;
-            }
-            catch (IOException ex) {
-                exception(ex) ;
-            }
+            if ( searcherManager != null )
+                searcherManager.close() ;
+        }
+        catch (IOException ex) {
+            exception(ex) ;
+        }
     }
 
     @Override
@@ -192,13 +235,18 @@ public class TextIndexLucene implements TextIndex {
     @Override
     public Map<String, Node> get(String uri) {
         try {
-            IndexReader indexReader = DirectoryReader.open(directory) ;
-            List<Map<String, Node>> x = get$(indexReader, uri) ;
-            if ( x.size() == 0 )
-                return null ;
-            // if ( x.size() > 1)
-            // throw new TextIndexException("Multiple entires for "+uri) ;
-            return x.get(0) ;
+            IndexSearcher indexSearcher = acquireSearcher() ;
+            try {
+                List<Map<String, Node>> x = get$(indexSearcher, uri) ;
+                if ( x.size() == 0 )
+                    return null ;
+                // if ( x.size() > 1)
+                // throw new TextIndexException("Multiple entires for "+uri) ;
+                return x.get(0) ;
+            }
+            finally {
+                searcherManager.release(indexSearcher) ;
+            }
         }
         catch (Exception ex) {
             exception(ex) ;
@@ -206,12 +254,11 @@ public class TextIndexLucene implements TextIndex {
         }
     }
 
-    private List<Map<String, Node>> get$(IndexReader indexReader, String uri) throws ParseException, IOException {
+    private List<Map<String, Node>> get$(IndexSearcher indexSearcher, String uri) throws ParseException, IOException {
         String escaped = QueryParser.escape(uri) ;
         String qs = docDef.getEntityField() + ":" + escaped ;
         QueryParser queryParser = new QueryParser(VER, docDef.getPrimaryField(), analyzer) ;
         Query query = queryParser.parse(qs) ;
-        IndexSearcher indexSearcher = new IndexSearcher(indexReader) ;
         ScoreDoc[] sDocs = indexSearcher.search(query, 1).scoreDocs ;
         List<Map<String, Node>> records = new ArrayList<Map<String, Node>>() ;
 
@@ -245,15 +292,26 @@ public class TextIndexLucene implements TextIndex {
 
     @Override
     public List<Node> query(String qs, int limit) {
+        List<Node> results = new ArrayList<Node>() ;
+        Iterator<TextHit> iter = queryHits(qs, limit) ;
         try {
-            // Upgrade at Java7 ...
-            IndexReader indexReader = DirectoryReader.open(directory) ;
-            try {
-                return query$(indexReader, qs, limit) ;
-            }
-            finally {
-                indexReader.close() ;
-            }
+            while (iter.hasNext())
+                results.add(iter.next().getNode()) ;
+        }
+        finally {
+            Iter.close(iter) ;
+        }
+        return results ;
+    }
+
+    @Override
+    public Iterator<TextHit> queryHits(String qs, int limit) {
+        try {
+            QueryParser queryParser = new QueryParser(VER, docDef.getPrimaryField(), analyzer) ;
+            Query query = queryParser.parse(qs) ;
+            if ( limit <= 0 )
+                limit = MAX_N ;
+            return new HitIterator(acquireSearcher(), query, limit) ;
         }
         catch (Exception ex) {
             exception(ex) ;
@@ -261,27 +319,124 @@ public class TextIndexLucene implements TextIndex {
         }
     }
 
-    private List<Node> query$(IndexReader indexReader, String qs, int limit) throws ParseException, IOException {
-        IndexSearcher indexSearcher = new IndexSearcher(indexReader) ;
-        QueryParser queryParser = new QueryParser(VER, docDef.getPrimaryField(), analyzer) ;
-        Query query = queryParser.parse(qs) ;
+    /** Results of a query, read from the index a page at a time as they are
+     *  needed. The searcher is held until the iterator ends or is closed.
+     *  A document with several values of the entity field gives a hit for each. */
+    private class HitIterator implements Iterator<TextHit>, Closeable {
+        private IndexSearcher     indexSearcher ;
+        private final Query       query ;
+        private final Set<String> fields ;
+        private int               remaining ;
+        private ScoreDoc[]        page      = null ;
+        private int               idx       = 0 ;
+        private int               requested = 0 ;
+        private ScoreDoc          last      = null ;
+        // Entity field values of the current document.
+        private String[]          values    = null ;
+        private int               valueIdx  = 0 ;
+        private float             score ;
+
+        HitIterator(IndexSearcher indexSearcher, Query query, int limit) {
+            this.indexSearcher = indexSearcher ;
+            this.query = query ;
+            this.remaining = limit ;
+            this.fields = Collections.singleton(docDef.getEntityField()) ;
+        }
 
-        if ( limit <= 0 )
-            limit = MAX_N ;
-        ScoreDoc[] sDocs = indexSearcher.search(query, limit).scoreDocs ;
+        @Override
+        public boolean hasNext() {
+            for ( ;; ) {
+                if ( indexSearcher == null )
+                    return false ;
+                if ( values != null && valueIdx < values.length )
+                    return true ;
+                values = null ;
+                if ( !hasNextDoc() )
+                    return false ;
+                ScoreDoc sd = page[idx++] ;
+                last = sd ;
+                remaining-- ;
+                try {
+                    Document doc = indexSearcher.doc(sd.doc, fields) ;
+                    values = doc.getValues(docDef.getEntityField()) ;
+                    valueIdx = 0 ;
+                    score = sd.score ;
+                }
+                catch (IOException ex) {
+                    close() ;
+                    exception(ex) ;
+                }
+            }
+        }
 
-        List<Node> results = new ArrayList<Node>() ;
+        private boolean hasNextDoc() {
+            if ( page != null && idx < page.length )
+                return true ;
+            // A short page was the last one.
+            if ( remaining <= 0 || (page != null && page.length < requested) ) {
+                close() ;
+                return false ;
+            }
+            try {
+                requested = Math.min(remaining, PAGE_SIZE) ;
+                TopDocs topDocs = (last == null)
+                    ? indexSearcher.search(query, requested)
+                    : indexSearcher.searchAfter(last, query, requested) ;
+                page = topDocs.scoreDocs ;
+                idx = 0 ;
+            }
+            catch (IOException ex) {
+                close() ;
+                exception(ex) ;
+            }
+            if ( page.length == 0 ) {
+                close() ;
+                return false ;
+            }
+            return true ;
+        }
 
-        // Align and DRY with Solr.
-        for ( ScoreDoc sd : sDocs ) {
-            Document doc = indexSearcher.doc(sd.doc) ;
-            String[] values = doc.getValues(docDef.getEntityField()) ;
-            for ( String v : values ) {
-                Node n = TextQueryFuncs.stringToNode(v) ;
-                results.add(n) ;
+        @Override
+        public TextHit next() {
+            if ( !hasNext() )
+                throw new NoSuchElementException() ;
+            Node n = TextQueryFuncs.stringToNode(values[valueIdx++]) ;
+            return new TextHit(n, score) ;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException() ;
+        }
+
+        @Override
+        public void close() {
+            if ( indexSearcher == null )
+                return ;
+            try {
+                searcherManager.release(indexSearcher) ;
+            }
+            catch (IOException ex) {
+                exception(ex) ;
+            }
+            finally {
+                indexSearcher = null ;
             }
         }
-        return results ;
+    }
+
+    /** Get the shared searcher, first picking up outside changes if it is time to look.
+     *  The searcher must be given back with {@code searcherManager.release}. */
+    private IndexSearcher acquireSearcher() throws IOException {
+        if ( refreshInterval >= 0 ) {
+            long now = System.currentTimeMillis() ;
+            if ( now - lastRefresh >= refreshInterval ) {
+                lastRefresh = now ;
+                // Does not wait if another thread is already refreshing.
+                searcherManager.maybeRefresh() ;
+            }
+        }
+        return searcherManager.acquire() ;
     }
 
     @Override
@@ -186,9 +186,34 @@ public class TextIndexSolr implements TextIndex
         return results ; 
     }
     
+    @Override
+    public Iterator<TextHit> queryHits(String qs, int limit)
+    {
+        SolrDocumentList solrResults = solrQuery(qs, limit, true) ;
+        List<TextHit> results = new ArrayList<TextHit>() ;
+
+        for ( SolrDocument sd : solrResults )
+        {
+            String str = (String)sd.getFieldValue(docDef.getEntityField()) ;
+            Node n = TextQueryFuncs.stringToNode(str) ;
+            Float score = (Float)sd.getFieldValue("score") ;
+            results.add(new TextHit(n, score == null ? 0 : score)) ;
+            if ( limit > 0 && results.size() >= limit )
+                break ;
+        }
+        return results.iterator() ; 
+    }
+    
     private SolrDocumentList solrQuery(String qs, int limit)
+    {
+        return solrQuery(qs, limit, false) ;
+    }
+
+    private SolrDocumentList solrQuery(String qs, int limit, boolean includeScore)
     {
         SolrQuery sq = new SolrQuery(qs) ;
+        if ( includeScore )
+            sq.setIncludeScore(true) ;
         if ( limit > 0 )
             sq.setRows(limit) ;
         else 
@@ -18,10 +18,14 @@
 
 package org.apache.jena.query.text ;
 
+import java.util.HashSet ;
+import java.util.Iterator ;
 import java.util.List ;
+import java.util.Set ;
 
+import org.apache.jena.atlas.iterator.Filter ;
 import org.apache.jena.atlas.iterator.Iter ;
-import org.apache.jena.atlas.lib.InternalErrorException ;
+import org.apache.jena.atlas.iterator.Transform ;
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.lucene.queryparser.classic.QueryParser ;
 import org.slf4j.Logger ;
@@ -39,7 +43,9 @@ import com.hp.hpl.jena.sparql.core.Var ;
 import com.hp.hpl.jena.sparql.engine.ExecutionContext ;
 import com.hp.hpl.jena.sparql.engine.QueryIterator ;
 import com.hp.hpl.jena.sparql.engine.binding.Binding ;
-import com.hp.hpl.jena.sparql.engine.iterator.QueryIterExtendByVar ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingFactory ;
+import com.hp.hpl.jena.sparql.engine.binding.BindingMap ;
+import com.hp.hpl.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
 import com.hp.hpl.jena.sparql.engine.iterator.QueryIterSlice ;
 import com.hp.hpl.jena.sparql.mgt.Explain ;
 import com.hp.hpl.jena.sparql.pfunction.PropFuncArg ;
@@ -52,7 +58,10 @@ import com.hp.hpl.jena.sparql.util.NodeFactoryExtra ;
 public class TextQueryPF extends PropertyFunctionBase {
     private static Logger log           = LoggerFactory.getLogger(TextQueryPF.class) ;
     /*
-     * ?uri :queryPF (property? "string" limit? score?) score? not implemented
+     * ?uri :queryPF (property? "string" limit?)
+     * (?uri ?score) :queryPF (property? "string" limit?)
+     * 
+     * Results come from the index best match first so ?score is decreasing.
      */
 
     private TextIndex     server        = null ;
@@ -67,8 +76,13 @@ public class TextQueryPF extends PropertyFunctionBase {
         DatasetGraph dsg = execCxt.getDataset() ;
         server = chooseTextIndex(dsg) ;
 
-        if (!argSubject.isNode())
-            throw new QueryBuildException("Subject is not a single node: " + argSubject) ;
+        if (argSubject.isList()) {
+            List<Node> list = argSubject.getArgList() ;
+            if (list.size() == 0 || list.size() > 2)
+                throw new QueryBuildException("Subject list must be (subject) or (subject score): " + argSubject) ;
+            if (list.size() == 2 && !Var.isVar(list.get(1)))
+                throw new QueryBuildException("Score is not a variable: " + argSubject) ;
+        }
 
         if (argObject.isList()) {
             List<Node> list = argObject.getArgList() ;
@@ -119,10 +133,22 @@ public class TextQueryPF extends PropertyFunctionBase {
         argSubject = Substitute.substitute(argSubject, binding) ;
         argObject = Substitute.substitute(argObject, binding) ;
 
-        if (!argSubject.isNode())
-            throw new InternalErrorException("Subject is not a node (it was earlier!)") ;
-
-        Node s = argSubject.getArg() ;
+        Node s ;
+        Var score = null ;
+        if (argSubject.isNode())
+            s = argSubject.getArg() ;
+        else {
+            List<Node> list = argSubject.getArgList() ;
+            s = list.get(0) ;
+            if (list.size() == 2) {
+                // Substitution replaces the variable if it is already bound.
+                if (!Var.isVar(list.get(1))) {
+                    log.warn("Score variable already bound: " + list.get(1)) ;
+                    return IterLib.noResults(execCxt) ;
+                }
+                score = Var.alloc(list.get(1)) ;
+            }
+        }
 
         if (s.isLiteral())
             // Does not match
@@ -137,37 +163,74 @@ public class TextQueryPF extends PropertyFunctionBase {
         // ----
 
         QueryIterator qIter = (Var.isVar(s)) 
-            ? variableSubject(binding, s, match, execCxt) 
-            : concreteSubject(binding, s, match, execCxt) ;
+            ? variableSubject(binding, s, score, match, execCxt) 
+            : concreteSubject(binding, s, score, match, execCxt) ;
         if (match.getLimit() >= 0)
             qIter = new QueryIterSlice(qIter, 0, match.getLimit(), execCxt) ;
         return qIter ;
     }
 
-    private QueryIterator variableSubject(Binding binding, Node s, StrMatch match, ExecutionContext execCxt) {
-        Var v = Var.alloc(s) ;
-        List<Node> r = query(match.getQueryString(), match.getLimit(), execCxt) ;
-        // Make distinct. Note interaction with limit is imperfect
-        r = Iter.iter(r).distinct().toList() ;
-        QueryIterator qIter = new QueryIterExtendByVar(binding, v, r.iterator(), execCxt) ;
-        return qIter ;
+    private QueryIterator variableSubject(final Binding binding, Node s, final Var score, StrMatch match, ExecutionContext execCxt) {
+        final Var v = Var.alloc(s) ;
+        final Iterator<TextHit> hits = query(match.getQueryString(), match.getLimit(), execCxt) ;
+        // Make distinct, keeping the best score. Note interaction with limit is imperfect
+        Iterator<TextHit> distinct = Iter.filter(hits, new Filter<TextHit>() {
+            private final Set<Node> seen = new HashSet<Node>() ;
+            @Override
+            public boolean accept(TextHit hit) { return seen.add(hit.getNode()) ; }
+        }) ;
+        Iterator<Binding> bindings = Iter.map(distinct, new Transform<TextHit, Binding>() {
+            @Override
+            public Binding convert(TextHit hit) { return hitToBinding(binding, v, score, hit) ; }
+        }) ;
+        // Results are read from the index as they are needed.
+        return new QueryIterPlainWrapper(bindings, execCxt) {
+            @Override
+            protected void closeIterator() {
+                Iter.close(hits) ;
+                super.closeIterator() ;
+            }
+        } ;
     }
 
-    private QueryIterator concreteSubject(Binding binding, Node s, StrMatch match, ExecutionContext execCxt) {
+    private QueryIterator concreteSubject(Binding binding, Node s, Var score, StrMatch match, ExecutionContext execCxt) {
         if (!s.isURI()) {
             log.warn("Subject not a URI: " + s) ;
             return IterLib.noResults(execCxt) ;
         }
 
-        String qs = match.getQueryString() ;
-        List<Node> x = query(match.getQueryString(), -1, execCxt) ;
-        if ( x == null || ! x.contains(s) )
+        // Ask the index about this subject only: AND the entity field with the
+        // text query and see if there is any match at all.
+        String entityField = server.getDocDef().getEntityField() ;
+        String subjectTerm = entityField + ":" + QueryParser.escape(TextQueryFuncs.subjectToString(s)) ;
+        String qs = "(" + match.getQueryString() + ") AND " + subjectTerm ;
+        // The limit is on documents: a document with several entities gives a hit for each. 
+        Iterator<TextHit> x = query(qs, 1, execCxt) ;
+        try {
+            if ( x == null )
+                return IterLib.noResults(execCxt) ;
+            while ( x.hasNext() ) {
+                TextHit hit = x.next() ;
+                if ( hit.getNode().equals(s) )
+                    return IterLib.result(hitToBinding(binding, null, score, hit), execCxt) ;
+            }
             return IterLib.noResults(execCxt) ;
-        else
-            return IterLib.result(binding, execCxt) ;
+        } finally {
+            Iter.close(x) ;
+        }
+    }
+
+    private static Binding hitToBinding(Binding binding, Var subject, Var score, TextHit hit) {
+        if ( score == null )
+            return subject == null ? binding : BindingFactory.binding(binding, subject, hit.getNode()) ;
+        BindingMap b = BindingFactory.create(binding) ;
+        if ( subject != null )
+            b.add(subject, hit.getNode()) ;
+        b.add(score, NodeFactoryExtra.floatToNode(hit.getScore())) ;
+        return b ;
     }
 
-    private List<Node> query(String queryString, int limit, ExecutionContext execCxt) {
+    private Iterator<TextHit> query(String queryString, int limit, ExecutionContext execCxt) {
         // use the graph information in the text index if possible
         if (server.getDocDef().getGraphField() != null
             && execCxt.getActiveGraph() instanceof GraphView) {
@@ -186,7 +249,7 @@ public class TextQueryPF extends PropertyFunctionBase {
         Explain.explain(execCxt.getContext(), "Text query: "+queryString) ;
         if ( log.isDebugEnabled())
             log.debug("Text query: {} ({})", queryString,limit) ;
-        return server.query(queryString, limit) ;
+        return server.queryHits(queryString, limit) ;
     }
     
     /** Deconstruct the node or list object argument and make a StrMatch */
@@ -20,6 +20,7 @@ package org.apache.jena.query.text.assembler ;
 
 import static org.apache.jena.query.text.assembler.TextVocab.pDirectory ;
 import static org.apache.jena.query.text.assembler.TextVocab.pEntityMap ;
+import static org.apache.jena.query.text.assembler.TextVocab.pRefreshInterval ;
 
 import java.io.File ;
 import java.io.IOException ;
@@ -47,6 +48,9 @@ public class TextIndexLuceneAssembler extends AssemblerBase {
         #text:directory "mem" ;
         text:directory <file:DIR> ;
         text:entityMap <#endMap> ;
+        # Optional: milliseconds between checks for changes made by others
+        # (0 - every query, -1 - never, the default)
+        #text:refreshInterval 1000 ;
         .
     */
 
@@ -73,7 +77,19 @@ public class TextIndexLuceneAssembler extends AssemblerBase {
             Resource r = GraphUtils.getResourceValue(root, pEntityMap) ;
             EntityDefinition docDef = (EntityDefinition)a.open(r) ;
 
-            return TextDatasetFactory.createLuceneIndex(directory, docDef) ;
+            long refreshInterval = -1 ;
+            if ( root.hasProperty(pRefreshInterval) ) {
+                RDFNode x = root.getProperty(pRefreshInterval).getObject() ;
+                if ( !x.isLiteral() )
+                    throw new TextIndexException("'text:refreshInterval' property on " + root + " is not a literal") ;
+                try {
+                    refreshInterval = Long.parseLong(x.asLiteral().getLexicalForm()) ;
+                } catch (NumberFormatException ex) {
+                    throw new TextIndexException("'text:refreshInterval' property on " + root + " is not a number: " + x) ;
+                }
+            }
+
+            return TextDatasetFactory.createLuceneIndex(directory, docDef, refreshInterval) ;
         } catch (IOException e) {
             IO.exception(e) ;
             return null ;
@@ -37,6 +37,7 @@ public class TextVocab
     public static final Resource textIndexLucene    = Vocab.resource(NS, "TextIndexLucene") ;
     public static final Property pServer            = Vocab.property(NS, "server") ;            // Solr
     public static final Property pDirectory         = Vocab.property(NS, "directory") ;         // Lucene
+    public static final Property pRefreshInterval   = Vocab.property(NS, "refreshInterval") ;   // Lucene
     public static final Property pEntityMap         = Vocab.property(NS, "entityMap") ;
     
     // Entity definition
@@ -221,6 +221,105 @@ public abstract class AbstractTestDatasetWithTextIndex extends AbstractTestDatas
     }
 
 
+    @Test
+    public void propertyFunctionText_8() {
+        final String turtle = PF_DATA ;
+        String queryString = StrUtils.strjoinNL(
+                QUERY_PROLOG,
+                "SELECT ?s",
+                "WHERE {",
+                "    ?s rdfs:label ?x .",
+                "    ?s text:query ( rdfs:label 'text') .",
+                "}"
+                );
+        Set<String> expectedURIs = new HashSet<String>();
+        expectedURIs.addAll( Arrays.asList( R_S1 ) ) ;
+        doTestSearch(turtle, queryString, expectedURIs);
+    }
+
+    @Test
+    public void propertyFunctionText_9() {
+        final String turtle = PF_DATA ;
+        String queryString = StrUtils.strjoinNL(
+                QUERY_PROLOG,
+                "SELECT ?s",
+                "WHERE {",
+                "    VALUES ?s { <" + R_S1 + "> <" + R_S2 + "> }",
+                "    ?s text:query ( rdfs:label 'text fuzz') .",
+                "}"
+                );
+        Set<String> expectedURIs = new HashSet<String>();
+        expectedURIs.addAll( Arrays.asList( R_S1, R_S2 ) ) ;
+        doTestSearch(turtle, queryString, expectedURIs);
+    }
+
+    @Test
+    public void propertyFunctionText_score_1() {
+        final String turtle = StrUtils.strjoinNL(
+                TURTLE_PROLOG,
+                "<" + RESOURCE_BASE + "score1> rdfs:label 'scored' .",
+                "<" + RESOURCE_BASE + "score2> rdfs:label 'scored with a lot of other words' ."
+                );
+        String queryString = StrUtils.strjoinNL(
+                QUERY_PROLOG,
+                "SELECT ?s",
+                "WHERE {",
+                "    (?s ?score) text:query ( rdfs:label 'scored') .",
+                "    FILTER(?score > 0)",
+                "}",
+                "ORDER BY DESC(?score)",
+                "LIMIT 1"
+                );
+        Set<String> expectedURIs = new HashSet<String>();
+        expectedURIs.addAll( Arrays.asList( RESOURCE_BASE + "score1" ) ) ;
+        doTestSearch(turtle, queryString, expectedURIs);
+    }
+
+    @Test
+    public void propertyFunctionText_score_2() {
+        final String turtle = PF_DATA ;
+        String queryString = StrUtils.strjoinNL(
+                QUERY_PROLOG,
+                "SELECT ?s",
+                "WHERE {",
+                "    VALUES ?s { <" + R_S1 + "> <" + R_S2 + "> }",
+                "    (?s ?score) text:query ( rdfs:label 'text') .",
+                "    FILTER(?score > 0)",
+                "}"
+                );
+        Set<String> expectedURIs = new HashSet<String>();
+        expectedURIs.addAll( Arrays.asList( R_S1 ) ) ;
+        doTestSearch(turtle, queryString, expectedURIs);
+    }
+
+    @Test
+    public void propertyFunctionText_paged() {
+        // More results than are read from the index in one go.
+        StringBuilder turtle = new StringBuilder(TURTLE_PROLOG) ;
+        Set<String> expectedURIs = new HashSet<String>() ;
+        for ( int i = 0 ; i < 250 ; i++ ) {
+            String uri = RESOURCE_BASE + "paged" + i ;
+            turtle.append("\n<").append(uri).append("> rdfs:label 'paged' .") ;
+            expectedURIs.add(uri) ;
+        }
+        String queryString = StrUtils.strjoinNL(
+                QUERY_PROLOG,
+                "SELECT ?s",
+                "WHERE {",
+                "    ?s text:query ( rdfs:label 'paged') .",
+                "}"
+                );
+        doTestSearch("paged", turtle.toString(), queryString, expectedURIs, 250);
+        queryString = StrUtils.strjoinNL(
+                QUERY_PROLOG,
+                "SELECT ?s",
+                "WHERE {",
+                "    ?s text:query ( rdfs:label 'paged' 120) .",
+                "}"
+                );
+        doTestQuery(dataset, "paged limit", queryString, expectedURIs, 120);
+    }
+
     @Test
 	public void testMultipleResults() {
 		String label = "testMultipleResults";
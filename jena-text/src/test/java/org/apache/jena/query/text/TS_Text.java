@@ -36,6 +36,7 @@ import org.junit.runners.Suite.SuiteClasses ;
     //, TestDatasetWithEmbeddedSolrTextIndex.class
     
     , TestSearchBeforeWriteOnDatasetWithLuceneTextIndex.class
+    , TestTextIndexLucene.class
     , TestEntityMapAssembler.class
     , TestTextDatasetAssembler.class
     , TestTextIndexLuceneAssembler.class
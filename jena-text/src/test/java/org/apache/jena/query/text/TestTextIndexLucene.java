@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.query.text;
+
+import java.util.HashSet ;
+import java.util.Iterator ;
+import java.util.Set ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.lucene.analysis.standard.StandardAnalyzer ;
+import org.apache.lucene.document.Document ;
+import org.apache.lucene.document.Field ;
+import org.apache.lucene.index.IndexWriter ;
+import org.apache.lucene.index.IndexWriterConfig ;
+import org.apache.lucene.store.Directory ;
+import org.apache.lucene.store.RAMDirectory ;
+import org.junit.Test ;
+
+import com.hp.hpl.jena.graph.Node ;
+import com.hp.hpl.jena.graph.NodeFactory ;
+import com.hp.hpl.jena.query.Dataset ;
+import com.hp.hpl.jena.query.DatasetFactory ;
+import com.hp.hpl.jena.query.QueryExecution ;
+import com.hp.hpl.jena.query.QueryExecutionFactory ;
+import com.hp.hpl.jena.query.ResultSet ;
+import com.hp.hpl.jena.query.ResultSetFormatter ;
+
+public class TestTextIndexLucene extends BaseTest
+{
+    // A document written by some other application, with two entities.
+    private static Directory multivaluedEntity() throws Exception
+    {
+        Directory dir = new RAMDirectory() ;
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(TextIndexLucene.VER, new StandardAnalyzer(TextIndexLucene.VER))) ;
+        Document doc = new Document() ;
+        doc.add(new Field("uri", "http://example/x1", TextIndexLucene.ftIRI)) ;
+        doc.add(new Field("uri", "http://example/x2", TextIndexLucene.ftIRI)) ;
+        doc.add(new Field("label", "word", TextIndexLucene.ftText)) ;
+        writer.addDocument(doc) ;
+        writer.close() ;
+        return dir ;
+    }
+    
+    @Test public void hits_multivalued_entity_01() throws Exception
+    {
+        TextIndexLucene index = new TextIndexLucene(multivaluedEntity(), new EntityDefinition("uri", "label")) ;
+        Set<Node> nodes = new HashSet<Node>() ;
+        Iterator<TextHit> iter = index.queryHits("word", -1) ;
+        try {
+            while ( iter.hasNext() )
+                nodes.add(iter.next().getNode()) ;
+        } finally { Iter.close(iter) ; }
+        index.close() ;
+
+        assertEquals(2, nodes.size()) ;
+        assertTrue(nodes.contains(NodeFactory.createURI("http://example/x1"))) ;
+        assertTrue(nodes.contains(NodeFactory.createURI("http://example/x2"))) ;
+    }
+    
+    @Test public void query_multivalued_entity_01() throws Exception
+    {
+        // Bound subject that is not the first entity of the document.
+        TextQuery.init() ;
+        Dataset ds = TextDatasetFactory.createLucene(DatasetFactory.createMem(), multivaluedEntity(), new EntityDefinition("uri", "label")) ;
+        String qs = "PREFIX text: <http://jena.apache.org/text#> SELECT * { <http://example/x2> text:query 'word' }" ;
+        QueryExecution qexec = QueryExecutionFactory.create(qs, ds) ;
+        try {
+            ResultSet rs = qexec.execSelect() ;
+            assertEquals(1, ResultSetFormatter.consume(rs)) ;
+        } finally { qexec.close() ; }
+    }
+}
@@ -24,6 +24,8 @@ import org.apache.jena.query.text.TextIndexLucene;
 import org.junit.Test;
 
 import com.hp.hpl.jena.assembler.Assembler;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.vocabulary.RDF;
 import com.hp.hpl.jena.vocabulary.RDFS;
 
 public class TestTextIndexLuceneAssembler extends AbstractTestTextAssembler {
@@ -31,6 +33,19 @@ public class TestTextIndexLuceneAssembler extends AbstractTestTextAssembler {
 	@Test public void testIndexHasEntityMap() {
 		TextIndexLucene indexLucene = (TextIndexLucene) Assembler.general.open(SIMPLE_INDEX_SPEC);
 		assertEquals(RDFS.label.asNode(), indexLucene.getDocDef().getPrimaryPredicate());		
+		assertEquals(-1, indexLucene.getRefreshInterval());
+		indexLucene.close();
+	}
+	
+	@Test public void testIndexRefreshInterval() {
+		Resource spec = model.createResource()
+				     .addProperty(RDF.type, TextVocab.textIndexLucene)
+				     .addProperty(TextVocab.pDirectory, "mem")
+				     .addProperty(TextVocab.pEntityMap, SIMPLE_ENTITY_MAP_SPEC)
+				     .addLiteral(TextVocab.pRefreshInterval, 500L);
+		TextIndexLucene indexLucene = (TextIndexLucene) Assembler.general.open(spec);
+		assertEquals(500, indexLucene.getRefreshInterval());
+		indexLucene.close();
 	}
 	
 	static {